@@ -6,8 +6,10 @@ import com.sun.tools.javac.code.Types;
 import com.sun.tools.javac.processing.JavacProcessingEnvironment;
 import java.beans.Introspector;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -29,6 +31,7 @@ import org.checkerframework.framework.util.AnnotatedTypes;
 import org.checkerframework.javacutil.AnnotationUtils;
 import org.checkerframework.javacutil.BugInCF;
 import org.checkerframework.javacutil.ElementUtils;
+import org.checkerframework.javacutil.Pair;
 import org.checkerframework.javacutil.TreeUtils;
 import org.checkerframework.javacutil.TypesUtils;
 import org.plumelib.util.ArraysPlume;
@@ -51,6 +54,15 @@ public class AutoValueSupport implements BuilderFrameworkSupport {
         this.atypeFactory = atypeFactory;
     }
 
+    /**
+     * A map from a builder and the AutoValue class that it builds to the @CalledMethods annotation
+     * that represents that all of its required setters have been called. Computing the required
+     * setters scans all the members of both classes and their supertypes, so it is done once per
+     * builder.
+     */
+    private final Map<Pair<TypeElement, TypeElement>, AnnotationMirror> requiredSettersAnnotations =
+            new HashMap<>();
+
     /**
      * This method modifies the type of a copy constructor generated by AutoValue to match the type
      * of the AutoValue toBuilder method, and has no effect if {@code tree} is a call to any other
@@ -199,6 +211,25 @@ public class AutoValueSupport implements BuilderFrameworkSupport {
      */
     private AnnotationMirror createCalledMethodsForAutoValueClass(
             TypeElement builderElement, TypeElement classElement) {
+        Pair<TypeElement, TypeElement> key = Pair.of(builderElement, classElement);
+        AnnotationMirror result = requiredSettersAnnotations.get(key);
+        if (result == null) {
+            result = computeCalledMethodsForAutoValueClass(builderElement, classElement);
+            requiredSettersAnnotations.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Computes the result of {@link #createCalledMethodsForAutoValueClass}, without caching.
+     *
+     * @param builderElement the element for the Builder class
+     * @param classElement the element for the AutoValue class
+     * @return an @CalledMethods annotation representing that all the required setters have been
+     *     called
+     */
+    private AnnotationMirror computeCalledMethodsForAutoValueClass(
+            TypeElement builderElement, TypeElement classElement) {
         Set<String> avBuilderSetterNames = getAutoValueBuilderSetterMethodNames(builderElement);
         List<String> requiredProperties =
                 getAutoValueRequiredProperties(classElement, avBuilderSetterNames);
@@ -75,6 +75,14 @@ public class LombokSupport implements BuilderFrameworkSupport {
      */
     private final Map<Element, Name> defaultedElements = new HashMap<>();
 
+    /**
+     * A map from a class with the @lombok.Builder annotation to the @CalledMethods annotation that
+     * represents that all of its required properties have been set. Computing the required
+     * properties scans all the members of the class and of its builder, so it is done once per
+     * class.
+     */
+    private final Map<Element, AnnotationMirror> requiredPropertiesAnnotations = new HashMap<>();
+
     @Override
     public boolean isBuilderBuildMethod(ExecutableElement candidateBuildElement) {
         TypeElement candidateGeneratedBuilderElement =
@@ -99,9 +107,8 @@ public class LombokSupport implements BuilderFrameworkSupport {
         // The class with the @lombok.Builder annotation...
         Element annotatedWithBuilderElement = generatedBuilderElement.getEnclosingElement();
 
-        List<String> requiredProperties = getLombokRequiredProperties(annotatedWithBuilderElement);
         AnnotationMirror newCalledMethodsAnno =
-                atypeFactory.createAccumulatorAnnotation(requiredProperties);
+                getRequiredPropertiesAnnotation(annotatedWithBuilderElement);
         builderBuildType.getReceiverType().addAnnotation(newCalledMethodsAnno);
     }
 
@@ -131,12 +138,29 @@ public class LombokSupport implements BuilderFrameworkSupport {
      * @param classElement corresponding AutoValue class
      */
     private void handleToBuilderType(AnnotatedTypeMirror type, Element classElement) {
-        List<String> requiredProperties = getLombokRequiredProperties(classElement);
-        AnnotationMirror calledMethodsAnno =
-                atypeFactory.createAccumulatorAnnotation(requiredProperties);
+        AnnotationMirror calledMethodsAnno = getRequiredPropertiesAnnotation(classElement);
         type.replaceAnnotation(calledMethodsAnno);
     }
 
+    /**
+     * Returns a @CalledMethods annotation that states that all the required properties of a
+     * {@code @lombok.Builder} class have been set.
+     *
+     * @param lombokClassElement the class with the @lombok.Builder annotation
+     * @return a @CalledMethods annotation for the required properties of {@code
+     *     lombokClassElement}
+     */
+    private AnnotationMirror getRequiredPropertiesAnnotation(Element lombokClassElement) {
+        AnnotationMirror result = requiredPropertiesAnnotations.get(lombokClassElement);
+        if (result == null) {
+            result =
+                    atypeFactory.createAccumulatorAnnotation(
+                            getLombokRequiredProperties(lombokClassElement));
+            requiredPropertiesAnnotations.put(lombokClassElement, result);
+        }
+        return result;
+    }
+
     /**
      * Computes the required properties of a @lombok.Builder class, i.e., the names of the fields
      * with @lombok.NonNull annotations.
@@ -15,10 +15,7 @@ import org.checkerframework.checker.i18nformatter.qual.I18nChecksFormat;
 import org.checkerframework.checker.i18nformatter.qual.I18nConversionCategory;
 import org.checkerframework.checker.i18nformatter.qual.I18nValidFormat;
 import org.checkerframework.checker.interning.qual.InternedDistinct;
-import org.checkerframework.checker.nullness.qual.EnsuresNonNull;
-import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
-import org.checkerframework.checker.nullness.qual.RequiresNonNull;
 import org.checkerframework.framework.qual.AnnotatedFor;
 
 /**
@@ -126,28 +123,29 @@ public class I18nFormatUtil {
         }
     }
 
+    /**
+     * A parser for {@link MessageFormat} patterns. Each call to {@link #parse} uses a new parser,
+     * because a parser holds the state of a single parse.
+     */
     private static class MessageFormatParser {
 
-        public static int maxOffset;
+        private int maxOffset;
 
-        /** The locale to use for formatting numbers and dates. Is set in {@link #parse}. */
-        private static @MonotonicNonNull Locale locale;
+        /** The locale to use for formatting numbers and dates. */
+        private final Locale locale = Locale.getDefault(Locale.Category.FORMAT);
 
-        /**
-         * An array of formatters, which are used to format the arguments. Is set in {@link #parse}.
-         */
-        private static @MonotonicNonNull List<I18nConversionCategory> categories;
+        /** An array of formatters, which are used to format the arguments. */
+        private final List<I18nConversionCategory> categories = new ArrayList<>();
 
         /**
          * The argument numbers corresponding to each formatter. (The formatters are stored in the
          * order they occur in the pattern, not in the order in which the arguments are specified.)
-         * Is set in {@link #parse}.
          */
-        private static @MonotonicNonNull List<Integer> argumentIndices;
+        private final List<Integer> argumentIndices = new ArrayList<>();
 
         // I think this means the number of format specifiers in the format string.
         /** The number of subformats. */
-        private static int numFormat;
+        private int numFormat;
 
         // Indices for segments
         private static final int SEG_RAW = 0;
@@ -178,30 +176,33 @@ public class I18nFormatUtil {
             "", "short", "medium", "long", "full"
         };
 
-        @EnsuresNonNull({"categories", "argumentIndices", "locale"})
+        /**
+         * Parses a {@link MessageFormat} pattern.
+         *
+         * @param pattern the pattern to parse
+         * @return the conversions in the pattern, in the order in which they occur
+         */
         public static I18nConversion[] parse(String pattern) {
-            MessageFormatParser.categories = new ArrayList<>();
-            MessageFormatParser.argumentIndices = new ArrayList<>();
-            MessageFormatParser.locale = Locale.getDefault(Locale.Category.FORMAT);
-            applyPattern(pattern);
-
-            I18nConversion[] ret = new I18nConversion[MessageFormatParser.numFormat];
-            for (int i = 0; i < MessageFormatParser.numFormat; i++) {
-                ret[i] = new I18nConversion(argumentIndices.get(i), categories.get(i));
+            MessageFormatParser parser = new MessageFormatParser();
+            parser.applyPattern(pattern);
+
+            I18nConversion[] ret = new I18nConversion[parser.numFormat];
+            for (int i = 0; i < parser.numFormat; i++) {
+                ret[i] =
+                        new I18nConversion(parser.argumentIndices.get(i), parser.categories.get(i));
             }
             return ret;
         }
 
         @SuppressWarnings("nullness:dereference.of.nullable") // complex rules for segments[i]
-        @RequiresNonNull({"argumentIndices", "categories", "locale"})
-        private static void applyPattern(String pattern) {
+        private void applyPattern(String pattern) {
             @Nullable StringBuilder[] segments = new StringBuilder[4];
             // Allocate only segments[SEG_RAW] here. The rest are
             // allocated on demand.
             segments[SEG_RAW] = new StringBuilder();
 
             int part = SEG_RAW;
-            MessageFormatParser.numFormat = 0;
+            numFormat = 0;
             boolean inQuote = false;
             int braceStack = 0;
             maxOffset = -1;
@@ -282,8 +283,7 @@ public class I18nFormatUtil {
         }
 
         /** Side-effects {@code categories} field, adding to it an I18nConversionCategory. */
-        @RequiresNonNull({"argumentIndices", "categories", "locale"})
-        private static void makeFormat(int offsetNumber, @Nullable StringBuilder[] textSegments) {
+        private void makeFormat(int offsetNumber, @Nullable StringBuilder[] textSegments) {
             String[] segments = new String[textSegments.length];
             for (int i = 0; i < textSegments.length; i++) {
                 StringBuilder oneseg = textSegments[i];
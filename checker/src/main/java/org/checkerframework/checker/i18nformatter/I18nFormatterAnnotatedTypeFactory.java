@@ -2,14 +2,10 @@ package org.checkerframework.checker.i18nformatter;
 
 import com.sun.source.tree.LiteralTree;
 import com.sun.source.tree.Tree;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.InputStream;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Properties;
 import java.util.ResourceBundle;
 import javax.lang.model.element.AnnotationMirror;
 import org.checkerframework.checker.i18nformatter.qual.I18nConversionCategory;
@@ -18,6 +14,7 @@ import org.checkerframework.checker.i18nformatter.qual.I18nFormatBottom;
 import org.checkerframework.checker.i18nformatter.qual.I18nFormatFor;
 import org.checkerframework.checker.i18nformatter.qual.I18nInvalidFormat;
 import org.checkerframework.checker.i18nformatter.qual.I18nUnknownFormat;
+import org.checkerframework.checker.propkey.PropertyFileIndex;
 import org.checkerframework.checker.signature.qual.CanonicalName;
 import org.checkerframework.common.basetype.BaseAnnotatedTypeFactory;
 import org.checkerframework.common.basetype.BaseTypeChecker;
@@ -93,37 +90,21 @@ public class I18nFormatterAnnotatedTypeFactory extends BaseAnnotatedTypeFactory
             } else {
                 for (String name : namesArr) {
                     try {
-                        Properties prop = new Properties();
-
                         ClassLoader cl = this.getClass().getClassLoader();
                         if (cl == null) {
                             // The class loader is null if the system class loader was used.
                             cl = ClassLoader.getSystemClassLoader();
                         }
-                        InputStream in = cl.getResourceAsStream(name);
-
-                        if (in == null) {
-                            // If the classloader didn't manage to load the file, try whether a
-                            // FileInputStream works. For absolute paths this might help.
-                            try {
-                                in = new FileInputStream(name);
-                            } catch (FileNotFoundException e) {
-                                // ignore
-                            }
-                        }
+                        Map<String, String> prop = PropertyFileIndex.getProperties(name, cl);
 
-                        if (in == null) {
+                        if (prop == null) {
                             System.err.println("Couldn't find the properties file: " + name);
                             // report(null, "propertykeychecker.filenotfound", name);
                             // return Collections.emptySet();
                             continue;
                         }
 
-                        prop.load(in);
-
-                        for (String key : prop.stringPropertyNames()) {
-                            result.put(key, prop.getProperty(key));
-                        }
+                        result.putAll(prop);
                     } catch (Exception e) {
                         // TODO: is there a nicer way to report messages, that are not connected to
                         // an AST node?  One cannot use report, because it needs a node.
@@ -6,9 +6,11 @@ import com.sun.source.util.TreePath;
 import java.lang.annotation.Annotation;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.type.TypeKind;
@@ -18,6 +20,7 @@ import org.checkerframework.checker.index.qual.LessThan;
 import org.checkerframework.checker.index.qual.LessThanBottom;
 import org.checkerframework.checker.index.qual.LessThanUnknown;
 import org.checkerframework.checker.index.upperbound.OffsetEquation;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.common.basetype.BaseAnnotatedTypeFactory;
 import org.checkerframework.common.basetype.BaseTypeChecker;
 import org.checkerframework.common.value.ValueAnnotatedTypeFactory;
@@ -26,6 +29,7 @@ import org.checkerframework.common.value.ValueCheckerUtils;
 import org.checkerframework.common.value.qual.ArrayLen;
 import org.checkerframework.common.value.qual.ArrayLenRange;
 import org.checkerframework.common.value.qual.IntRange;
+import org.checkerframework.common.value.qual.IntRangeSet;
 import org.checkerframework.common.value.qual.IntVal;
 import org.checkerframework.dataflow.expression.FieldAccess;
 import org.checkerframework.dataflow.expression.Receiver;
@@ -36,6 +40,7 @@ import org.checkerframework.framework.util.FlowExpressionParseUtil.FlowExpressio
 import org.checkerframework.framework.util.dependenttypes.DependentTypesHelper;
 import org.checkerframework.javacutil.AnnotationBuilder;
 import org.checkerframework.javacutil.AnnotationUtils;
+import org.checkerframework.javacutil.CollectionUtils;
 
 /** The type factory for the Less Than Checker. */
 public class LessThanAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
@@ -46,6 +51,19 @@ public class LessThanAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
     public final AnnotationMirror LESS_THAN_UNKNOWN =
             AnnotationBuilder.fromClass(elements, LessThanUnknown.class);
 
+    /**
+     * Maps @LessThan annotations to the set of their expressions, so that the arguments of an
+     * annotation are not read each time it is compared. AnnotationMirrors do not override equals,
+     * so this cache hits when the same annotation object is examined again, as is the case for the
+     * annotations returned by {@link #createLessThanQualifier(List)}.
+     */
+    private final Map<AnnotationMirror, Set<String>> lessThanExpressionsCache =
+            CollectionUtils.createLRUCache(getCacheSize());
+
+    /** Maps lists of expressions to the @LessThan annotation that contains them. */
+    private final Map<List<String>, AnnotationMirror> lessThanQualifierCache =
+            CollectionUtils.createLRUCache(getCacheSize());
+
     public LessThanAnnotatedTypeFactory(BaseTypeChecker checker) {
         super(checker);
         postInit();
@@ -93,16 +111,16 @@ public class LessThanAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
 
         @Override
         public boolean isSubtype(AnnotationMirror subAnno, AnnotationMirror superAnno) {
-            List<String> subList = getLessThanExpressions(subAnno);
-            if (subList == null) {
+            Set<String> subSet = getLessThanExpressionSet(subAnno);
+            if (subSet == null) {
                 return true;
             }
-            List<String> superList = getLessThanExpressions(superAnno);
-            if (superList == null) {
+            Set<String> superSet = getLessThanExpressionSet(superAnno);
+            if (superSet == null) {
                 return false;
             }
 
-            return subList.containsAll(superList);
+            return subSet.size() >= superSet.size() && subSet.containsAll(superSet);
         }
 
         @Override
@@ -113,10 +131,10 @@ public class LessThanAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
                 return a1;
             }
 
-            List<String> a1List = getLessThanExpressions(a1);
-            List<String> a2List = getLessThanExpressions(a2);
-            List<String> lub = new ArrayList<>(a1List);
-            lub.retainAll(a2List);
+            Set<String> a1Set = getLessThanExpressionSet(a1);
+            Set<String> a2Set = getLessThanExpressionSet(a2);
+            List<String> lub = new ArrayList<>(a1Set);
+            lub.retainAll(a2Set);
 
             return createLessThanQualifier(lub);
         }
@@ -129,12 +147,10 @@ public class LessThanAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
                 return a2;
             }
 
-            List<String> a1List = getLessThanExpressions(a1);
-            List<String> a2List = getLessThanExpressions(a2);
-            List<String> glb = new ArrayList<>(a1List);
-            glb.addAll(a2List);
+            Set<String> glb = new LinkedHashSet<>(getLessThanExpressionSet(a1));
+            glb.addAll(getLessThanExpressionSet(a2));
 
-            return createLessThanQualifier(glb);
+            return createLessThanQualifier(new ArrayList<>(glb));
         }
     }
 
@@ -147,7 +163,9 @@ public class LessThanAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
      */
     public boolean isLessThan(Tree left, String right) {
         AnnotatedTypeMirror leftATM = getAnnotatedType(left);
-        return isLessThan(leftATM.getAnnotationInHierarchy(LESS_THAN_UNKNOWN), right);
+        Set<String> expressions =
+                getLessThanExpressionSet(leftATM.getAnnotationInHierarchy(LESS_THAN_UNKNOWN));
+        return expressions == null || expressions.contains(right);
     }
 
     /**
@@ -217,6 +235,12 @@ public class LessThanAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
         if (intRange != null) {
             return ValueAnnotatedTypeFactory.getRange(intRange).from;
         }
+        AnnotationMirror intRangeSet =
+                getValueAnnotatedTypeFactory()
+                        .getAnnotationFromReceiver(expressionRec, tree, IntRangeSet.class);
+        if (intRangeSet != null) {
+            return ValueAnnotatedTypeFactory.getRange(intRangeSet).from;
+        }
         AnnotationMirror intValue =
                 getValueAnnotatedTypeFactory()
                         .getAnnotationFromReceiver(expressionRec, tree, IntVal.class);
@@ -261,7 +285,13 @@ public class LessThanAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
      */
     public boolean isLessThanOrEqual(Tree left, String right) {
         AnnotatedTypeMirror leftATM = getAnnotatedType(left);
-        return isLessThanOrEqual(leftATM.getAnnotationInHierarchy(LESS_THAN_UNKNOWN), right);
+        Set<String> expressions =
+                getLessThanExpressionSet(leftATM.getAnnotationInHierarchy(LESS_THAN_UNKNOWN));
+        if (expressions == null) {
+            // left is bottom so it is always less than right.
+            return true;
+        }
+        return isLessThanOrEqual(expressions, right);
     }
 
     /**
@@ -277,6 +307,18 @@ public class LessThanAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
             // left is bottom so it is always less than right.
             return true;
         }
+        return isLessThanOrEqual(expressions, right);
+    }
+
+    /**
+     * Returns true if a value that is less than all of {@code expressions} is less than or equal
+     * to {@code right}.
+     *
+     * @param expressions the expressions that the left value is less than
+     * @param right the value to compare to
+     * @return true if {@code expressions} shows that the left value is at most {@code right}
+     */
+    private static boolean isLessThanOrEqual(Collection<String> expressions, String right) {
         if (expressions.contains(right)) {
             return true;
         }
@@ -318,11 +360,23 @@ public class LessThanAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
             return LESS_THAN_BOTTOM;
         } else if (expressions.isEmpty()) {
             return LESS_THAN_UNKNOWN;
-        } else {
-            AnnotationBuilder builder = new AnnotationBuilder(processingEnv, LessThan.class);
-            builder.setValue("value", expressions);
-            return builder.build();
         }
+        if (shouldCache) {
+            AnnotationMirror cached = lessThanQualifierCache.get(expressions);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        AnnotationBuilder builder = new AnnotationBuilder(processingEnv, LessThan.class);
+        builder.setValue("value", expressions);
+        AnnotationMirror result = builder.build();
+        if (shouldCache) {
+            List<String> key = new ArrayList<>(expressions);
+            lessThanQualifierCache.put(key, result);
+            lessThanExpressionsCache.put(
+                    result, Collections.unmodifiableSet(new LinkedHashSet<>(key)));
+        }
+        return result;
     }
 
     /** Returns {@code @LessThan(expression)}. */
@@ -346,4 +400,30 @@ public class LessThanAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
             return list;
         }
     }
+
+    /**
+     * Returns the set of expressions in the annotation. If the annotation is {@link
+     * LessThanBottom}, return null. If the annotation is {@link LessThanUnknown} return the empty
+     * set. Unlike {@link #getLessThanExpressions(AnnotationMirror)}, the result is cached and is
+     * unmodifiable.
+     *
+     * @param annotation an annotation from the Less Than hierarchy
+     * @return the unmodifiable set of expressions in the annotation, or null if it is bottom
+     */
+    private @Nullable Set<String> getLessThanExpressionSet(AnnotationMirror annotation) {
+        Set<String> result = shouldCache ? lessThanExpressionsCache.get(annotation) : null;
+        if (result != null) {
+            return result;
+        }
+        List<String> list = getLessThanExpressions(annotation);
+        if (list == null) {
+            return null;
+        }
+        result = list.isEmpty() ? Collections.emptySet() : new LinkedHashSet<>(list);
+        result = Collections.unmodifiableSet(result);
+        if (shouldCache) {
+            lessThanExpressionsCache.put(annotation, result);
+        }
+        return result;
+    }
 }
@@ -27,6 +27,10 @@ import org.checkerframework.javacutil.Pair;
 /**
  * Abstraction for Upper Bound annotations.
  *
+ * <p>UBQualifiers are immutable: every operation returns a new qualifier. {@link
+ * UpperBoundAnnotatedTypeFactory#getUBQualifier(AnnotationMirror)} caches the qualifier of each
+ * annotation.
+ *
  * <p>{@link UpperBoundUnknown} is modeled as {@link UpperBoundUnknownQualifier} and {@link
  * UpperBoundBottom} is modeled as {@link UBQualifier.UpperBoundBottomQualifier}.
  *
@@ -685,6 +689,8 @@ public abstract class UBQualifier {
                 if (glb == null) {
                     glb = otherglb;
                 } else if (otherglb != null) {
+                    // Do not modify the offsets of this qualifier, which may be cached.
+                    glb = new HashSet<>(glb);
                     glb.addAll(otherglb);
                 }
                 glbMap.put(sequence, simplifyOffsets(glb));
@@ -0,0 +1,191 @@
+package org.checkerframework.checker.index.upperbound;
+
+import java.util.List;
+import java.util.Map;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.util.ElementFilter;
+import org.checkerframework.checker.index.upperbound.UBQualifier.LessThanLengthOf;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.javacutil.AnnotationUtils;
+import org.checkerframework.javacutil.CollectionUtils;
+
+/**
+ * Bounded caches of the conversions between the annotations of the Upper Bound hierarchy and the
+ * {@link UBQualifier}s that they represent, so that the arguments of an annotation are not parsed
+ * each time it is examined.
+ *
+ * <p>Annotations are compared with {@link AnnotationUtils#areSame}, not by identity: an annotation
+ * hits the cache if an annotation with the same name and element values was converted before,
+ * even if it is a different object. This is the case, for example, for an annotation that is
+ * written several times in the source code.
+ */
+public final class UBQualifierCache {
+
+    /** The processing environment, which is used to create annotations. */
+    private final ProcessingEnvironment processingEnv;
+
+    /** Maps annotations to the qualifiers that they represent. */
+    private final Map<AnnotationKey, UBQualifier> qualifiers;
+
+    /**
+     * Maps {@link LessThanLengthOf} qualifiers to the annotations that represent them, so that
+     * equal qualifiers are converted to the same annotation object.
+     */
+    private final Map<LessThanLengthOf, AnnotationMirror> annotations;
+
+    /** The number of calls to {@link #getQualifier} that found an entry. */
+    private int hits = 0;
+
+    /** The number of calls to {@link #getQualifier} that did not find an entry. */
+    private int misses = 0;
+
+    /**
+     * Creates new, empty caches.
+     *
+     * @param processingEnv the processing environment
+     * @param maxSize the maximum number of entries of each cache; the least recently used entry is
+     *     evicted first
+     */
+    public UBQualifierCache(ProcessingEnvironment processingEnv, int maxSize) {
+        this.processingEnv = processingEnv;
+        this.qualifiers = CollectionUtils.createLRUCache(maxSize);
+        this.annotations = CollectionUtils.createLRUCache(maxSize);
+    }
+
+    /**
+     * Returns the qualifier that the given annotation represents. This is the same as {@link
+     * UBQualifier#createUBQualifier(AnnotationMirror)}, but the result is cached.
+     *
+     * @param am an annotation from the Upper Bound hierarchy
+     * @return the qualifier that {@code am} represents
+     */
+    public UBQualifier getQualifier(AnnotationMirror am) {
+        AnnotationKey key = new AnnotationKey(am);
+        UBQualifier result = qualifiers.get(key);
+        if (result != null) {
+            hits++;
+            return result;
+        }
+        misses++;
+        result = UBQualifier.createUBQualifier(am);
+        qualifiers.put(key, result);
+        return result;
+    }
+
+    /**
+     * Returns the annotation that represents the given qualifier. Equal qualifiers are converted to
+     * the same annotation object.
+     *
+     * @param qualifier a qualifier
+     * @return the annotation that represents {@code qualifier}
+     */
+    public AnnotationMirror getAnnotation(LessThanLengthOf qualifier) {
+        AnnotationMirror result = annotations.get(qualifier);
+        if (result == null) {
+            result = qualifier.convertToAnnotation(processingEnv);
+            annotations.put(qualifier, result);
+            qualifiers.put(new AnnotationKey(result), qualifier);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of calls to {@link #getQualifier} that found an entry.
+     *
+     * @return the number of calls to {@link #getQualifier} that found an entry
+     */
+    public int getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of calls to {@link #getQualifier} that did not find an entry.
+     *
+     * @return the number of calls to {@link #getQualifier} that did not find an entry
+     */
+    public int getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of annotations whose qualifiers are cached.
+     *
+     * @return the number of annotations whose qualifiers are cached
+     */
+    public int size() {
+        return qualifiers.size();
+    }
+
+    /**
+     * A key of {@link #qualifiers}. AnnotationMirrors do not override equals and hashCode, so the
+     * key compares them with {@link AnnotationUtils#areSame} and computes a hash code that is
+     * consistent with it.
+     */
+    private static final class AnnotationKey {
+
+        /** The annotation. */
+        private final AnnotationMirror annotation;
+
+        /** The hash code of the annotation. */
+        private final int hashCode;
+
+        /**
+         * Creates the key of the given annotation.
+         *
+         * @param annotation the annotation
+         */
+        AnnotationKey(AnnotationMirror annotation) {
+            this.annotation = annotation;
+            int hash = AnnotationUtils.annotationName(annotation).hashCode();
+            Map<? extends ExecutableElement, ? extends AnnotationValue> values =
+                    annotation.getElementValues();
+            for (ExecutableElement meth :
+                    ElementFilter.methodsIn(
+                            annotation.getAnnotationType().asElement().getEnclosedElements())) {
+                AnnotationValue value = values.get(meth);
+                if (value == null) {
+                    value = meth.getDefaultValue();
+                }
+                hash = 31 * hash + hashValue(value == null ? null : value.getValue());
+            }
+            this.hashCode = hash;
+        }
+
+        /**
+         * Returns a hash code of the given annotation value that is consistent with {@link
+         * AnnotationUtils#sameAnnotationValue}. The elements of the Upper Bound annotations are
+         * strings and arrays of strings; other values do not contribute to the hash code.
+         *
+         * @param value a value returned by {@code AnnotationValue.getValue()}
+         * @return a hash code of {@code value}
+         */
+        private static int hashValue(@Nullable Object value) {
+            if (value instanceof String) {
+                return value.hashCode();
+            } else if (value instanceof AnnotationValue) {
+                return hashValue(((AnnotationValue) value).getValue());
+            } else if (value instanceof List<?>) {
+                int hash = 1;
+                for (Object element : (List<?>) value) {
+                    hash = 31 * hash + hashValue(element);
+                }
+                return hash;
+            }
+            return 0;
+        }
+
+        @Override
+        public boolean equals(@Nullable Object o) {
+            return o instanceof AnnotationKey
+                    && AnnotationUtils.areSame(annotation, ((AnnotationKey) o).annotation);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
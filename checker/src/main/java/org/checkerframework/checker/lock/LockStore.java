@@ -217,6 +217,19 @@ public class LockStore extends CFAbstractStore<CFValue, LockStore> {
         }
     }
 
+    /**
+     * Returns true if the given lock is held at the program point of this store: that is, if its
+     * value has the annotation @LockHeld. Values are indexed by expression, so this is a hash
+     * lookup followed by a membership test.
+     *
+     * @param lock a lock expression
+     * @return true if {@code lock} is known to be held
+     */
+    public boolean isLockHeld(Receiver lock) {
+        CFValue value = getValue(lock);
+        return value != null && hasLockHeld(value);
+    }
+
     boolean hasLockHeld(CFValue value) {
         return AnnotationUtils.containsSame(value.getAnnotations(), atypeFactory.LOCKHELD);
     }
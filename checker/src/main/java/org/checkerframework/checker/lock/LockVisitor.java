@@ -4,6 +4,7 @@ import com.sun.source.tree.AnnotatedTypeTree;
 import com.sun.source.tree.AnnotationTree;
 import com.sun.source.tree.ArrayAccessTree;
 import com.sun.source.tree.BinaryTree;
+import com.sun.source.tree.ClassTree;
 import com.sun.source.tree.CompoundAssignmentTree;
 import com.sun.source.tree.ExpressionTree;
 import com.sun.source.tree.IdentifierTree;
@@ -15,10 +16,14 @@ import com.sun.source.tree.Tree;
 import com.sun.source.tree.Tree.Kind;
 import com.sun.source.tree.VariableTree;
 import com.sun.source.util.TreePath;
+import com.sun.source.util.TreeScanner;
 import java.lang.annotation.Annotation;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.locks.Lock;
 import java.util.regex.Matcher;
@@ -40,7 +45,7 @@ import org.checkerframework.checker.lock.qual.GuardedBy;
 import org.checkerframework.checker.lock.qual.GuardedByBottom;
 import org.checkerframework.checker.lock.qual.GuardedByUnknown;
 import org.checkerframework.checker.lock.qual.Holding;
-import org.checkerframework.checker.lock.qual.LockHeld;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.common.basetype.BaseTypeChecker;
 import org.checkerframework.common.basetype.BaseTypeVisitor;
 import org.checkerframework.dataflow.expression.FlowExpressions;
@@ -48,12 +53,10 @@ import org.checkerframework.dataflow.expression.Receiver;
 import org.checkerframework.dataflow.expression.Unknown;
 import org.checkerframework.dataflow.qual.Deterministic;
 import org.checkerframework.dataflow.qual.Pure;
-import org.checkerframework.framework.flow.CFAbstractValue;
 import org.checkerframework.framework.type.AnnotatedTypeFactory.ParameterizedExecutableType;
 import org.checkerframework.framework.type.AnnotatedTypeMirror;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedDeclaredType;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedExecutableType;
-import org.checkerframework.framework.type.QualifierHierarchy;
 import org.checkerframework.framework.util.AnnotatedTypes;
 import org.checkerframework.framework.util.FlowExpressionParseUtil;
 import org.checkerframework.framework.util.FlowExpressionParseUtil.FlowExpressionContext;
@@ -62,6 +65,7 @@ import org.checkerframework.framework.util.dependenttypes.DependentTypesError;
 import org.checkerframework.javacutil.AnnotationUtils;
 import org.checkerframework.javacutil.BugInCF;
 import org.checkerframework.javacutil.ElementUtils;
+import org.checkerframework.javacutil.Pair;
 import org.checkerframework.javacutil.TreeUtils;
 import org.checkerframework.javacutil.TypesUtils;
 
@@ -1208,18 +1212,7 @@ public class LockVisitor extends BaseTypeVisitor<LockAnnotatedTypeFactory> {
     }
 
     private boolean isLockHeld(Receiver lock, LockStore store) {
-        if (store == null) {
-            return false;
-        }
-        CFAbstractValue<?> value = store.getValue(lock);
-        if (value == null) {
-            return false;
-        }
-        Set<AnnotationMirror> annos = value.getAnnotations();
-        QualifierHierarchy hierarchy = atypeFactory.getQualifierHierarchy();
-        AnnotationMirror lockAnno =
-                hierarchy.findAnnotationInSameHierarchy(annos, atypeFactory.LOCKHELD);
-        return lockAnno != null && atypeFactory.areSameByClass(lockAnno, LockHeld.class);
+        return store != null && store.isLockHeld(lock);
     }
 
     private List<LockExpression> getLockExpressions(
@@ -1233,14 +1226,21 @@ public class LockVisitor extends BaseTypeVisitor<LockAnnotatedTypeFactory> {
         }
 
         TreePath currentPath = getCurrentPath();
-        List<Receiver> params =
-                FlowExpressions.getParametersOfEnclosingMethod(atypeFactory, currentPath);
-
-        TypeMirror enclosingType = TreeUtils.typeOf(TreeUtils.enclosingClass(currentPath));
-        Receiver pseudoReceiver =
-                FlowExpressions.internalReprOfPseudoReceiver(currentPath, enclosingType);
-        FlowExpressionContext exprContext =
-                new FlowExpressionContext(pseudoReceiver, params, atypeFactory.getContext());
+        MethodLockExpressions memo = getMethodLockExpressions(currentPath);
+        Receiver pseudoReceiver;
+        FlowExpressionContext exprContext;
+        if (memo != null) {
+            pseudoReceiver = memo.pseudoReceiver;
+            exprContext = memo.context;
+        } else {
+            List<Receiver> params =
+                    FlowExpressions.getParametersOfEnclosingMethod(atypeFactory, currentPath);
+            TypeMirror enclosingType = TreeUtils.typeOf(TreeUtils.enclosingClass(currentPath));
+            pseudoReceiver =
+                    FlowExpressions.internalReprOfPseudoReceiver(currentPath, enclosingType);
+            exprContext =
+                    new FlowExpressionContext(pseudoReceiver, params, atypeFactory.getContext());
+        }
         Receiver self;
         if (implicitThis) {
             self = pseudoReceiver;
@@ -1252,35 +1252,198 @@ public class LockVisitor extends BaseTypeVisitor<LockAnnotatedTypeFactory> {
 
         List<LockExpression> lockExpressions = new ArrayList<>();
         for (String expression : expressions) {
-            lockExpressions.add(parseExpressionString(expression, exprContext, currentPath, self));
+            LockExpression lockExpression =
+                    getLockExpression(expression, exprContext, currentPath, self, memo);
+            if (lockExpression.isSelfExpression
+                    && lockExpression.lockExpression != null
+                    && !atypeFactory.isExpressionEffectivelyFinal(lockExpression.lockExpression)) {
+                checker.reportError(
+                        currentPath.getLeaf(),
+                        "lock.expression.not.final",
+                        lockExpression.lockExpression);
+            }
+            lockExpressions.add(lockExpression);
         }
         return lockExpressions;
     }
 
+    /**
+     * The lock expressions parsed in one method. Within a method, a lock expression string denotes
+     * the same expression wherever it is used, unless it mentions a local variable or local class,
+     * whose scope is only part of the method.
+     */
+    private static class MethodLockExpressions {
+        /** The method. */
+        final MethodTree method;
+
+        /** The class that encloses the uses of lock expressions in {@link #method}. */
+        final ClassTree enclosingClass;
+
+        /** The pseudo-receiver used to parse lock expressions in the method. */
+        final Receiver pseudoReceiver;
+
+        /** The context used to parse lock expressions in the method. */
+        final FlowExpressionContext context;
+
+        /** The names of the local variables and local classes declared in the method. */
+        final Set<String> localNames;
+
+        /** The parsed lock expressions, keyed by expression string and {@code <self>} receiver. */
+        final Map<Pair<String, Receiver>, LockExpression> parsed = new HashMap<>();
+
+        /**
+         * Creates an empty memo for the given method.
+         *
+         * @param method the method
+         * @param enclosingClass the class that encloses the uses of lock expressions
+         * @param pseudoReceiver the pseudo-receiver used to parse lock expressions
+         * @param context the context used to parse lock expressions
+         * @param localNames the names of the local variables and classes declared in the method
+         */
+        MethodLockExpressions(
+                MethodTree method,
+                ClassTree enclosingClass,
+                Receiver pseudoReceiver,
+                FlowExpressionContext context,
+                Set<String> localNames) {
+            this.method = method;
+            this.enclosingClass = enclosingClass;
+            this.pseudoReceiver = pseudoReceiver;
+            this.context = context;
+            this.localNames = localNames;
+        }
+    }
+
+    /** The lock expressions parsed in the method that is being visited, or null. */
+    private @Nullable MethodLockExpressions methodLockExpressions = null;
+
+    /** Splits a lock expression into the identifiers that it contains. */
+    private static final Pattern NON_IDENTIFIER_PATTERN =
+            Pattern.compile("[^\\p{javaJavaIdentifierPart}]+");
+
+    /**
+     * Returns the lock expressions parsed in the method that encloses the given path, creating the
+     * memo if the path is in a different method than the last one.
+     *
+     * @param path the path of a tree whose lock expressions are checked
+     * @return the lock expressions parsed in the enclosing method, or null if the path is not in a
+     *     method
+     */
+    private @Nullable MethodLockExpressions getMethodLockExpressions(TreePath path) {
+        MethodTree method = TreeUtils.enclosingMethod(path);
+        if (method == null || method.getBody() == null) {
+            return null;
+        }
+        ClassTree enclosingClass = TreeUtils.enclosingClass(path);
+        if (methodLockExpressions != null
+                && methodLockExpressions.method == method
+                && methodLockExpressions.enclosingClass == enclosingClass) {
+            return methodLockExpressions;
+        }
+
+        List<Receiver> params = FlowExpressions.getParametersOfEnclosingMethod(atypeFactory, path);
+        Receiver pseudoReceiver =
+                FlowExpressions.internalReprOfPseudoReceiver(
+                        path, TreeUtils.typeOf(enclosingClass));
+        FlowExpressionContext context =
+                new FlowExpressionContext(pseudoReceiver, params, atypeFactory.getContext());
+        Set<String> localNames = new HashSet<>();
+        new TreeScanner<Void, Void>() {
+            @Override
+            public Void visitVariable(VariableTree node, Void p) {
+                localNames.add(node.getName().toString());
+                return super.visitVariable(node, p);
+            }
+
+            @Override
+            public Void visitClass(ClassTree node, Void p) {
+                localNames.add(node.getSimpleName().toString());
+                return super.visitClass(node, p);
+            }
+        }.scan(method.getBody(), null);
+        methodLockExpressions =
+                new MethodLockExpressions(
+                        method, enclosingClass, pseudoReceiver, context, localNames);
+        return methodLockExpressions;
+    }
+
+    /**
+     * Returns the parsed lock expression for the given expression string, from {@code memo} if
+     * possible.
+     *
+     * @param expression a lock expression string
+     * @param flowExprContext the context in which to parse {@code expression}
+     * @param path the path of the tree whose lock expressions are checked
+     * @param itself the expression that {@code <self>} refers to
+     * @param memo the lock expressions parsed in the enclosing method, or null
+     * @return the parsed lock expression
+     */
+    private LockExpression getLockExpression(
+            String expression,
+            FlowExpressionContext flowExprContext,
+            TreePath path,
+            Receiver itself,
+            @Nullable MethodLockExpressions memo) {
+        if (memo == null
+                || itself.containsUnknown()
+                || mentionsLocalName(expression, itself, memo)) {
+            return parseExpressionString(expression, flowExprContext, path, itself);
+        }
+        Pair<String, Receiver> key = Pair.of(expression, itself);
+        LockExpression result = memo.parsed.get(key);
+        if (result == null) {
+            result = parseExpressionString(expression, flowExprContext, path, itself);
+            memo.parsed.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns true if the given lock expression, once {@code <self>} is replaced by {@code itself},
+     * may refer to a local variable or local class declared in the method of {@code memo}.
+     *
+     * @param expression a lock expression string
+     * @param itself the expression that {@code <self>} refers to
+     * @param memo the lock expressions parsed in the enclosing method
+     * @return true if the parse of {@code expression} may depend on where in the method it occurs
+     */
+    private static boolean mentionsLocalName(
+            String expression, Receiver itself, MethodLockExpressions memo) {
+        if (memo.localNames.isEmpty()) {
+            return false;
+        }
+        String toParse =
+                expression.startsWith("<self>") ? itself + expression.substring(6) : expression;
+        for (String identifier : NON_IDENTIFIER_PATTERN.split(toParse)) {
+            if (memo.localNames.contains(identifier)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private LockExpression parseExpressionString(
             String expression,
             FlowExpressionContext flowExprContext,
             TreePath path,
             Receiver itself) {
 
-        LockExpression lockExpression = new LockExpression(expression);
         if (DependentTypesError.isExpressionError(expression)) {
+            LockExpression lockExpression = new LockExpression(expression, false);
             lockExpression.error = DependentTypesError.unparse(expression);
             return lockExpression;
         }
 
-        Matcher selfReceiverMatcher = SELF_RECEIVER_PATTERN.matcher(expression);
+        // Avoid matching the regular expression against expressions that cannot match it.
+        Matcher selfReceiverMatcher =
+                expression.startsWith("<self>") ? SELF_RECEIVER_PATTERN.matcher(expression) : null;
+        boolean isSelfExpression = selfReceiverMatcher != null && selfReceiverMatcher.matches();
+        LockExpression lockExpression = new LockExpression(expression, isSelfExpression);
         try {
-            if (selfReceiverMatcher.matches()) {
+            if (isSelfExpression) {
                 String remainingExpression = selfReceiverMatcher.group(2);
                 if (remainingExpression == null || remainingExpression.isEmpty()) {
                     lockExpression.lockExpression = itself;
-                    if (!atypeFactory.isExpressionEffectivelyFinal(lockExpression.lockExpression)) {
-                        checker.reportError(
-                                path.getLeaf(),
-                                "lock.expression.not.final",
-                                lockExpression.lockExpression);
-                    }
                     return lockExpression;
                 } else {
                     // TODO: The proper way to do this is to call
@@ -1300,12 +1463,6 @@ public class LockVisitor extends BaseTypeVisitor<LockAnnotatedTypeFactory> {
                                     flowExprContext,
                                     path,
                                     true);
-                    if (!atypeFactory.isExpressionEffectivelyFinal(lockExpression.lockExpression)) {
-                        checker.reportError(
-                                path.getLeaf(),
-                                "lock.expression.not.final",
-                                lockExpression.lockExpression);
-                    }
                     return lockExpression;
                 }
             } else {
@@ -1321,11 +1478,14 @@ public class LockVisitor extends BaseTypeVisitor<LockAnnotatedTypeFactory> {
 
     private static class LockExpression {
         final String expressionString;
+        /** True if the expression starts with {@code <self>}; its finality is checked per use. */
+        final boolean isSelfExpression;
         Receiver lockExpression = null;
         DependentTypesError error = null;
 
-        LockExpression(String expression) {
+        LockExpression(String expression, boolean isSelfExpression) {
             this.expressionString = expression;
+            this.isSelfExpression = isSelfExpression;
         }
     }
 }
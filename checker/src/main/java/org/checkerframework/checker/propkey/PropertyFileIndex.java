@@ -0,0 +1,120 @@
+package org.checkerframework.checker.propkey;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The contents of the properties files passed with {@code -Apropfiles}, shared by every
+ * compilation in the same JVM.
+ *
+ * <p>Builds that run many compilations in one process, such as a build daemon or a test suite,
+ * pass the same properties files to each of them. A file is parsed once, and its contents are
+ * reused until its modification time or size changes. Properties files that are not regular files
+ * on disk, such as entries of a jar, are parsed each time.
+ */
+public class PropertyFileIndex {
+
+    /** The contents of a properties file, and the state of the file when it was read. */
+    private static class Entry {
+        /** The modification time of the file, in milliseconds. */
+        final long lastModified;
+
+        /** The size of the file, in bytes. */
+        final long size;
+
+        /** The unmodifiable map from keys to values in the file. */
+        final Map<String, String> properties;
+
+        /**
+         * Creates a new entry.
+         *
+         * @param lastModified the modification time of the file
+         * @param size the size of the file
+         * @param properties the keys and values in the file
+         */
+        Entry(long lastModified, long size, Map<String, String> properties) {
+            this.lastModified = lastModified;
+            this.size = size;
+            this.properties = properties;
+        }
+    }
+
+    /** Maps the absolute path of a properties file to its contents. */
+    private static final Map<Path, Entry> index = new ConcurrentHashMap<>();
+
+    /** Do not instantiate. */
+    private PropertyFileIndex() {
+        throw new Error("Do not instantiate");
+    }
+
+    /**
+     * Returns the keys and values in the given properties file. The file is looked up as a
+     * resource of {@code cl}, then as a file name.
+     *
+     * @param name the name of a properties file
+     * @param cl the class loader in which to look up {@code name}
+     * @return the unmodifiable map from keys to values in the file, or null if it cannot be found
+     * @throws IOException if the file cannot be read
+     */
+    public static @Nullable Map<String, String> getProperties(String name, ClassLoader cl)
+            throws IOException {
+        URL url = cl.getResource(name);
+        Path path;
+        if (url == null) {
+            // If the classloader didn't manage to find the file, try whether it is a file name.
+            // For absolute paths this might help.
+            path = Paths.get(name);
+            if (!Files.isRegularFile(path)) {
+                return null;
+            }
+        } else if (url.getProtocol().equals("file")) {
+            try {
+                path = Paths.get(url.toURI());
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                return load(url);
+            }
+        } else {
+            return load(url);
+        }
+
+        path = path.toAbsolutePath();
+        long lastModified = Files.getLastModifiedTime(path).toMillis();
+        long size = Files.size(path);
+        Entry entry = index.get(path);
+        if (entry == null || entry.lastModified != lastModified || entry.size != size) {
+            entry = new Entry(lastModified, size, load(path.toUri().toURL()));
+            index.put(path, entry);
+        }
+        return entry.properties;
+    }
+
+    /**
+     * Parses a properties file.
+     *
+     * @param url the location of the properties file
+     * @return the unmodifiable map from keys to values in the file
+     * @throws IOException if the file cannot be read
+     */
+    private static Map<String, String> load(URL url) throws IOException {
+        Properties prop = new Properties();
+        try (InputStream in = url.openStream()) {
+            prop.load(in);
+        }
+        Map<String, String> result = new HashMap<>();
+        for (String key : prop.stringPropertyNames()) {
+            result.put(key, prop.getProperty(key));
+        }
+        return Collections.unmodifiableMap(result);
+    }
+}
@@ -4,14 +4,11 @@ import com.sun.source.tree.BinaryTree;
 import com.sun.source.tree.CompoundAssignmentTree;
 import com.sun.source.tree.LiteralTree;
 import com.sun.source.tree.Tree;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.InputStream;
 import java.lang.annotation.Annotation;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Locale;
-import java.util.Properties;
+import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.Set;
 import javax.lang.model.element.AnnotationMirror;
@@ -152,36 +149,22 @@ public class PropertyKeyAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
 
         for (String name : namesArr) {
             try {
-                Properties prop = new Properties();
-
                 ClassLoader cl = this.getClass().getClassLoader();
                 if (cl == null) {
                     // the class loader is null if the system class loader was
                     // used
                     cl = ClassLoader.getSystemClassLoader();
                 }
-                InputStream in = cl.getResourceAsStream(name);
-
-                if (in == null) {
-                    // if the classloader didn't manage to load the file, try
-                    // whether a FileInputStream works. For absolute paths this
-                    // might help.
-                    try {
-                        in = new FileInputStream(name);
-                    } catch (FileNotFoundException e) {
-                        // ignore
-                    }
-                }
+                Map<String, String> prop = PropertyFileIndex.getProperties(name, cl);
 
-                if (in == null) {
+                if (prop == null) {
                     checker.message(Kind.WARNING, "Couldn't find the properties file: " + name);
                     // report(null, "propertykeychecker.filenotfound", name);
                     // return Collections.emptySet();
                     continue;
                 }
 
-                prop.load(in);
-                result.addAll(prop.stringPropertyNames());
+                result.addAll(prop.keySet());
             } catch (Exception e) {
                 // TODO: is there a nicer way to report messages, that are not
                 // connected to an AST node?
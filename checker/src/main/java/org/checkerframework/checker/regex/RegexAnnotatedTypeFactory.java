@@ -16,6 +16,7 @@ import javax.lang.model.element.AnnotationValue;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.util.Elements;
+import org.checkerframework.checker.regex.RegexInfoCache.RegexInfo;
 import org.checkerframework.checker.regex.qual.PartialRegex;
 import org.checkerframework.checker.regex.qual.PolyRegex;
 import org.checkerframework.checker.regex.qual.Regex;
@@ -120,6 +121,15 @@ public class RegexAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
             TreeUtils.getMethod(
                     java.util.regex.Pattern.class.getCanonicalName(), "compile", 1, processingEnv);
 
+    /** The maximum number of entries in {@link #regexInfoCache}. */
+    private static final int REGEX_INFO_CACHE_SIZE = 1000;
+
+    /**
+     * A cache from the text of a String or char literal, or of a concatenation of partial regular
+     * expressions, to the result of compiling it as a regular expression.
+     */
+    private final RegexInfoCache regexInfoCache = new RegexInfoCache(REGEX_INFO_CACHE_SIZE);
+
     public RegexAnnotatedTypeFactory(BaseTypeChecker checker) {
         super(checker);
 
@@ -278,6 +288,27 @@ public class RegexAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
         return Pattern.compile(regexp).matcher("").groupCount();
     }
 
+    /**
+     * Returns whether the given string is a regular expression and, if so, its group count, and
+     * otherwise the reason it is not one. The string is compiled at most once while it remains in
+     * the cache.
+     *
+     * @param s a string that might be a regular expression
+     * @return the result of compiling {@code s} as a regular expression
+     */
+    public RegexInfo getRegexInfo(String s) {
+        return regexInfoCache.get(s);
+    }
+
+    /**
+     * Returns a description of the number of hits and misses in the regular expression cache.
+     *
+     * @return a description of the regular expression cache statistics
+     */
+    /*package-scope*/ String getRegexInfoCacheStatistics() {
+        return regexInfoCache.toString();
+    }
+
     @Override
     public Set<AnnotationMirror> getWidenedAnnotations(
             Set<AnnotationMirror> annos, TypeKind typeKind, TypeKind widenedTypeKind) {
@@ -328,9 +359,9 @@ public class RegexAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
                     regex = Character.toString((Character) tree.getValue());
                 }
                 if (regex != null) {
-                    if (RegexUtil.isRegex(regex)) {
-                        int groupCount = getGroupCount(regex);
-                        type.addAnnotation(createRegexAnnotation(groupCount));
+                    RegexInfo info = getRegexInfo(regex);
+                    if (info.isRegex()) {
+                        type.addAnnotation(createRegexAnnotation(info.groupCount));
                     } else {
                         type.addAnnotation(createPartialRegexAnnotation(regex));
                     }
@@ -371,9 +402,9 @@ public class RegexAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
                     String lRegex = getPartialRegexValue(lExpr);
                     String rRegex = getPartialRegexValue(rExpr);
                     String concat = lRegex + rRegex;
-                    if (RegexUtil.isRegex(concat)) {
-                        int groupCount = getGroupCount(concat);
-                        type.addAnnotation(createRegexAnnotation(groupCount));
+                    RegexInfo info = getRegexInfo(concat);
+                    if (info.isRegex()) {
+                        type.addAnnotation(createRegexAnnotation(info.groupCount));
                     } else {
                         type.addAnnotation(createPartialRegexAnnotation(concat));
                     }
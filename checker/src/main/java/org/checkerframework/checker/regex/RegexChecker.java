@@ -24,4 +24,14 @@ import org.checkerframework.framework.qual.StubFiles;
     Matcher.class,
     MatchResult.class
 })
-public class RegexChecker extends BaseTypeChecker {}
+public class RegexChecker extends BaseTypeChecker {
+
+    @Override
+    protected void printStats() {
+        super.printStats();
+        RegexAnnotatedTypeFactory atypeFactory = (RegexAnnotatedTypeFactory) getTypeFactory();
+        if (atypeFactory != null) {
+            System.out.println(atypeFactory.getRegexInfoCacheStatistics());
+        }
+    }
+}
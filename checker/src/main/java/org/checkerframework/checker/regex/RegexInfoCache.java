@@ -0,0 +1,122 @@
+package org.checkerframework.checker.regex;
+
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.javacutil.CollectionUtils;
+
+/**
+ * A bounded cache of the results of compiling strings as regular expressions. Each result records
+ * whether the string is a regular expression and either its number of groups or the message of the
+ * {@link PatternSyntaxException} that compiling it threw. Codebases with large tables of literals
+ * would otherwise compile each of them repeatedly.
+ *
+ * <p>The Regex Checker uses one cache per type factory, and prints its statistics when the {@code
+ * -AresourceStats} command-line option is supplied.
+ */
+public final class RegexInfoCache {
+
+    /** The result of compiling a string as a regular expression. */
+    public static final class RegexInfo {
+        /** The number of groups in the regular expression, or -1 if it is not a regex. */
+        public final int groupCount;
+
+        /** The message of the {@link PatternSyntaxException}, or null if it is a regex. */
+        public final @Nullable String errorMessage;
+
+        /**
+         * Creates a new RegexInfo.
+         *
+         * @param groupCount the number of groups, or -1 if the string is not a regex
+         * @param errorMessage the reason the string is not a regex, or null if it is a regex
+         */
+        private RegexInfo(int groupCount, @Nullable String errorMessage) {
+            this.groupCount = groupCount;
+            this.errorMessage = errorMessage;
+        }
+
+        /**
+         * Returns true if the string is a syntactically valid regular expression.
+         *
+         * @return true if the string is a syntactically valid regular expression
+         */
+        public boolean isRegex() {
+            return groupCount >= 0;
+        }
+    }
+
+    /** The cached results, keyed by the compiled string. */
+    private final Map<String, RegexInfo> cache;
+
+    /** The number of lookups that found an entry. */
+    private int hits = 0;
+
+    /** The number of lookups that did not find an entry. */
+    private int misses = 0;
+
+    /**
+     * Creates a new, empty cache.
+     *
+     * @param maxSize the maximum number of entries; the least recently used entry is evicted
+     *     first
+     */
+    public RegexInfoCache(int maxSize) {
+        cache = CollectionUtils.createLRUCache(maxSize);
+    }
+
+    /**
+     * Returns whether the given string is a regular expression and, if so, its group count. The
+     * string is compiled at most once while it remains in the cache.
+     *
+     * @param s a string that might be a regular expression
+     * @return the result of compiling {@code s} as a regular expression
+     */
+    public RegexInfo get(String s) {
+        RegexInfo info = cache.get(s);
+        if (info != null) {
+            hits++;
+            return info;
+        }
+        misses++;
+        try {
+            info = new RegexInfo(Pattern.compile(s).matcher("").groupCount(), null);
+        } catch (PatternSyntaxException e) {
+            info = new RegexInfo(-1, e.getMessage());
+        }
+        cache.put(s, info);
+        return info;
+    }
+
+    /**
+     * Returns the number of lookups that found an entry.
+     *
+     * @return the number of lookups that found an entry
+     */
+    public int getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that did not find an entry.
+     *
+     * @return the number of lookups that did not find an entry
+     */
+    public int getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of entries in the cache.
+     *
+     * @return the number of entries in the cache
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Regex cache: %d hits, %d misses, %d entries", hits, misses, size());
+    }
+}
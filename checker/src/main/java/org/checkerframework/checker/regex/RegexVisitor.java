@@ -4,15 +4,21 @@ import com.sun.source.tree.ExpressionTree;
 import com.sun.source.tree.LiteralTree;
 import com.sun.source.tree.MemberSelectTree;
 import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.Tree;
 import com.sun.source.tree.Tree.Kind;
 import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.TypeMirror;
+import org.checkerframework.checker.compilermsgs.qual.CompilerMessageKey;
+import org.checkerframework.checker.regex.qual.PartialRegex;
 import org.checkerframework.checker.regex.qual.Regex;
 import org.checkerframework.common.basetype.BaseTypeChecker;
 import org.checkerframework.common.basetype.BaseTypeVisitor;
 import org.checkerframework.framework.type.AnnotatedTypeMirror;
+import org.checkerframework.javacutil.AnnotationUtils;
+import org.checkerframework.javacutil.SystemUtil;
 import org.checkerframework.javacutil.TreeUtils;
 
 /**
@@ -26,6 +32,7 @@ import org.checkerframework.javacutil.TreeUtils;
  *   <li value="2">Checks compound String concatenation to ensure correct usage of Regex Strings.
  *   <li value="3">Checks calls to {@code MatchResult.start}, {@code MatchResult.end} and {@code
  *       MatchResult.group} to ensure that a valid group number is passed.
+ *   <li value="4">Explains why a string that is used as a regular expression is not one.
  * </ol>
  *
  * @see RegexChecker
@@ -126,6 +133,37 @@ public class RegexVisitor extends BaseTypeVisitor<RegexAnnotatedTypeFactory> {
         return super.visitMethodInvocation(node, p);
     }
 
+    /**
+     * Case 4: If a {@code @PartialRegex} string is used where a {@code @Regex} string is required,
+     * the error message also contains the message of the {@link
+     * java.util.regex.PatternSyntaxException} that compiling the string throws.
+     */
+    @Override
+    protected void commonAssignmentCheck(
+            AnnotatedTypeMirror varType,
+            AnnotatedTypeMirror valueType,
+            Tree valueTree,
+            @CompilerMessageKey String errorKey,
+            Object... extraArgs) {
+        AnnotationMirror partialRegexAnno = valueType.getAnnotation(PartialRegex.class);
+        if (partialRegexAnno == null || !varType.hasAnnotation(Regex.class)) {
+            super.commonAssignmentCheck(varType, valueType, valueTree, errorKey, extraArgs);
+            return;
+        }
+        commonAssignmentCheckStartDiagnostic(varType, valueType, valueTree);
+        String partialRegex =
+                AnnotationUtils.getElementValue(partialRegexAnno, "value", String.class, true);
+        // A @PartialRegex string is never a regular expression, so this is always a failure.
+        String errorMessage = atypeFactory.getRegexInfo(partialRegex).errorMessage;
+        commonAssignmentCheckEndDiagnostic(false, errorMessage, varType, valueType, valueTree);
+        String found = valueType.toString();
+        if (errorMessage != null) {
+            found += " (not a regular expression: " + errorMessage + ")";
+        }
+        checker.reportError(
+                valueTree, errorKey, SystemUtil.concatenate(extraArgs, found, varType.toString()));
+    }
+
     /** Case 2: Check String compound concatenation for valid Regex use. */
     // TODO: Remove this. This should be handled by flow.
     /*
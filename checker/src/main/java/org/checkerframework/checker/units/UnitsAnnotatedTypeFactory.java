@@ -78,11 +78,18 @@ public class UnitsAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
      */
     private Map<@CanonicalName String, UnitsRelations> unitsRel;
 
-    /** Map from canonical name of external qualifiers, to their Class. */
-    private static final Map<@CanonicalName String, Class<? extends Annotation>> externalQualsMap =
+    /**
+     * Map from canonical name of external qualifiers, to their Class. The map is not static,
+     * because the external units depend on the -Aunits and -AunitsDirs options of the compilation.
+     */
+    private final Map<@CanonicalName String, Class<? extends Annotation>> externalQualsMap =
             new HashMap<>();
 
-    private static final Map<String, AnnotationMirror> aliasMap = new HashMap<>();
+    /**
+     * Map from the name of an alias annotation to the corresponding base unit annotation. The map
+     * is not static, because its annotation mirrors belong to the compilation of this factory.
+     */
+    private final Map<String, AnnotationMirror> aliasMap = new HashMap<>();
 
     public UnitsAnnotatedTypeFactory(BaseTypeChecker checker) {
         // use true to enable flow inference, false to disable it
@@ -0,0 +1,52 @@
+package org.checkerframework.checker.test.junit;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import org.checkerframework.checker.nullness.NullnessChecker;
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.checkerframework.framework.test.TestConfiguration;
+import org.checkerframework.framework.test.TestConfigurationBuilder;
+import org.checkerframework.framework.test.TestUtilities;
+import org.checkerframework.framework.test.TypecheckExecutor;
+import org.checkerframework.framework.test.TypecheckResult;
+import org.junit.Test;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Tests that the annotated JDK gives the same results when its files, including its
+ * package-info.java files, are parsed on demand as when they are all parsed at startup.
+ */
+public class JdkLazyParsingTest extends CheckerFrameworkPerDirectoryTest {
+
+    /**
+     * Create a JdkLazyParsingTest.
+     *
+     * @param testFiles the files containing test code, which will be type-checked
+     */
+    public JdkLazyParsingTest(List<File> testFiles) {
+        super(testFiles, NullnessChecker.class, "jdk-lazy-parsing", "-Anomsgtext");
+    }
+
+    @Parameters
+    public static String[] getTestDirs() {
+        return new String[] {"jdk-lazy-parsing"};
+    }
+
+    /** Checks the same files with the {@code -AparseAllJdk} command-line option. */
+    @Test
+    public void runParsingAllJdk() {
+        List<String> options = new ArrayList<>(checkerOptions);
+        options.add("-AparseAllJdk");
+        TestConfiguration config =
+                TestConfigurationBuilder.buildDefaultConfiguration(
+                        testDir,
+                        testFiles,
+                        classpathExtra,
+                        checkerNames,
+                        options,
+                        TestUtilities.getShouldEmitDebugInfo());
+        TypecheckResult testResult = new TypecheckExecutor().runTest(config);
+        TestUtilities.assertTestDidNotFail(testResult);
+    }
+}
@@ -0,0 +1,108 @@
+package org.checkerframework.checker.test.junit;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.checkerframework.checker.regex.RegexChecker;
+import org.checkerframework.checker.regex.RegexInfoCache;
+import org.checkerframework.checker.regex.RegexInfoCache.RegexInfo;
+import org.checkerframework.framework.test.TestConfigurationBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Tests the cache of regular-expression compilation results that the Regex Checker uses. */
+public class RegexInfoCacheTest {
+
+    @Test
+    public void testHits() {
+        RegexInfoCache cache = new RegexInfoCache(10);
+        RegexInfo info = cache.get("(a)(b)");
+        Assert.assertTrue(info.isRegex());
+        Assert.assertEquals(2, info.groupCount);
+        Assert.assertNull(info.errorMessage);
+        Assert.assertSame(info, cache.get("(a)(b)"));
+        cache.get("c");
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(2, cache.getMisses());
+        Assert.assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testEviction() {
+        RegexInfoCache cache = new RegexInfoCache(2);
+        cache.get("a");
+        cache.get("b");
+        cache.get("a");
+        // Evicts "b", the least recently used entry.
+        cache.get("c");
+        Assert.assertEquals(2, cache.size());
+        cache.get("a");
+        Assert.assertEquals(2, cache.getHits());
+        cache.get("b");
+        Assert.assertEquals(4, cache.getMisses());
+    }
+
+    @Test
+    public void testInvalidPattern() {
+        RegexInfoCache cache = new RegexInfoCache(10);
+        RegexInfo info = cache.get("(unclosed");
+        Assert.assertFalse(info.isRegex());
+        Assert.assertEquals(-1, info.groupCount);
+        Assert.assertNotNull(info.errorMessage);
+        Assert.assertTrue(info.errorMessage, info.errorMessage.contains("Unclosed group"));
+        Assert.assertSame(info, cache.get("(unclosed"));
+        Assert.assertEquals(1, cache.getHits());
+    }
+
+    /**
+     * Checks that the error for a string that is not a regular expression contains the message of
+     * the exception that compiling the string throws.
+     */
+    @Test
+    public void testInvalidPatternDiagnostic() {
+        File outputDir = TestConfigurationBuilder.getOutputDirFromProperty();
+        outputDir.mkdirs();
+        List<String> options =
+                Arrays.asList(
+                        "-processor",
+                        RegexChecker.class.getName(),
+                        "-classpath",
+                        TestConfigurationBuilder.getDefaultClassPath(),
+                        "-d",
+                        outputDir.getPath());
+        File source = new File("tests", "regex-error-message/InvalidRegexMessage.java");
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager =
+                compiler.getStandardFileManager(null, null, null)) {
+            compiler.getTask(
+                            null,
+                            fileManager,
+                            diagnostics,
+                            options,
+                            null,
+                            fileManager.getJavaFileObjectsFromFiles(
+                                    Collections.singletonList(source)))
+                    .call();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            String message = diagnostic.getMessage(null);
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR
+                    && message.contains("argument.type.incompatible")
+                    && message.contains("Unclosed group")) {
+                return;
+            }
+        }
+        Assert.fail("The exception message was not reported: " + diagnostics.getDiagnostics());
+    }
+}
@@ -0,0 +1,94 @@
+package org.checkerframework.checker.test.junit;
+
+import com.sun.tools.javac.main.JavaCompiler;
+import com.sun.tools.javac.main.Option;
+import com.sun.tools.javac.processing.JavacProcessingEnvironment;
+import com.sun.tools.javac.util.Context;
+import com.sun.tools.javac.util.List;
+import com.sun.tools.javac.util.Options;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import org.checkerframework.checker.index.qual.LTLengthOf;
+import org.checkerframework.checker.index.upperbound.UBQualifier;
+import org.checkerframework.checker.index.upperbound.UBQualifier.LessThanLengthOf;
+import org.checkerframework.checker.index.upperbound.UBQualifierCache;
+import org.checkerframework.javacutil.AnnotationBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the cache of conversions between annotations and qualifiers that the Upper Bound Checker
+ * uses.
+ */
+public class UBQualifierCacheTest {
+
+    private final ProcessingEnvironment env;
+
+    public UBQualifierCacheTest() {
+        Context context = new Context();
+        Options options = Options.instance(context);
+        options.put(Option.SOURCE, "8");
+        options.put(Option.TARGET, "8");
+
+        env = JavacProcessingEnvironment.instance(context);
+        JavaCompiler javac = JavaCompiler.instance(context);
+        javac.initModules(List.nil());
+        javac.enterDone();
+    }
+
+    /**
+     * Returns a new {@code @LTLengthOf} annotation.
+     *
+     * @param sequence the sequence
+     * @param offset the offset
+     * @return a new {@code @LTLengthOf(value = sequence, offset = offset)} annotation
+     */
+    private AnnotationMirror ltLengthOf(String sequence, String offset) {
+        AnnotationBuilder builder = new AnnotationBuilder(env, LTLengthOf.class);
+        builder.setValue("value", new String[] {sequence});
+        builder.setValue("offset", new String[] {offset});
+        return builder.build();
+    }
+
+    @Test
+    public void testSameAnnotationsHit() {
+        UBQualifierCache cache = new UBQualifierCache(env, 10);
+        AnnotationMirror first = ltLengthOf("a", "1");
+        AnnotationMirror second = ltLengthOf("a", "1");
+        Assert.assertNotSame(first, second);
+
+        UBQualifier qualifier = cache.getQualifier(first);
+        Assert.assertSame(qualifier, cache.getQualifier(second));
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+        Assert.assertEquals(1, cache.size());
+
+        UBQualifier other = cache.getQualifier(ltLengthOf("a", "2"));
+        Assert.assertFalse(qualifier.equals(other));
+        Assert.assertEquals(2, cache.getMisses());
+        Assert.assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testConvertedAnnotationsHit() {
+        UBQualifierCache cache = new UBQualifierCache(env, 10);
+        LessThanLengthOf qualifier = (LessThanLengthOf) cache.getQualifier(ltLengthOf("a", "1"));
+        AnnotationMirror annotation = cache.getAnnotation(qualifier);
+        LessThanLengthOf equalQualifier =
+                (LessThanLengthOf) UBQualifier.createUBQualifier(ltLengthOf("a", "1"));
+        Assert.assertSame(annotation, cache.getAnnotation(equalQualifier));
+        Assert.assertSame(qualifier, cache.getQualifier(annotation));
+        Assert.assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void testEviction() {
+        UBQualifierCache cache = new UBQualifierCache(env, 1);
+        cache.getQualifier(ltLengthOf("a", "1"));
+        cache.getQualifier(ltLengthOf("b", "1"));
+        Assert.assertEquals(1, cache.size());
+        cache.getQualifier(ltLengthOf("a", "1"));
+        Assert.assertEquals(0, cache.getHits());
+        Assert.assertEquals(3, cache.getMisses());
+    }
+}
@@ -0,0 +1,30 @@
+import java.io.File;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+
+// Each dereference uses the annotated JDK of a different package, which is parsed only when one
+// of its classes is first used, unless -AparseAllJdk is supplied.
+class JdkLazyParsing {
+    void javaLang() {
+        // :: error: (dereference.of.nullable)
+        System.getProperty("key").length();
+        String.valueOf(1).length();
+    }
+
+    void javaUtil(Map<String, String> map) {
+        // :: error: (dereference.of.nullable)
+        map.get("key").length();
+        map.keySet().size();
+    }
+
+    void javaIo(File file) {
+        // :: error: (dereference.of.nullable)
+        file.getParent().length();
+        file.getName().length();
+    }
+
+    void javaLangRef(WeakReference<String> reference) {
+        // :: error: (dereference.of.nullable)
+        reference.get().length();
+    }
+}
@@ -0,0 +1,7 @@
+import java.util.regex.Pattern;
+
+class InvalidRegexMessage {
+    void compile() {
+        Pattern.compile("(unclosed");
+    }
+}
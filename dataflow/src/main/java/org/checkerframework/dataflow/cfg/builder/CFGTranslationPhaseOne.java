@@ -172,6 +172,7 @@ import org.checkerframework.javacutil.TreeUtils;
 import org.checkerframework.javacutil.TypeKindUtils;
 import org.checkerframework.javacutil.TypesUtils;
 import org.checkerframework.javacutil.trees.TreeBuilder;
+import org.plumelib.util.UniqueIdMap;
 
 /**
  * Class that performs phase one of the translation process. It generates the following information:
@@ -295,6 +296,13 @@ public class CFGTranslationPhaseOne extends TreePathScanner<Node, Void> {
      */
     final List<LambdaExpressionTree> declaredLambdas;
 
+    /**
+     * Unique IDs for the trees whose labels need to be distinguished, such as switch and try
+     * statements. The IDs are only unique within one control-flow graph, and the trees are
+     * released together with this object.
+     */
+    final UniqueIdMap<Tree> treeUids = new UniqueIdMap<>();
+
     /** The ArithmeticException type. */
     final TypeMirror arithmeticExceptionType;
     /** The AssertionError type. */
@@ -2124,7 +2132,7 @@ public class CFGTranslationPhaseOne extends TreePathScanner<Node, Void> {
             extendWithNode(
                     new MarkerNode(
                             switchTree,
-                            "start of switch statement #" + TreeUtils.treeUids.get(switchTree),
+                            "start of switch statement #" + treeUids.get(switchTree),
                             env.getTypeUtils()));
 
             Integer defaultIndex = null;
@@ -2149,7 +2157,7 @@ public class CFGTranslationPhaseOne extends TreePathScanner<Node, Void> {
             extendWithNode(
                     new MarkerNode(
                             switchTree,
-                            "end of switch statement #" + TreeUtils.treeUids.get(switchTree),
+                            "end of switch statement #" + treeUids.get(switchTree),
                             env.getTypeUtils()));
         }
 
@@ -3013,7 +3021,7 @@ public class CFGTranslationPhaseOne extends TreePathScanner<Node, Void> {
         extendWithNode(
                 new MarkerNode(
                         tree,
-                        "start of try statement #" + TreeUtils.treeUids.get(tree),
+                        "start of try statement #" + treeUids.get(tree),
                         env.getTypeUtils()));
 
         // TODO: Should we handle try-with-resources blocks by also generating code
@@ -3062,13 +3070,13 @@ public class CFGTranslationPhaseOne extends TreePathScanner<Node, Void> {
         extendWithNode(
                 new MarkerNode(
                         tree,
-                        "start of try block #" + TreeUtils.treeUids.get(tree),
+                        "start of try block #" + treeUids.get(tree),
                         env.getTypeUtils()));
         scan(tree.getBlock(), p);
         extendWithNode(
                 new MarkerNode(
                         tree,
-                        "end of try block #" + TreeUtils.treeUids.get(tree),
+                        "end of try block #" + treeUids.get(tree),
                         env.getTypeUtils()));
 
         extendWithExtendedNode(
@@ -3085,7 +3093,7 @@ public class CFGTranslationPhaseOne extends TreePathScanner<Node, Void> {
                             "start of catch block for "
                                     + c.getParameter().getType()
                                     + " #"
-                                    + TreeUtils.treeUids.get(tree),
+                                    + treeUids.get(tree),
                             env.getTypeUtils()));
             scan(c, p);
             extendWithNode(
@@ -3094,7 +3102,7 @@ public class CFGTranslationPhaseOne extends TreePathScanner<Node, Void> {
                             "end of catch block for "
                                     + c.getParameter().getType()
                                     + " #"
-                                    + TreeUtils.treeUids.get(tree),
+                                    + treeUids.get(tree),
                             env.getTypeUtils()));
 
             catchIndex++;
@@ -3112,13 +3120,13 @@ public class CFGTranslationPhaseOne extends TreePathScanner<Node, Void> {
                 extendWithNode(
                         new MarkerNode(
                                 tree,
-                                "start of finally block #" + TreeUtils.treeUids.get(tree),
+                                "start of finally block #" + treeUids.get(tree),
                                 env.getTypeUtils()));
                 scan(finallyBlock, p);
                 extendWithNode(
                         new MarkerNode(
                                 tree,
-                                "end of finally block #" + TreeUtils.treeUids.get(tree),
+                                "end of finally block #" + treeUids.get(tree),
                                 env.getTypeUtils()));
                 extendWithExtendedNode(new UnconditionalJump(doneLabel));
             }
@@ -3134,7 +3142,7 @@ public class CFGTranslationPhaseOne extends TreePathScanner<Node, Void> {
                         new MarkerNode(
                                 tree,
                                 "start of finally block for Throwable #"
-                                        + TreeUtils.treeUids.get(tree),
+                                        + treeUids.get(tree),
                                 env.getTypeUtils()));
 
                 scan(finallyBlock, p);
@@ -3144,7 +3152,7 @@ public class CFGTranslationPhaseOne extends TreePathScanner<Node, Void> {
                                 new MarkerNode(
                                         tree,
                                         "end of finally block for Throwable #"
-                                                + TreeUtils.treeUids.get(tree),
+                                                + treeUids.get(tree),
                                         env.getTypeUtils()),
                                 throwableType);
 
@@ -3159,13 +3167,13 @@ public class CFGTranslationPhaseOne extends TreePathScanner<Node, Void> {
                         new MarkerNode(
                                 tree,
                                 "start of finally block for return #"
-                                        + TreeUtils.treeUids.get(tree),
+                                        + treeUids.get(tree),
                                 env.getTypeUtils()));
                 scan(finallyBlock, p);
                 extendWithNode(
                         new MarkerNode(
                                 tree,
-                                "end of finally block for return #" + TreeUtils.treeUids.get(tree),
+                                "end of finally block for return #" + treeUids.get(tree),
                                 env.getTypeUtils()));
                 extendWithExtendedNode(new UnconditionalJump(returnTargetL.accessLabel()));
             } else {
@@ -3179,13 +3187,13 @@ public class CFGTranslationPhaseOne extends TreePathScanner<Node, Void> {
                 extendWithNode(
                         new MarkerNode(
                                 tree,
-                                "start of finally block for break #" + TreeUtils.treeUids.get(tree),
+                                "start of finally block for break #" + treeUids.get(tree),
                                 env.getTypeUtils()));
                 scan(finallyBlock, p);
                 extendWithNode(
                         new MarkerNode(
                                 tree,
-                                "end of finally block for break #" + TreeUtils.treeUids.get(tree),
+                                "end of finally block for break #" + treeUids.get(tree),
                                 env.getTypeUtils()));
                 extendWithExtendedNode(new UnconditionalJump(breakTargetL.accessLabel()));
             } else {
@@ -3205,7 +3213,7 @@ public class CFGTranslationPhaseOne extends TreePathScanner<Node, Void> {
                                     "start of finally block for break label "
                                             + access.getKey()
                                             + " #"
-                                            + TreeUtils.treeUids.get(tree),
+                                            + treeUids.get(tree),
                                     env.getTypeUtils()));
                     scan(finallyBlock, p);
                     extendWithNode(
@@ -3214,7 +3222,7 @@ public class CFGTranslationPhaseOne extends TreePathScanner<Node, Void> {
                                     "end of finally block for break label "
                                             + access.getKey()
                                             + " #"
-                                            + TreeUtils.treeUids.get(tree),
+                                            + treeUids.get(tree),
                                     env.getTypeUtils()));
                     extendWithExtendedNode(new UnconditionalJump(breakLabels.get(access.getKey())));
                 }
@@ -3230,14 +3238,14 @@ public class CFGTranslationPhaseOne extends TreePathScanner<Node, Void> {
                         new MarkerNode(
                                 tree,
                                 "start of finally block for continue #"
-                                        + TreeUtils.treeUids.get(tree),
+                                        + treeUids.get(tree),
                                 env.getTypeUtils()));
                 scan(finallyBlock, p);
                 extendWithNode(
                         new MarkerNode(
                                 tree,
                                 "end of finally block for continue #"
-                                        + TreeUtils.treeUids.get(tree),
+                                        + treeUids.get(tree),
                                 env.getTypeUtils()));
                 extendWithExtendedNode(new UnconditionalJump(continueTargetL.accessLabel()));
             } else {
@@ -3257,7 +3265,7 @@ public class CFGTranslationPhaseOne extends TreePathScanner<Node, Void> {
                                     "start of finally block for continue label "
                                             + access.getKey()
                                             + " #"
-                                            + TreeUtils.treeUids.get(tree),
+                                            + treeUids.get(tree),
                                     env.getTypeUtils()));
                     scan(finallyBlock, p);
                     extendWithNode(
@@ -3266,7 +3274,7 @@ public class CFGTranslationPhaseOne extends TreePathScanner<Node, Void> {
                                     "end of finally block for continue label "
                                             + access.getKey()
                                             + " #"
-                                            + TreeUtils.treeUids.get(tree),
+                                            + treeUids.get(tree),
                                     env.getTypeUtils()));
                     extendWithExtendedNode(
                             new UnconditionalJump(continueLabels.get(access.getKey())));
@@ -1,12 +1,14 @@
 package org.checkerframework.dataflow.cfg.builder;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * A label is used to refer to other extended nodes using a mapping from labels to extended nodes.
  * Labels get their names either from labeled statements in the source code or from internally
  * generated unique names.
  */
 class Label {
-    private static int uid = 0;
+    private static final AtomicInteger uid = new AtomicInteger();
 
     protected final String name;
 
@@ -29,6 +31,6 @@ class Label {
      * @return a new unique label name
      */
     private static String uniqueName() {
-        return "%L" + uid++;
+        return "%L" + uid.getAndIncrement();
     }
 }
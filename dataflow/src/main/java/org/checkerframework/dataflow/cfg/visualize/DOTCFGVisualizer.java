@@ -1,5 +1,6 @@
 package org.checkerframework.dataflow.cfg.visualize;
 
+import com.sun.source.tree.Tree;
 import com.sun.source.tree.VariableTree;
 import com.sun.tools.javac.tree.JCTree;
 import java.io.BufferedWriter;
@@ -33,8 +34,8 @@ import org.checkerframework.dataflow.expression.FieldAccess;
 import org.checkerframework.dataflow.expression.LocalVariable;
 import org.checkerframework.dataflow.expression.MethodCall;
 import org.checkerframework.javacutil.BugInCF;
-import org.checkerframework.javacutil.TreeUtils;
 import org.checkerframework.javacutil.UserError;
+import org.plumelib.util.UniqueIdMap;
 
 /** Generate a graph description in the DOT language of a control graph. */
 @SuppressWarnings("nullness:initialization.fields.uninitialized") // uses init method
@@ -51,6 +52,9 @@ public class DOTCFGVisualizer<
     /** Mapping from class/method representation to generated dot file. */
     protected Map<String, String> generated;
 
+    /** Unique IDs for lambda bodies, used in the names of the output dot files. */
+    protected final UniqueIdMap<Tree> lambdaUids = new UniqueIdMap<>();
+
     /** Terminator for lines that are left-justified. */
     protected static final String leftJustifiedTerminator = "\\l";
 
@@ -222,7 +226,7 @@ public class DOTCFGVisualizer<
             CFGLambda cfgLambda = (CFGLambda) ast;
             String clsName = cfgLambda.getSimpleClassName();
             String methodName = cfgLambda.getMethodName();
-            long uid = TreeUtils.treeUids.get(cfgLambda.getCode());
+            long uid = lambdaUids.get(cfgLambda.getCode());
             outFile.append(clsName);
             outFile.append("-");
             outFile.append(methodName);
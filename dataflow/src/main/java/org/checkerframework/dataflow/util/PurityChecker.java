@@ -15,6 +15,7 @@ import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.List;
 import javax.lang.model.element.Element;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.dataflow.qual.Deterministic;
 import org.checkerframework.dataflow.qual.Pure;
 import org.checkerframework.dataflow.qual.Pure.Kind;
@@ -52,8 +53,32 @@ public class PurityChecker {
             AnnotationProvider annoProvider,
             boolean assumeSideEffectFree,
             boolean assumeDeterministic) {
+        return checkPurity(
+                statement, annoProvider, assumeSideEffectFree, assumeDeterministic, null);
+    }
+
+    /**
+     * Compute whether the given statement is side-effect-free, deterministic, or both. Returns a
+     * result that can be queried.
+     *
+     * @param statement the statement to check
+     * @param annoProvider the annotation provider
+     * @param assumeSideEffectFree true if all methods should be assumed to be @SideEffectFree
+     * @param assumeDeterministic true if all methods should be assumed to be @Deterministic
+     * @param summaries the purity of called methods that have no purity annotation, or null if
+     *     such methods are impure
+     * @return information about whether the given statement is side-effect-free, deterministic, or
+     *     both
+     */
+    public static PurityResult checkPurity(
+            TreePath statement,
+            AnnotationProvider annoProvider,
+            boolean assumeSideEffectFree,
+            boolean assumeDeterministic,
+            @Nullable PuritySummaries summaries) {
         PurityCheckerHelper helper =
-                new PurityCheckerHelper(annoProvider, assumeSideEffectFree, assumeDeterministic);
+                new PurityCheckerHelper(
+                        annoProvider, assumeSideEffectFree, assumeDeterministic, summaries);
         helper.scan(statement, null);
         return helper.purityResult;
     }
@@ -182,6 +207,9 @@ public class PurityChecker {
          */
         private final boolean assumeDeterministic;
 
+        /** The purity of called methods that have no purity annotation, or null. */
+        private final @Nullable PuritySummaries summaries;
+
         /**
          * Create a PurityCheckerHelper.
          *
@@ -193,9 +221,45 @@ public class PurityChecker {
                 AnnotationProvider annoProvider,
                 boolean assumeSideEffectFree,
                 boolean assumeDeterministic) {
+            this(annoProvider, assumeSideEffectFree, assumeDeterministic, null);
+        }
+
+        /**
+         * Create a PurityCheckerHelper.
+         *
+         * @param annoProvider the annotation provider
+         * @param assumeSideEffectFree true if all methods should be assumed to be @SideEffectFree
+         * @param assumeDeterministic true if all methods should be assumed to be @Deterministic
+         * @param summaries the purity of called methods that have no purity annotation, or null if
+         *     such methods are impure
+         */
+        public PurityCheckerHelper(
+                AnnotationProvider annoProvider,
+                boolean assumeSideEffectFree,
+                boolean assumeDeterministic,
+                @Nullable PuritySummaries summaries) {
             this.annoProvider = annoProvider;
             this.assumeSideEffectFree = assumeSideEffectFree;
             this.assumeDeterministic = assumeDeterministic;
+            this.summaries = summaries;
+        }
+
+        /**
+         * Returns the kinds of purity of a called method or constructor: those given by its purity
+         * annotations, or if it has none, those recorded in {@link #summaries}.
+         *
+         * @param elt the called method or constructor
+         * @return the kinds of purity of {@code elt}
+         */
+        private EnumSet<Pure.Kind> getPurityKinds(Element elt) {
+            EnumSet<Pure.Kind> kinds = PurityUtils.getPurityKinds(annoProvider, elt);
+            if (kinds.isEmpty() && summaries != null) {
+                EnumSet<Pure.Kind> summary = summaries.getInputSummary(elt);
+                if (summary != null) {
+                    return summary;
+                }
+            }
+            return kinds;
         }
 
         @Override
@@ -208,14 +272,16 @@ public class PurityChecker {
         public Void visitMethodInvocation(MethodInvocationTree node, Void ignore) {
             assert TreeUtils.isUseOfElement(node) : "@AssumeAssertion(nullness): tree kind";
             Element elt = TreeUtils.elementFromUse(node);
-            if (!PurityUtils.hasPurityAnnotation(annoProvider, elt)) {
+            // Computed once: the kinds are needed both to test for any purity and below.
+            EnumSet<Pure.Kind> elementKinds = getPurityKinds(elt);
+            if (elementKinds.isEmpty()) {
                 purityResult.addNotBothReason(node, "call.method");
             } else {
                 EnumSet<Pure.Kind> purityKinds =
                         (assumeDeterministic && assumeSideEffectFree)
                                 // Avoid computation if not necessary
                                 ? EnumSet.of(Kind.DETERMINISTIC, Kind.SIDE_EFFECT_FREE)
-                                : PurityUtils.getPurityKinds(annoProvider, elt);
+                                : elementKinds;
                 boolean det = assumeDeterministic || purityKinds.contains(Kind.DETERMINISTIC);
                 boolean seFree =
                         assumeSideEffectFree || purityKinds.contains(Kind.SIDE_EFFECT_FREE);
@@ -270,7 +336,8 @@ public class PurityChecker {
             Element ctorElement = TreeUtils.elementFromUse(node);
             boolean deterministic = assumeDeterministic || okThrowDeterministic;
             boolean sideEffectFree =
-                    assumeSideEffectFree || PurityUtils.isSideEffectFree(annoProvider, ctorElement);
+                    assumeSideEffectFree
+                            || getPurityKinds(ctorElement).contains(Kind.SIDE_EFFECT_FREE);
             // This does not use "addNotBothReason" because the reasons are different:  one is
             // because the constructor is called at all, and the other is because the constuctor
             // is not side-effect-free.
@@ -0,0 +1,271 @@
+package org.checkerframework.dataflow.util;
+
+import com.sun.tools.javac.processing.JavacProcessingEnvironment;
+import com.sun.tools.javac.util.Context;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.dataflow.qual.Pure;
+import org.checkerframework.javacutil.UserError;
+
+/**
+ * The purity of methods that have no purity annotation, as determined by the {@link PurityChecker}.
+ *
+ * <p>A summary file records, for each method whose body was checked, the kinds of purity that the
+ * body satisfies. When a library is compiled with an output summary file, and its clients are
+ * compiled with that file as input, calls from the clients to unannotated methods of the library
+ * use the recorded purity instead of being treated as impure.
+ *
+ * <p>Only methods that cannot be overridden have summaries (see {@link #isSummarizable}). A call to
+ * any other method may run an override whose purity differs from that of the checked body.
+ *
+ * <p>Each line of a summary file contains the kinds of purity ({@code pure}, {@code
+ * sideeffectfree}, {@code deterministic}, or {@code none}), a space, and the signature of a method
+ * in the format {@code BinaryClassName#methodName(erasure1,erasure2)}. Lines that start with "#"
+ * are comments.
+ *
+ * <p>There is one instance per compilation, registered in its javac {@link Context} and shared by
+ * every checker that runs in it.
+ */
+public class PuritySummaries {
+
+    /** The element utilities of the compilation. */
+    private final Elements elements;
+
+    /** The type utilities of the compilation. */
+    private final Types types;
+
+    /** The purity read from summary files, keyed by method signature. */
+    private final Map<String, EnumSet<Pure.Kind>> inputSummaries = new HashMap<>();
+
+    /** The summary files that have been read. */
+    private final Set<String> inputFiles = new HashSet<>();
+
+    /** The purity of the methods checked in this compilation, keyed by method. */
+    private final Map<ExecutableElement, EnumSet<Pure.Kind>> computedSummaries = new HashMap<>();
+
+    /**
+     * Creates a new instance with no summaries.
+     *
+     * @param processingEnv the processing environment of the compilation
+     */
+    private PuritySummaries(ProcessingEnvironment processingEnv) {
+        this.elements = processingEnv.getElementUtils();
+        this.types = processingEnv.getTypeUtils();
+    }
+
+    /**
+     * Returns the summaries of the compilation that owns the given processing environment, creating
+     * them if necessary.
+     *
+     * @param processingEnv the processing environment of the current compilation
+     * @return the summaries of the current compilation
+     */
+    public static PuritySummaries instance(ProcessingEnvironment processingEnv) {
+        if (!(processingEnv instanceof JavacProcessingEnvironment)) {
+            return new PuritySummaries(processingEnv);
+        }
+        Context context = ((JavacProcessingEnvironment) processingEnv).getContext();
+        PuritySummaries summaries = context.get(PuritySummaries.class);
+        if (summaries == null) {
+            summaries = new PuritySummaries(processingEnv);
+            context.put(PuritySummaries.class, summaries);
+        }
+        return summaries;
+    }
+
+    /**
+     * Reads summary files. Summaries that are read later override earlier ones for the same method.
+     * Files that have already been read, for example by another checker, are skipped.
+     *
+     * @param files the summary files, separated by {@link File#pathSeparator}
+     */
+    public void read(String files) {
+        for (String file : files.split(File.pathSeparator)) {
+            if (file.isEmpty() || !inputFiles.add(file)) {
+                continue;
+            }
+            List<String> lines;
+            try {
+                lines = Files.readAllLines(new File(file).toPath(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UserError("Problem while reading %s: %s", file, e.getMessage());
+            }
+            for (String line : lines) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                int space = line.indexOf(' ');
+                if (space == -1) {
+                    throw new UserError("Malformed line in purity summary file %s: %s", file, line);
+                }
+                inputSummaries.put(
+                        line.substring(space + 1).trim(),
+                        parseKinds(line.substring(0, space), file));
+            }
+        }
+    }
+
+    /**
+     * Returns the purity that a summary file records for the given method, or null if none does.
+     *
+     * @param methodElement a method or constructor
+     * @return the kinds of purity of {@code methodElement}, or null if they are unknown
+     */
+    public @Nullable EnumSet<Pure.Kind> getInputSummary(Element methodElement) {
+        if (inputSummaries.isEmpty()
+                || !(methodElement instanceof ExecutableElement)
+                || !isSummarizable((ExecutableElement) methodElement)) {
+            return null;
+        }
+        EnumSet<Pure.Kind> kinds = inputSummaries.get(signature((ExecutableElement) methodElement));
+        return kinds == null ? null : kinds.clone();
+    }
+
+    /**
+     * Records the purity of a method whose body was checked in this compilation. If the method is
+     * checked several times, for example by the subcheckers of a compound checker, only the kinds
+     * of purity that every check found are recorded. Nothing is recorded for a method that can be
+     * overridden.
+     *
+     * @param methodElement the checked method or constructor
+     * @param kinds the kinds of purity of its body
+     */
+    public void recordComputedSummary(ExecutableElement methodElement, EnumSet<Pure.Kind> kinds) {
+        if (!isSummarizable(methodElement)) {
+            return;
+        }
+        EnumSet<Pure.Kind> previous = computedSummaries.get(methodElement);
+        if (previous == null) {
+            computedSummaries.put(methodElement, kinds.clone());
+        } else {
+            previous.retainAll(kinds);
+        }
+    }
+
+    /**
+     * Returns true if no other method can override the given one, so that its body determines the
+     * purity of every call to it: it is a constructor, it is static, private, or final, or its
+     * class is final.
+     *
+     * @param methodElement a method or constructor
+     * @return true if {@code methodElement} can have a summary
+     */
+    public static boolean isSummarizable(ExecutableElement methodElement) {
+        if (methodElement.getKind() == ElementKind.CONSTRUCTOR) {
+            return true;
+        }
+        Set<Modifier> modifiers = methodElement.getModifiers();
+        return modifiers.contains(Modifier.STATIC)
+                || modifiers.contains(Modifier.PRIVATE)
+                || modifiers.contains(Modifier.FINAL)
+                || methodElement.getEnclosingElement().getModifiers().contains(Modifier.FINAL);
+    }
+
+    /**
+     * Writes the summaries of the methods checked in this compilation to a file.
+     *
+     * @param file the summary file to write
+     */
+    public void write(String file) {
+        // Sort the lines so that the file does not depend on the order in which methods were
+        // checked.
+        Map<String, EnumSet<Pure.Kind>> sorted = new TreeMap<>();
+        for (Map.Entry<ExecutableElement, EnumSet<Pure.Kind>> entry :
+                computedSummaries.entrySet()) {
+            sorted.put(signature(entry.getKey()), entry.getValue());
+        }
+        try (BufferedWriter out =
+                Files.newBufferedWriter(new File(file).toPath(), StandardCharsets.UTF_8)) {
+            out.write("# Purity summaries written by the Checker Framework");
+            out.newLine();
+            for (Map.Entry<String, EnumSet<Pure.Kind>> entry : sorted.entrySet()) {
+                out.write(formatKinds(entry.getValue()) + " " + entry.getKey());
+                out.newLine();
+            }
+        } catch (IOException e) {
+            throw new UserError("Problem while writing %s: %s", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the signature of a method, which identifies it in summary files.
+     *
+     * @param methodElement a method or constructor
+     * @return the signature of {@code methodElement}
+     */
+    private String signature(ExecutableElement methodElement) {
+        TypeElement enclosing = (TypeElement) methodElement.getEnclosingElement();
+        String name =
+                methodElement.getKind() == ElementKind.CONSTRUCTOR
+                        ? "<init>"
+                        : methodElement.getSimpleName().toString();
+        StringJoiner params = new StringJoiner(",", "(", ")");
+        for (VariableElement param : methodElement.getParameters()) {
+            params.add(types.erasure(param.asType()).toString());
+        }
+        return elements.getBinaryName(enclosing) + "#" + name + params;
+    }
+
+    /**
+     * Parses the kinds of purity in a summary file.
+     *
+     * @param kinds the first column of a line of a summary file
+     * @param file the summary file, for error messages
+     * @return the kinds of purity
+     */
+    private static EnumSet<Pure.Kind> parseKinds(String kinds, String file) {
+        switch (kinds) {
+            case "pure":
+                return EnumSet.of(Pure.Kind.SIDE_EFFECT_FREE, Pure.Kind.DETERMINISTIC);
+            case "sideeffectfree":
+                return EnumSet.of(Pure.Kind.SIDE_EFFECT_FREE);
+            case "deterministic":
+                return EnumSet.of(Pure.Kind.DETERMINISTIC);
+            case "none":
+                return EnumSet.noneOf(Pure.Kind.class);
+            default:
+                throw new UserError(
+                        "Unknown kind of purity in purity summary file %s: %s", file, kinds);
+        }
+    }
+
+    /**
+     * Formats kinds of purity for a summary file.
+     *
+     * @param kinds the kinds of purity
+     * @return the first column of a line of a summary file
+     */
+    private static String formatKinds(EnumSet<Pure.Kind> kinds) {
+        if (kinds.size() == 2) {
+            return "pure";
+        } else if (kinds.contains(Pure.Kind.SIDE_EFFECT_FREE)) {
+            return "sideeffectfree";
+        } else if (kinds.contains(Pure.Kind.DETERMINISTIC)) {
+            return "deterministic";
+        } else {
+            return "none";
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.checkerframework.framework.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.checkerframework.javacutil.BugInCF;
+import org.junit.runners.model.RunnerScheduler;
+
+/**
+ * Runs the test cases of a {@link PerFileSuite} or {@link PerDirectorySuite} in parallel threads.
+ * The suites use it if the system property "tests.threads" is set; see {@link
+ * TestUtilities#getTestThreads()}.
+ *
+ * <p>The test cases of a checker compile different files, and each compilation has its own javac
+ * context and checker instances, so they can run at the same time. This requires that checkers
+ * keep the values of their command-line options in instance fields, not in static fields: a
+ * static field that one test case sets or resets would change the behavior of a sibling test case
+ * with other options. Test classes that write to shared files, such as the whole-program inference
+ * tests, must not be run in parallel; they are annotated with {@link RunSequentially}.
+ *
+ * <p>Each thread reuses a file manager for its compilations; see {@link TypecheckExecutor}. The
+ * file managers are closed when all test cases have finished.
+ */
+public class ParallelRunnerScheduler implements RunnerScheduler {
+
+    /** The threads that run the test cases. */
+    private final ExecutorService executor;
+
+    /** The test cases that have been scheduled. */
+    private final List<Future<?>> scheduled = new ArrayList<>();
+
+    /**
+     * Creates a scheduler that runs test cases in the given number of threads.
+     *
+     * @param threads the number of threads
+     */
+    public ParallelRunnerScheduler(int threads) {
+        this.executor = Executors.newFixedThreadPool(threads);
+    }
+
+    @Override
+    public void schedule(Runnable childStatement) {
+        scheduled.add(executor.submit(childStatement));
+    }
+
+    @Override
+    public void finished() {
+        try {
+            // JUnit reports failures through the RunNotifier, so the futures only complete
+            // exceptionally if the runner itself fails.
+            for (Future<?> future : scheduled) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BugInCF("Interrupted while running tests", e);
+        } catch (ExecutionException e) {
+            throw new BugInCF("Problem while running tests", e.getCause());
+        } finally {
+            executor.shutdown();
+            TypecheckExecutor.closeThreadFileManagers();
+        }
+    }
+}
@@ -62,6 +62,11 @@ public class PerDirectorySuite extends Suite {
         for (List<File> parameters : parametersList) {
             runners.add(new PerParameterSetTestRunner(javaTestClass, parameters));
         }
+
+        int threads = TestUtilities.getTestThreads();
+        if (threads > 1 && !javaTestClass.isAnnotationPresent(RunSequentially.class)) {
+            setScheduler(new ParallelRunnerScheduler(threads));
+        }
     }
 
     /** Returns a list of one-element arrays, each containing a Java File. */
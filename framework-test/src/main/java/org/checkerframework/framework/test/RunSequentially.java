@@ -0,0 +1,16 @@
+package org.checkerframework.framework.test;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Indicates that the test cases of a test class that runs with {@link PerFileSuite} or {@link
+ * PerDirectorySuite} must run one after another, even if the system property "tests.threads" is
+ * set. Use it on test classes whose test cases write to files that other test cases also write or
+ * read, such as the whole-program inference tests.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface RunSequentially {}
@@ -489,4 +489,24 @@ public class TestUtilities {
     public static boolean getShouldEmitDebugInfo() {
         return SystemUtil.getBooleanSystemProperty("emit.test.debug");
     }
+
+    /**
+     * Returns the value of system property "tests.threads": the number of threads in which the
+     * test cases of a {@link PerFileSuite} or {@link PerDirectorySuite} run, or 0 if the property
+     * is not set. If it is set, the test cases also reuse the file managers of {@link
+     * TypecheckExecutor}.
+     *
+     * @return the value of system property "tests.threads", or 0 if it is not set
+     */
+    public static int getTestThreads() {
+        String value = System.getProperty("tests.threads");
+        if (value == null || value.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Math.max(1, Integer.parseInt(value));
+        } catch (NumberFormatException e) {
+            throw new BugInCF("tests.threads must be an integer, not \"%s\"", value);
+        }
+    }
 }
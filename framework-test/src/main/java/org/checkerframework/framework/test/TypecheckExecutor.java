@@ -1,9 +1,13 @@
 package org.checkerframework.framework.test;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.tools.DiagnosticCollector;
 import javax.tools.JavaCompiler;
 import javax.tools.JavaFileObject;
@@ -11,12 +15,59 @@ import javax.tools.StandardJavaFileManager;
 import javax.tools.ToolProvider;
 import org.checkerframework.framework.test.diagnostics.JavaDiagnosticReader;
 import org.checkerframework.framework.test.diagnostics.TestDiagnostic;
+import org.checkerframework.javacutil.Pair;
 import org.checkerframework.javacutil.SystemUtil;
 import org.plumelib.util.UtilPlume;
 
 /** Used by the Checker Framework test suite to run the framework and generate a test result. */
 public class TypecheckExecutor {
 
+    /**
+     * The options that set a location of a file manager, such as the classpath. Each of them is
+     * followed by its value. The -Xbootclasspath options, which contain their value, also set a
+     * location.
+     */
+    private static final List<String> PATH_OPTIONS =
+            Arrays.asList(
+                    "-bootclasspath",
+                    "-classpath",
+                    "-cp",
+                    "-d",
+                    "-endorseddirs",
+                    "-extdirs",
+                    "-h",
+                    "-processorpath",
+                    "-s",
+                    "-sourcepath",
+                    "--boot-class-path",
+                    "--class-path",
+                    "--module-path",
+                    "--module-source-path",
+                    "--processor-module-path",
+                    "--processor-path",
+                    "--source-path",
+                    "--system",
+                    "--upgrade-module-path");
+
+    /**
+     * The file manager of each thread, and the path options of the last compilation that used it.
+     * If the system property "tests.threads" is set, a compilation reuses the file manager of its
+     * thread, which caches the contents of the jar files on the classpath, if it has the same path
+     * options as the previous compilation in the thread. A compilation with other path options
+     * gets a new file manager, because a location that an earlier compilation set is not reset
+     * when a later compilation omits the option for it. Without the system property, each
+     * compilation creates a new file manager.
+     */
+    private static final ThreadLocal<Pair<StandardJavaFileManager, List<String>>> fileManagers =
+            new ThreadLocal<>();
+
+    /**
+     * The file managers in {@link #fileManagers} that have not been closed. {@link
+     * ParallelRunnerScheduler} closes them when its test cases have finished.
+     */
+    private static final Set<StandardJavaFileManager> openFileManagers =
+            ConcurrentHashMap.newKeySet();
+
     public TypecheckExecutor() {}
 
     /** Runs a typechecking test using the given configuration and returns the test result. */
@@ -34,16 +85,19 @@ public class TypecheckExecutor {
         if (dOption == null) {
             throw new Error("-d not supplied");
         }
-        TestUtilities.ensureDirectoryExists(dOption);
+        int threads = TestUtilities.getTestThreads();
+        // Test cases that run at the same time must not write class files with the same name to
+        // the same directory, so each thread has its own output directory.
+        String outputDir =
+                threads > 1
+                        ? dOption + File.separator + Thread.currentThread().getName()
+                        : dOption;
+        TestUtilities.ensureDirectoryExists(outputDir);
 
         final StringWriter javacOutput = new StringWriter();
         DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
 
         JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
-        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
-        Iterable<? extends JavaFileObject> javaFiles =
-                fileManager.getJavaFileObjects(
-                        configuration.getTestSourceFiles().toArray(new File[] {}));
 
         // Even though the method compiler.getTask takes a list of processors, it fails if
         // processors are passed this way with the message:
@@ -61,8 +115,14 @@ public class TypecheckExecutor {
         }
 
         List<String> nonJvmOptions = new ArrayList<>();
-        for (String option : configuration.getFlatOptions()) {
-            if (!option.startsWith("-J-")) {
+        List<String> flatOptions = configuration.getFlatOptions();
+        for (int i = 0; i < flatOptions.size(); i++) {
+            String option = flatOptions.get(i);
+            if (option.equals("-d") && i + 1 < flatOptions.size()) {
+                nonJvmOptions.add(option);
+                nonJvmOptions.add(outputDir);
+                i++;
+            } else if (!option.startsWith("-J-")) {
                 nonJvmOptions.add(option);
             }
         }
@@ -86,6 +146,14 @@ public class TypecheckExecutor {
                             + UtilPlume.join(" ", configuration.getTestSourceFiles()));
         }
 
+        StandardJavaFileManager fileManager =
+                threads > 0
+                        ? getThreadFileManager(compiler, options)
+                        : compiler.getStandardFileManager(null, null, null);
+        Iterable<? extends JavaFileObject> javaFiles =
+                fileManager.getJavaFileObjects(
+                        configuration.getTestSourceFiles().toArray(new File[] {}));
+
         JavaCompiler.CompilationTask task =
                 compiler.getTask(
                         javacOutput,
@@ -110,6 +178,66 @@ public class TypecheckExecutor {
                 diagnostics.getDiagnostics());
     }
 
+    /**
+     * Returns the file manager of the current thread for a compilation with the given options. The
+     * file manager is reused if the previous compilation in the thread had the same path options;
+     * otherwise, it is replaced by a new one.
+     *
+     * @param compiler the compiler
+     * @param options the options of the compilation
+     * @return a file manager whose locations are set only by {@code options}
+     */
+    private static StandardJavaFileManager getThreadFileManager(
+            JavaCompiler compiler, List<String> options) {
+        List<String> pathOptions = new ArrayList<>();
+        for (int i = 0; i < options.size(); i++) {
+            String option = options.get(i);
+            if (PATH_OPTIONS.contains(option) && i + 1 < options.size()) {
+                pathOptions.add(option);
+                pathOptions.add(options.get(++i));
+            } else if (option.startsWith("-Xbootclasspath")) {
+                pathOptions.add(option);
+            }
+        }
+        Pair<StandardJavaFileManager, List<String>> previous = fileManagers.get();
+        if (previous != null && openFileManagers.contains(previous.first)) {
+            if (previous.second.equals(pathOptions)) {
+                return previous.first;
+            }
+            close(previous.first);
+        }
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+        openFileManagers.add(fileManager);
+        fileManagers.set(Pair.of(fileManager, pathOptions));
+        return fileManager;
+    }
+
+    /**
+     * Closes the file managers of all threads. A thread whose file manager was closed gets a new
+     * one for its next compilation.
+     */
+    static void closeThreadFileManagers() {
+        for (StandardJavaFileManager fileManager : openFileManagers) {
+            close(fileManager);
+        }
+    }
+
+    /**
+     * Closes the given file manager, which is no longer used.
+     *
+     * @param fileManager a file manager in {@link #openFileManagers}
+     */
+    private static void close(StandardJavaFileManager fileManager) {
+        if (!openFileManagers.remove(fileManager)) {
+            return;
+        }
+        try {
+            fileManager.close();
+        } catch (IOException e) {
+            // The file manager is no longer used.
+        }
+    }
+
     /**
      * Reads the expected diagnostics for the given configuration and creates a TypecheckResult
      * which contains all of the missing and expected diagnostics.
@@ -10,10 +10,13 @@ import com.sun.source.tree.MethodInvocationTree;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.StringJoiner;
+import java.util.TreeSet;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.util.Elements;
@@ -35,6 +38,7 @@ import org.checkerframework.framework.type.treeannotator.TreeAnnotator;
 import org.checkerframework.javacutil.AnnotationBuilder;
 import org.checkerframework.javacutil.AnnotationUtils;
 import org.checkerframework.javacutil.BugInCF;
+import org.checkerframework.javacutil.CollectionUtils;
 import org.checkerframework.javacutil.TreeUtils;
 import org.checkerframework.javacutil.TypeSystemError;
 import org.checkerframework.javacutil.UserError;
@@ -72,6 +76,16 @@ public abstract class AccumulationAnnotatedTypeFactory extends BaseAnnotatedType
      */
     private final @MonotonicNonNull Class<? extends Annotation> predicate;
 
+    /**
+     * Maps accumulator annotations to their values, sorted and without duplicates, so that
+     * subtyping and bounds are computed by merging arrays rather than by searching lists.
+     * AnnotationMirrors do not override equals, so this cache hits when the same annotation object
+     * is examined again, as is the case for the annotations returned by {@link
+     * #createAccumulatorAnnotation(List)}.
+     */
+    private final Map<AnnotationMirror, String[]> sortedValuesCache =
+            CollectionUtils.createLRUCache(getCacheSize());
+
     /**
      * Create an annotated type factory for an accumulation checker.
      *
@@ -200,8 +214,15 @@ public abstract class AccumulationAnnotatedTypeFactory extends BaseAnnotatedType
      */
     public AnnotationMirror createAccumulatorAnnotation(List<String> values) {
         AnnotationBuilder builder = new AnnotationBuilder(processingEnv, accumulator);
-        builder.setValue("value", ValueCheckerUtils.removeDuplicates(values));
-        return builder.build();
+        List<String> uniqueValues = ValueCheckerUtils.removeDuplicates(values);
+        builder.setValue("value", uniqueValues);
+        AnnotationMirror result = builder.build();
+        if (shouldCache) {
+            String[] sortedValues = uniqueValues.toArray(new String[0]);
+            Arrays.sort(sortedValues);
+            sortedValuesCache.put(result, sortedValues);
+        }
+        return result;
     }
 
     /**
@@ -328,6 +349,48 @@ public abstract class AccumulationAnnotatedTypeFactory extends BaseAnnotatedType
         }
     }
 
+    /**
+     * Returns the values that anno has accumulated, sorted and without duplicates.
+     *
+     * @param anno an accumulator annotation; must not be bottom
+     * @return the sorted values the annotation has accumulated; clients must not side-effect it
+     */
+    private String[] getSortedAccumulatedValues(AnnotationMirror anno) {
+        String[] result = shouldCache ? sortedValuesCache.get(anno) : null;
+        if (result == null) {
+            result = new TreeSet<>(getAccumulatedValues(anno)).toArray(new String[0]);
+            if (shouldCache) {
+                sortedValuesCache.put(anno, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns true if every element of {@code subset} is an element of {@code superset}.
+     *
+     * @param subset a sorted array without duplicates
+     * @param superset a sorted array without duplicates
+     * @return true if {@code subset} is a subset of {@code superset}
+     */
+    private static boolean isSubset(String[] subset, String[] superset) {
+        if (subset.length > superset.length) {
+            return false;
+        }
+        int j = 0;
+        for (String value : subset) {
+            // Both arrays are sorted, so value can only be found after the previous match.
+            while (j < superset.length && superset[j].compareTo(value) < 0) {
+                j++;
+            }
+            if (j == superset.length || !superset[j].equals(value)) {
+                return false;
+            }
+            j++;
+        }
+        return true;
+    }
+
     /**
      * All accumulation analyses share a similar type hierarchy. This class implements the
      * subtyping, LUB, and GLB for that hierarchy. The lattice looks like:
@@ -406,16 +469,22 @@ public abstract class AccumulationAnnotatedTypeFactory extends BaseAnnotatedType
                 }
             }
 
-            List<String> a1Val = getAccumulatedValues(a1);
-            List<String> a2Val = getAccumulatedValues(a2);
+            String[] a1Sorted = getSortedAccumulatedValues(a1);
+            String[] a2Sorted = getSortedAccumulatedValues(a2);
             // Avoid creating new annotation objects in the common case.
-            if (a1Val.containsAll(a2Val)) {
+            if (isSubset(a2Sorted, a1Sorted)) {
                 return a1;
             }
-            if (a2Val.containsAll(a1Val)) {
+            if (isSubset(a1Sorted, a2Sorted)) {
                 return a2;
             }
-            a1Val.addAll(a2Val);
+            // Keep the order of the arguments of a1, followed by the new arguments of a2.
+            List<String> a1Val = getAccumulatedValues(a1);
+            for (String value : getAccumulatedValues(a2)) {
+                if (Arrays.binarySearch(a1Sorted, value) < 0) {
+                    a1Val.add(value);
+                }
+            }
             return createAccumulatorAnnotation(a1Val);
         }
 
@@ -452,16 +521,17 @@ public abstract class AccumulationAnnotatedTypeFactory extends BaseAnnotatedType
                 }
             }
 
-            List<String> a1Val = getAccumulatedValues(a1);
-            List<String> a2Val = getAccumulatedValues(a2);
+            String[] a1Sorted = getSortedAccumulatedValues(a1);
+            String[] a2Sorted = getSortedAccumulatedValues(a2);
             // Avoid creating new annotation objects in the common case.
-            if (a1Val.containsAll(a2Val)) {
+            if (isSubset(a2Sorted, a1Sorted)) {
                 return a2;
             }
-            if (a2Val.containsAll(a1Val)) {
+            if (isSubset(a1Sorted, a2Sorted)) {
                 return a1;
             }
-            a1Val.retainAll(a2Val);
+            List<String> a1Val = getAccumulatedValues(a1);
+            a1Val.removeIf(value -> Arrays.binarySearch(a2Sorted, value) < 0);
             return createAccumulatorAnnotation(a1Val);
         }
 
@@ -496,9 +566,8 @@ public abstract class AccumulationAnnotatedTypeFactory extends BaseAnnotatedType
                 return evaluatePredicate(subAnno, convertToPredicate(superAnno));
             }
 
-            List<String> subVal = getAccumulatedValues(subAnno);
-            List<String> superVal = getAccumulatedValues(superAnno);
-            return subVal.containsAll(superVal);
+            return isSubset(
+                    getSortedAccumulatedValues(superAnno), getSortedAccumulatedValues(subAnno));
         }
     }
 
@@ -32,6 +32,7 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.checker.signature.qual.ClassGetName;
 import org.checkerframework.common.reflection.MethodValChecker;
 import org.checkerframework.dataflow.cfg.visualize.CFGVisualizer;
+import org.checkerframework.dataflow.util.PuritySummaries;
 import org.checkerframework.framework.qual.SubtypeOf;
 import org.checkerframework.framework.source.SourceChecker;
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
@@ -476,7 +477,7 @@ public abstract class BaseTypeChecker extends SourceChecker implements BaseTypeC
 
         // Errors (or other messages) issued via
         // SourceChecker#message(Diagnostic.Kind, Object, String, Object...)
-        // are stored in messageStore until all checkers have processed this compilation unit.
+        // are stored in messageStore until all checkers have processed this top-level class.
         // All other messages are printed immediately.  This includes errors issued because the
         // checker threw an exception.
 
@@ -504,6 +505,8 @@ public abstract class BaseTypeChecker extends SourceChecker implements BaseTypeC
 
         if (!getSubcheckers().isEmpty()) {
             printStoredMessages(tree.getCompilationUnit());
+            // The messages have been printed; do not retain them while the next class is checked.
+            messageStore.clear();
             // Update errsOnLastExit to reflect the errors issued.
             this.errsOnLastExit = log.nerrors;
         }
@@ -541,16 +544,18 @@ public abstract class BaseTypeChecker extends SourceChecker implements BaseTypeC
     }
 
     /**
-     * Stores all messages issued by this checker and its subcheckers for the current compilation
-     * unit. The messages are printed after all checkers have processed the current compilation
-     * unit. If this checker has no subcheckers and is not a subchecker for any other checker, then
-     * messageStore is null and messages will be printed as they are issued by this checker.
+     * Stores all messages issued by this checker and its subcheckers for the current top-level
+     * class. The messages are printed, in a deterministic order, as soon as all checkers have
+     * processed the class, so a compilation unit with several top-level classes produces output
+     * class by class. If this checker has no subcheckers and is not a subchecker for any other
+     * checker, then messageStore is null and messages will be printed as they are issued by this
+     * checker.
      */
     private TreeSet<CheckerMessage> messageStore = null;
 
     /**
      * If this is a compound checker or a subchecker of a compound checker, then the message is
-     * stored until all messages from all checkers for the compilation unit are issued.
+     * stored until all messages from all checkers for the top-level class are issued.
      *
      * <p>Otherwise, it prints the message.
      */
@@ -558,7 +563,7 @@ public abstract class BaseTypeChecker extends SourceChecker implements BaseTypeC
     protected void printOrStoreMessage(
             Diagnostic.Kind kind, String message, Tree source, CompilationUnitTree root) {
         assert this.currentRoot == root;
-        StackTraceElement[] trace = Thread.currentThread().getStackTrace();
+        StackTraceElement[] trace = getStackTraceForMessage();
         if (messageStore == null) {
             super.printOrStoreMessage(kind, message, source, root, trace);
         } else {
@@ -712,9 +717,31 @@ public abstract class BaseTypeChecker extends SourceChecker implements BaseTypeC
             checker.typeProcessingOver();
         }
 
+        GenericAnnotatedTypeFactory<?, ?, ?, ?> atypeFactory = getTypeFactory();
+        if (atypeFactory != null) {
+            atypeFactory.postProcessCompilation();
+        }
+
+        // The summaries are shared by all subcheckers, so only the root checker writes them.
+        String puritySummaryOutput = getOption("puritySummaryOutput");
+        if (puritySummaryOutput != null && parentChecker == null) {
+            PuritySummaries.instance(processingEnv).write(puritySummaryOutput);
+        }
+
         super.typeProcessingOver();
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Always returns false for a subchecker, because its parent checker may use the types that
+     * it computes for the definitions in which the parent's warnings are not suppressed.
+     */
+    @Override
+    public boolean shouldSkipSuppressedDefs(Element elt) {
+        return parentChecker == null && super.shouldSkipSuppressedDefs(elt);
+    }
+
     @Override
     public Set<String> getSupportedOptions() {
         if (supportedOptions == null) {
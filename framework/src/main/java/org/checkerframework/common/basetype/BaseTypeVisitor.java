@@ -85,6 +85,7 @@ import org.checkerframework.dataflow.expression.Receiver;
 import org.checkerframework.dataflow.qual.Pure;
 import org.checkerframework.dataflow.util.PurityChecker;
 import org.checkerframework.dataflow.util.PurityChecker.PurityResult;
+import org.checkerframework.dataflow.util.PuritySummaries;
 import org.checkerframework.dataflow.util.PurityUtils;
 import org.checkerframework.framework.flow.CFAbstractStore;
 import org.checkerframework.framework.flow.CFAbstractValue;
@@ -209,6 +210,9 @@ public class BaseTypeVisitor<Factory extends GenericAnnotatedTypeFactory<?, ?, ?
     /** The {@code value} element/field of the @java.lang.annotation.Target annotation. */
     protected final ExecutableElement targetValueElement;
 
+    /** The purity summaries of the current compilation; see {@link #getPuritySummaries()}. */
+    private @Nullable PuritySummaries puritySummaries;
+
     /**
      * @param checker the type-checker associated with this visitor (for callbacks to {@link
      *     TypeHierarchy#isSubtype})
@@ -304,8 +308,11 @@ public class BaseTypeVisitor<Factory extends GenericAnnotatedTypeFactory<?, ?, ?
     }
 
     /**
-     * Type-check classTree and skips classes specified by the skipDef option. Subclasses should
-     * override {@link #processClassTree(ClassTree)} instead of this method.
+     * Type-check classTree and skips classes specified by the skipDef option, as well as classes in
+     * which all warnings are suppressed if the skipSuppressedDefs option is supplied. Only a
+     * skipped top-level class is not analyzed by dataflow; the dataflow analysis of a top-level
+     * class also analyzes its nested classes. Subclasses should override {@link
+     * #processClassTree(ClassTree)} instead of this method.
      *
      * @param classTree class to check
      * @param p null
@@ -313,10 +320,13 @@ public class BaseTypeVisitor<Factory extends GenericAnnotatedTypeFactory<?, ?, ?
      */
     @Override
     public final Void visitClass(ClassTree classTree, Void p) {
-        if (checker.shouldSkipDefs(classTree)) {
+        if (checker.shouldSkipDefs(classTree)
+                || checker.shouldSkipSuppressedDefs(
+                        TreeUtils.elementFromDeclaration(classTree))) {
             // Not "return super.visitClass(classTree, p);" because that would
             // recursively call visitors on subtrees; we want to skip the
-            // class entirely.
+            // class entirely.  Dataflow analysis is skipped only for a top-level
+            // class: a nested class was already analyzed with its outer class.
             return null;
         }
         atypeFactory.preProcessClassTree(classTree);
@@ -671,6 +681,12 @@ public class BaseTypeVisitor<Factory extends GenericAnnotatedTypeFactory<?, ?, ?
      */
     @Override
     public Void visitMethod(MethodTree node, Void p) {
+        if (checker.shouldSkipSuppressedDefs(TreeUtils.elementFromDeclaration(node))) {
+            // Every warning in the method would be suppressed. Dataflow analysis of the method
+            // has already run as part of its top-level class, but its body need not be visited.
+            return null;
+        }
+
         // We copy the result from getAnnotatedType to ensure that
         // circular types (e.g. K extends Comparable<K>) are represented
         // by circular AnnotatedTypeMirrors, which avoids problems with
@@ -767,14 +783,25 @@ public class BaseTypeVisitor<Factory extends GenericAnnotatedTypeFactory<?, ?, ?
             return;
         }
 
-        boolean anyPurityAnnotation = PurityUtils.hasPurityAnnotation(atypeFactory, node);
+        // check "no" purity
+        EnumSet<Pure.Kind> kinds = PurityUtils.getPurityKinds(atypeFactory, node);
+        boolean anyPurityAnnotation = !kinds.isEmpty();
         boolean suggestPureMethods = checker.hasOption("suggestPureMethods");
-        if (!anyPurityAnnotation && !suggestPureMethods) {
+        boolean assumeSideEffectFree =
+                checker.hasOption("assumeSideEffectFree") || checker.hasOption("assumePure");
+        boolean assumeDeterministic =
+                checker.hasOption("assumeDeterministic") || checker.hasOption("assumePure");
+        // Summaries computed under unsound assumptions would be unsound for clients, and a call to
+        // an overridable method may run an override with a different purity.
+        boolean writeSummary =
+                checker.hasOption("puritySummaryOutput")
+                        && !assumeSideEffectFree
+                        && !assumeDeterministic
+                        && PuritySummaries.isSummarizable(TreeUtils.elementFromDeclaration(node));
+        if (!anyPurityAnnotation && !suggestPureMethods && !writeSummary) {
             return;
         }
 
-        // check "no" purity
-        EnumSet<Pure.Kind> kinds = PurityUtils.getPurityKinds(atypeFactory, node);
         // @Deterministic makes no sense for a void method or constructor
         boolean isDeterministic = kinds.contains(Pure.Kind.DETERMINISTIC);
         if (isDeterministic) {
@@ -794,10 +821,14 @@ public class BaseTypeVisitor<Factory extends GenericAnnotatedTypeFactory<?, ?, ?
                     PurityChecker.checkPurity(
                             body,
                             atypeFactory,
-                            checker.hasOption("assumeSideEffectFree")
-                                    || checker.hasOption("assumePure"),
-                            checker.hasOption("assumeDeterministic")
-                                    || checker.hasOption("assumePure"));
+                            assumeSideEffectFree,
+                            assumeDeterministic,
+                            getPuritySummaries());
+            if (writeSummary && !anyPurityAnnotation) {
+                getPuritySummaries()
+                        .recordComputedSummary(
+                                TreeUtils.elementFromDeclaration(node), r.getKinds());
+            }
         }
         if (!r.isPure(kinds)) {
             reportPurityErrors(r, node, kinds);
@@ -824,6 +855,23 @@ public class BaseTypeVisitor<Factory extends GenericAnnotatedTypeFactory<?, ?, ?
         }
     }
 
+    /**
+     * Returns the purity summaries of the current compilation, after reading the summary files
+     * given by the {@code -ApuritySummaries} command-line option.
+     *
+     * @return the purity summaries of the current compilation
+     */
+    protected PuritySummaries getPuritySummaries() {
+        if (puritySummaries == null) {
+            puritySummaries = PuritySummaries.instance(checker.getProcessingEnvironment());
+            String files = checker.getOption("puritySummaries");
+            if (files != null) {
+                puritySummaries.read(files);
+            }
+        }
+        return puritySummaries;
+    }
+
     /**
      * Issue a warning if the result type of the constructor is not top. If it is a supertype of the
      * class, then a type.invalid.conflicting.annos error will also be issued by {@link
@@ -23,15 +23,19 @@ class RangeOrListOfValues {
     private Range range;
     private List<Integer> values;
     private boolean isRange;
+    /** The maximum number of values in the list before it is converted to a range. */
+    private final int maxValues;
 
-    public RangeOrListOfValues(List<Integer> values) {
+    public RangeOrListOfValues(List<Integer> values, int maxValues) {
         this.values = new ArrayList<>();
+        this.maxValues = maxValues;
         isRange = false;
         addAll(values);
     }
 
-    public RangeOrListOfValues(Range range) {
+    public RangeOrListOfValues(Range range, int maxValues) {
         this.range = range;
+        this.maxValues = maxValues;
         isRange = true;
     }
 
@@ -63,7 +67,7 @@ class RangeOrListOfValues {
                     values.add(i);
                 }
             }
-            if (values.size() > ValueAnnotatedTypeFactory.MAX_VALUES) {
+            if (values.size() > maxValues) {
                 convertToRange();
             }
         }
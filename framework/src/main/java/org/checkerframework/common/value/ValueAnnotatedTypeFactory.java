@@ -35,6 +35,7 @@ import org.checkerframework.common.value.qual.IntRange;
 import org.checkerframework.common.value.qual.IntRangeFromGTENegativeOne;
 import org.checkerframework.common.value.qual.IntRangeFromNonNegative;
 import org.checkerframework.common.value.qual.IntRangeFromPositive;
+import org.checkerframework.common.value.qual.IntRangeSet;
 import org.checkerframework.common.value.qual.IntVal;
 import org.checkerframework.common.value.qual.MatchesRegex;
 import org.checkerframework.common.value.qual.MinLen;
@@ -43,6 +44,7 @@ import org.checkerframework.common.value.qual.PolyValue;
 import org.checkerframework.common.value.qual.StringVal;
 import org.checkerframework.common.value.qual.UnknownVal;
 import org.checkerframework.common.value.util.Range;
+import org.checkerframework.common.value.util.RangeSet;
 import org.checkerframework.dataflow.expression.ArrayAccess;
 import org.checkerframework.dataflow.expression.ArrayCreation;
 import org.checkerframework.dataflow.expression.Receiver;
@@ -71,6 +73,7 @@ import org.checkerframework.javacutil.ElementUtils;
 import org.checkerframework.javacutil.TreeUtils;
 import org.checkerframework.javacutil.TypeKindUtils;
 import org.checkerframework.javacutil.TypesUtils;
+import org.checkerframework.javacutil.UserError;
 
 /** AnnotatedTypeFactory for the Value type system. */
 public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
@@ -95,6 +98,9 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
             "org.checkerframework.common.value.qual.ArrayLenRange";
     /** Fully-qualified class name of {@link IntRange}. */
     public static final String INTRANGE_NAME = "org.checkerframework.common.value.qual.IntRange";
+    /** Fully-qualified class name of {@link IntRangeSet}. */
+    public static final String INTRANGESET_NAME =
+            "org.checkerframework.common.value.qual.IntRangeSet";
 
     /** Fully-qualified class name of {@link IntRangeFromGTENegativeOne}. */
     public static final String INTRANGE_FROMGTENEGONE_NAME =
@@ -111,8 +117,31 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
     public static final String MATCHES_REGEX_NAME =
             "org.checkerframework.common.value.qual.MatchesRegex";
 
-    /** The maximum number of values allowed in an annotation's array. */
-    protected static final int MAX_VALUES = 10;
+    /** The default maximum number of values allowed in an annotation's array. */
+    protected static final int DEFAULT_MAX_VALUES = 10;
+
+    /** The default maximum number of ranges in an {@link IntRangeSet} annotation. */
+    protected static final int DEFAULT_MAX_INT_RANGES = 1;
+
+    /**
+     * The maximum number of values allowed in an annotation's array. Set by the {@code
+     * -AmaxValues} command-line option; {@link #DEFAULT_MAX_VALUES} otherwise.
+     */
+    protected final int maxValues;
+
+    /**
+     * The maximum number of ranges in an {@link IntRangeSet} annotation. Set by the {@code
+     * -AmaxIntRanges} command-line option; {@link #DEFAULT_MAX_INT_RANGES} otherwise. If it is 1,
+     * no {@link IntRangeSet} annotations are created.
+     */
+    protected final int maxIntRanges;
+
+    /**
+     * Whether integral ranges ignore overflow, clipping the results of arithmetic to the bounds of
+     * the type rather than wrapping them around. Set by the {@code -AignoreRangeOverflow}
+     * command-line option.
+     */
+    protected final boolean ignoreRangeOverflow;
 
     /** The top type for this hierarchy. */
     protected final AnnotationMirror UNKNOWNVAL =
@@ -143,12 +172,16 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
     /** Helper class that holds references to special methods. */
     private final ValueMethodIdentifier methods;
 
-    @SuppressWarnings("StaticAssignmentInConstructor") // static Range.ignoreOverflow is gross
     public ValueAnnotatedTypeFactory(BaseTypeChecker checker) {
         super(checker);
 
         reportEvalWarnings = checker.hasOption(ValueChecker.REPORT_EVAL_WARNS);
-        Range.ignoreOverflow = checker.hasOption(ValueChecker.IGNORE_RANGE_OVERFLOW);
+        ignoreRangeOverflow = checker.hasOption(ValueChecker.IGNORE_RANGE_OVERFLOW);
+        maxValues =
+                getPositiveIntOption(checker, ValueChecker.MAX_VALUES_OPTION, DEFAULT_MAX_VALUES);
+        maxIntRanges =
+                getPositiveIntOption(
+                        checker, ValueChecker.MAX_INT_RANGES_OPTION, DEFAULT_MAX_INT_RANGES);
         evaluator = new ReflectiveEvaluator(checker, this, reportEvalWarnings);
 
         addAliasedAnnotation("android.support.annotation.IntRange", IntRange.class, true);
@@ -201,6 +234,63 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
         }
     }
 
+    /**
+     * Returns the value of a command-line option that must be a positive integer, or {@code
+     * defaultValue} if it is not supplied.
+     *
+     * @param checker the checker whose options are read
+     * @param option the name of the option, without the leading {@code -A}
+     * @param defaultValue the value to use if the option is not supplied
+     * @return the value of the option
+     */
+    private static int getPositiveIntOption(
+            BaseTypeChecker checker, String option, int defaultValue) {
+        String value = checker.getOption(option);
+        if (value == null) {
+            return defaultValue;
+        }
+        int result;
+        try {
+            result = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            result = 0;
+        }
+        if (result < 1) {
+            throw new UserError("-A%s must be a positive integer, not \"%s\"", option, value);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the maximum number of values allowed in an annotation's array, such as that of an
+     * {@link IntVal} or {@link StringVal} annotation.
+     *
+     * @return the maximum number of values allowed in an annotation's array
+     */
+    public int getMaxValues() {
+        return maxValues;
+    }
+
+    /**
+     * Returns the maximum number of ranges in an {@link IntRangeSet} annotation. If it is 1, no
+     * {@link IntRangeSet} annotations are created.
+     *
+     * @return the maximum number of ranges in an {@link IntRangeSet} annotation
+     */
+    public int getMaxIntRanges() {
+        return maxIntRanges;
+    }
+
+    /**
+     * Returns true if integral ranges ignore overflow, that is, if the {@code
+     * -AignoreRangeOverflow} command-line option was passed.
+     *
+     * @return true if integral ranges ignore overflow
+     */
+    public boolean isIgnoringRangeOverflow() {
+        return ignoreRangeOverflow;
+    }
+
     /** Gets a helper object that holds references to methods with special handling. */
     ValueMethodIdentifier getMethodIdentifier() {
         return methods;
@@ -226,6 +316,7 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
                         ArrayLenRange.class,
                         IntVal.class,
                         IntRange.class,
+                        IntRangeSet.class,
                         BoolVal.class,
                         StringVal.class,
                         MatchesRegex.class,
@@ -612,8 +703,9 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
     /**
      * Returns a {@link IntVal} or {@link IntRange} annotation using the values. If {@code values}
      * is null, then UnknownVal is returned; if {@code values} is empty, then bottom is returned. If
-     * the number of {@code values} is greater than MAX_VALUES, return an {@link IntRange}. In other
-     * cases, the values are sorted and duplicates are removed before an {@link IntVal} is created.
+     * the number of {@code values} is greater than {@link #maxValues}, return an {@link IntRange},
+     * or an {@link IntRangeSet} if {@link #maxIntRanges} is greater than 1. In other cases, the
+     * values are sorted and duplicates are removed before an {@link IntVal} is created.
      *
      * @param values list of longs; duplicates are allowed and the values may be in any order
      * @return an annotation depends on the values
@@ -626,7 +718,10 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
             return BOTTOMVAL;
         }
         values = ValueCheckerUtils.removeDuplicates(values);
-        if (values.size() > MAX_VALUES) {
+        if (values.size() > maxValues) {
+            if (maxIntRanges > 1) {
+                return createIntRangeSetAnnotation(RangeSet.create(values));
+            }
             long valMin = Collections.min(values);
             long valMax = Collections.max(values);
             return createIntRangeAnnotation(valMin, valMax);
@@ -643,7 +738,7 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
      */
     public AnnotationMirror convertIntRangeToIntVal(AnnotationMirror intRangeAnno) {
         Range range = getRange(intRangeAnno);
-        List<Long> values = ValueCheckerUtils.getValuesFromRange(range, Long.class);
+        List<Long> values = ValueCheckerUtils.getValuesFromRange(range, Long.class, maxValues);
         return createIntValAnnotation(values);
     }
 
@@ -663,7 +758,7 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
             return BOTTOMVAL;
         }
         values = ValueCheckerUtils.removeDuplicates(values);
-        if (values.size() > MAX_VALUES) {
+        if (values.size() > maxValues) {
             return UNKNOWNVAL;
         } else {
             AnnotationBuilder builder = new AnnotationBuilder(processingEnv, DoubleVal.class);
@@ -705,7 +800,7 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
             return BOTTOMVAL;
         }
         values = ValueCheckerUtils.removeDuplicates(values);
-        if (values.size() > MAX_VALUES) {
+        if (values.size() > maxValues) {
             // Too many strings are replaced by their lengths
             List<Integer> lengths = ValueCheckerUtils.getLengthsForStringValues(values);
             return createArrayLenAnnotation(lengths);
@@ -736,7 +831,7 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
         values = ValueCheckerUtils.removeDuplicates(values);
         if (values.isEmpty() || Collections.min(values) < 0) {
             return BOTTOMVAL;
-        } else if (values.size() > MAX_VALUES) {
+        } else if (values.size() > maxValues) {
             return createArrayLenRangeAnnotation(Collections.min(values), Collections.max(values));
         } else {
             AnnotationBuilder builder = new AnnotationBuilder(processingEnv, ArrayLen.class);
@@ -761,7 +856,7 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
             return BOTTOMVAL;
         }
         values = ValueCheckerUtils.removeDuplicates(values);
-        if (values.size() > MAX_VALUES) {
+        if (values.size() > maxValues) {
             return UNKNOWNVAL;
         } else {
             // TODO: This seems wasteful.  Why not create the 3 interesting AnnotationMirrors (with
@@ -790,7 +885,7 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
             return BOTTOMVAL;
         }
         values = ValueCheckerUtils.removeDuplicates(values);
-        if (values.size() > MAX_VALUES) {
+        if (values.size() > maxValues) {
             return UNKNOWNVAL;
         } else {
             List<Long> longValues = new ArrayList<>();
@@ -855,14 +950,47 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
             return BOTTOMVAL;
         } else if (range.isLongEverything()) {
             return UNKNOWNVAL;
-        } else if (range.isWiderThan(MAX_VALUES)) {
+        } else if (range.isWiderThan(maxValues)) {
             return createIntRangeAnnotation(range.from, range.to);
         } else {
-            List<Long> newValues = ValueCheckerUtils.getValuesFromRange(range, Long.class);
+            List<Long> newValues =
+                    ValueCheckerUtils.getValuesFromRange(range, Long.class, maxValues);
             return createIntValAnnotation(newValues);
         }
     }
 
+    /**
+     * Create the most precise annotation that represents the set of values, given the limits on
+     * the number of values and ranges. Returns an {@code @IntVal} if the set has at most {@link
+     * #maxValues} values. Otherwise, the set is coarsened to {@link #maxIntRanges} ranges, and an
+     * {@code @IntRange} is returned if a single range remains. May return BOTTOMVAL or UNKNOWNVAL.
+     *
+     * @param rangeSet a set of values
+     * @return an annotation that represents a superset of {@code rangeSet}
+     */
+    public AnnotationMirror createIntRangeSetAnnotation(RangeSet rangeSet) {
+        if (rangeSet.isNothing()) {
+            return BOTTOMVAL;
+        } else if (!rangeSet.isWiderThan(maxValues)) {
+            return createIntValAnnotation(rangeSet.getValues());
+        }
+        rangeSet = rangeSet.coarsen(maxIntRanges);
+        if (rangeSet.size() == 1) {
+            return createIntRangeAnnotation(rangeSet.hull());
+        }
+        List<Range> ranges = rangeSet.getRanges();
+        List<Long> froms = new ArrayList<>(ranges.size());
+        List<Long> tos = new ArrayList<>(ranges.size());
+        for (Range range : ranges) {
+            froms.add(range.from);
+            tos.add(range.to);
+        }
+        AnnotationBuilder builder = new AnnotationBuilder(processingEnv, IntRangeSet.class);
+        builder.setValue("from", froms);
+        builder.setValue("to", tos);
+        return builder.build();
+    }
+
     /**
      * Creates the special {@link IntRangeFromPositive} annotation, which is only used as an alias
      * for the Index Checker's {@link org.checkerframework.checker.index.qual.Positive} annotation.
@@ -962,7 +1090,7 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
 
     /**
      * Converts an {@code @StringVal} annotation to an {@code @ArrayLen} annotation. If the
-     * {@code @StringVal} annotation contains string values of more than MAX_VALUES distinct
+     * {@code @StringVal} annotation contains string values of more than {@link #maxValues} distinct
      * lengths, {@code @ArrayLenRange} annotation is returned instead.
      */
     /* package-private */ AnnotationMirror convertStringValToArrayLen(
@@ -1007,9 +1135,11 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
 
     /**
      * Returns a {@code Range} bounded by the values specified in the given {@code @Range}
-     * annotation. Also returns an appropriate range if an {@code @IntVal} annotation is passed.
+     * annotation. Also returns an appropriate range if an {@code @IntVal} annotation is passed, and
+     * the smallest range that contains all the ranges of an {@code @IntRangeSet} annotation.
      * Returns {@code null} if the annotation is null or if the annotation is not an {@code
-     * IntRange}, {@code IntRangeFromPositive}, {@code IntVal}, or {@code ArrayLenRange}.
+     * IntRange}, {@code IntRangeFromPositive}, {@code IntVal}, {@code IntRangeSet}, or {@code
+     * ArrayLenRange}.
      */
     public static Range getRange(AnnotationMirror rangeAnno) {
         if (rangeAnno == null) {
@@ -1029,6 +1159,8 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
                 return Range.create(
                         AnnotationUtils.getElementValue(rangeAnno, "from", Long.class, true),
                         AnnotationUtils.getElementValue(rangeAnno, "to", Long.class, true));
+            case INTRANGESET_NAME:
+                return getRangeSet(rangeAnno).hull();
             case ARRAYLENRANGE_NAME:
                 return Range.create(
                         AnnotationUtils.getElementValue(rangeAnno, "from", Integer.class, true),
@@ -1038,6 +1170,41 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
         }
     }
 
+    /**
+     * Returns the set of integral values represented by the given {@code @IntRangeSet}, {@code
+     * IntRange}, or {@code @IntVal} annotation, or by one of the special {@code IntRangeFrom*}
+     * annotations. Returns {@code null} if the annotation is null or is not one of those.
+     *
+     * @param anno an annotation, or null
+     * @return the set of values represented by {@code anno}, or null
+     */
+    public static RangeSet getRangeSet(AnnotationMirror anno) {
+        if (anno == null) {
+            return null;
+        }
+        switch (AnnotationUtils.annotationName(anno)) {
+            case INTRANGESET_NAME:
+                // Assume anno is well-formed; ValueTypeAnnotator replaces malformed ones.
+                List<Long> froms =
+                        AnnotationUtils.getElementValueArray(anno, "from", Long.class, true);
+                List<Long> tos = AnnotationUtils.getElementValueArray(anno, "to", Long.class, true);
+                List<Range> ranges = new ArrayList<>(froms.size());
+                for (int i = 0; i < froms.size(); i++) {
+                    ranges.add(Range.create(froms.get(i), tos.get(i)));
+                }
+                return RangeSet.createFromRanges(ranges);
+            case INTVAL_NAME:
+                return RangeSet.create(getIntValues(anno));
+            case INTRANGE_NAME:
+            case INTRANGE_FROMPOS_NAME:
+            case INTRANGE_FROMNONNEG_NAME:
+            case INTRANGE_FROMGTENEGONE_NAME:
+                return RangeSet.create(getRange(anno));
+            default:
+                return null;
+        }
+    }
+
     /**
      * Returns the set of possible values as a sorted list with no duplicate values. Returns the
      * empty list if no values are possible (for dead code). Returns null if any value is possible
@@ -1202,6 +1369,34 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
                 || name.equals(INTRANGE_FROMGTENEGONE_NAME);
     }
 
+    /**
+     * Returns true if one of the annotations in {@code anmSet} is an {@link IntRangeSet} or
+     * satisfies {@link #isIntRange(AnnotationMirror)}.
+     *
+     * @param anmSet a set of annotations
+     * @return true if one of the annotations is an integral range or a union of integral ranges
+     */
+    public boolean isIntRangeOrIntRangeSet(Set<AnnotationMirror> anmSet) {
+        for (AnnotationMirror anm : anmSet) {
+            if (isIntRangeOrIntRangeSet(anm)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if {@code anno} is an {@link IntRangeSet} or satisfies {@link
+     * #isIntRange(AnnotationMirror)}. For all of these, {@link #getRange} returns a range that
+     * contains every possible value; for an {@link IntRangeSet}, it is the hull of its ranges.
+     *
+     * @param anno annotation mirror
+     * @return true if {@code anno} is an integral range or a union of integral ranges
+     */
+    public boolean isIntRangeOrIntRangeSet(AnnotationMirror anno) {
+        return isIntRange(anno) || AnnotationUtils.areSameByName(anno, INTRANGESET_NAME);
+    }
+
     public int getMinLenValue(AnnotatedTypeMirror atm) {
         return getMinLenValue(atm.getAnnotationInHierarchy(UNKNOWNVAL));
     }
@@ -1284,7 +1479,7 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
         if (AnnotationUtils.areSameByName(anm, INTVAL_NAME)) {
             List<Long> possibleValues = getIntValues(anm);
             return Collections.min(possibleValues);
-        } else if (isIntRange(anm)) {
+        } else if (isIntRangeOrIntRangeSet(anm)) {
             Range range = getRange(anm);
             return range.from;
         }
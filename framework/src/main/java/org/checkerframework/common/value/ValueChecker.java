@@ -3,7 +3,6 @@ package org.checkerframework.common.value;
 import java.util.LinkedHashSet;
 import org.checkerframework.common.basetype.BaseTypeChecker;
 import org.checkerframework.common.basetype.BaseTypeVisitor;
-import org.checkerframework.common.value.util.Range;
 import org.checkerframework.framework.source.SupportedOptions;
 
 /**
@@ -20,7 +19,9 @@ import org.checkerframework.framework.source.SupportedOptions;
 @SupportedOptions({
     ValueChecker.REPORT_EVAL_WARNS,
     ValueChecker.IGNORE_RANGE_OVERFLOW,
-    ValueChecker.NON_NULL_STRINGS_CONCATENATION
+    ValueChecker.NON_NULL_STRINGS_CONCATENATION,
+    ValueChecker.MAX_VALUES_OPTION,
+    ValueChecker.MAX_INT_RANGES_OPTION
 })
 public class ValueChecker extends BaseTypeChecker {
     /**
@@ -32,6 +33,17 @@ public class ValueChecker extends BaseTypeChecker {
     public static final String IGNORE_RANGE_OVERFLOW = "ignoreRangeOverflow";
     /** Command-line option that assumes most expressions in String concatenations can be null. */
     public static final String NON_NULL_STRINGS_CONCATENATION = "nonNullStringsConcatenation";
+    /**
+     * Command-line option to set the maximum number of values in an annotation's array, such as
+     * {@code @IntVal} or {@code @StringVal}, before the annotation is widened to a range.
+     */
+    public static final String MAX_VALUES_OPTION = "maxValues";
+    /**
+     * Command-line option to set the maximum number of disjoint ranges in an {@code @IntRangeSet}
+     * annotation. The default, 1, disables the {@code @IntRangeSet} domain: integral values that
+     * are too many for an {@code @IntVal} are widened to a single {@code @IntRange}.
+     */
+    public static final String MAX_INT_RANGES_OPTION = "maxIntRanges";
 
     @Override
     protected BaseTypeVisitor<?> createSourceVisitor() {
@@ -51,11 +63,4 @@ public class ValueChecker extends BaseTypeChecker {
         // reflection can't be resolved.
         return false;
     }
-
-    @Override
-    public void typeProcessingOver() {
-        // Reset ignore overflow.
-        Range.ignoreOverflow = false;
-        super.typeProcessingOver();
-    }
 }
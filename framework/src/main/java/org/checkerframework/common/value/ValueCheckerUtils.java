@@ -14,6 +14,7 @@ import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.TypeMirror;
 import org.checkerframework.checker.signature.qual.DotSeparatedIdentifiers;
 import org.checkerframework.common.value.qual.IntRange;
+import org.checkerframework.common.value.qual.IntRangeSet;
 import org.checkerframework.common.value.qual.IntVal;
 import org.checkerframework.common.value.qual.StringVal;
 import org.checkerframework.common.value.util.NumberUtils;
@@ -86,13 +87,30 @@ public class ValueCheckerUtils {
     }
 
     /**
-     * Get a list of values of annotation, and then cast them to a given type.
+     * Get a list of values of annotation, and then cast them to a given type. A range is converted
+     * to a list only if it has at most the default number of values.
      *
      * @param anno the annotation that contains values
      * @param castTo the type that is casted to
      * @return a list of values after the casting
+     * @deprecated use {@link #getValuesCastedToType(AnnotationMirror, TypeMirror, int)}
      */
+    @Deprecated // use getValuesCastedToType(AnnotationMirror, TypeMirror, int)
     public static List<?> getValuesCastedToType(AnnotationMirror anno, TypeMirror castTo) {
+        return getValuesCastedToType(anno, castTo, ValueAnnotatedTypeFactory.DEFAULT_MAX_VALUES);
+    }
+
+    /**
+     * Get a list of values of annotation, and then cast them to a given type.
+     *
+     * @param anno the annotation that contains values
+     * @param castTo the type that is casted to
+     * @param maxValues the maximum number of values in a range that is converted to a list; see
+     *     {@link ValueAnnotatedTypeFactory#getMaxValues()}
+     * @return a list of values after the casting
+     */
+    public static List<?> getValuesCastedToType(
+            AnnotationMirror anno, TypeMirror castTo, int maxValues) {
         Class<?> castType = ValueCheckerUtils.getClassFromType(castTo);
         List<?> values;
         switch (AnnotationUtils.annotationName(anno)) {
@@ -105,7 +123,7 @@ public class ValueCheckerUtils {
                 break;
             case ValueAnnotatedTypeFactory.INTRANGE_NAME:
                 Range range = ValueAnnotatedTypeFactory.getRange(anno);
-                List<Long> rangeValues = getValuesFromRange(range, Long.class);
+                List<Long> rangeValues = getValuesFromRange(range, Long.class, maxValues);
                 values = convertIntVal(rangeValues, castType, castTo);
                 break;
             case ValueAnnotatedTypeFactory.STRINGVAL_NAME:
@@ -172,10 +190,32 @@ public class ValueCheckerUtils {
      *
      * @param range the given range
      * @param expectedType the expected type
-     * @return a list of all the values in the range
+     * @return a list of all the values in the range, or null if the range is null or has more than
+     *     the default number of values
+     * @deprecated use {@link #getValuesFromRange(Range, Class, int)}
      */
+    @Deprecated // use getValuesFromRange(Range, Class, int)
     public static <T> List<T> getValuesFromRange(Range range, Class<T> expectedType) {
-        if (range == null || range.isWiderThan(ValueAnnotatedTypeFactory.MAX_VALUES)) {
+        return getValuesFromRange(
+                range, expectedType, ValueAnnotatedTypeFactory.DEFAULT_MAX_VALUES);
+    }
+
+    /**
+     * Get all possible values from the given type and cast them into a boxed primitive type.
+     *
+     * <p>{@code expectedType} must be a boxed type, not a primitive type, because primitive types
+     * cannot be stored in a list.
+     *
+     * @param range the given range
+     * @param expectedType the expected type
+     * @param maxValues the maximum number of values to return; see {@link
+     *     ValueAnnotatedTypeFactory#getMaxValues()}
+     * @return a list of all the values in the range, or null if the range is null or has more than
+     *     {@code maxValues} values
+     */
+    public static <T> List<T> getValuesFromRange(
+            Range range, Class<T> expectedType, int maxValues) {
+        if (range == null || range.isWiderThan(maxValues)) {
             return null;
         }
         List<T> values = new ArrayList<>();
@@ -184,7 +224,7 @@ public class ValueCheckerUtils {
         }
 
         // The subtraction does not overflow, because the width has already been checked, so the
-        // bound difference is less than ValueAnnotatedTypeFactory.MAX_VALUES.
+        // bound difference is less than maxValues.
         long boundDifference = range.to - range.from;
 
         // Each value is computed as a sum of the first value and an offset within the range,
@@ -324,12 +364,17 @@ public class ValueCheckerUtils {
     /**
      * Returns a range representing the possible integral values represented by the passed {@code
      * AnnotatedTypeMirror}. If the passed {@code AnnotatedTypeMirror} does not contain an {@code
-     * IntRange} annotation or an {@code IntVal} annotation, returns null.
+     * IntRange}, {@code IntRangeSet}, or {@code IntVal} annotation, returns null. For an {@code
+     * IntRangeSet}, the result is the smallest range that contains all of its ranges.
      */
     public static Range getPossibleValues(
             AnnotatedTypeMirror valueType, ValueAnnotatedTypeFactory valueAnnotatedTypeFactory) {
-        if (valueAnnotatedTypeFactory.isIntRange(valueType.getAnnotations())) {
-            return ValueAnnotatedTypeFactory.getRange(valueType.getAnnotation(IntRange.class));
+        if (valueAnnotatedTypeFactory.isIntRangeOrIntRangeSet(valueType.getAnnotations())) {
+            AnnotationMirror rangeAnno = valueType.getAnnotation(IntRange.class);
+            if (rangeAnno == null) {
+                rangeAnno = valueType.getAnnotation(IntRangeSet.class);
+            }
+            return ValueAnnotatedTypeFactory.getRange(rangeAnno);
         } else {
             List<Long> values =
                     ValueAnnotatedTypeFactory.getIntValues(valueType.getAnnotation(IntVal.class));
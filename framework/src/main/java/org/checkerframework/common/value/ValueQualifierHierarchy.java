@@ -9,6 +9,7 @@ import java.util.stream.Collectors;
 import javax.lang.model.element.AnnotationMirror;
 import org.checkerframework.checker.regex.qual.Regex;
 import org.checkerframework.common.value.util.Range;
+import org.checkerframework.common.value.util.RangeSet;
 import org.checkerframework.framework.type.ElementQualifierHierarchy;
 import org.checkerframework.javacutil.AnnotationBuilder;
 import org.checkerframework.javacutil.AnnotationUtils;
@@ -85,6 +86,36 @@ final class ValueQualifierHierarchy extends ElementQualifierHierarchy {
         return atypeFactory.createStringAnnotation(values);
     }
 
+    /**
+     * Returns true if both annotations represent sets of integral values, and at least one of them
+     * is an {@code @IntRangeSet}. The subtyping, least upper bound, and greatest lower bound of
+     * such annotations are computed on {@link RangeSet}s.
+     *
+     * @param a1 an annotation from the value checker hierarchy
+     * @param a2 an annotation from the value checker hierarchy
+     * @return true if {@code a1} and {@code a2} should be compared as sets of ranges
+     */
+    private boolean isIntRangeSetPair(AnnotationMirror a1, AnnotationMirror a2) {
+        return (AnnotationUtils.areSameByName(a1, ValueAnnotatedTypeFactory.INTRANGESET_NAME)
+                        || AnnotationUtils.areSameByName(
+                                a2, ValueAnnotatedTypeFactory.INTRANGESET_NAME))
+                && isIntegral(a1)
+                && isIntegral(a2);
+    }
+
+    /**
+     * Returns true if the annotation is an {@code @IntVal}, {@code @IntRange}, or
+     * {@code @IntRangeSet}, whose values {@link ValueAnnotatedTypeFactory#getRangeSet} can
+     * represent.
+     *
+     * @param anno an annotation from the value checker hierarchy
+     * @return true if {@code anno} represents a set of integral values
+     */
+    private boolean isIntegral(AnnotationMirror anno) {
+        return AnnotationUtils.areSameByName(anno, ValueAnnotatedTypeFactory.INTVAL_NAME)
+                || atypeFactory.isIntRangeOrIntRangeSet(anno);
+    }
+
     @Override
     public AnnotationMirror greatestLowerBound(AnnotationMirror a1, AnnotationMirror a2) {
         if (isSubtype(a1, a2)) {
@@ -92,6 +123,14 @@ final class ValueQualifierHierarchy extends ElementQualifierHierarchy {
         } else if (isSubtype(a2, a1)) {
             return a2;
         } else {
+            if (isIntRangeSetPair(a1, a2)) {
+                // The result may be coarser than the exact intersection, if the intersection has
+                // more ranges than -AmaxIntRanges permits.
+                RangeSet intersection =
+                        ValueAnnotatedTypeFactory.getRangeSet(a1)
+                                .intersect(ValueAnnotatedTypeFactory.getRangeSet(a2));
+                return atypeFactory.createIntRangeSetAnnotation(intersection);
+            }
 
             // Implementation of GLB where one of the annotations is StringVal is needed for
             // length-based refinement of constant string values. Other cases of length-based
@@ -111,14 +150,24 @@ final class ValueQualifierHierarchy extends ElementQualifierHierarchy {
 
     @Override
     public int numberOfIterationsBeforeWidening() {
-        return ValueAnnotatedTypeFactory.MAX_VALUES + 1;
+        return atypeFactory.getMaxValues() + 1;
     }
 
     @Override
     public AnnotationMirror widenedUpperBound(
             AnnotationMirror newQualifier, AnnotationMirror previousQualifier) {
         AnnotationMirror lub = leastUpperBound(newQualifier, previousQualifier);
-        if (AnnotationUtils.areSameByName(lub, ValueAnnotatedTypeFactory.INTRANGE_NAME)) {
+        if (AnnotationUtils.areSameByName(lub, ValueAnnotatedTypeFactory.INTRANGESET_NAME)) {
+            if (AnnotationUtils.areSame(lub, previousQualifier)) {
+                return lub;
+            }
+            // A growing set of ranges might never stabilize, so widen its hull to an IntRange.
+            Range lubRange = ValueAnnotatedTypeFactory.getRange(lub);
+            Range newRange = ValueAnnotatedTypeFactory.getRange(newQualifier);
+            Range oldRange = ValueAnnotatedTypeFactory.getRange(previousQualifier);
+            Range wubRange = widenedRange(newRange, oldRange, lubRange);
+            return atypeFactory.createIntRangeAnnotation(wubRange);
+        } else if (AnnotationUtils.areSameByName(lub, ValueAnnotatedTypeFactory.INTRANGE_NAME)) {
             Range lubRange = ValueAnnotatedTypeFactory.getRange(lub);
             Range newRange = ValueAnnotatedTypeFactory.getRange(newQualifier);
             Range oldRange = ValueAnnotatedTypeFactory.getRange(previousQualifier);
@@ -215,6 +264,15 @@ final class ValueQualifierHierarchy extends ElementQualifierHierarchy {
         } else if (isSubtype(a2, a1)) {
             return a1;
         }
+
+        if (isIntRangeSetPair(a1, a2)
+                || (atypeFactory.getMaxIntRanges() > 1 && isIntegral(a1) && isIntegral(a2))) {
+            RangeSet union =
+                    ValueAnnotatedTypeFactory.getRangeSet(a1)
+                            .union(ValueAnnotatedTypeFactory.getRangeSet(a2));
+            return atypeFactory.createIntRangeSetAnnotation(union);
+        }
+
         String qual1 = AnnotationUtils.annotationName(a1);
         String qual2 = AnnotationUtils.annotationName(a2);
 
@@ -264,7 +322,7 @@ final class ValueQualifierHierarchy extends ElementQualifierHierarchy {
                     if (newObjectValues.isEmpty()) {
                         return atypeFactory.BOTTOMVAL;
                     }
-                    if (newObjectValues.size() > ValueAnnotatedTypeFactory.MAX_VALUES) {
+                    if (newObjectValues.size() > atypeFactory.getMaxValues()) {
                         return atypeFactory.UNKNOWNVAL;
                     }
                     AnnotationBuilder builder =
@@ -414,6 +472,9 @@ final class ValueQualifierHierarchy extends ElementQualifierHierarchy {
             return subQual.equals(ValueAnnotatedTypeFactory.POLY_NAME);
         } else if (subQual.equals(ValueAnnotatedTypeFactory.POLY_NAME)) {
             return false;
+        } else if (isIntRangeSetPair(superAnno, subAnno)) {
+            return ValueAnnotatedTypeFactory.getRangeSet(superAnno)
+                    .contains(ValueAnnotatedTypeFactory.getRangeSet(subAnno));
         } else if (superQual.equals(subQual)) {
             // Same type, so might be subtype
             if (subQual.equals(ValueAnnotatedTypeFactory.INTRANGE_NAME)
@@ -447,23 +508,26 @@ final class ValueQualifierHierarchy extends ElementQualifierHierarchy {
                 return superRange.contains(subLongRange);
             case ValueAnnotatedTypeFactory.DOUBLEVAL_NAME + ValueAnnotatedTypeFactory.INTRANGE_NAME:
                 Range subRange = ValueAnnotatedTypeFactory.getRange(subAnno);
-                if (subRange.isWiderThan(ValueAnnotatedTypeFactory.MAX_VALUES)) {
+                if (subRange.isWiderThan(atypeFactory.getMaxValues())) {
                     return false;
                 }
                 List<Double> superDoubleValues =
                         ValueAnnotatedTypeFactory.getDoubleValues(superAnno);
                 List<Double> subDoubleValues =
-                        ValueCheckerUtils.getValuesFromRange(subRange, Double.class);
+                        ValueCheckerUtils.getValuesFromRange(
+                                subRange, Double.class, atypeFactory.getMaxValues());
                 return superDoubleValues.containsAll(subDoubleValues);
             case ValueAnnotatedTypeFactory.INTVAL_NAME + ValueAnnotatedTypeFactory.INTRANGE_NAME:
             case ValueAnnotatedTypeFactory.ARRAYLEN_NAME
                     + ValueAnnotatedTypeFactory.ARRAYLENRANGE_NAME:
                 Range subRange2 = ValueAnnotatedTypeFactory.getRange(subAnno);
-                if (subRange2.isWiderThan(ValueAnnotatedTypeFactory.MAX_VALUES)) {
+                if (subRange2.isWiderThan(atypeFactory.getMaxValues())) {
                     return false;
                 }
                 List<Long> superValues2 = atypeFactory.getArrayLenOrIntValue(superAnno);
-                List<Long> subValues2 = ValueCheckerUtils.getValuesFromRange(subRange2, Long.class);
+                List<Long> subValues2 =
+                        ValueCheckerUtils.getValuesFromRange(
+                                subRange2, Long.class, atypeFactory.getMaxValues());
                 return superValues2.containsAll(subValues2);
             case ValueAnnotatedTypeFactory.STRINGVAL_NAME
                     + ValueAnnotatedTypeFactory.ARRAYLENRANGE_NAME:
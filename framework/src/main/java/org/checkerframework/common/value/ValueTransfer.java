@@ -17,6 +17,7 @@ import org.checkerframework.common.value.qual.StringVal;
 import org.checkerframework.common.value.util.NumberMath;
 import org.checkerframework.common.value.util.NumberUtils;
 import org.checkerframework.common.value.util.Range;
+import org.checkerframework.common.value.util.RangeSet;
 import org.checkerframework.dataflow.analysis.ConditionalTransferResult;
 import org.checkerframework.dataflow.analysis.RegularTransferResult;
 import org.checkerframework.dataflow.analysis.TransferInput;
@@ -77,6 +78,14 @@ public class ValueTransfer extends CFTransfer {
     /** The Value qualifier hierarchy. */
     protected final QualifierHierarchy hierarchy;
 
+    /**
+     * The largest number of value pairs for which a binary operation between two integral
+     * {@code @IntVal}s is evaluated pointwise. Larger cartesian products, which are only possible
+     * when {@code -AmaxValues} is set to a large value, are evaluated using range arithmetic
+     * instead, or range-set arithmetic if {@code -AmaxIntRanges} is greater than 1.
+     */
+    private static final int MAX_CARTESIAN_PRODUCT_SIZE = 10_000;
+
     /**
      * Create a new ValueTransfer.
      *
@@ -178,13 +187,16 @@ public class ValueTransfer extends CFTransfer {
             // @IntVal is not checked for, because if it is present, we would already have the
             // actual string values
             Range lengthRange = getIntRangeStringLengthRange(subNode, p);
-            return ValueCheckerUtils.getValuesFromRange(lengthRange, Integer.class);
+            return ValueCheckerUtils.getValuesFromRange(
+                    lengthRange, Integer.class, atypeFactory.getMaxValues());
         } else if (subNodeTypeKind == TypeKind.BYTE) {
             // bytes are between 1 and 4 characters long
-            return ValueCheckerUtils.getValuesFromRange(Range.create(1, 4), Integer.class);
+            return ValueCheckerUtils.getValuesFromRange(
+                    Range.create(1, 4), Integer.class, atypeFactory.getMaxValues());
         } else if (subNodeTypeKind == TypeKind.SHORT) {
             // shorts are between 1 and 6 characters long
-            return ValueCheckerUtils.getValuesFromRange(Range.create(1, 6), Integer.class);
+            return ValueCheckerUtils.getValuesFromRange(
+                    Range.create(1, 6), Integer.class, atypeFactory.getMaxValues());
         } else {
             return null;
         }
@@ -227,7 +239,9 @@ public class ValueTransfer extends CFTransfer {
             return getStringValues(((StringConversionNode) subNode).getOperand(), p);
         } else if (isIntRange(subNode, p)) {
             Range range = getIntRange(subNode, p);
-            List<Long> longValues = ValueCheckerUtils.getValuesFromRange(range, Long.class);
+            List<Long> longValues =
+                    ValueCheckerUtils.getValuesFromRange(
+                            range, Long.class, atypeFactory.getMaxValues());
             values = NumberUtils.castNumbers(subNode.getType(), longValues);
         } else {
             values = getNumericalValues(subNode, p);
@@ -297,12 +311,13 @@ public class ValueTransfer extends CFTransfer {
             return ValueAnnotatedTypeFactory.getCharValues(intAnno);
         }
 
-        if (atypeFactory.isIntRange(value.getAnnotations())) {
+        if (atypeFactory.isIntRangeOrIntRangeSet(value.getAnnotations())) {
             intAnno =
                     hierarchy.findAnnotationInHierarchy(
                             value.getAnnotations(), atypeFactory.UNKNOWNVAL);
             Range range = ValueAnnotatedTypeFactory.getRange(intAnno);
-            return ValueCheckerUtils.getValuesFromRange(range, Character.class);
+            return ValueCheckerUtils.getValuesFromRange(
+                    range, Character.class, atypeFactory.getMaxValues());
         }
 
         return new ArrayList<>();
@@ -383,7 +398,7 @@ public class ValueTransfer extends CFTransfer {
         if (val == null
                 || AnnotationUtils.areSameByName(val, ValueAnnotatedTypeFactory.UNKNOWN_NAME)) {
             range = Range.EVERYTHING;
-        } else if (atypeFactory.isIntRange(val)) {
+        } else if (atypeFactory.isIntRangeOrIntRangeSet(val)) {
             range = ValueAnnotatedTypeFactory.getRange(val);
         } else if (AnnotationUtils.areSameByName(val, ValueAnnotatedTypeFactory.INTVAL_NAME)) {
             List<Long> values = ValueAnnotatedTypeFactory.getIntValues(val);
@@ -396,19 +411,38 @@ public class ValueTransfer extends CFTransfer {
         } else {
             range = Range.EVERYTHING;
         }
-        return NumberUtils.castRange(node.getType(), range);
+        return NumberUtils.castRange(node.getType(), range, atypeFactory.isIgnoringRangeOverflow());
     }
 
     /**
-     * Returns true if subNode is annotated with {@code @IntRange}.
+     * Returns the {@link RangeSet} object corresponding to the annotation of {@code node}, with
+     * each of its ranges casted to the type of {@code node}.
+     *
+     * @param node a node
+     * @param p the transfer input
+     * @return the set of possible values of {@code node}
+     */
+    private RangeSet getIntRangeSet(Node node, TransferInput<CFValue, CFStore> p) {
+        AnnotationMirror val = getValueAnnotation(node, p);
+        RangeSet rangeSet = ValueAnnotatedTypeFactory.getRangeSet(val);
+        if (rangeSet == null) {
+            return RangeSet.create(getIntRangeFromAnnotation(node, val));
+        }
+        TypeMirror type = node.getType();
+        boolean ignoreOverflow = atypeFactory.isIgnoringRangeOverflow();
+        return rangeSet.map(range -> NumberUtils.castRange(type, range, ignoreOverflow));
+    }
+
+    /**
+     * Returns true if subNode is annotated with {@code @IntRange} or {@code @IntRangeSet}.
      *
      * @param subNode subNode of {@code p}
      * @param p TransferInput
-     * @return true if this subNode is annotated with {@code @IntRange}.
+     * @return true if this subNode is annotated with {@code @IntRange} or {@code @IntRangeSet}.
      */
     private boolean isIntRange(Node subNode, TransferInput<CFValue, CFStore> p) {
         CFValue value = p.getValueOfSubNode(subNode);
-        return atypeFactory.isIntRange(value.getAnnotations());
+        return atypeFactory.isIntRangeOrIntRangeSet(value.getAnnotations());
     }
 
     /**
@@ -562,12 +596,18 @@ public class ValueTransfer extends CFTransfer {
         }
 
         RangeOrListOfValues rolv;
-        if (atypeFactory.isIntRange(lengthAnno)) {
-            rolv = new RangeOrListOfValues(ValueAnnotatedTypeFactory.getRange(lengthAnno));
+        if (atypeFactory.isIntRangeOrIntRangeSet(lengthAnno)) {
+            rolv =
+                    new RangeOrListOfValues(
+                            ValueAnnotatedTypeFactory.getRange(lengthAnno),
+                            atypeFactory.getMaxValues());
         } else if (AnnotationUtils.areSameByName(
                 lengthAnno, ValueAnnotatedTypeFactory.INTVAL_NAME)) {
             List<Long> lengthValues = ValueAnnotatedTypeFactory.getIntValues(lengthAnno);
-            rolv = new RangeOrListOfValues(RangeOrListOfValues.convertLongsToInts(lengthValues));
+            rolv =
+                    new RangeOrListOfValues(
+                            RangeOrListOfValues.convertLongsToInts(lengthValues),
+                            atypeFactory.getMaxValues());
         } else {
             return;
         }
@@ -627,7 +667,9 @@ public class ValueTransfer extends CFTransfer {
      * known ranges of lengths.
      */
     private Range calculateLengthRangeAddition(Range leftLengths, Range rightLengths) {
-        return leftLengths.plus(rightLengths).intersect(Range.INT_EVERYTHING);
+        return leftLengths
+                .plus(rightLengths, atypeFactory.isIgnoringRangeOverflow())
+                .intersect(Range.INT_EVERYTHING);
     }
 
     /**
@@ -792,15 +834,51 @@ public class ValueTransfer extends CFTransfer {
             NumericalBinaryOps op,
             TransferInput<CFValue, CFStore> p) {
         if (!isIntRangeOrIntegralUnknownVal(leftNode, p)
-                && !isIntRangeOrIntegralUnknownVal(rightNode, p)) {
+                && !isIntRangeOrIntegralUnknownVal(rightNode, p)
+                && !isCartesianProductTooLarge(leftNode, rightNode, p)) {
             List<Number> resultValues = calculateValuesBinaryOp(leftNode, rightNode, op, p);
             return atypeFactory.createNumberAnnotationMirror(resultValues);
+        } else if (atypeFactory.getMaxIntRanges() > 1
+                && TypesUtils.isIntegralPrimitive(leftNode.getType())
+                && TypesUtils.isIntegralPrimitive(rightNode.getType())) {
+            RangeSet resultSet = calculateRangeSetBinaryOp(leftNode, rightNode, op, p);
+            return atypeFactory.createIntRangeSetAnnotation(resultSet);
         } else {
             Range resultRange = calculateRangeBinaryOp(leftNode, rightNode, op, p);
             return atypeFactory.createIntRangeAnnotation(resultRange);
         }
     }
 
+    /**
+     * Returns true if both operands are integral {@code @IntVal}s and evaluating a binary
+     * operation on every pair of their values would exceed {@link #MAX_CARTESIAN_PRODUCT_SIZE}.
+     *
+     * @param leftNode the node that represents the left operand
+     * @param rightNode the node that represents the right operand
+     * @param p the transfer input
+     * @return true if the operation should be evaluated using ranges rather than values
+     */
+    private boolean isCartesianProductTooLarge(
+            Node leftNode, Node rightNode, TransferInput<CFValue, CFStore> p) {
+        if (!TypesUtils.isIntegralPrimitive(leftNode.getType())
+                || !TypesUtils.isIntegralPrimitive(rightNode.getType())) {
+            return false;
+        }
+        AnnotationMirror leftAnno = getValueAnnotation(leftNode, p);
+        AnnotationMirror rightAnno = getValueAnnotation(rightNode, p);
+        if (leftAnno == null
+                || rightAnno == null
+                || !AnnotationUtils.areSameByName(leftAnno, ValueAnnotatedTypeFactory.INTVAL_NAME)
+                || !AnnotationUtils.areSameByName(
+                        rightAnno, ValueAnnotatedTypeFactory.INTVAL_NAME)) {
+            return false;
+        }
+        long size =
+                (long) ValueAnnotatedTypeFactory.getIntValues(leftAnno).size()
+                        * ValueAnnotatedTypeFactory.getIntValues(rightAnno).size();
+        return size > MAX_CARTESIAN_PRODUCT_SIZE;
+    }
+
     /** Calculate the result range after a binary operation between two numerical type nodes. */
     private Range calculateRangeBinaryOp(
             Node leftNode,
@@ -811,55 +889,106 @@ public class ValueTransfer extends CFTransfer {
                 && TypesUtils.isIntegralPrimitive(rightNode.getType())) {
             Range leftRange = getIntRange(leftNode, p);
             Range rightRange = getIntRange(rightNode, p);
-            Range resultRange;
-            switch (op) {
-                case ADDITION:
-                    resultRange = leftRange.plus(rightRange);
-                    break;
-                case SUBTRACTION:
-                    resultRange = leftRange.minus(rightRange);
-                    break;
-                case MULTIPLICATION:
-                    resultRange = leftRange.times(rightRange);
-                    break;
-                case DIVISION:
-                    resultRange = leftRange.divide(rightRange);
-                    break;
-                case REMAINDER:
-                    resultRange = leftRange.remainder(rightRange);
-                    break;
-                case SHIFT_LEFT:
-                    resultRange = leftRange.shiftLeft(rightRange);
-                    break;
-                case SIGNED_SHIFT_RIGHT:
-                    resultRange = leftRange.signedShiftRight(rightRange);
-                    break;
-                case UNSIGNED_SHIFT_RIGHT:
-                    resultRange = leftRange.unsignedShiftRight(rightRange);
-                    break;
-                case BITWISE_AND:
-                    resultRange = leftRange.bitwiseAnd(rightRange);
-                    break;
-                case BITWISE_OR:
-                    resultRange = leftRange.bitwiseOr(rightRange);
-                    break;
-                case BITWISE_XOR:
-                    resultRange = leftRange.bitwiseXor(rightRange);
-                    break;
-                default:
-                    throw new BugInCF("ValueTransfer: unsupported operation: " + op);
-            }
-            // Any integral type with less than 32 bits would be promoted to 32-bit int type during
-            // operations.
-            return leftNode.getType().getKind() == TypeKind.LONG
-                            || rightNode.getType().getKind() == TypeKind.LONG
-                    ? resultRange
-                    : resultRange.intRange();
+            return calculateRangeBinaryOp(
+                    leftRange, rightRange, op, isLongOperation(leftNode, rightNode));
         } else {
             return Range.EVERYTHING;
         }
     }
 
+    /**
+     * Calculate the result set after a binary operation between two integral type nodes, by
+     * applying the operation to each pair of a range of the left operand and a range of the right
+     * operand. Each operand is first coarsened to {@link
+     * ValueAnnotatedTypeFactory#getMaxIntRanges()} ranges, which bounds the number of pairs.
+     *
+     * @param leftNode the node that represents the left operand, which has an integral type
+     * @param rightNode the node that represents the right operand, which has an integral type
+     * @param op the operator type
+     * @param p the transfer input
+     * @return a set that contains every possible result of the operation
+     */
+    private RangeSet calculateRangeSetBinaryOp(
+            Node leftNode,
+            Node rightNode,
+            NumericalBinaryOps op,
+            TransferInput<CFValue, CFStore> p) {
+        int maxIntRanges = atypeFactory.getMaxIntRanges();
+        RangeSet leftSet = getIntRangeSet(leftNode, p).coarsen(maxIntRanges);
+        RangeSet rightSet = getIntRangeSet(rightNode, p).coarsen(maxIntRanges);
+        boolean isLong = isLongOperation(leftNode, rightNode);
+        return leftSet.combine(
+                rightSet,
+                (leftRange, rightRange) ->
+                        calculateRangeBinaryOp(leftRange, rightRange, op, isLong));
+    }
+
+    /**
+     * Returns true if a binary operation on the two nodes is evaluated in 64 bits. Any integral
+     * type with less than 32 bits is promoted to the 32-bit int type during operations.
+     *
+     * @param leftNode the node that represents the left operand
+     * @param rightNode the node that represents the right operand
+     * @return true if either operand is a long
+     */
+    private boolean isLongOperation(Node leftNode, Node rightNode) {
+        return leftNode.getType().getKind() == TypeKind.LONG
+                || rightNode.getType().getKind() == TypeKind.LONG;
+    }
+
+    /**
+     * Calculate the result range after a binary operation between two integral ranges.
+     *
+     * @param leftRange the range of the left operand
+     * @param rightRange the range of the right operand
+     * @param op the operator type
+     * @param isLong true if the operation is evaluated in 64 bits, false if in 32 bits
+     * @return a range that contains every possible result of the operation
+     */
+    private Range calculateRangeBinaryOp(
+            Range leftRange, Range rightRange, NumericalBinaryOps op, boolean isLong) {
+        boolean ignoreOverflow = atypeFactory.isIgnoringRangeOverflow();
+        Range resultRange;
+        switch (op) {
+            case ADDITION:
+                resultRange = leftRange.plus(rightRange, ignoreOverflow);
+                break;
+            case SUBTRACTION:
+                resultRange = leftRange.minus(rightRange, ignoreOverflow);
+                break;
+            case MULTIPLICATION:
+                resultRange = leftRange.times(rightRange, ignoreOverflow);
+                break;
+            case DIVISION:
+                resultRange = leftRange.divide(rightRange);
+                break;
+            case REMAINDER:
+                resultRange = leftRange.remainder(rightRange);
+                break;
+            case SHIFT_LEFT:
+                resultRange = leftRange.shiftLeft(rightRange, ignoreOverflow);
+                break;
+            case SIGNED_SHIFT_RIGHT:
+                resultRange = leftRange.signedShiftRight(rightRange);
+                break;
+            case UNSIGNED_SHIFT_RIGHT:
+                resultRange = leftRange.unsignedShiftRight(rightRange);
+                break;
+            case BITWISE_AND:
+                resultRange = leftRange.bitwiseAnd(rightRange);
+                break;
+            case BITWISE_OR:
+                resultRange = leftRange.bitwiseOr(rightRange);
+                break;
+            case BITWISE_XOR:
+                resultRange = leftRange.bitwiseXor(rightRange);
+                break;
+            default:
+                throw new BugInCF("ValueTransfer: unsupported operation: " + op);
+        }
+        return isLong ? resultRange : resultRange.intRange(ignoreOverflow);
+    }
+
     /** Calculate the possible values after a binary operation between two numerical type nodes. */
     private List<Number> calculateValuesBinaryOp(
             Node leftNode,
@@ -1082,6 +1211,13 @@ public class ValueTransfer extends CFTransfer {
         if (!isIntRange(operand, p)) {
             List<Number> resultValues = calculateValuesUnaryOp(operand, op, p);
             return atypeFactory.createNumberAnnotationMirror(resultValues);
+        } else if (atypeFactory.getMaxIntRanges() > 1
+                && TypesUtils.isIntegralPrimitive(operand.getType())) {
+            boolean isLong = operand.getType().getKind() == TypeKind.LONG;
+            RangeSet resultSet =
+                    getIntRangeSet(operand, p)
+                            .map(range -> calculateRangeUnaryOp(range, op, isLong));
+            return atypeFactory.createIntRangeSetAnnotation(resultSet);
         } else {
             Range resultRange = calculateRangeUnaryOp(operand, op, p);
             return atypeFactory.createIntRangeAnnotation(resultRange);
@@ -1100,30 +1236,41 @@ public class ValueTransfer extends CFTransfer {
             Node operand, NumericalUnaryOps op, TransferInput<CFValue, CFStore> p) {
         if (TypesUtils.isIntegralPrimitive(operand.getType())) {
             Range range = getIntRange(operand, p);
-            Range resultRange;
-            switch (op) {
-                case PLUS:
-                    resultRange = range.unaryPlus();
-                    break;
-                case MINUS:
-                    resultRange = range.unaryMinus();
-                    break;
-                case BITWISE_COMPLEMENT:
-                    resultRange = range.bitwiseComplement();
-                    break;
-                default:
-                    throw new BugInCF("ValueTransfer: unsupported operation: " + op);
-            }
-            // Any integral type with less than 32 bits would be promoted to 32-bit int type during
-            // operations.
-            return operand.getType().getKind() == TypeKind.LONG
-                    ? resultRange
-                    : resultRange.intRange();
+            return calculateRangeUnaryOp(
+                    range, op, operand.getType().getKind() == TypeKind.LONG);
         } else {
             return Range.EVERYTHING;
         }
     }
 
+    /**
+     * Calculate the result range after a unary operation on an integral range.
+     *
+     * @param range the range of the operand
+     * @param op the operator type
+     * @param isLong true if the operation is evaluated in 64 bits, false if in 32 bits
+     * @return a range that contains every possible result of the operation
+     */
+    private Range calculateRangeUnaryOp(Range range, NumericalUnaryOps op, boolean isLong) {
+        Range resultRange;
+        switch (op) {
+            case PLUS:
+                resultRange = range.unaryPlus();
+                break;
+            case MINUS:
+                resultRange = range.unaryMinus();
+                break;
+            case BITWISE_COMPLEMENT:
+                resultRange = range.bitwiseComplement();
+                break;
+            default:
+                throw new BugInCF("ValueTransfer: unsupported operation: " + op);
+        }
+        // Any integral type with less than 32 bits would be promoted to 32-bit int type during
+        // operations.
+        return isLong ? resultRange : resultRange.intRange(atypeFactory.isIgnoringRangeOverflow());
+    }
+
     /** Calculate the possible values after a unary operation of a numerical type node. */
     private List<Number> calculateValuesUnaryOp(
             Node operand, NumericalUnaryOps op, TransferInput<CFValue, CFStore> p) {
@@ -1198,8 +1345,8 @@ public class ValueTransfer extends CFTransfer {
         AnnotationMirror leftAnno = getValueAnnotation(leftValue);
         AnnotationMirror rightAnno = getValueAnnotation(rightValue);
 
-        if (atypeFactory.isIntRange(leftAnno)
-                || atypeFactory.isIntRange(rightAnno)
+        if (atypeFactory.isIntRangeOrIntRangeSet(leftAnno)
+                || atypeFactory.isIntRangeOrIntRangeSet(rightAnno)
                 || isIntegralUnknownVal(rightNode, rightAnno)
                 || isIntegralUnknownVal(leftNode, leftAnno)) {
             // If either is @UnknownVal, then refineIntRanges will treat it as the max range and
@@ -128,14 +128,18 @@ class ValueTreeAnnotator extends TreeAnnotator {
             type.replaceAnnotation(atypeFactory.BOTTOMVAL);
         } else {
             RangeOrListOfValues rolv = null;
-            if (atypeFactory.isIntRange(dimType)) {
-                rolv = new RangeOrListOfValues(ValueAnnotatedTypeFactory.getRange(dimType));
+            if (atypeFactory.isIntRangeOrIntRangeSet(dimType)) {
+                rolv =
+                        new RangeOrListOfValues(
+                                ValueAnnotatedTypeFactory.getRange(dimType),
+                                atypeFactory.getMaxValues());
             } else if (AnnotationUtils.areSameByName(
                     dimType, ValueAnnotatedTypeFactory.INTVAL_NAME)) {
                 rolv =
                         new RangeOrListOfValues(
                                 RangeOrListOfValues.convertLongsToInts(
-                                        ValueAnnotatedTypeFactory.getIntValues(dimType)));
+                                        ValueAnnotatedTypeFactory.getIntValues(dimType)),
+                                atypeFactory.getMaxValues());
             }
             if (rolv != null) {
                 AnnotationMirror newQual = rolv.createAnnotation(atypeFactory);
@@ -183,7 +187,9 @@ class ValueTreeAnnotator extends TreeAnnotator {
                     if (rolv != null) {
                         rolv.addAll(currentLengths);
                     } else {
-                        arrayLenOfDimensions.add(new RangeOrListOfValues(currentLengths));
+                        arrayLenOfDimensions.add(
+                                new RangeOrListOfValues(
+                                        currentLengths, atypeFactory.getMaxValues()));
                     }
                 } else {
                     // Check for an arrayLenRange annotation
@@ -198,7 +204,8 @@ class ValueTreeAnnotator extends TreeAnnotator {
                     if (rolv != null) {
                         rolv.add(range);
                     } else {
-                        arrayLenOfDimensions.add(new RangeOrListOfValues(range));
+                        arrayLenOfDimensions.add(
+                                new RangeOrListOfValues(range, atypeFactory.getMaxValues()));
                     }
                 }
 
@@ -262,9 +269,9 @@ class ValueTreeAnnotator extends TreeAnnotator {
             if (TypesUtils.isString(newType) || newType.getKind() == TypeKind.ARRAY) {
                 // Strings and arrays do not allow conversions
                 newAnno = oldAnno;
-            } else if (atypeFactory.isIntRange(oldAnno)
+            } else if (atypeFactory.isIntRangeOrIntRangeSet(oldAnno)
                     && (range = ValueAnnotatedTypeFactory.getRange(oldAnno))
-                            .isWiderThan(ValueAnnotatedTypeFactory.MAX_VALUES)) {
+                            .isWiderThan(atypeFactory.getMaxValues())) {
                 Class<?> newClass = ValueCheckerUtils.getClassFromType(newType);
                 if (newClass == String.class) {
                     newAnno = atypeFactory.UNKNOWNVAL;
@@ -274,10 +281,15 @@ class ValueTreeAnnotator extends TreeAnnotator {
                 } else {
                     newAnno =
                             atypeFactory.createIntRangeAnnotation(
-                                    NumberUtils.castRange(newType, range));
+                                    NumberUtils.castRange(
+                                            newType,
+                                            range,
+                                            atypeFactory.isIgnoringRangeOverflow()));
                 }
             } else {
-                List<?> values = ValueCheckerUtils.getValuesCastedToType(oldAnno, newType);
+                List<?> values =
+                        ValueCheckerUtils.getValuesCastedToType(
+                                oldAnno, newType, atypeFactory.getMaxValues());
                 newAnno = atypeFactory.createResultingAnnotation(atm.getUnderlyingType(), values);
             }
             atm.addMissingAnnotations(Collections.singleton(newAnno));
@@ -302,7 +314,7 @@ class ValueTreeAnnotator extends TreeAnnotator {
             // unknown.  AnnotatedTypes.findEffectiveAnnotationInHierarchy(, toSearch, top)
             return null;
         }
-        return ValueCheckerUtils.getValuesCastedToType(anno, castTo);
+        return ValueCheckerUtils.getValuesCastedToType(anno, castTo, atypeFactory.getMaxValues());
     }
 
     @Override
@@ -43,14 +43,15 @@ class ValueTypeAnnotator extends TypeAnnotator {
     /**
      * This method performs pre-processing on annotations written by users.
      *
-     * <p>If any *Val annotation has &gt; MAX_VALUES number of values provided, replaces the
-     * annotation by @IntRange for integral types, @ArrayLenRange for arrays, @ArrayLen
-     * or @ArrayLenRange for strings, and @UnknownVal for all other types. Works together with
-     * {@link ValueVisitor#visitAnnotation(com.sun.source.tree.AnnotationTree, Void)} which issues
-     * warnings to users in these cases.
+     * <p>If any *Val annotation has more than {@code -AmaxValues} values provided, replaces the
+     * annotation by @IntRange or @IntRangeSet for integral types, @ArrayLenRange for arrays,
+     * {@code @ArrayLen} or @ArrayLenRange for strings, and @UnknownVal for all other types.
+     * Works together with {@link ValueVisitor#visitAnnotation(com.sun.source.tree.AnnotationTree,
+     * Void)} which issues warnings to users in these cases.
      *
-     * <p>If any @IntRange or @ArrayLenRange annotation has incorrect parameters, e.g. the value
-     * "from" is greater than the value "to", replaces the annotation by {@code @BottomVal}. The
+     * <p>If any @IntRange, @IntRangeSet, or @ArrayLenRange annotation has incorrect parameters,
+     * e.g. the value "from" is greater than the value "to", replaces the annotation by
+     * {@code @BottomVal}. A well-formed @IntRangeSet is replaced by its canonical form. The
      * {@link ValueVisitor#visitAnnotation(com.sun.source.tree.AnnotationTree, Void)} raises an
      * error to users if the annotation was user-written.
      *
@@ -71,8 +72,8 @@ class ValueTypeAnnotator extends TypeAnnotator {
 
         if (AnnotationUtils.areSameByName(anno, ValueAnnotatedTypeFactory.INTVAL_NAME)) {
             List<Long> values = ValueAnnotatedTypeFactory.getIntValues(anno);
-            if (values.size() > ValueAnnotatedTypeFactory.MAX_VALUES) {
-                atm.replaceAnnotation(typeFactory.createIntRangeAnnotation(Range.create(values)));
+            if (values.size() > typeFactory.getMaxValues()) {
+                atm.replaceAnnotation(typeFactory.createIntValAnnotation(values));
             }
         } else if (AnnotationUtils.areSameByName(anno, ValueAnnotatedTypeFactory.ARRAYLEN_NAME)) {
             List<Integer> values = ValueAnnotatedTypeFactory.getArrayLength(anno);
@@ -80,7 +81,7 @@ class ValueTypeAnnotator extends TypeAnnotator {
                 atm.replaceAnnotation(typeFactory.BOTTOMVAL);
             } else if (Collections.min(values) < 0) {
                 atm.replaceAnnotation(typeFactory.BOTTOMVAL);
-            } else if (values.size() > ValueAnnotatedTypeFactory.MAX_VALUES) {
+            } else if (values.size() > typeFactory.getMaxValues()) {
                 atm.replaceAnnotation(
                         typeFactory.createArrayLenRangeAnnotation(Range.create(values)));
             }
@@ -111,6 +112,27 @@ class ValueTypeAnnotator extends TypeAnnotator {
                 // annotation (assuming the annotation is well-formed).
                 atm.replaceAnnotation(typeFactory.createIntRangeAnnotation(from, to));
             }
+        } else if (AnnotationUtils.areSameByName(
+                anno, ValueAnnotatedTypeFactory.INTRANGESET_NAME)) {
+            List<Long> froms = AnnotationUtils.getElementValueArray(anno, "from", Long.class, true);
+            List<Long> tos = AnnotationUtils.getElementValueArray(anno, "to", Long.class, true);
+            boolean wellFormed = !froms.isEmpty() && froms.size() == tos.size();
+            for (int i = 0; wellFormed && i < froms.size(); i++) {
+                wellFormed = froms.get(i) <= tos.get(i);
+            }
+            if (!wellFormed) {
+                // ValueVisitor#visitAnnotation issues an error if the annotation was user-written.
+                atm.replaceAnnotation(typeFactory.BOTTOMVAL);
+            } else {
+                // Merge overlapping ranges, and respect the -AmaxValues and -AmaxIntRanges
+                // limits, which might convert the annotation to an @IntVal or an @IntRange.
+                AnnotationMirror canonical =
+                        typeFactory.createIntRangeSetAnnotation(
+                                ValueAnnotatedTypeFactory.getRangeSet(anno));
+                if (!AnnotationUtils.areSame(anno, canonical)) {
+                    atm.replaceAnnotation(canonical);
+                }
+            }
         } else if (AnnotationUtils.areSameByName(
                 anno, ValueAnnotatedTypeFactory.ARRAYLENRANGE_NAME)) {
             int from = AnnotationUtils.getElementValue(anno, "from", Integer.class, true);
@@ -131,7 +153,7 @@ class ValueTypeAnnotator extends TypeAnnotator {
             // ArrayLen or ArrayLenRange is used.
             List<String> values = ValueAnnotatedTypeFactory.getStringValues(anno);
 
-            if (values.size() > ValueAnnotatedTypeFactory.MAX_VALUES) {
+            if (values.size() > typeFactory.getMaxValues()) {
                 List<Integer> lengths = ValueCheckerUtils.getLengthsForStringValues(values);
                 atm.replaceAnnotation(typeFactory.createArrayLenAnnotation(lengths));
             }
@@ -155,7 +177,7 @@ class ValueTypeAnnotator extends TypeAnnotator {
             // Therefore we extract its values in a generic way to check its size.
             List<Object> values =
                     AnnotationUtils.getElementValueArray(anno, "value", Object.class, false);
-            if (values.size() > ValueAnnotatedTypeFactory.MAX_VALUES) {
+            if (values.size() > typeFactory.getMaxValues()) {
                 atm.replaceAnnotation(typeFactory.UNKNOWNVAL);
             }
         }
@@ -154,9 +154,13 @@ public class ValueVisitor extends BaseTypeVisitor<ValueAnnotatedTypeFactory> {
      *
      * <p>Issues an error if any @IntRange annotation has its 'from' value greater than 'to' value.
      *
+     * <p>Issues an error if any @IntRangeSet annotation has no ranges, has 'from' and 'to' arrays of
+     * different lengths, or has a 'from' value greater than the corresponding 'to' value.
+     *
      * <p>Issues an error if any constant-value annotation has no arguments.
      *
-     * <p>Issues a warning if any constant-value annotation has &gt; MAX_VALUES arguments.
+     * <p>Issues a warning if any constant-value annotation has more than {@code -AmaxValues}
+     * arguments.
      *
      * <p>Issues a warning if any @ArrayLen/@ArrayLenRange annotations contain a negative array
      * length.
@@ -197,6 +201,21 @@ public class ValueVisitor extends BaseTypeVisitor<ValueAnnotatedTypeFactory> {
                     }
                 }
                 break;
+            case ValueAnnotatedTypeFactory.INTRANGESET_NAME:
+                List<Long> froms =
+                        AnnotationUtils.getElementValueArray(anno, "from", Long.class, true);
+                List<Long> tos = AnnotationUtils.getElementValueArray(anno, "to", Long.class, true);
+                if (froms.isEmpty() || froms.size() != tos.size()) {
+                    checker.reportError(node, "intrangeset.malformed");
+                    return null;
+                }
+                for (int i = 0; i < froms.size(); i++) {
+                    if (froms.get(i) > tos.get(i)) {
+                        checker.reportError(node, "from.greater.than.to");
+                        return null;
+                    }
+                }
+                break;
             case ValueAnnotatedTypeFactory.ARRAYLEN_NAME:
             case ValueAnnotatedTypeFactory.BOOLVAL_NAME:
             case ValueAnnotatedTypeFactory.DOUBLEVAL_NAME:
@@ -208,14 +227,14 @@ public class ValueVisitor extends BaseTypeVisitor<ValueAnnotatedTypeFactory> {
                 if (values.isEmpty()) {
                     checker.reportWarning(node, "no.values.given");
                     return null;
-                } else if (values.size() > ValueAnnotatedTypeFactory.MAX_VALUES) {
+                } else if (values.size() > atypeFactory.getMaxValues()) {
                     checker.reportWarning(
                             node,
                             (AnnotationUtils.areSameByName(
                                             anno, ValueAnnotatedTypeFactory.INTVAL_NAME)
                                     ? "too.many.values.given.int"
                                     : "too.many.values.given"),
-                            ValueAnnotatedTypeFactory.MAX_VALUES);
+                            atypeFactory.getMaxValues());
                     return null;
                 } else if (AnnotationUtils.areSameByName(
                         anno, ValueAnnotatedTypeFactory.ARRAYLEN_NAME)) {
@@ -274,8 +293,8 @@ public class ValueVisitor extends BaseTypeVisitor<ValueAnnotatedTypeFactory> {
         // to a @IntRange(from = Byte.MIN_VALUE, to = Byte.MAX_VALUE byte).
         if (castAnno != null
                 && exprAnno != null
-                && atypeFactory.isIntRange(castAnno)
-                && atypeFactory.isIntRange(exprAnno)) {
+                && atypeFactory.isIntRangeOrIntRangeSet(castAnno)
+                && atypeFactory.isIntRangeOrIntRangeSet(exprAnno)) {
             final Range castRange = ValueAnnotatedTypeFactory.getRange(castAnno);
             final TypeKind castTypeKind = castType.getKind();
             if (castTypeKind == TypeKind.BYTE && castRange.isByteEverything()) {
@@ -293,16 +312,17 @@ public class ValueVisitor extends BaseTypeVisitor<ValueAnnotatedTypeFactory> {
             if (castTypeKind == TypeKind.LONG && castRange.isLongEverything()) {
                 return p;
             }
-            if (Range.ignoreOverflow) {
-                // Range.ignoreOverflow is only set if this checker is ignoring overflow.
-                // In that case, do not warn if the range of the expression encompasses
-                // the whole type being casted to (i.e. the warning is actually about overflow).
+            if (atypeFactory.isIgnoringRangeOverflow()) {
+                // If this checker is ignoring overflow, do not warn if the range of the
+                // expression encompasses the whole type being casted to (i.e. the warning is
+                // actually about overflow).
                 Range exprRange = ValueAnnotatedTypeFactory.getRange(exprAnno);
                 if (castTypeKind == TypeKind.BYTE
                         || castTypeKind == TypeKind.CHAR
                         || castTypeKind == TypeKind.SHORT
                         || castTypeKind == TypeKind.INT) {
-                    exprRange = NumberUtils.castRange(castType.getUnderlyingType(), exprRange);
+                    exprRange =
+                            NumberUtils.castRange(castType.getUnderlyingType(), exprRange, true);
                 }
                 if (castRange.equals(exprRange)) {
                     return p;
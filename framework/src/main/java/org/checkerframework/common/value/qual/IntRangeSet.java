@@ -0,0 +1,36 @@
+package org.checkerframework.common.value.qual;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import org.checkerframework.framework.qual.SubtypeOf;
+
+/**
+ * An expression with this type evaluates to an integral value (byte, short, char, int, or long) in
+ * one of the given ranges. The i-th range is {@code from()[i]} to {@code to()[i]}, and the bounds
+ * are inclusive. For example, the following declaration allows the 20 values 0, 1, ..., 9 and 100,
+ * 101, ..., 109:
+ *
+ * <pre>{@code @IntRangeSet(from = {0, 100}, to = {9, 109}) int code;}</pre>
+ *
+ * <p>The two arrays must have the same, non-zero length, and each {@code from} value must be less
+ * than or equal to the corresponding {@code to} value.
+ *
+ * <p>The Constant Value Checker only infers this annotation when the {@code -AmaxIntRanges}
+ * command-line option is greater than 1; otherwise, it is treated like the {@link IntRange} that
+ * spans all of its ranges.
+ *
+ * @checker_framework.manual #constant-value-checker Constant Value Checker
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE_PARAMETER, ElementType.TYPE_USE})
+@SubtypeOf(UnknownVal.class)
+public @interface IntRangeSet {
+    /** The smallest value of each range, inclusive. */
+    long[] from();
+    /** The largest value of each range, inclusive. */
+    long[] to();
+}
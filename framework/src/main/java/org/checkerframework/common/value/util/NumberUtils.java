@@ -73,22 +73,23 @@ public class NumberUtils {
      *
      * @param type the type for the cast; the result will be within it
      * @param range the original range; the result will be within it
+     * @param ignoreOverflow whether to clip the range to the given type rather than wrap it around
      * @return the intersection of the given range and the possible values of the given type
      */
-    public static Range castRange(TypeMirror type, Range range) {
+    public static Range castRange(TypeMirror type, Range range, boolean ignoreOverflow) {
         TypeKind typeKind = TypeKindUtils.primitiveOrBoxedToTypeKind(type);
         if (typeKind == null) {
             throw new UnsupportedOperationException(type.toString());
         }
         switch (typeKind) {
             case BYTE:
-                return range.byteRange();
+                return range.byteRange(ignoreOverflow);
             case CHAR:
-                return range.charRange();
+                return range.charRange(ignoreOverflow);
             case SHORT:
-                return range.shortRange();
+                return range.shortRange(ignoreOverflow);
             case INT:
-                return range.intRange();
+                return range.intRange(ignoreOverflow);
             case LONG:
             case FLOAT:
             case DOUBLE:
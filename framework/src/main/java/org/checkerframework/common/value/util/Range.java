@@ -14,6 +14,19 @@ import org.checkerframework.checker.nullness.qual.Nullable;
  * The Range class models a 64-bit two's-complement integral interval, such as all integers between
  * 1 and 10, inclusive.
  *
+ * <p>The arithmetic operations and conversions that can overflow take an {@code ignoreOverflow}
+ * argument that says whether ranges should take overflow into account or ignore it:
+ *
+ * <ul>
+ *   <li>If {@code ignoreOverflow} is true, then operations that would result in more than the max
+ *       value are clipped to the max value (and similarly for the min).
+ *   <li>If {@code ignoreOverflow} is false, then operations that would result in more than the max
+ *       wrap around according to the rules of twos-complement arithmetic and produce a smaller
+ *       value (and similarly for the min).
+ * </ul>
+ *
+ * <p>The overloads without that argument take overflow into account.
+ *
  * <p>{@code Range} is immutable.
  */
 public class Range {
@@ -24,26 +37,6 @@ public class Range {
     /** The upper bound of the interval, inclusive. */
     public final long to;
 
-    /**
-     * Should ranges take overflow into account or ignore it?
-     *
-     * <ul>
-     *   <li>If {@code ignoreOverflow} is true, then operations that would result in more than the
-     *       max value are clipped to the max value (and similarly for the min).
-     *   <li>If {@code ignoreOverflow} is false, then operations that would result in more than the
-     *       max wrap around according to the rules of twos-complement arithmetic and produce a
-     *       smaller value (and similarly for the min).
-     * </ul>
-     *
-     * <p>Any checker that uses this library should set this field. By default, this field is set to
-     * false (meaning overflow is taken into account), but a previous checker might have set it to
-     * true.
-     *
-     * <p>A static field is used because passing an instance field throughout the class bloats the
-     * code.
-     */
-    public static boolean ignoreOverflow = false;
-
     /** A range containing all possible 64-bit values. */
     public static final Range LONG_EVERYTHING = create(Long.MIN_VALUE, Long.MAX_VALUE);
 
@@ -156,18 +149,19 @@ public class Range {
      *
      * <p>If the BigInteger range is wider than the full range of the Long class, return EVERYTHING.
      *
-     * <p>If one of the BigInteger bounds is out of Long's range and {@link #ignoreOverflow} is
+     * <p>If one of the BigInteger bounds is out of Long's range and {@code ignoreOverflow} is
      * false, convert the bounds to Long type in accordance with Java twos-complement overflow
      * rules, e.g., Long.MAX_VALUE + 1 is converted to Long.MIN_VALUE.
      *
-     * <p>If one of the BigInteger bounds is out of Long's range and {@link #ignoreOverflow} is
-     * true, convert the bound that is outside Long's range to max/min value of a Long.
+     * <p>If one of the BigInteger bounds is out of Long's range and {@code ignoreOverflow} is true,
+     * convert the bound that is outside Long's range to max/min value of a Long.
      *
      * @param bigFrom the lower bound of the BigInteger range
      * @param bigTo the upper bound of the BigInteger range
+     * @param ignoreOverflow whether to clip the bounds rather than wrap them around
      * @return a range with Long type bounds converted from the BigInteger range
      */
-    private static Range create(BigInteger bigFrom, BigInteger bigTo) {
+    private static Range create(BigInteger bigFrom, BigInteger bigTo, boolean ignoreOverflow) {
         if (ignoreOverflow) {
             bigFrom = bigFrom.max(BIG_LONG_MIN_VALUE);
             bigTo = bigTo.min(BIG_LONG_MAX_VALUE);
@@ -288,20 +282,33 @@ public class Range {
     /** The number of values representable in 32 bits: 2^32 or 1&lt;&lt;32. */
     private static final long INT_WIDTH = INT_EVERYTHING.width();
 
+    /**
+     * Converts this range to a 32-bit integral range, taking overflow into account.
+     *
+     * @return this range converted to a 32-bit integral range
+     * @see #intRange(boolean)
+     */
+    public Range intRange() {
+        return intRange(false);
+    }
+
     /**
      * Converts this range to a 32-bit integral range.
      *
-     * <p>If {@link #ignoreOverflow} is true and one of the bounds is outside the Integer range,
-     * then that bound is set to the bound of the Integer range.
+     * <p>If {@code ignoreOverflow} is true and one of the bounds is outside the Integer range, then
+     * that bound is set to the bound of the Integer range.
      *
-     * <p>If {@link #ignoreOverflow} is false and this range is too wide, i.e., wider than the full
+     * <p>If {@code ignoreOverflow} is false and this range is too wide, i.e., wider than the full
      * range of the Integer class, return INT_EVERYTHING.
      *
-     * <p>If {@link #ignoreOverflow} is false and the bounds of this range are not representable as
+     * <p>If {@code ignoreOverflow} is false and the bounds of this range are not representable as
      * 32-bit integers, convert the bounds to Integer type in accordance with Java twos-complement
      * overflow rules, e.g., Integer.MAX_VALUE + 1 is converted to Integer.MIN_VALUE.
+     *
+     * @param ignoreOverflow whether to clip the bounds rather than wrap them around
+     * @return this range converted to a 32-bit integral range
      */
-    public Range intRange() {
+    public Range intRange(boolean ignoreOverflow) {
         if (this.isNothing()) {
             return this;
         }
@@ -320,20 +327,33 @@ public class Range {
     /** The number of values representable in 16 bits: 2^16 or 1&lt;&lt;16. */
     private static final long SHORT_WIDTH = SHORT_EVERYTHING.width();
 
+    /**
+     * Converts this range to a 16-bit short range, taking overflow into account.
+     *
+     * @return this range converted to a 16-bit short range
+     * @see #shortRange(boolean)
+     */
+    public Range shortRange() {
+        return shortRange(false);
+    }
+
     /**
      * Converts a this range to a 16-bit short range.
      *
-     * <p>If {@link #ignoreOverflow} is true and one of the bounds is outside the Short range, then
+     * <p>If {@code ignoreOverflow} is true and one of the bounds is outside the Short range, then
      * that bound is set to the bound of the Short range.
      *
-     * <p>If {@link #ignoreOverflow} is false and this range is too wide, i.e., wider than the full
+     * <p>If {@code ignoreOverflow} is false and this range is too wide, i.e., wider than the full
      * range of the Short class, return SHORT_EVERYTHING.
      *
-     * <p>If {@link #ignoreOverflow} is false and the bounds of this range are not representable as
+     * <p>If {@code ignoreOverflow} is false and the bounds of this range are not representable as
      * 16-bit integers, convert the bounds to Short type in accordance with Java twos-complement
      * overflow rules, e.g., Short.MAX_VALUE + 1 is converted to Short.MIN_VALUE.
+     *
+     * @param ignoreOverflow whether to clip the bounds rather than wrap them around
+     * @return this range converted to a 16-bit short range
      */
-    public Range shortRange() {
+    public Range shortRange(boolean ignoreOverflow) {
         if (this.isNothing()) {
             return this;
         }
@@ -353,20 +373,33 @@ public class Range {
     /** The number of values representable in char: */
     private static final long CHAR_WIDTH = CHAR_EVERYTHING.width();
 
+    /**
+     * Converts this range to a char range, taking overflow into account.
+     *
+     * @return this range converted to a char range
+     * @see #charRange(boolean)
+     */
+    public Range charRange() {
+        return charRange(false);
+    }
+
     /**
      * Converts this range to a char range.
      *
-     * <p>If {@link #ignoreOverflow} is true and one of the bounds is outside the Character range,
+     * <p>If {@code ignoreOverflow} is true and one of the bounds is outside the Character range,
      * then that bound is set to the bound of the Character range.
      *
-     * <p>If {@link #ignoreOverflow} is false and this range is too wide, i.e., wider than the full
+     * <p>If {@code ignoreOverflow} is false and this range is too wide, i.e., wider than the full
      * range of the Character class, return CHAR_EVERYTHING.
      *
-     * <p>If {@link #ignoreOverflow} is false and the bounds of this range are not representable as
+     * <p>If {@code ignoreOverflow} is false and the bounds of this range are not representable as
      * 8-bit integers, convert the bounds to Character type in accordance with Java overflow rules
      * (twos-complement), e.g., Character.MAX_VALUE + 1 is converted to Character.MIN_VALUE.
+     *
+     * @param ignoreOverflow whether to clip the bounds rather than wrap them around
+     * @return this range converted to a char range
      */
-    public Range charRange() {
+    public Range charRange(boolean ignoreOverflow) {
         if (this.isNothing()) {
             return this;
         }
@@ -386,20 +419,33 @@ public class Range {
     /** The number of values representable in 8 bits: 2^8 or 1&lt;&lt;8. */
     private static final long BYTE_WIDTH = BYTE_EVERYTHING.width();
 
+    /**
+     * Converts this range to an 8-bit byte range, taking overflow into account.
+     *
+     * @return this range converted to an 8-bit byte range
+     * @see #byteRange(boolean)
+     */
+    public Range byteRange() {
+        return byteRange(false);
+    }
+
     /**
      * Converts this range to a 8-bit byte range.
      *
-     * <p>If {@link #ignoreOverflow} is true and one of the bounds is outside the Byte range, then
+     * <p>If {@code ignoreOverflow} is true and one of the bounds is outside the Byte range, then
      * that bound is set to the bound of the Byte range.
      *
-     * <p>If {@link #ignoreOverflow} is false and this range is too wide, i.e., wider than the full
+     * <p>If {@code ignoreOverflow} is false and this range is too wide, i.e., wider than the full
      * range of the Byte class, return BYTE_EVERYTHING.
      *
-     * <p>If {@link #ignoreOverflow} is false and the bounds of this range are not representable as
+     * <p>If {@code ignoreOverflow} is false and the bounds of this range are not representable as
      * 8-bit integers, convert the bounds to Byte type in accordance with Java twos-complement
      * overflow rules, e.g., Byte.MAX_VALUE + 1 is converted to Byte.MIN_VALUE.
+     *
+     * @param ignoreOverflow whether to clip the bounds rather than wrap them around
+     * @return this range converted to an 8-bit byte range
      */
-    public Range byteRange() {
+    public Range byteRange(boolean ignoreOverflow) {
         if (this.isNothing()) {
             return this;
         }
@@ -418,7 +464,7 @@ public class Range {
 
     /**
      * Return x clipped to the given range; out-of-range values become extremal values. Appropriate
-     * only when {@link #ignoreOverflow} is true.
+     * only when {@code ignoreOverflow} is true.
      *
      * @param x a value
      * @param r a range
@@ -511,15 +557,26 @@ public class Range {
         return create(Math.max(this.from, other.from), Math.max(this.to, other.to));
     }
 
+    /**
+     * Like {@link #plus(Range, boolean)}, but takes overflow into account.
+     *
+     * @param right a range to be added to this range
+     * @return the range resulting from the addition of the specified range and this range
+     */
+    public Range plus(Range right) {
+        return plus(right, false);
+    }
+
     /**
      * Returns the smallest range that includes all possible values resulting from adding an
      * arbitrary value in the specified range to an arbitrary value in this range. We call this the
      * addition of two ranges.
      *
      * @param right a range to be added to this range
+     * @param ignoreOverflow whether to clip the result rather than wrap it around
      * @return the range resulting from the addition of the specified range and this range
      */
-    public Range plus(Range right) {
+    public Range plus(Range right, boolean ignoreOverflow) {
         if (this.isNothing() || right.isNothing()) {
             return NOTHING;
         }
@@ -536,19 +593,30 @@ public class Range {
         } else {
             BigInteger bigFrom = BigInteger.valueOf(from).add(BigInteger.valueOf(right.from));
             BigInteger bigTo = BigInteger.valueOf(to).add(BigInteger.valueOf(right.to));
-            return create(bigFrom, bigTo);
+            return create(bigFrom, bigTo, ignoreOverflow);
         }
     }
 
+    /**
+     * Like {@link #minus(Range, boolean)}, but takes overflow into account.
+     *
+     * @param right the range to be subtracted from this range
+     * @return the range resulting from subtracting the specified range from this range
+     */
+    public Range minus(Range right) {
+        return minus(right, false);
+    }
+
     /**
      * Returns the smallest range that includes all possible values resulting from subtracting an
      * arbitrary value in the specified range from an arbitrary value in this range. We call this
      * the subtraction of two ranges.
      *
      * @param right the range to be subtracted from this range
+     * @param ignoreOverflow whether to clip the result rather than wrap it around
      * @return the range resulting from subtracting the specified range from this range
      */
-    public Range minus(Range right) {
+    public Range minus(Range right, boolean ignoreOverflow) {
         if (this.isNothing() || right.isNothing()) {
             return NOTHING;
         }
@@ -561,19 +629,30 @@ public class Range {
         } else {
             BigInteger bigFrom = BigInteger.valueOf(from).subtract(BigInteger.valueOf(right.to));
             BigInteger bigTo = BigInteger.valueOf(to).subtract(BigInteger.valueOf(right.from));
-            return create(bigFrom, bigTo);
+            return create(bigFrom, bigTo, ignoreOverflow);
         }
     }
 
+    /**
+     * Like {@link #times(Range, boolean)}, but takes overflow into account.
+     *
+     * @param right the specified range to be multiplied by this range
+     * @return the range resulting from multiplying the specified range by this range
+     */
+    public Range times(Range right) {
+        return times(right, false);
+    }
+
     /**
      * Returns the smallest range that includes all possible values resulting from multiplying an
      * arbitrary value in the specified range by an arbitrary value in this range. We call this the
      * multiplication of two ranges.
      *
      * @param right the specified range to be multiplied by this range
+     * @param ignoreOverflow whether to clip the result rather than wrap it around
      * @return the range resulting from multiplying the specified range by this range
      */
-    public Range times(Range right) {
+    public Range times(Range right, boolean ignoreOverflow) {
         if (this.isNothing() || right.isNothing()) {
             return NOTHING;
         }
@@ -595,7 +674,10 @@ public class Range {
                             bigLeftFrom.multiply(bigRightTo),
                             bigLeftTo.multiply(bigRightFrom),
                             bigLeftTo.multiply(bigRightTo));
-            return create(Collections.min(bigPossibleValues), Collections.max(bigPossibleValues));
+            return create(
+                    Collections.min(bigPossibleValues),
+                    Collections.max(bigPossibleValues),
+                    ignoreOverflow);
         }
     }
 
@@ -752,15 +834,26 @@ public class Range {
         return range1.intersect(range2);
     }
 
+    /**
+     * Like {@link #shiftLeft(Range, boolean)}, but takes overflow into account.
+     *
+     * @param right the range of bits by which this range is left shifted
+     * @return the range resulting from left shifting this range by the specified range
+     */
+    public Range shiftLeft(Range right) {
+        return shiftLeft(right, false);
+    }
+
     /**
      * Returns a range that includes all possible values resulting from left shifting an arbitrary
      * value in this range by an arbitrary number of bits in the specified range. We call this the
      * left shift of a range.
      *
      * @param right the range of bits by which this range is left shifted
+     * @param ignoreOverflow whether to clip the result rather than wrap it around
      * @return the range resulting from left shifting this range by the specified range
      */
-    public Range shiftLeft(Range right) {
+    public Range shiftLeft(Range right, boolean ignoreOverflow) {
         if (this.isNothing() || right.isNothing()) {
             return NOTHING;
         }
@@ -793,7 +886,7 @@ public class Range {
                 BigInteger bigTo =
                         BigInteger.valueOf(to)
                                 .shiftLeft(to >= 0 ? (int) right.to : (int) right.from);
-                return create(bigFrom, bigTo);
+                return create(bigFrom, bigTo, ignoreOverflow);
             }
         } else {
             // In other cases, we give up on the calculation and return EVERYTHING (rare in
@@ -0,0 +1,433 @@
+package org.checkerframework.common.value.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BinaryOperator;
+import java.util.function.UnaryOperator;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The RangeSet class models a finite union of 64-bit two's-complement integral intervals, such as
+ * all integers between 0 and 9 together with all integers between 100 and 109. It is more precise
+ * than a single {@link Range} when the possible values are clustered, for example after the
+ * least upper bound of two distant ranges.
+ *
+ * <p>The intervals of a RangeSet are sorted, non-empty, and pairwise separated by at least one
+ * value that is not in the set, so every set of values has exactly one representation. They are
+ * stored as a sorted array of primitive bounds rather than as {@link Range} objects, so that the
+ * operations on sets allocate little besides their result.
+ *
+ * <p>{@code RangeSet} is immutable.
+ */
+public class RangeSet {
+
+    /**
+     * The bounds of the intervals of this set, sorted: interval {@code i} is from {@code bounds[2 *
+     * i]} to {@code bounds[2 * i + 1]}, inclusive.
+     */
+    private final long[] bounds;
+
+    /** The empty set. */
+    public static final RangeSet NOTHING = new RangeSet(new long[0]);
+
+    /** A set containing all possible 64-bit values. */
+    public static final RangeSet EVERYTHING =
+            new RangeSet(new long[] {Long.MIN_VALUE, Long.MAX_VALUE});
+
+    /**
+     * Constructs a set from the bounds of normalized intervals: sorted, non-empty, and neither
+     * overlapping nor adjacent. Does no validation of the argument.
+     *
+     * @param bounds the bounds of the intervals of the new set; see {@link #bounds}
+     */
+    private RangeSet(long[] bounds) {
+        this.bounds = bounds;
+    }
+
+    /**
+     * Returns a set containing exactly the values in the given range.
+     *
+     * @param range a range
+     * @return a set containing the values in {@code range}
+     */
+    public static RangeSet create(Range range) {
+        if (range.isNothing()) {
+            return NOTHING;
+        }
+        return new RangeSet(new long[] {range.from, range.to});
+    }
+
+    /**
+     * Returns a set containing exactly the given values.
+     *
+     * @param values a collection of numbers, possibly containing duplicates
+     * @return a set containing the values in {@code values}
+     */
+    public static RangeSet create(Collection<? extends Number> values) {
+        long[] sorted = new long[values.size()];
+        int n = 0;
+        for (Number value : values) {
+            sorted[n++] = value.longValue();
+        }
+        Arrays.sort(sorted);
+        long[] result = new long[2 * n];
+        for (int i = 0; i < n; i++) {
+            result[2 * i] = sorted[i];
+            result[2 * i + 1] = sorted[i];
+        }
+        return new RangeSet(normalize(result, 2 * n));
+    }
+
+    /**
+     * Returns a set containing the values in any of the given ranges. The ranges may be in any
+     * order, may overlap, and may include {@link Range#NOTHING}.
+     *
+     * @param ranges a collection of ranges
+     * @return the union of the ranges
+     */
+    public static RangeSet createFromRanges(Collection<Range> ranges) {
+        List<Range> sorted = new ArrayList<>(ranges.size());
+        for (Range range : ranges) {
+            if (!range.isNothing()) {
+                sorted.add(range);
+            }
+        }
+        sorted.sort(Comparator.comparingLong(range -> range.from));
+        long[] result = new long[2 * sorted.size()];
+        for (int i = 0; i < sorted.size(); i++) {
+            result[2 * i] = sorted.get(i).from;
+            result[2 * i + 1] = sorted.get(i).to;
+        }
+        return new RangeSet(normalize(result, result.length));
+    }
+
+    /**
+     * Merges the overlapping and adjacent intervals among the first {@code length} elements of
+     * {@code bounds}, which are the bounds of non-empty intervals sorted by their lower bounds.
+     *
+     * @param bounds the bounds of the intervals, in the layout of {@link #bounds}; is modified
+     * @param length the number of elements of {@code bounds} that are used
+     * @return the bounds of the normalized intervals
+     */
+    private static long[] normalize(long[] bounds, int length) {
+        if (length == 0) {
+            return NOTHING.bounds;
+        }
+        int n = 2;
+        for (int i = 2; i < length; i += 2) {
+            long from = bounds[i];
+            long to = bounds[i + 1];
+            // from - 1 cannot overflow: if from is Long.MIN_VALUE, so is the previous lower
+            // bound, and the first disjunct holds.
+            if (from <= bounds[n - 1] || from - 1 == bounds[n - 1]) {
+                bounds[n - 1] = Math.max(bounds[n - 1], to);
+            } else {
+                bounds[n++] = from;
+                bounds[n++] = to;
+            }
+        }
+        return n == bounds.length ? bounds : Arrays.copyOf(bounds, n);
+    }
+
+    /**
+     * Returns the intervals of this set, sorted by their lower bounds.
+     *
+     * @return the intervals of this set
+     */
+    public List<Range> getRanges() {
+        List<Range> result = new ArrayList<>(size());
+        for (int i = 0; i < bounds.length; i += 2) {
+            result.add(Range.create(bounds[i], bounds[i + 1]));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Returns the number of intervals in this set.
+     *
+     * @return the number of intervals in this set
+     */
+    public int size() {
+        return bounds.length / 2;
+    }
+
+    /** Return true if this set contains no values. */
+    public boolean isNothing() {
+        return bounds.length == 0;
+    }
+
+    /**
+     * Returns the smallest range that contains every value in this set.
+     *
+     * @return the convex hull of this set, or {@link Range#NOTHING} if this set is empty
+     */
+    public Range hull() {
+        if (isNothing()) {
+            return Range.NOTHING;
+        }
+        return Range.create(bounds[0], bounds[bounds.length - 1]);
+    }
+
+    /**
+     * Returns true if the element is contained in this set.
+     *
+     * @param element the value to seek
+     * @return true if {@code element} is in this set
+     */
+    public boolean contains(long element) {
+        int low = 0;
+        int high = size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (element < bounds[2 * mid]) {
+                high = mid - 1;
+            } else if (element > bounds[2 * mid + 1]) {
+                low = mid + 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if every value in the other set is contained in this set.
+     *
+     * @param other the set that might be within this one
+     * @return true if {@code other} is within this set
+     */
+    public boolean contains(RangeSet other) {
+        int i = 0;
+        for (int j = 0; j < other.bounds.length; j += 2) {
+            // Because the intervals are normalized, each interval of other must lie within a
+            // single interval of this.
+            while (i < bounds.length && bounds[i + 1] < other.bounds[j]) {
+                i += 2;
+            }
+            if (i == bounds.length
+                    || bounds[i] > other.bounds[j]
+                    || bounds[i + 1] < other.bounds[j + 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the set of values contained in either of the two sets.
+     *
+     * @param right a set to union with this set
+     * @return the union of the specified set and this set
+     */
+    public RangeSet union(RangeSet right) {
+        if (this.isNothing()) {
+            return right;
+        } else if (right.isNothing()) {
+            return this;
+        }
+        // Merge the two sorted arrays of intervals, then merge the intervals that touch.
+        long[] result = new long[bounds.length + right.bounds.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < bounds.length || j < right.bounds.length) {
+            if (j == right.bounds.length || (i < bounds.length && bounds[i] <= right.bounds[j])) {
+                result[n++] = bounds[i++];
+                result[n++] = bounds[i++];
+            } else {
+                result[n++] = right.bounds[j++];
+                result[n++] = right.bounds[j++];
+            }
+        }
+        return new RangeSet(normalize(result, n));
+    }
+
+    /**
+     * Returns the set of values contained in both of the two sets.
+     *
+     * @param right the set to intersect with this set
+     * @return the intersection of the specified set and this set
+     */
+    public RangeSet intersect(RangeSet right) {
+        // Each interval of the result ends where an interval of one of the sets ends.
+        long[] result = new long[bounds.length + right.bounds.length];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < bounds.length && j < right.bounds.length) {
+            long from = Math.max(bounds[i], right.bounds[j]);
+            long to = Math.min(bounds[i + 1], right.bounds[j + 1]);
+            if (from <= to) {
+                result[n++] = from;
+                result[n++] = to;
+            }
+            // Advance past whichever interval ends first; it cannot overlap anything later.
+            if (bounds[i + 1] < right.bounds[j + 1]) {
+                i += 2;
+            } else {
+                j += 2;
+            }
+        }
+        return n == 0 ? NOTHING : new RangeSet(Arrays.copyOf(result, n));
+    }
+
+    /**
+     * Determines if the set is wider than a given value, i.e., if the number of values in this set
+     * is more than the given value.
+     *
+     * @param value the value to compare with
+     * @return true if wider than the given value
+     */
+    public boolean isWiderThan(long value) {
+        long remaining = value;
+        for (int i = 0; i < bounds.length; i += 2) {
+            // The number of values in the interval, minus one; as an unsigned value, it cannot
+            // overflow.
+            long boundDifference = bounds[i + 1] - bounds[i];
+            if (remaining < 0 || Long.compareUnsigned(boundDifference, remaining) >= 0) {
+                return true;
+            }
+            // Does not overflow, because the interval is no wider than remaining.
+            remaining -= boundDifference + 1;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the values in this set, in increasing order. Should only be called on a set that is
+     * not wider than a small bound, because it allocates one object per value.
+     *
+     * @return the values in this set
+     */
+    public List<Long> getValues() {
+        List<Long> values = new ArrayList<>();
+        for (int i = 0; i < bounds.length; i += 2) {
+            // Iterate over offsets so that an upper bound of Long.MAX_VALUE does not overflow.
+            long boundDifference = bounds[i + 1] - bounds[i];
+            for (long offset = 0; offset <= boundDifference; offset++) {
+                values.add(bounds[i] + offset);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Returns a set with at most {@code maxRanges} intervals that contains this set. When this set
+     * has too many intervals, the smallest gaps between consecutive intervals are filled in.
+     *
+     * @param maxRanges the maximum number of intervals in the result; must be positive
+     * @return this, or the smallest coarsening of this set with at most {@code maxRanges} intervals
+     */
+    public RangeSet coarsen(int maxRanges) {
+        int excess = size() - maxRanges;
+        if (excess <= 0) {
+            return this;
+        }
+        Integer[] gapOrder = new Integer[size() - 1];
+        for (int i = 0; i < gapOrder.length; i++) {
+            gapOrder[i] = i;
+        }
+        // The gap after interval i is the lower bound of interval i + 1 minus the upper bound of
+        // interval i, which is positive but may exceed Long.MAX_VALUE, so it is compared as an
+        // unsigned value.
+        Arrays.sort(gapOrder, (i, j) -> Long.compareUnsigned(gap(i), gap(j)));
+        boolean[] fill = new boolean[gapOrder.length];
+        for (int k = 0; k < excess; k++) {
+            fill[gapOrder[k]] = true;
+        }
+
+        long[] result = new long[2 * maxRanges];
+        int n = 0;
+        result[n++] = bounds[0];
+        for (int i = 0; i < fill.length; i++) {
+            if (!fill[i]) {
+                result[n++] = bounds[2 * i + 1];
+                result[n++] = bounds[2 * i + 2];
+            }
+        }
+        result[n] = bounds[bounds.length - 1];
+        return new RangeSet(result);
+    }
+
+    /**
+     * Returns the distance between interval {@code i} and the next interval, as an unsigned value.
+     *
+     * @param i the index of an interval other than the last one
+     * @return the difference between the lower bound of interval {@code i + 1} and the upper bound
+     *     of interval {@code i}
+     */
+    private long gap(int i) {
+        return bounds[2 * i + 2] - bounds[2 * i + 1];
+    }
+
+    /**
+     * Applies a unary operation on ranges to each interval of this set.
+     *
+     * @param op an operation that returns a range containing every result of applying the
+     *     corresponding operation on values to a value in its argument
+     * @return the union of the results of applying {@code op} to each interval of this set
+     */
+    public RangeSet map(UnaryOperator<Range> op) {
+        List<Range> result = new ArrayList<>(size());
+        for (Range range : getRanges()) {
+            result.add(op.apply(range));
+        }
+        return createFromRanges(result);
+    }
+
+    /**
+     * Applies a binary operation on ranges to every pair of an interval of this set and an
+     * interval of the other set. The cost is proportional to the product of the sizes of the two
+     * sets, so clients should {@link #coarsen} large operands first.
+     *
+     * @param right the right operand
+     * @param op an operation that returns a range containing every result of applying the
+     *     corresponding operation on values to a pair of values in its arguments
+     * @return the union of the results of applying {@code op} to each pair of intervals
+     */
+    public RangeSet combine(RangeSet right, BinaryOperator<Range> op) {
+        List<Range> rightRanges = right.getRanges();
+        List<Range> result = new ArrayList<>(size() * rightRanges.size());
+        for (Range leftRange : getRanges()) {
+            for (Range rightRange : rightRanges) {
+                result.add(op.apply(leftRange, rightRange));
+            }
+        }
+        return createFromRanges(result);
+    }
+
+    @Override
+    public String toString() {
+        if (isNothing()) {
+            return "[]";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Range range : getRanges()) {
+            if (sb.length() != 0) {
+                sb.append(" | ");
+            }
+            sb.append(range);
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public boolean equals(@Nullable Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj instanceof RangeSet) {
+            return Arrays.equals(bounds, ((RangeSet) obj).bounds);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(bounds);
+    }
+}
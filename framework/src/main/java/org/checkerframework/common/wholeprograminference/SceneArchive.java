@@ -0,0 +1,255 @@
+package org.checkerframework.common.wholeprograminference;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.javacutil.UserError;
+
+/**
+ * A single binary file that stores the Scenes of whole-program inference for many classes. It is
+ * the storage used by {@code -Ainfer=binary}.
+ *
+ * <p>Storing every Scene in its own .jaif file means that each iteration of whole-program inference
+ * opens, reads, and parses one file per class, whether or not the class is used. An archive is
+ * instead memory-mapped once, and the entry for a class is only decoded and parsed when the Scene
+ * of that class is first needed. When the archive is rewritten, the entries of Scenes that were not
+ * modified are copied as bytes, without being parsed or formatted.
+ *
+ * <p>The file consists of a header, an index, and the entries:
+ *
+ * <pre>
+ *   int     MAGIC
+ *   int     VERSION
+ *   int     number of entries
+ *   for each entry, in lexicographic order of their keys:
+ *     UTF   key: the .jaif path of the Scene (see {@link java.io.DataOutput#writeUTF})
+ *     long  offset of the entry from the beginning of the file
+ *     int   length of the entry in bytes
+ *   the entries: the contents of the .jaif file of each Scene, encoded in UTF-8
+ * </pre>
+ *
+ * Running {@link #main} converts an archive to .jaif files. To obtain stub files, run the checker
+ * once more with {@code -Ainfer=stubs}: the Scenes are initialized from the archive.
+ */
+public class SceneArchive {
+
+    /** The first four bytes of every archive: "WPIS" in ASCII. */
+    private static final int MAGIC = 0x57504953;
+
+    /** The version of the archive format. */
+    private static final int VERSION = 1;
+
+    /** The memory-mapped contents of the archive. */
+    private final MappedByteBuffer buffer;
+
+    /** Maps the key of each entry to its offset and length in {@link #buffer}. */
+    private final Map<String, long[]> index;
+
+    /**
+     * Creates an archive from its memory-mapped contents.
+     *
+     * @param buffer the contents of the archive
+     * @param index the offset and length of each entry
+     */
+    private SceneArchive(MappedByteBuffer buffer, Map<String, long[]> index) {
+        this.buffer = buffer;
+        this.index = index;
+    }
+
+    /**
+     * Memory-maps the archive in the given file and reads its index.
+     *
+     * @param file the archive file
+     * @return the archive, or null if {@code file} does not exist
+     */
+    public static @Nullable SceneArchive open(File file) {
+        if (!file.exists()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed.
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new SceneArchive(buffer, readIndex(buffer, file));
+        } catch (IOException e) {
+            throw new UserError("Problem while reading %s: %s", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the header and index of an archive.
+     *
+     * @param buffer the contents of the archive
+     * @param file the archive file, for error messages
+     * @return the offset and length of each entry
+     */
+    private static Map<String, long[]> readIndex(ByteBuffer buffer, File file) {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new UserError("%s is not a whole-program inference archive", file);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new UserError(
+                        "%s has archive format version %d, but version %d is required",
+                        file, version, VERSION);
+            }
+            int size = buffer.getInt();
+            Map<String, long[]> index = new LinkedHashMap<>();
+            for (int i = 0; i < size; i++) {
+                byte[] key = new byte[Short.toUnsignedInt(buffer.getShort())];
+                buffer.get(key);
+                long offset = buffer.getLong();
+                int length = buffer.getInt();
+                if (offset < 0 || length < 0 || offset + length > buffer.limit()) {
+                    throw new UserError("%s is corrupt", file);
+                }
+                index.put(decodeKey(key), new long[] {offset, length});
+            }
+            return index;
+        } catch (BufferUnderflowException e) {
+            throw new UserError("%s is truncated", file);
+        }
+    }
+
+    /**
+     * Decodes a key that was written with {@link java.io.DataOutput#writeUTF}, without its length
+     * prefix.
+     *
+     * @param bytes the encoded key
+     * @return the key
+     */
+    private static String decodeKey(byte[] bytes) {
+        // Keys are file paths. Apart from the NUL character and supplementary characters, which do
+        // not appear in them, modified UTF-8 is the same as UTF-8.
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the keys of all entries in this archive.
+     *
+     * @return the .jaif paths of the Scenes stored in this archive
+     */
+    public Set<String> getJaifPaths() {
+        return Collections.unmodifiableSet(index.keySet());
+    }
+
+    /**
+     * Returns the encoded contents of the .jaif file of a Scene.
+     *
+     * @param jaifPath the .jaif path of the Scene
+     * @return the UTF-8 contents of the .jaif file, or null if this archive does not contain it
+     */
+    public byte @Nullable [] getBytes(String jaifPath) {
+        long[] entry = index.get(jaifPath);
+        if (entry == null) {
+            return null;
+        }
+        byte[] result = new byte[(int) entry[1]];
+        // Use a duplicate so that this method does not change the position of the shared buffer.
+        ByteBuffer view = buffer.duplicate();
+        view.position((int) entry[0]);
+        view.get(result);
+        return result;
+    }
+
+    /**
+     * Returns the contents of the .jaif file of a Scene.
+     *
+     * @param jaifPath the .jaif path of the Scene
+     * @return the contents of the .jaif file, or null if this archive does not contain it
+     */
+    public @Nullable String getJaif(String jaifPath) {
+        byte[] bytes = getBytes(jaifPath);
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes an archive. The archive is first written to a temporary file, which then replaces
+     * {@code file}, so that archives that are memory-mapped remain valid.
+     *
+     * @param file the archive file to write
+     * @param entries maps .jaif paths to the UTF-8 contents of the corresponding .jaif files
+     */
+    public static void write(File file, SortedMap<String, byte[]> entries) {
+        try {
+            ByteArrayOutputStream keys = new ByteArrayOutputStream();
+            DataOutputStream keysOut = new DataOutputStream(keys);
+            for (String key : entries.keySet()) {
+                keysOut.writeUTF(key);
+            }
+            keysOut.flush();
+            // The header, followed by each key and its offset and length.
+            long offset =
+                    3 * Integer.BYTES
+                            + keys.size()
+                            + entries.size() * (Long.BYTES + Integer.BYTES);
+
+            File tmpFile = new File(file.getPath() + ".tmp");
+            try (OutputStream fileOut = new BufferedOutputStream(new FileOutputStream(tmpFile));
+                    DataOutputStream out = new DataOutputStream(fileOut)) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(entries.size());
+                for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeLong(offset);
+                    out.writeInt(entry.getValue().length);
+                    offset += entry.getValue().length;
+                }
+                for (byte[] contents : entries.values()) {
+                    out.write(contents);
+                }
+            }
+            Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UserError("Problem while writing %s: %s", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Converts an archive to .jaif files.
+     *
+     * <p>Usage: {@code java org.checkerframework.common.wholeprograminference.SceneArchive archive
+     * output-directory}
+     *
+     * @param args the archive file and the directory in which to write the .jaif files
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: SceneArchive archive output-directory");
+            System.exit(1);
+        }
+        SceneArchive archive = open(new File(args[0]));
+        if (archive == null) {
+            throw new UserError("File not found: %s", args[0]);
+        }
+        File outputDir = new File(args[1]);
+        outputDir.mkdirs();
+        for (String jaifPath : archive.getJaifPaths()) {
+            File jaifFile = new File(outputDir, new File(jaifPath).getName());
+            try {
+                Files.write(jaifFile.toPath(), archive.getBytes(jaifPath));
+            } catch (IOException e) {
+                throw new UserError("Problem while writing %s: %s", jaifFile, e.getMessage());
+            }
+        }
+    }
+}
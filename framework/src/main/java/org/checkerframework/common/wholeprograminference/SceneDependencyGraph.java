@@ -0,0 +1,144 @@
+package org.checkerframework.common.wholeprograminference;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.Tree;
+import com.sun.tools.javac.code.Symbol.ClassSymbol;
+import java.io.File;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import javax.lang.model.element.TypeElement;
+import javax.tools.JavaFileObject;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.javacutil.TreeUtils;
+
+/**
+ * Records which source files whole-program inference must re-analyze when a Scene changes.
+ *
+ * <p>A source file depends on a Scene if analyzing the file updated the Scene, for example because
+ * the file calls a method of the class whose inferred types the Scene stores, or because the file
+ * assigns one of that class's fields. Such a file also read the current annotations of the Scene,
+ * so a change to the Scene may change what the file contributes to other Scenes. In addition, the
+ * file that declares the class of a Scene depends on the Scene, because the bodies of its methods
+ * are analyzed using the inferred parameter and field types.
+ *
+ * <p>Scenes are identified by their .jaif paths, as in {@link WholeProgramInferenceScenesStorage},
+ * and source files by their absolute paths. The graph also records the top-level classes declared
+ * by each source file, so that a re-analysis can be restricted to those classes with {@code
+ * -AonlyDefs}.
+ */
+public class SceneDependencyGraph {
+
+    /** Maps each Scene to the source files that depend on it. */
+    private final Map<String, Set<File>> dependents = new HashMap<>();
+
+    /** Maps each source file to the fully-qualified names of the top-level classes it declares. */
+    private final Map<File, Set<String>> declaredClasses = new HashMap<>();
+
+    /** Creates an empty dependency graph. */
+    public SceneDependencyGraph() {}
+
+    /**
+     * Records that the given compilation unit depends on the given Scene.
+     *
+     * @param root the compilation unit that is being analyzed, or null if it is unknown
+     * @param jaifPath the .jaif path that identifies the Scene
+     */
+    public void recordDependency(@Nullable CompilationUnitTree root, String jaifPath) {
+        if (root == null) {
+            return;
+        }
+        File file = toFile(root.getSourceFile());
+        if (file == null) {
+            return;
+        }
+        dependents.computeIfAbsent(jaifPath, k -> new HashSet<>()).add(file);
+        if (!declaredClasses.containsKey(file)) {
+            Set<String> classes = new LinkedHashSet<>();
+            for (Tree decl : root.getTypeDecls()) {
+                if (TreeUtils.isClassTree(decl)) {
+                    TypeElement element = TreeUtils.elementFromDeclaration((ClassTree) decl);
+                    classes.add(element.getQualifiedName().toString());
+                }
+            }
+            declaredClasses.put(file, classes);
+        }
+    }
+
+    /**
+     * Records that the source file declaring the given class depends on the given Scene, which
+     * stores the inferred types of the class.
+     *
+     * @param classSymbol a class whose inferred types are stored in the Scene
+     * @param jaifPath the .jaif path that identifies the Scene
+     */
+    public void recordDeclaration(ClassSymbol classSymbol, String jaifPath) {
+        ClassSymbol outermost = classSymbol.outermostClass();
+        File file = toFile(outermost.sourcefile);
+        if (file == null) {
+            return;
+        }
+        dependents.computeIfAbsent(jaifPath, k -> new HashSet<>()).add(file);
+        declaredClasses
+                .computeIfAbsent(file, k -> new LinkedHashSet<>())
+                .add(outermost.getQualifiedName().toString());
+    }
+
+    /**
+     * Returns the file in the file system that contains the given source file.
+     *
+     * @param sourceFile a file object
+     * @return the absolute path of {@code sourceFile}, or null if it is null, is not a source file,
+     *     or is not in the file system (for example, because it is inside a jar)
+     */
+    private static @Nullable File toFile(@Nullable JavaFileObject sourceFile) {
+        if (sourceFile == null || sourceFile.getKind() != JavaFileObject.Kind.SOURCE) {
+            return null;
+        }
+        try {
+            return new File(sourceFile.toUri()).getAbsoluteFile();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the source files that depend on at least one of the given Scenes. These are the
+     * files to re-analyze after the given Scenes changed.
+     *
+     * @param changedScenes the .jaif paths of the Scenes that changed
+     * @return the absolute paths of the source files that depend on {@code changedScenes}
+     */
+    public Set<File> getDependentSourceFiles(Collection<String> changedScenes) {
+        Set<File> result = new LinkedHashSet<>();
+        for (String jaifPath : changedScenes) {
+            Set<File> files = dependents.get(jaifPath);
+            if (files != null) {
+                result.addAll(files);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the fully-qualified names of the top-level classes declared by the given source
+     * files, as far as they are known to this graph.
+     *
+     * @param sourceFiles absolute paths of source files
+     * @return the top-level classes declared by {@code sourceFiles}
+     */
+    public Set<String> getDeclaredClasses(Collection<File> sourceFiles) {
+        Set<String> result = new LinkedHashSet<>();
+        for (File file : sourceFiles) {
+            Set<String> classes = declaredClasses.get(file);
+            if (classes != null) {
+                result.addAll(classes);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,456 @@
+package org.checkerframework.common.wholeprograminference;
+
+import com.sun.tools.javac.api.BasicJavacTask;
+import com.sun.tools.javac.processing.JavacProcessingEnvironment;
+import java.io.File;
+import java.io.IOException;
+import java.io.LineNumberReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.framework.type.AnnotatedTypeFactory;
+import org.checkerframework.framework.type.QualifierHierarchy;
+import org.checkerframework.javacutil.AnnotationUtils;
+import org.checkerframework.javacutil.BugInCF;
+import org.checkerframework.javacutil.UserError;
+import scenelib.annotations.Annotation;
+import scenelib.annotations.el.AClass;
+import scenelib.annotations.el.AField;
+import scenelib.annotations.el.AMethod;
+import scenelib.annotations.el.AScene;
+import scenelib.annotations.el.ATypeElement;
+import scenelib.annotations.el.DefException;
+import scenelib.annotations.el.InnerTypeLocation;
+import scenelib.annotations.io.IndexFileParser;
+import scenelib.annotations.io.IndexFileWriter;
+
+/**
+ * Merges the results of several runs of whole-program inference, for example one run per module of
+ * a multi-module build, into a single set of Scenes.
+ *
+ * <p>Each input is either a directory of .jaif files, as written by {@code -Ainfer=jaifs}, or an
+ * archive written by {@code -Ainfer=binary}. Scenes are identified by the name of their .jaif file,
+ * which is the binary name of the class. For each field, method return, method parameter, and
+ * receiver, the merged type is the least upper bound of the inferred types in all inputs, computed
+ * with the {@link QualifierHierarchy} of the checker that inferred them. Annotations that the
+ * checker does not support are kept. The result is deterministic: least upper bounds do not depend
+ * on the order of the inputs, and the merged Scenes are written in the order of their names.
+ *
+ * <p>Computing least upper bounds requires the checker's type factories, so the merge is performed
+ * by running the checker on a trivial class. Usage:
+ *
+ * <pre>{@code
+ * java -cp checker.jar org.checkerframework.common.wholeprograminference.SceneMerger \
+ *     -processor MyChecker [-cp classpath] -o output input1 input2 ...
+ * }</pre>
+ *
+ * If {@code output} ends in ".wpi", the merged Scenes are written as an archive (see {@link
+ * SceneArchive}); otherwise {@code output} is a directory to which .jaif files are written.
+ */
+public class SceneMerger {
+
+    /** The file extension of archives written by {@code -Ainfer=binary}. */
+    private static final String ARCHIVE_EXTENSION = ".wpi";
+
+    /** The javac options accepted by {@link #main} that take an argument. */
+    private static final List<String> OPTIONS_WITH_ARGUMENT =
+            Arrays.asList("-processor", "-cp", "-classpath", "-processorpath");
+
+    /** For each .jaif file name, the Scenes read from the inputs, in the order of the inputs. */
+    private final SortedMap<String, List<AScene>> inputScenes = new TreeMap<>();
+
+    /** For each .jaif file name, the merged Scene. */
+    private final SortedMap<String, AScene> mergedScenes = new TreeMap<>();
+
+    /**
+     * Creates a merger for the given inputs, and reads them.
+     *
+     * @param inputs directories of .jaif files, or archives written by {@code -Ainfer=binary}
+     */
+    public SceneMerger(List<File> inputs) {
+        for (File input : inputs) {
+            if (input.isDirectory()) {
+                readDirectory(input);
+            } else if (input.getName().endsWith(ARCHIVE_EXTENSION)) {
+                readArchive(input);
+            } else {
+                throw new UserError(
+                        "%s is neither a directory nor a %s archive", input, ARCHIVE_EXTENSION);
+            }
+        }
+        for (Map.Entry<String, List<AScene>> entry : inputScenes.entrySet()) {
+            AScene merged = new AScene();
+            for (AScene scene : entry.getValue()) {
+                mergeScene(merged, scene, null);
+            }
+            mergedScenes.put(entry.getKey(), merged);
+        }
+    }
+
+    /**
+     * Reads all .jaif files in a directory.
+     *
+     * @param dir the directory
+     */
+    private void readDirectory(File dir) {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(".jaif"));
+        if (files == null) {
+            throw new UserError("Cannot read directory %s", dir);
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            AScene scene = new AScene();
+            try {
+                IndexFileParser.parseFile(file.getPath(), scene);
+            } catch (IOException e) {
+                throw new UserError("Problem while reading %s: %s", file, e.getMessage());
+            }
+            addInputScene(file.getName(), scene);
+        }
+    }
+
+    /**
+     * Reads all Scenes in an archive.
+     *
+     * @param archiveFile the archive
+     */
+    private void readArchive(File archiveFile) {
+        SceneArchive archive = SceneArchive.open(archiveFile);
+        if (archive == null) {
+            throw new UserError("File not found: %s", archiveFile);
+        }
+        for (String jaifPath : archive.getJaifPaths()) {
+            AScene scene = new AScene();
+            try {
+                IndexFileParser.parse(
+                        new LineNumberReader(new StringReader(archive.getJaif(jaifPath))),
+                        jaifPath,
+                        scene);
+            } catch (IOException e) {
+                throw new UserError(
+                        "Problem while reading %s from %s: %s",
+                        jaifPath, archiveFile, e.getMessage());
+            }
+            addInputScene(new File(jaifPath).getName(), scene);
+        }
+    }
+
+    /**
+     * Records a Scene read from an input.
+     *
+     * @param name the name of the .jaif file of the Scene
+     * @param scene the Scene
+     */
+    private void addInputScene(String name, AScene scene) {
+        inputScenes.computeIfAbsent(name, k -> new ArrayList<>()).add(scene);
+    }
+
+    /**
+     * Returns the merger registered in the javac context of the given processing environment.
+     *
+     * @param processingEnv the processing environment of the current compilation
+     * @return the merger registered for the current compilation, or null if there is none
+     */
+    public static @Nullable SceneMerger get(ProcessingEnvironment processingEnv) {
+        if (!(processingEnv instanceof JavacProcessingEnvironment)) {
+            return null;
+        }
+        return ((JavacProcessingEnvironment) processingEnv).getContext().get(SceneMerger.class);
+    }
+
+    /**
+     * Replaces, in the merged Scenes, the annotations supported by the given type factory by their
+     * least upper bounds. Called by {@link AnnotatedTypeFactory#postProcessCompilation} of each
+     * type factory of the checker.
+     *
+     * @param atf a type factory of the checker that inferred the Scenes
+     */
+    public void mergeQualifiersOf(AnnotatedTypeFactory atf) {
+        for (Map.Entry<String, List<AScene>> entry : inputScenes.entrySet()) {
+            AScene merged = mergedScenes.get(entry.getKey());
+            for (AScene scene : entry.getValue()) {
+                mergeScene(merged, scene, atf);
+            }
+        }
+    }
+
+    /**
+     * Merges the annotations of one Scene into another.
+     *
+     * @param into the Scene to update
+     * @param from the Scene whose annotations to add
+     * @param atf the type factory whose supported annotations are replaced by their least upper
+     *     bound, or null to only collect annotations
+     */
+    private static void mergeScene(AScene into, AScene from, @Nullable AnnotatedTypeFactory atf) {
+        for (Map.Entry<String, AClass> classEntry : from.classes.entrySet()) {
+            AClass fromClass = classEntry.getValue();
+            AClass intoClass = into.classes.getVivify(classEntry.getKey());
+            intoClass.tlAnnotationsHere.addAll(fromClass.tlAnnotationsHere);
+            for (Map.Entry<String, AField> fieldEntry : fromClass.fields.entrySet()) {
+                AField intoField = intoClass.fields.getVivify(fieldEntry.getKey());
+                mergeField(intoField, fieldEntry.getValue(), atf);
+            }
+            for (Map.Entry<String, AMethod> methodEntry : fromClass.methods.entrySet()) {
+                AMethod fromMethod = methodEntry.getValue();
+                AMethod intoMethod = intoClass.methods.getVivify(methodEntry.getKey());
+                intoMethod.tlAnnotationsHere.addAll(fromMethod.tlAnnotationsHere);
+                mergeType(intoMethod.returnType, fromMethod.returnType, atf);
+                mergeField(intoMethod.receiver, fromMethod.receiver, atf);
+                for (Map.Entry<Integer, AField> paramEntry : fromMethod.parameters.entrySet()) {
+                    mergeField(
+                            intoMethod.parameters.getVivify(paramEntry.getKey()),
+                            paramEntry.getValue(),
+                            atf);
+                }
+            }
+        }
+    }
+
+    /**
+     * Merges the annotations of one field, parameter, or receiver into another.
+     *
+     * @param into the element to update
+     * @param from the element whose annotations to add
+     * @param atf the type factory whose supported annotations are replaced by their least upper
+     *     bound, or null to only collect annotations
+     */
+    private static void mergeField(AField into, AField from, @Nullable AnnotatedTypeFactory atf) {
+        into.tlAnnotationsHere.addAll(from.tlAnnotationsHere);
+        mergeType(into.type, from.type, atf);
+    }
+
+    /**
+     * Merges the annotations of one type into another. All annotations of {@code from} are added
+     * to {@code into}; then, if {@code atf} is non-null, the annotations of {@code into} that
+     * {@code atf} supports are replaced by the least upper bound of those in the same hierarchy.
+     *
+     * @param into the type to update
+     * @param from the type whose annotations to add
+     * @param atf the type factory whose supported annotations are replaced by their least upper
+     *     bound, or null to only collect annotations
+     */
+    private static void mergeType(
+            ATypeElement into, ATypeElement from, @Nullable AnnotatedTypeFactory atf) {
+        into.tlAnnotationsHere.addAll(from.tlAnnotationsHere);
+        if (atf != null) {
+            lubSupportedAnnotations(into.tlAnnotationsHere, atf);
+        }
+        for (Map.Entry<InnerTypeLocation, ATypeElement> inner : from.innerTypes.entrySet()) {
+            mergeType(into.innerTypes.getVivify(inner.getKey()), inner.getValue(), atf);
+        }
+    }
+
+    /**
+     * Replaces the annotations in {@code annos} that {@code atf} supports by one annotation per
+     * hierarchy: their least upper bound.
+     *
+     * @param annos the annotations on a type; modified by this method
+     * @param atf the type factory whose supported annotations to merge
+     */
+    private static void lubSupportedAnnotations(Set<Annotation> annos, AnnotatedTypeFactory atf) {
+        Set<String> supportedNames = new HashSet<>();
+        for (Class<? extends java.lang.annotation.Annotation> clazz :
+                atf.getSupportedTypeQualifiers()) {
+            supportedNames.add(clazz.getName());
+        }
+        QualifierHierarchy hierarchy = atf.getQualifierHierarchy();
+        // Maps the top of each hierarchy to the least upper bound of the annotations seen so far.
+        Map<AnnotationMirror, AnnotationMirror> lubs = new LinkedHashMap<>();
+        List<Annotation> supported = new ArrayList<>();
+        for (Annotation anno : annos) {
+            if (!supportedNames.contains(anno.def.name)) {
+                continue;
+            }
+            supported.add(anno);
+            AnnotationMirror am =
+                    AnnotationConverter.annotationToAnnotationMirror(anno, atf.getProcessingEnv());
+            AnnotationMirror top = hierarchy.getTopAnnotation(am);
+            AnnotationMirror key = AnnotationUtils.getSame(lubs.keySet(), top);
+            if (key == null) {
+                lubs.put(top, am);
+            } else {
+                lubs.put(key, hierarchy.leastUpperBound(lubs.get(key), am));
+            }
+        }
+        if (supported.size() <= 1) {
+            return;
+        }
+        annos.removeAll(supported);
+        for (AnnotationMirror lub : lubs.values()) {
+            Annotation anno = AnnotationConverter.annotationMirrorToAnnotation(lub);
+            if (anno != null) {
+                annos.add(anno);
+            }
+        }
+    }
+
+    /**
+     * Writes the merged Scenes.
+     *
+     * @param output an archive file whose name ends in ".wpi", or a directory for .jaif files
+     */
+    public void write(File output) {
+        if (output.getName().endsWith(ARCHIVE_EXTENSION)) {
+            SortedMap<String, byte[]> entries = new TreeMap<>();
+            for (Map.Entry<String, AScene> entry : mergedScenes.entrySet()) {
+                String jaifPath =
+                        WholeProgramInferenceScenesStorage.JAIF_FILES_PATH + entry.getKey();
+                entries.put(jaifPath, toJaif(entry.getValue()).getBytes(StandardCharsets.UTF_8));
+            }
+            File parent = output.getAbsoluteFile().getParentFile();
+            if (parent != null) {
+                parent.mkdirs();
+            }
+            SceneArchive.write(output, entries);
+        } else {
+            output.mkdirs();
+            for (Map.Entry<String, AScene> entry : mergedScenes.entrySet()) {
+                File jaifFile = new File(output, entry.getKey());
+                try {
+                    Files.write(
+                            jaifFile.toPath(),
+                            toJaif(entry.getValue()).getBytes(StandardCharsets.UTF_8));
+                } catch (IOException e) {
+                    throw new UserError("Problem while writing %s: %s", jaifFile, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the .jaif representation of a Scene.
+     *
+     * @param scene a Scene
+     * @return the contents of a .jaif file for {@code scene}
+     */
+    private static String toJaif(AScene scene) {
+        scene.prune();
+        try (StringWriter writer = new StringWriter()) {
+            IndexFileWriter.write(scene, writer);
+            return writer.toString();
+        } catch (IOException e) {
+            throw new BugInCF(e);
+        } catch (DefException e) {
+            throw new BugInCF(e);
+        }
+    }
+
+    /**
+     * Merges the results of several runs of whole-program inference. See the class documentation
+     * for the format of the arguments.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        List<String> javacOptions = new ArrayList<>();
+        List<File> inputs = new ArrayList<>();
+        File output = null;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("-o")) {
+                if (i + 1 == args.length) {
+                    throw new UserError("-o requires an argument");
+                }
+                output = new File(args[++i]);
+            } else if (OPTIONS_WITH_ARGUMENT.contains(arg)) {
+                if (i + 1 == args.length) {
+                    throw new UserError("%s requires an argument", arg);
+                }
+                javacOptions.add(arg);
+                javacOptions.add(args[++i]);
+            } else if (arg.startsWith("-")) {
+                javacOptions.add(arg);
+            } else {
+                inputs.add(new File(arg));
+            }
+        }
+        if (output == null || inputs.isEmpty() || !javacOptions.contains("-processor")) {
+            System.err.println(
+                    "Usage: SceneMerger -processor checker [javac options] -o output input...");
+            System.exit(1);
+        }
+        SceneMerger merger = new SceneMerger(inputs);
+        if (!merger.runChecker(javacOptions)) {
+            System.exit(1);
+        }
+        merger.write(output);
+    }
+
+    /**
+     * Runs the checker on a trivial class, so that each of its type factories calls {@link
+     * #mergeQualifiersOf}.
+     *
+     * @param javacOptions the javac options, including {@code -processor}
+     * @return true if the compilation succeeded
+     */
+    private boolean runChecker(List<String> javacOptions) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new UserError("No system Java compiler is available; run with a JDK, not a JRE");
+        }
+        Path tmpDir;
+        try {
+            tmpDir = Files.createTempDirectory("wpi-merge");
+        } catch (IOException e) {
+            throw new UserError("Problem while running the checker: %s", e.getMessage());
+        }
+        try (StandardJavaFileManager fileManager =
+                compiler.getStandardFileManager(null, null, null)) {
+            File source = tmpDir.resolve("WholeProgramInferenceMerge.java").toFile();
+            Files.write(
+                    source.toPath(),
+                    "class WholeProgramInferenceMerge {}".getBytes(StandardCharsets.UTF_8));
+            List<String> options = new ArrayList<>(javacOptions);
+            options.add("-d");
+            options.add(tmpDir.toString());
+            JavaCompiler.CompilationTask task =
+                    compiler.getTask(
+                            null,
+                            fileManager,
+                            null,
+                            options,
+                            null,
+                            fileManager.getJavaFileObjects(source));
+            ((BasicJavacTask) task).getContext().put(SceneMerger.class, this);
+            return task.call();
+        } catch (IOException e) {
+            throw new UserError("Problem while running the checker: %s", e.getMessage());
+        } finally {
+            deleteRecursively(tmpDir);
+        }
+    }
+
+    /**
+     * Deletes a directory and its contents. Failures are ignored, because the directory is
+     * temporary.
+     *
+     * @param dir the directory to delete
+     */
+    private static void deleteRecursively(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            // The directory is in the system's temporary directory, which is cleaned eventually.
+        }
+    }
+}
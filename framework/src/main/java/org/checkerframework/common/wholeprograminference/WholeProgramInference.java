@@ -184,6 +184,17 @@ public interface WholeProgramInference {
      */
     void writeResultsToFile(OutputFormat format, BaseTypeChecker checker);
 
+    /**
+     * Writes the results that are stored in a single file for the whole program, for output
+     * formats that do so. Called once, after all classes have been type-checked; by contrast,
+     * {@link #writeResultsToFile} is called after each class. The default implementation does
+     * nothing.
+     *
+     * @param format the file format in which to write the results
+     * @param checker the checker from which this method is called
+     */
+    default void writeFinalResults(OutputFormat format, BaseTypeChecker checker) {}
+
     /** The kinds of output that whole-program inference can produce. */
     enum OutputFormat {
         /**
@@ -196,6 +207,13 @@ public interface WholeProgramInference {
          * Output the results of whole-program inference as a Java annotation index file. The
          * Annotation File Utilities project contains code for reading and writing .jaif files.
          */
-        JAIF()
+        JAIF(),
+
+        /**
+         * Output the results of whole-program inference as a single binary archive that stores the
+         * .jaif representation of each class behind an index, so that each class can be read
+         * without parsing the others. See {@link SceneArchive}.
+         */
+        BINARY()
     }
 }
@@ -0,0 +1,341 @@
+package org.checkerframework.common.wholeprograminference;
+
+import com.sun.tools.javac.api.BasicJavacTask;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.javacutil.BugInCF;
+import org.checkerframework.javacutil.UserError;
+
+/**
+ * Runs whole-program inference to a fixpoint within a single JVM.
+ *
+ * <p>The script {@code checker/bin/infer-and-annotate.sh} starts a new compiler for every round of
+ * inference, writes the inferred annotations to .jaif files, and inserts them into the source code
+ * before the next round. By contrast, this driver runs the compiler repeatedly through the Java
+ * Compiler API. The Scenes that hold the inferred annotations are kept in memory across rounds by
+ * a {@link WholeProgramInferenceSession}, and the stub files written by {@code -Ainfer=stubs} are
+ * passed back to the checker through {@code -Astubs}, so the source code is never modified. After
+ * the first round, only the classes that depend on a Scene that changed are checked again. The
+ * driver stops after the first round of the whole program in which no Scene changes.
+ *
+ * <p>Usage:
+ *
+ * <pre>{@code
+ * java -cp checker.jar org.checkerframework.common.wholeprograminference.WholeProgramInferenceDriver \
+ *     [-maxRounds N] -processor MyChecker [other javac options] MyFile1.java MyFile2.java ...
+ * }</pre>
+ *
+ * Every argument that ends in ".java" is a source file; every other argument is passed to javac.
+ * Any {@code -Ainfer} option is replaced by {@code -Ainfer=stubs}. If no {@code -d} option is
+ * given, class files are written to {@link #DEFAULT_CLASS_OUTPUT_DIR}. The directory {@link
+ * WholeProgramInferenceScenesStorage#JAIF_FILES_PATH} is deleted before the first round, so that
+ * annotations inferred by an earlier run are not read back in.
+ *
+ * @checker_framework.manual #whole-program-inference Whole-program inference
+ */
+public class WholeProgramInferenceDriver {
+
+    /** The default maximum number of rounds of inference. */
+    public static final int DEFAULT_MAX_ROUNDS = 50;
+
+    /** The directory to which class files are written if no {@code -d} option is given. */
+    public static final String DEFAULT_CLASS_OUTPUT_DIR =
+            "build" + File.separator + "temp-whole-program-inference-output";
+
+    /** The javac options, without source files. */
+    private final List<String> javacOptions;
+
+    /** All source files of the program. */
+    private final List<File> sourceFiles;
+
+    /** The maximum number of rounds of inference. */
+    private final int maxRounds;
+
+    /** The Scenes shared by all rounds. */
+    private final WholeProgramInferenceSession session = new WholeProgramInferenceSession();
+
+    /**
+     * Creates a driver for the given program.
+     *
+     * @param javacOptions the javac options, without source files
+     * @param sourceFiles all source files of the program
+     * @param maxRounds the maximum number of rounds of inference
+     */
+    public WholeProgramInferenceDriver(
+            List<String> javacOptions, List<File> sourceFiles, int maxRounds) {
+        if (maxRounds < 1) {
+            throw new UserError("The maximum number of rounds must be positive, not %d", maxRounds);
+        }
+        this.javacOptions = javacOptions;
+        this.sourceFiles = sourceFiles;
+        this.maxRounds = maxRounds;
+    }
+
+    /**
+     * Runs whole-program inference on the program given by the command-line arguments. See the
+     * class documentation for the format of the arguments.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        int maxRounds = DEFAULT_MAX_ROUNDS;
+        List<String> javacOptions = new ArrayList<>();
+        List<File> sourceFiles = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("-maxRounds")) {
+                if (i + 1 == args.length) {
+                    throw new UserError("-maxRounds requires an argument");
+                }
+                try {
+                    maxRounds = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    throw new UserError("-maxRounds must be an integer, not \"%s\"", args[i]);
+                }
+            } else if (arg.endsWith(".java")) {
+                sourceFiles.add(new File(arg));
+            } else {
+                javacOptions.add(arg);
+            }
+        }
+        if (sourceFiles.isEmpty()) {
+            throw new UserError("No source files given");
+        }
+        WholeProgramInferenceDriver driver =
+                new WholeProgramInferenceDriver(javacOptions, sourceFiles, maxRounds);
+        System.exit(driver.run() ? 0 : 1);
+    }
+
+    /**
+     * Runs rounds of inference until no Scene changes or the maximum number of rounds is reached.
+     *
+     * <p>After the first round, only the source files that depend on a changed Scene are checked;
+     * see {@link #filesToRecheck}. Because not every dependency is recorded, a round of the whole
+     * program confirms each fixpoint that is found by checking only part of it.
+     *
+     * @return true if inference reached a fixpoint
+     * @throws UserError if a round of compilation fails
+     */
+    public boolean run() {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new UserError("No system Java compiler is available; run with a JDK, not a JRE");
+        }
+        deleteRecursively(Paths.get(WholeProgramInferenceScenesStorage.JAIF_FILES_PATH));
+        try (StandardJavaFileManager fileManager =
+                compiler.getStandardFileManager(null, null, null)) {
+            Collection<File> filesToCheck = sourceFiles;
+            for (int round = 1; round <= maxRounds; round++) {
+                boolean wholeProgram = isWholeProgram(filesToCheck);
+                session.startRound();
+                compile(compiler, fileManager, round, wholeProgram ? null : filesToCheck);
+                Set<String> changedScenes = session.getChangedScenes();
+                System.out.printf(
+                        "Whole-program inference round %d: checked %d files, %d scenes changed%n",
+                        round,
+                        wholeProgram ? sourceFiles.size() : filesToCheck.size(),
+                        changedScenes.size());
+                if (changedScenes.isEmpty()) {
+                    if (wholeProgram) {
+                        return true;
+                    }
+                    filesToCheck = sourceFiles;
+                } else {
+                    filesToCheck = filesToRecheck(changedScenes);
+                }
+            }
+        } catch (IOException e) {
+            throw new BugInCF(e);
+        }
+        System.out.printf(
+                "Whole-program inference did not reach a fixpoint after %d rounds%n", maxRounds);
+        return false;
+    }
+
+    /**
+     * Deletes a directory and its contents, if it exists. The driver deletes the directory of the
+     * inferred annotations before the first round, as {@code checker/bin/infer-and-annotate.sh}
+     * does, because the checker reads the .jaif and stub files that an earlier run left there.
+     *
+     * @param dir the directory to delete
+     * @throws UserError if the directory cannot be deleted
+     */
+    private static void deleteRecursively(Path dir) {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            // Delete the contents of each directory before the directory itself.
+            List<Path> toDelete =
+                    paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+            for (Path path : toDelete) {
+                Files.delete(path);
+            }
+        } catch (IOException e) {
+            throw new UserError("Cannot delete %s: %s", dir, e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the source files to check in the next round, given the Scenes that changed in the
+     * current round: the files that depend on a changed Scene, according to the {@link
+     * SceneDependencyGraph} recorded during inference.
+     *
+     * @param changedScenes the .jaif paths of the Scenes that changed in the current round
+     * @return the source files to check in the next round
+     */
+    protected Collection<File> filesToRecheck(Set<String> changedScenes) {
+        Set<File> dependents = session.getDependencies().getDependentSourceFiles(changedScenes);
+        List<File> result = new ArrayList<>();
+        for (File file : sourceFiles) {
+            if (dependents.contains(file.getAbsoluteFile())) {
+                result.add(file);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns true if checking the given files means checking the whole program. That is the case
+     * if they are all the source files, if they are none of them (because no dependency is known),
+     * or if the user restricted the checked classes with {@code -AonlyDefs}, which the driver uses
+     * to check only part of the program.
+     *
+     * @param filesToCheck the source files to check in a round
+     * @return true if the whole program is to be checked
+     */
+    private boolean isWholeProgram(Collection<File> filesToCheck) {
+        if (filesToCheck.isEmpty() || filesToCheck.size() == sourceFiles.size()) {
+            return true;
+        }
+        for (String option : javacOptions) {
+            if (option.startsWith("-AonlyDefs")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs one round of inference. All source files are compiled, so that the names they declare
+     * can be resolved, but the checker is only run on the classes declared in {@code filesToCheck}.
+     *
+     * @param compiler the compiler to run
+     * @param fileManager the file manager shared by all rounds
+     * @param round the number of the current round, starting at 1
+     * @param filesToCheck the source files to check, or null to check all of them
+     * @throws UserError if the compilation reports an error
+     */
+    private void compile(
+            JavaCompiler compiler,
+            StandardJavaFileManager fileManager,
+            int round,
+            @Nullable Collection<File> filesToCheck) {
+        List<String> options = optionsForRound(round);
+        if (filesToCheck != null) {
+            options.add("-AonlyDefs=" + onlyDefsPattern(filesToCheck));
+        }
+        Iterable<? extends JavaFileObject> javaFiles =
+                fileManager.getJavaFileObjectsFromFiles(sourceFiles);
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        JavaCompiler.CompilationTask task =
+                compiler.getTask(null, fileManager, diagnostics, options, null, javaFiles);
+        session.register(((BasicJavacTask) task).getContext());
+        // Type-checking errors are expected while annotations are still being inferred, and they
+        // are reported as warnings because of -Awarns, which are not printed.  Any error is
+        // therefore a problem with the program or the options, which later rounds cannot fix.
+        if (!task.call()) {
+            for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                    System.err.println(diagnostic);
+                }
+            }
+            throw new UserError("Compilation failed in round %d of whole-program inference", round);
+        }
+    }
+
+    /**
+     * Returns a regular expression for {@code -AonlyDefs} that matches the classes declared in the
+     * given source files, including their nested classes.
+     *
+     * @param files source files
+     * @return a regular expression that matches the classes declared in {@code files}
+     */
+    private String onlyDefsPattern(Collection<File> files) {
+        List<File> absoluteFiles = new ArrayList<>();
+        for (File file : files) {
+            absoluteFiles.add(file.getAbsoluteFile());
+        }
+        List<String> quotedNames = new ArrayList<>();
+        for (String className : session.getDependencies().getDeclaredClasses(absoluteFiles)) {
+            quotedNames.add(Pattern.quote(className));
+        }
+        // SourceChecker matches the pattern against the class type, which may have type arguments.
+        return "^(" + String.join("|", quotedNames) + ")($|[.<])";
+    }
+
+    /**
+     * Returns the javac options for the given round of inference.
+     *
+     * @param round the number of the round, starting at 1
+     * @return the javac options for the given round
+     */
+    private List<String> optionsForRound(int round) {
+        List<String> options = new ArrayList<>();
+        Set<String> stubs = new LinkedHashSet<>();
+        boolean hasWarns = false;
+        boolean hasOutputDir = false;
+        for (String option : javacOptions) {
+            if (option.equals("-Ainfer") || option.startsWith("-Ainfer=")) {
+                continue;
+            } else if (option.startsWith("-Astubs=")) {
+                Collections.addAll(
+                        stubs, option.substring("-Astubs=".length()).split(File.pathSeparator));
+                continue;
+            } else if (option.equals("-Awarns")) {
+                hasWarns = true;
+            } else if (option.equals("-d")) {
+                hasOutputDir = true;
+            }
+            options.add(option);
+        }
+        options.add("-Ainfer=stubs");
+        if (!hasWarns) {
+            options.add("-Awarns");
+        }
+        if (!hasOutputDir) {
+            new File(DEFAULT_CLASS_OUTPUT_DIR).mkdirs();
+            options.add("-d");
+            options.add(DEFAULT_CLASS_OUTPUT_DIR);
+        }
+        if (round > 1) {
+            // The stub files written by the previous rounds feed the inferred annotations back
+            // into type-checking.
+            stubs.add(WholeProgramInferenceScenesStorage.JAIF_FILES_PATH);
+        }
+        if (!stubs.isEmpty()) {
+            options.add("-Astubs=" + String.join(File.pathSeparator, stubs));
+        }
+        return options;
+    }
+}
@@ -1,18 +1,28 @@
 package org.checkerframework.common.wholeprograminference;
 
 import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.LambdaExpressionTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodInvocationTree;
 import com.sun.source.tree.MethodTree;
 import com.sun.source.tree.Tree;
 import com.sun.source.tree.VariableTree;
+import com.sun.source.util.TreeScanner;
 import com.sun.tools.javac.code.Symbol.ClassSymbol;
 import com.sun.tools.javac.code.Symbol.MethodSymbol;
 import com.sun.tools.javac.code.Symbol.VarSymbol;
+import java.io.File;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.VariableElement;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.checker.signature.qual.BinaryName;
 import org.checkerframework.common.basetype.BaseTypeChecker;
 import org.checkerframework.dataflow.cfg.node.FieldAccessNode;
@@ -93,7 +103,19 @@ public class WholeProgramInferenceScenes implements WholeProgramInference {
      *     ignored
      */
     public WholeProgramInferenceScenes(boolean ignoreNullAssignments) {
-        storage = new WholeProgramInferenceScenesStorage(ignoreNullAssignments);
+        this(ignoreNullAssignments, null);
+    }
+
+    /**
+     * Creates a WholeProgramInferenceScenes whose Scenes are shared with the given session, if any.
+     *
+     * @param ignoreNullAssignments indicates whether assignments where the rhs is null should be
+     *     ignored
+     * @param session the session whose Scenes to use, or null to use Scenes private to this object
+     */
+    public WholeProgramInferenceScenes(
+            boolean ignoreNullAssignments, @Nullable WholeProgramInferenceSession session) {
+        storage = new WholeProgramInferenceScenesStorage(ignoreNullAssignments, session);
     }
 
     @Override
@@ -113,6 +135,7 @@ public class WholeProgramInferenceScenes implements WholeProgramInference {
                 storage.getAClass(className, jaifPath, ((MethodSymbol) constructorElt).enclClass());
         AMethod method = clazz.methods.getVivify(JVMNames.getJVMMethodSignature(constructorElt));
         method.setFieldsFromMethodElement(constructorElt);
+        storage.recordDependency(atf, jaifPath);
 
         List<Node> arguments = objectCreationNode.getArguments();
         updateInferredExecutableParameterTypes(constructorElt, atf, jaifPath, method, arguments);
@@ -137,6 +160,8 @@ public class WholeProgramInferenceScenes implements WholeProgramInference {
 
         AMethod method = clazz.methods.getVivify(JVMNames.getJVMMethodSignature(methodElt));
         method.setFieldsFromMethodElement(methodElt);
+        // The caller depends on the callee's Scene, which provides the parameter and return types.
+        storage.recordDependency(atf, jaifPath);
 
         List<Node> arguments = methodInvNode.getArguments();
         updateInferredExecutableParameterTypes(methodElt, atf, jaifPath, method, arguments);
@@ -165,6 +190,7 @@ public class WholeProgramInferenceScenes implements WholeProgramInference {
                 continue;
             }
             AnnotatedTypeMirror argATM = atf.getAnnotatedType(treeNode);
+            recordReads(treeNode, atf);
             AField param =
                     method.vivifyAndAddTypeMirrorToParameter(
                             i, argATM.getUnderlyingType(), ve.getSimpleName());
@@ -191,6 +217,12 @@ public class WholeProgramInferenceScenes implements WholeProgramInference {
                 storage.getAClass(className, jaifPath, ((MethodSymbol) methodElt).enclClass());
         AMethod method = clazz.methods.getVivify(JVMNames.getJVMMethodSignature(methodElt));
         method.setFieldsFromMethodElement(methodElt);
+        ExecutableElement overriddenElt = overriddenMethod.getElement();
+        if (ElementUtils.isElementFromSourceCode(overriddenElt)) {
+            // The overriding method's parameter types are taken from the overridden method's.
+            storage.recordDependency(
+                    atf, storage.getJaifPath(getEnclosingClassName(overriddenElt)));
+        }
 
         for (int i = 0; i < overriddenMethod.getParameterTypes().size(); i++) {
             VariableElement ve = methodElt.getParameters().get(i);
@@ -255,6 +287,7 @@ public class WholeProgramInferenceScenes implements WholeProgramInference {
                 }
                 AnnotatedTypeMirror paramATM = atf.getAnnotatedType(vt);
                 AnnotatedTypeMirror argATM = atf.getAnnotatedType(treeNode);
+                recordReads(treeNode, atf);
                 VariableElement ve = TreeUtils.elementFromDeclaration(vt);
                 AField param =
                         method.vivifyAndAddTypeMirrorToParameter(
@@ -315,6 +348,7 @@ public class WholeProgramInferenceScenes implements WholeProgramInference {
         @BinaryName String className = enclosingClass.flatname.toString();
         String jaifPath = storage.getJaifPath(className);
         AClass clazz = storage.getAClass(className, jaifPath, enclosingClass);
+        storage.recordDependency(atf, jaifPath);
 
         AnnotatedTypeMirror lhsATM = atf.getAnnotatedType(lhs.getTree());
         AField field = clazz.fields.getVivify(fieldName);
@@ -322,6 +356,7 @@ public class WholeProgramInferenceScenes implements WholeProgramInference {
         // TODO: For a primitive such as long, this is yielding just @GuardedBy rather than
         // @GuardedBy({}).
         AnnotatedTypeMirror rhsATM = atf.getAnnotatedType(rhs.getTree());
+        recordReads(rhs.getTree(), atf);
         storage.updateAnnotationSetInScene(
                 field.type, atf, jaifPath, rhsATM, lhsATM, TypeUseLocation.FIELD);
     }
@@ -379,6 +414,7 @@ public class WholeProgramInferenceScenes implements WholeProgramInference {
 
         // Type of the expression returned
         AnnotatedTypeMirror rhsATM = atf.getAnnotatedType(retNode.getTree().getExpression());
+        recordReads(retNode.getTree().getExpression(), atf);
         storage.updateAnnotationSetInScene(
                 method.returnType, atf, jaifPath, rhsATM, lhsATM, TypeUseLocation.RETURN);
 
@@ -416,6 +452,7 @@ public class WholeProgramInferenceScenes implements WholeProgramInference {
                             superClassName,
                             superJaifPath,
                             ((MethodSymbol) overriddenMethodElement).enclClass());
+            storage.recordDependency(atf, superJaifPath);
             AMethod overriddenMethodInSuperclass =
                     superClazz.methods.getVivify(
                             JVMNames.getJVMMethodSignature(overriddenMethodElement));
@@ -432,12 +469,97 @@ public class WholeProgramInferenceScenes implements WholeProgramInference {
         }
     }
 
+    /**
+     * Returns the source files to re-analyze after the given Scenes changed: the files whose
+     * analysis read or updated one of the Scenes, and the files that declare the classes whose
+     * inferred types the Scenes store. Only dependencies observed by this object are taken into
+     * account; to track dependencies across several compilations, use a {@link
+     * WholeProgramInferenceSession}.
+     *
+     * @param changedScenes the .jaif paths of the Scenes that changed
+     * @return the absolute paths of the source files to re-analyze
+     */
+    public Set<File> getSourceFilesToReanalyze(Collection<String> changedScenes) {
+        return storage.getDependentSourceFiles(changedScenes);
+    }
+
+    /**
+     * Records that the compilation unit being analyzed depends on the Scenes of the fields and
+     * methods that {@code tree} uses. The type of {@code tree} is about to be stored in a Scene,
+     * and it may change if the inferred types of those fields and methods change.
+     *
+     * <p>Uses through local variables are not found; the driver of the inference re-analyzes the
+     * whole program before it concludes that a fixpoint was reached.
+     *
+     * @param tree an expression whose type is stored in a Scene
+     * @param atf the type factory that is analyzing the compilation unit
+     */
+    private void recordReads(Tree tree, AnnotatedTypeFactory atf) {
+        new TreeScanner<Void, Void>() {
+            @Override
+            public Void visitIdentifier(IdentifierTree node, Void p) {
+                recordRead(TreeUtils.elementFromUse(node));
+                return super.visitIdentifier(node, p);
+            }
+
+            @Override
+            public Void visitMemberSelect(MemberSelectTree node, Void p) {
+                recordRead(TreeUtils.elementFromUse(node));
+                return super.visitMemberSelect(node, p);
+            }
+
+            @Override
+            public Void visitMethodInvocation(MethodInvocationTree node, Void p) {
+                recordRead(TreeUtils.elementFromUse(node));
+                return super.visitMethodInvocation(node, p);
+            }
+
+            @Override
+            public Void visitClass(ClassTree node, Void p) {
+                // Do not descend into the bodies of anonymous classes.
+                return null;
+            }
+
+            @Override
+            public Void visitLambdaExpression(LambdaExpressionTree node, Void p) {
+                // Do not descend into the bodies of lambdas.
+                return null;
+            }
+
+            /**
+             * Records a dependency on the Scene of the class that declares {@code element}, if
+             * {@code element} is a field or method whose types may be inferred.
+             *
+             * @param element the element used by the expression
+             */
+            private void recordRead(@Nullable Element element) {
+                if (element == null
+                        || !(element.getKind().isField()
+                                || element.getKind() == ElementKind.METHOD)
+                        || !ElementUtils.isElementFromSourceCode(element)) {
+                    return;
+                }
+                @SuppressWarnings("signature") // https://tinyurl.com/cfissue/3094
+                @BinaryName String className =
+                        ((ClassSymbol) ElementUtils.enclosingClass(element)).flatName().toString();
+                storage.recordDependency(atf, storage.getJaifPath(className));
+            }
+        }.scan(tree, null);
+    }
+
     /** Write all modified scenes into .jaif files or stub files. */
     @Override
     public void writeResultsToFile(OutputFormat outputFormat, BaseTypeChecker checker) {
         storage.writeScenes(outputFormat, checker);
     }
 
+    @Override
+    public void writeFinalResults(OutputFormat outputFormat, BaseTypeChecker checker) {
+        if (outputFormat == OutputFormat.BINARY) {
+            storage.writeArchive();
+        }
+    }
+
     /**
      * Returns the "flatname" of the class enclosing {@code localVariableNode}
      *
@@ -4,12 +4,18 @@ import com.sun.tools.javac.code.Symbol.ClassSymbol;
 import com.sun.tools.javac.code.TypeAnnotationPosition;
 import java.io.File;
 import java.io.IOException;
+import java.io.LineNumberReader;
+import java.io.StringReader;
 import java.lang.annotation.Target;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
 import javax.lang.model.type.TypeKind;
@@ -51,11 +57,14 @@ import scenelib.annotations.io.IndexFileParser;
  * #JAIF_FILES_PATH} directory (regardless of output format). Having more information in those
  * initial .jaif files means that the precision achieved by the whole-program inference analysis
  * will be better. {@link #writeScenes} rewrites the initial .jaif files, and may create new ones.
+ *
+ * <p>If a {@link WholeProgramInferenceSession} is given, the Scenes are shared with it instead, so
+ * that they outlive the current compilation.
  */
 public class WholeProgramInferenceScenesStorage {
 
     /** Annotations that should not be output to a .jaif or stub file. */
-    private final AnnotationsInContexts annosToIgnore = new AnnotationsInContexts();
+    private final AnnotationsInContexts annosToIgnore;
 
     /**
      * Directory where .jaif files will be written to and read from. This directory is relative to
@@ -64,11 +73,26 @@ public class WholeProgramInferenceScenesStorage {
     public static final String JAIF_FILES_PATH =
             "build" + File.separator + "whole-program-inference" + File.separator;
 
+    /**
+     * The archive that holds the Scenes of all classes if the output format is {@link
+     * OutputFormat#BINARY}. This path is relative to where the CF's javac command is executed.
+     */
+    public static final String ARCHIVE_FILE_PATH = JAIF_FILES_PATH + "scenes.wpi";
+
+    /**
+     * The archive read from {@link #ARCHIVE_FILE_PATH}, or null if there is none. Only valid if
+     * {@link #archiveOpened} is true.
+     */
+    private @Nullable SceneArchive archive = null;
+
+    /** True if {@link #ARCHIVE_FILE_PATH} has been opened (or found not to exist). */
+    private boolean archiveOpened = false;
+
     /** Indicates whether assignments where the rhs is null should be ignored. */
     private final boolean ignoreNullAssignments;
 
     /** Maps .jaif file paths (Strings) to Scenes. Relative to JAIF_FILES_PATH. */
-    private final Map<String, ASceneWrapper> scenes = new HashMap<>();
+    private final Map<String, ASceneWrapper> scenes;
 
     /**
      * Scenes that were modified since the last time all Scenes were written into .jaif files. Each
@@ -80,7 +104,16 @@ public class WholeProgramInferenceScenesStorage {
      * type, or method parameter type in the Scene. (Scenes are modified by the method {@link
      * #updateAnnotationSetInScene}.)
      */
-    private final Set<String> modifiedScenes = new HashSet<>();
+    private final Set<String> modifiedScenes;
+
+    /** The source files that depend on each Scene. */
+    private final SceneDependencyGraph dependencies;
+
+    /**
+     * The session whose Scenes this storage uses, or null if the Scenes are read from and written
+     * to .jaif files only.
+     */
+    private final @Nullable WholeProgramInferenceSession session;
 
     /**
      * Default constructor.
@@ -89,7 +122,32 @@ public class WholeProgramInferenceScenesStorage {
      *     ignored
      */
     public WholeProgramInferenceScenesStorage(boolean ignoreNullAssignments) {
+        this(ignoreNullAssignments, null);
+    }
+
+    /**
+     * Creates a storage that shares its Scenes with the given session, if any.
+     *
+     * @param ignoreNullAssignments indicates whether assignments where the rhs is null should be
+     *     ignored
+     * @param session the session whose Scenes to use, or null to use Scenes private to this
+     *     storage
+     */
+    public WholeProgramInferenceScenesStorage(
+            boolean ignoreNullAssignments, @Nullable WholeProgramInferenceSession session) {
         this.ignoreNullAssignments = ignoreNullAssignments;
+        this.session = session;
+        if (session != null) {
+            this.scenes = session.scenes;
+            this.modifiedScenes = session.modifiedScenes;
+            this.annosToIgnore = session.annosToIgnore;
+            this.dependencies = session.dependencies;
+        } else {
+            this.scenes = new HashMap<>();
+            this.modifiedScenes = new HashSet<>();
+            this.annosToIgnore = new AnnotationsInContexts();
+            this.dependencies = new SceneDependencyGraph();
+        }
     }
 
     /**
@@ -100,6 +158,11 @@ public class WholeProgramInferenceScenesStorage {
      * @param checker the checker from which this method is called, for naming stub files
      */
     public void writeScenes(OutputFormat outputFormat, BaseTypeChecker checker) {
+        if (outputFormat == OutputFormat.BINARY) {
+            // All Scenes are written at once, by writeArchive, when all classes have been
+            // processed.
+            return;
+        }
         // Create WPI directory if it doesn't exist already.
         File jaifDir = new File(JAIF_FILES_PATH);
         if (!jaifDir.exists()) {
@@ -112,6 +175,58 @@ public class WholeProgramInferenceScenesStorage {
         modifiedScenes.clear();
     }
 
+    /**
+     * Writes all Scenes into the archive at {@link #ARCHIVE_FILE_PATH}. The entries of Scenes that
+     * were not modified are copied from the previous archive, if any, without being parsed.
+     */
+    public void writeArchive() {
+        if (modifiedScenes.isEmpty()) {
+            return;
+        }
+        File jaifDir = new File(JAIF_FILES_PATH);
+        if (!jaifDir.exists()) {
+            jaifDir.mkdirs();
+        }
+        File archiveFile = new File(ARCHIVE_FILE_PATH);
+        // Re-open the archive, which another type factory may have written in the meantime.
+        SceneArchive previous = SceneArchive.open(archiveFile);
+        SortedMap<String, byte[]> entries = new TreeMap<>();
+        if (previous != null) {
+            for (String jaifPath : previous.getJaifPaths()) {
+                if (!modifiedScenes.contains(jaifPath)) {
+                    entries.put(jaifPath, previous.getBytes(jaifPath));
+                }
+            }
+        }
+        for (Map.Entry<String, ASceneWrapper> scene : scenes.entrySet()) {
+            String jaifPath = scene.getKey();
+            if (entries.containsKey(jaifPath)) {
+                continue;
+            }
+            String jaif = scene.getValue().toJaifString(annosToIgnore);
+            if (jaif != null) {
+                entries.put(jaifPath, jaif.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        SceneArchive.write(archiveFile, entries);
+        modifiedScenes.clear();
+        archive = null;
+        archiveOpened = false;
+    }
+
+    /**
+     * Returns the archive at {@link #ARCHIVE_FILE_PATH}, opening it on first use.
+     *
+     * @return the archive, or null if there is none
+     */
+    private @Nullable SceneArchive getArchive() {
+        if (!archiveOpened) {
+            archive = SceneArchive.open(new File(ARCHIVE_FILE_PATH));
+            archiveOpened = true;
+        }
+        return archive;
+    }
+
     /**
      * Returns the String representing the .jaif path of a class given its name.
      *
@@ -124,18 +239,29 @@ public class WholeProgramInferenceScenesStorage {
     }
 
     /**
-     * Reads a Scene from the given .jaif file, or returns an empty Scene if the file does not
-     * exist.
+     * Reads a Scene from the archive at {@link #ARCHIVE_FILE_PATH} or from the given .jaif file,
+     * or returns an empty Scene if neither contains it.
      *
      * @param jaifPath the .jaif file
-     * @return the Scene read from the file, or an empty Scene if the file does not exist
+     * @return the Scene read from the archive or the file, or an empty Scene if neither contains it
      */
     protected ASceneWrapper getScene(String jaifPath) {
         AScene scene;
         if (!scenes.containsKey(jaifPath)) {
             File jaifFile = new File(jaifPath);
             scene = new AScene();
-            if (jaifFile.exists()) {
+            SceneArchive sceneArchive = getArchive();
+            String jaif = sceneArchive == null ? null : sceneArchive.getJaif(jaifPath);
+            if (jaif != null) {
+                try {
+                    IndexFileParser.parse(
+                            new LineNumberReader(new StringReader(jaif)), jaifPath, scene);
+                } catch (IOException e) {
+                    throw new UserError(
+                            "Problem while reading %s from %s: %s",
+                            jaifPath, ARCHIVE_FILE_PATH, e.getMessage());
+                }
+            } else if (jaifFile.exists()) {
                 try {
                     IndexFileParser.parseFile(jaifPath, scene);
                 } catch (IOException e) {
@@ -150,6 +276,27 @@ public class WholeProgramInferenceScenesStorage {
         }
     }
 
+    /**
+     * Returns the source files that depend on the given Scenes. See {@link SceneDependencyGraph}.
+     *
+     * @param jaifPaths the .jaif paths of the Scenes
+     * @return the source files that depend on the given Scenes
+     */
+    public Set<File> getDependentSourceFiles(Collection<String> jaifPaths) {
+        return dependencies.getDependentSourceFiles(jaifPaths);
+    }
+
+    /**
+     * Records that the compilation unit currently being analyzed by the given type factory depends
+     * on the Scene identified by the given jaifPath.
+     *
+     * @param atf the type factory that is analyzing a compilation unit
+     * @param jaifPath the path to the jaif file that identifies the Scene
+     */
+    protected void recordDependency(AnnotatedTypeFactory atf, String jaifPath) {
+        dependencies.recordDependency(atf.getRoot(), jaifPath);
+    }
+
     /**
      * Returns the scene-lib representation of the given className in the scene identified by the
      * given jaifPath.
@@ -168,6 +315,9 @@ public class WholeProgramInferenceScenesStorage {
         ASceneWrapper scene = getScene(jaifPath);
         AClass aClass = scene.getAScene().classes.getVivify(className);
         scene.updateSymbolInformation(aClass, classSymbol);
+        if (classSymbol != null) {
+            dependencies.recordDeclaration(classSymbol, jaifPath);
+        }
         return aClass;
     }
 
@@ -228,10 +378,48 @@ public class WholeProgramInferenceScenesStorage {
                 return;
             }
         }
-        updateTypeElementFromATM(rhsATM, lhsATM, atf, type, 1, defLoc);
+        if (session == null) {
+            updateTypeElementFromATM(rhsATM, lhsATM, atf, type, 1, defLoc);
+        } else {
+            Map<String, Set<Annotation>> before = annotationsByLocation(type);
+            updateTypeElementFromATM(rhsATM, lhsATM, atf, type, 1, defLoc);
+            if (!before.equals(annotationsByLocation(type))) {
+                session.sceneChanged(jaifPath);
+            }
+        }
         modifiedScenes.add(jaifPath);
     }
 
+    /**
+     * Returns the annotations on {@code type} and on its inner types, indexed by the location of
+     * each inner type. Locations without annotations are omitted.
+     *
+     * @param type the type element whose annotations to collect
+     * @return a copy of the annotations on {@code type}, keyed by location
+     */
+    private static Map<String, Set<Annotation>> annotationsByLocation(ATypeElement type) {
+        Map<String, Set<Annotation>> result = new HashMap<>();
+        annotationsByLocation(type, "", result);
+        return result;
+    }
+
+    /**
+     * Helper method for {@link #annotationsByLocation(ATypeElement)}.
+     *
+     * @param type the type element whose annotations to collect
+     * @param location a string representation of the location of {@code type}
+     * @param result the map to which to add the annotations
+     */
+    private static void annotationsByLocation(
+            ATypeElement type, String location, Map<String, Set<Annotation>> result) {
+        if (!type.tlAnnotationsHere.isEmpty()) {
+            result.put(location, new HashSet<>(type.tlAnnotationsHere));
+        }
+        for (Map.Entry<InnerTypeLocation, ATypeElement> inner : type.innerTypes.entrySet()) {
+            annotationsByLocation(inner.getValue(), location + inner.getKey() + ";", result);
+        }
+    }
+
     /**
      * Updates sourceCodeATM to contain the LUB between sourceCodeATM and jaifATM, ignoring missing
      * AnnotationMirrors from jaifATM -- it considers the LUB between an AnnotationMirror am and a
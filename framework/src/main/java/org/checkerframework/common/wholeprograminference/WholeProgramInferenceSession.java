@@ -0,0 +1,108 @@
+package org.checkerframework.common.wholeprograminference;
+
+import com.sun.tools.javac.processing.JavacProcessingEnvironment;
+import com.sun.tools.javac.util.Context;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.ProcessingEnvironment;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.common.wholeprograminference.WholeProgramInferenceScenesStorage.AnnotationsInContexts;
+import org.checkerframework.common.wholeprograminference.scenelib.ASceneWrapper;
+
+/**
+ * The in-memory state of whole-program inference that outlives a single javac invocation.
+ *
+ * <p>Normally, each {@link WholeProgramInferenceScenesStorage} reads its Scenes from the .jaif files
+ * in {@link WholeProgramInferenceScenesStorage#JAIF_FILES_PATH} and forgets them when the compiler
+ * exits. When {@link WholeProgramInferenceDriver} runs the checker repeatedly within one JVM, it
+ * registers a session in the javac {@link Context} of each compilation task, and every storage
+ * created for that task shares the Scenes of the session instead. The Scenes therefore persist
+ * from one round of inference to the next without being written out and parsed back in.
+ *
+ * <p>The session also records which Scenes had an annotation changed during the current round.
+ * Inference has reached its fixpoint when a round changes no Scene.
+ */
+public class WholeProgramInferenceSession {
+
+    /** Maps .jaif file paths to Scenes. See {@link WholeProgramInferenceScenesStorage}. */
+    /*package-private*/ final Map<String, ASceneWrapper> scenes = new HashMap<>();
+
+    /** Scenes that were modified since they were last written to a file. */
+    /*package-private*/ final Set<String> modifiedScenes = new HashSet<>();
+
+    /** Annotations that should not be output to a .jaif or stub file. */
+    /*package-private*/ final AnnotationsInContexts annosToIgnore = new AnnotationsInContexts();
+
+    /** The source files that depend on each Scene, accumulated over all rounds. */
+    /*package-private*/ final SceneDependencyGraph dependencies = new SceneDependencyGraph();
+
+    /**
+     * The .jaif paths of the Scenes in which at least one inferred annotation changed during the
+     * current round. Unlike {@link #modifiedScenes}, this set is not cleared when Scenes are
+     * written, and a Scene is only added to it if the update changed its annotations.
+     */
+    private final Set<String> changedScenes = new HashSet<>();
+
+    /** Creates a new session with no Scenes. */
+    public WholeProgramInferenceSession() {}
+
+    /**
+     * Returns the session registered in the javac context of the given processing environment.
+     *
+     * @param processingEnv the processing environment of the current compilation
+     * @return the session registered for the current compilation, or null if there is none
+     */
+    public static @Nullable WholeProgramInferenceSession get(ProcessingEnvironment processingEnv) {
+        if (!(processingEnv instanceof JavacProcessingEnvironment)) {
+            return null;
+        }
+        Context context = ((JavacProcessingEnvironment) processingEnv).getContext();
+        return context.get(WholeProgramInferenceSession.class);
+    }
+
+    /**
+     * Registers this session in the given javac context, so that whole-program inference performed
+     * by the compilation that owns the context uses the Scenes of this session.
+     *
+     * @param context the javac context of a compilation task that has not run yet
+     */
+    public void register(Context context) {
+        context.put(WholeProgramInferenceSession.class, this);
+    }
+
+    /**
+     * Records that an inferred annotation in the Scene with the given .jaif path changed.
+     *
+     * @param jaifPath the .jaif path that identifies the Scene
+     */
+    /*package-private*/ void sceneChanged(String jaifPath) {
+        changedScenes.add(jaifPath);
+    }
+
+    /**
+     * Returns the .jaif paths of the Scenes that changed since the last call to {@link
+     * #startRound}.
+     *
+     * @return the .jaif paths of the Scenes changed in the current round
+     */
+    public Set<String> getChangedScenes() {
+        return Collections.unmodifiableSet(changedScenes);
+    }
+
+    /**
+     * Returns the dependencies between source files and Scenes recorded during all rounds so far.
+     *
+     * @return the dependency graph of this session
+     */
+    public SceneDependencyGraph getDependencies() {
+        return dependencies;
+    }
+
+    /** Starts a new round of inference: forgets which Scenes changed in the previous round. */
+    public void startRound() {
+        changedScenes.clear();
+    }
+}
@@ -4,6 +4,7 @@ import com.sun.tools.javac.code.Symbol.ClassSymbol;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -112,7 +113,8 @@ public class ASceneWrapper {
      * Write the scene wrapped by this object to a file at the given path.
      *
      * @param jaifPath the path of the file to be written, but ending in ".jaif". If {@code
-     *     outputformat} is not {@code JAIF}, the path will be modified to match.
+     *     outputformat} is {@code STUB}, the path will be modified to match. A Scene is written
+     *     in the .jaif format if {@code outputFormat} is {@code BINARY}.
      * @param annosToIgnore which annotations should be ignored in which contexts
      * @param outputFormat the output format to use
      * @param checker the checker from which this method is called, for naming stub files
@@ -123,12 +125,14 @@ public class ASceneWrapper {
             OutputFormat outputFormat,
             BaseTypeChecker checker) {
         assert jaifPath.endsWith(".jaif");
-        AScene scene = theScene.clone();
-        removeAnnosFromScene(scene, annosToIgnore);
-        scene.prune();
+        AScene scene = prunedCopy(annosToIgnore);
         String filepath;
         switch (outputFormat) {
             case JAIF:
+            case BINARY:
+                // The archive holds the Scenes of all classes and is written by
+                // WholeProgramInferenceScenesStorage.writeArchive.  A single Scene is written in
+                // the .jaif format instead; a Scene that is not in the archive is read from it.
                 filepath = jaifPath;
                 break;
             case STUB:
@@ -147,6 +151,7 @@ public class ASceneWrapper {
                         SceneToStubWriter.write(this, filepath);
                         break;
                     case JAIF:
+                    case BINARY:
                         IndexFileWriter.write(scene, new FileWriter(filepath));
                         break;
                     default:
@@ -160,11 +165,53 @@ public class ASceneWrapper {
         }
     }
 
+    /**
+     * Returns the contents of the .jaif file for the scene wrapped by this object, as {@link
+     * #writeToFile} would write it.
+     *
+     * @param annosToIgnore which annotations should be ignored in which contexts
+     * @return the contents of the .jaif file, or null if the scene has no annotations to output
+     */
+    public @Nullable String toJaifString(AnnotationsInContexts annosToIgnore) {
+        AScene scene = prunedCopy(annosToIgnore);
+        if (scene.isEmpty()) {
+            return null;
+        }
+        try (StringWriter writer = new StringWriter()) {
+            IndexFileWriter.write(scene, writer);
+            return writer.toString();
+        } catch (IOException e) {
+            throw new BugInCF(e);
+        } catch (DefException e) {
+            throw new BugInCF(e);
+        }
+    }
+
+    /**
+     * Returns a copy of the wrapped scene without the annotations that should be ignored, and
+     * without empty elements.
+     *
+     * @param annosToIgnore which annotations should be ignored in which contexts
+     * @return a pruned copy of the wrapped scene
+     */
+    private AScene prunedCopy(AnnotationsInContexts annosToIgnore) {
+        AScene scene = theScene.clone();
+        removeAnnosFromScene(scene, annosToIgnore);
+        scene.prune();
+        return scene;
+    }
+
     /**
      * Updates the symbol information stored in AClass for the given class. May be called multiple
      * times (and needs to be if the second parameter was null the first time it was called; only
      * some calls provide the symbol information).
      *
+     * <p>When {@link
+     * org.checkerframework.common.wholeprograminference.WholeProgramInferenceSession} runs several
+     * rounds of inference, each round has its own javac context and therefore its own symbols for
+     * the same class. The symbols recorded by the first round are kept, and later rounds are only
+     * checked for consistency by name, which is all that is used when the scene is printed.
+     *
      * @param aClass the class representation in which the symbol information is to be updated
      * @param classSymbol the source of the symbol information; may be null, in which case this
      *     method does nothing
@@ -191,7 +238,11 @@ public class ASceneWrapper {
                                     + classSymbol.getQualifiedName().toString());
                 }
                 for (int i = 0; i < enumConstants.size(); i++) {
-                    if (!existingEnumConstants.get(i).equals(enumConstants.get(i))) {
+                    // Compare names rather than symbols, which differ between rounds.
+                    if (!existingEnumConstants
+                            .get(i)
+                            .getSimpleName()
+                            .contentEquals(enumConstants.get(i).getSimpleName())) {
                         throw new BugInCF(
                                 "inconsistent enum constants in WPI for class "
                                         + classSymbol.getQualifiedName().toString());
@@ -217,7 +268,13 @@ public class ASceneWrapper {
             // otherwise this loop will sometimes run forever.
         } while (outerClass != null && !previous.equals(outerClass));
 
-        aClass.setTypeElement(classSymbol);
+        TypeElement existingTypeElement = aClass.getTypeElement();
+        if (existingTypeElement == null
+                || !existingTypeElement
+                        .getQualifiedName()
+                        .contentEquals(classSymbol.getQualifiedName())) {
+            aClass.setTypeElement(classSymbol);
+        }
     }
 
     /**
@@ -40,6 +40,7 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.StringJoiner;
 import java.util.TreeSet;
+import java.util.WeakHashMap;
 import java.util.regex.Pattern;
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.Messager;
@@ -111,6 +112,11 @@ import org.plumelib.util.UtilPlume;
     "skipDefs",
     "onlyDefs",
 
+    // Do not type-check class and method definitions in which every warning of the checker is
+    // suppressed.  "-AskipSuppressedDefs=stats" also reports how many definitions were skipped.
+    // org.checkerframework.framework.source.SourceChecker.shouldSkipSuppressedDefs
+    "skipSuppressedDefs",
+
     // Unsoundly assume all methods have no side effects, are deterministic, or both.
     "assumeSideEffectFree",
     "assumeDeterministic",
@@ -188,6 +194,13 @@ import org.plumelib.util.UtilPlume;
     // org.checkerframework.common.basetype.BaseTypeVisitor.visitMethod(MethodTree, Void)
     "suggestPureMethods",
 
+    // Files that record the purity of unannotated methods of libraries, and the file to which to
+    // write the purity of the unannotated methods checked in this compilation.
+    // org.checkerframework.common.basetype.BaseTypeVisitor.checkPurity
+    // org.checkerframework.dataflow.util.PuritySummaries
+    "puritySummaries",
+    "puritySummaryOutput",
+
     // Whether to resolve reflective method invocations.
     // "-AresolveReflection=debug" causes debugging information
     // to be output.
@@ -402,6 +415,14 @@ public abstract class SourceChecker extends AbstractTypeProcessor
      */
     protected Properties messagesProperties;
 
+    /**
+     * The messages read by {@link #getMessagesProperties} for each checker class. The files do not
+     * change while a JVM runs, so they are read only once, even if the checker runs in many
+     * compilations, as in a {@link org.checkerframework.framework.util.CheckerDaemon}.
+     */
+    private static final Map<Class<?>, Properties> messagesPropertiesCache =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
     /** Used to report error messages and warnings via the compiler. */
     protected Messager messager;
 
@@ -424,7 +445,7 @@ public abstract class SourceChecker extends AbstractTypeProcessor
      * SuppressWarnings strings supplied via the -AsuppressWarnings option. Do not use directly,
      * call {@link #getSuppressWarningsStringsFromOption()}.
      */
-    private String @Nullable [] suppressWarningsStringsFromOption;
+    private SuppressWarningsString @Nullable [] suppressWarningsStringsFromOption;
 
     /**
      * Regular expression pattern to specify Java classes that are not annotated, so warnings about
@@ -571,6 +592,8 @@ public abstract class SourceChecker extends AbstractTypeProcessor
     protected void setRoot(CompilationUnitTree newRoot) {
         this.currentRoot = newRoot;
         visitor.setRoot(currentRoot);
+        suppressWarningsStringsCache.clear();
+        annotatedForCache.clear();
     }
 
     /**
@@ -662,18 +685,26 @@ public abstract class SourceChecker extends AbstractTypeProcessor
             return messagesProperties;
         }
 
-        messagesProperties = new Properties();
+        Properties cached = messagesPropertiesCache.get(this.getClass());
+        if (cached == null) {
+            cached = new Properties();
 
-        ArrayDeque<Class<?>> checkers = new ArrayDeque<>();
-        Class<?> currClass = this.getClass();
-        while (currClass != AbstractTypeProcessor.class) {
-            checkers.addFirst(currClass);
-            currClass = currClass.getSuperclass();
-        }
+            ArrayDeque<Class<?>> checkers = new ArrayDeque<>();
+            Class<?> currClass = this.getClass();
+            while (currClass != AbstractTypeProcessor.class) {
+                checkers.addFirst(currClass);
+                currClass = currClass.getSuperclass();
+            }
 
-        for (Class<?> checker : checkers) {
-            messagesProperties.putAll(getProperties(checker, MSGS_FILE));
+            for (Class<?> checker : checkers) {
+                cached.putAll(getProperties(checker, MSGS_FILE));
+            }
+            messagesPropertiesCache.put(this.getClass(), cached);
         }
+
+        // Copy the cached messages, because subclasses may modify messagesProperties.
+        messagesProperties = new Properties();
+        messagesProperties.putAll(cached);
         return messagesProperties;
     }
 
@@ -930,6 +961,19 @@ public abstract class SourceChecker extends AbstractTypeProcessor
         }
     }
 
+    @Override
+    public void typeProcessingOver() {
+        if ("stats".equals(getOption("skipSuppressedDefs")) && parentChecker == null) {
+            message(
+                    Kind.NOTE,
+                    "%s skipped %d class and %d method definitions whose warnings are suppressed",
+                    this.getClass().getSimpleName(),
+                    numSkippedSuppressedClasses,
+                    numSkippedSuppressedMethods);
+        }
+        super.typeProcessingOver();
+    }
+
     ///////////////////////////////////////////////////////////////////////////
     /// Reporting type-checking errors; most clients use reportError() or reportWarning()
     ///
@@ -1091,8 +1135,21 @@ public abstract class SourceChecker extends AbstractTypeProcessor
             String message,
             Tree source,
             CompilationUnitTree root) {
-        StackTraceElement[] trace = Thread.currentThread().getStackTrace();
-        printOrStoreMessage(kind, message, source, root, trace);
+        printOrStoreMessage(kind, message, source, root, getStackTraceForMessage());
+    }
+
+    /** The stack trace recorded with a message when the "dumpOnErrors" option is not enabled. */
+    private static final StackTraceElement[] NO_STACK_TRACE = new StackTraceElement[0];
+
+    /**
+     * Returns the stack trace to record with a message that is being issued. It is only printed
+     * when the "dumpOnErrors" option is enabled, so otherwise it is not captured: capturing it is
+     * expensive, and compound checkers hold on to it until their messages are printed.
+     *
+     * @return the current stack trace if the "dumpOnErrors" option is enabled, or an empty array
+     */
+    protected StackTraceElement[] getStackTraceForMessage() {
+        return hasOption("dumpOnErrors") ? Thread.currentThread().getStackTrace() : NO_STACK_TRACE;
     }
 
     /**
@@ -1785,7 +1842,7 @@ public abstract class SourceChecker extends AbstractTypeProcessor
      *
      * @return the argument to -AsuppressWarnings, split on commas, or null if no such argument
      */
-    private String @Nullable [] getSuppressWarningsStringsFromOption() {
+    private SuppressWarningsString @Nullable [] getSuppressWarningsStringsFromOption() {
         Map<String, String> options = getOptions();
         if (this.suppressWarningsStringsFromOption == null) {
             if (!options.containsKey("suppressWarnings")) {
@@ -1796,10 +1853,8 @@ public abstract class SourceChecker extends AbstractTypeProcessor
             if (swStrings == null) {
                 return null;
             }
-            this.suppressWarningsStringsFromOption = swStrings.split(",");
-            Arrays.setAll(
-                    suppressWarningsStringsFromOption,
-                    i -> suppressWarningsStringsFromOption[i].toLowerCase());
+            this.suppressWarningsStringsFromOption =
+                    parseSuppressWarningsStrings(swStrings.split(","));
         }
 
         return this.suppressWarningsStringsFromOption;
@@ -1844,13 +1899,11 @@ public abstract class SourceChecker extends AbstractTypeProcessor
                 continue;
             }
             // tree has a @SuppressWarnings annotation that didn't suppress any warnings.
-            SuppressWarnings suppressAnno = elt.getAnnotation(SuppressWarnings.class);
-            String[] suppressWarningsStrings = suppressAnno.value();
-            Arrays.setAll(suppressWarningsStrings, i -> suppressWarningsStrings[i].toLowerCase());
-            for (String suppressWarningsString : suppressWarningsStrings) {
+            boolean requirePrefix = hasOption("requirePrefixInWarningSuppressions");
+            for (SuppressWarningsString suppressWarningsString : getSuppressWarningsStrings(elt)) {
                 for (String errorKey : allErrorKeys) {
-                    if (shouldSuppress(prefixes, new String[] {suppressWarningsString}, errorKey)) {
-                        reportUnneededSuppression(tree, suppressWarningsString);
+                    if (suppressWarningsString.suppresses(prefixes, requirePrefix, errorKey)) {
+                        reportUnneededSuppression(tree, suppressWarningsString.string);
                         break; // Don't report the same warning string more than once.
                     }
                 }
@@ -2035,6 +2088,147 @@ public abstract class SourceChecker extends AbstractTypeProcessor
      */
     protected final Set<Element> elementsWithSuppressedWarnings = new HashSet<>();
 
+    /**
+     * Maps elements of the current compilation unit, and the elements that enclose them, to the
+     * parsed strings of their {@code @SuppressWarnings} annotation. An element without one is
+     * mapped to the empty array. Reporting a warning looks up every element that encloses its
+     * source, so each annotation is read, lower-cased, and split into its prefix and message key
+     * once per compilation unit rather than once per warning.
+     */
+    private final Map<Element, SuppressWarningsString[]> suppressWarningsStringsCache =
+            new HashMap<>();
+
+    /**
+     * Maps elements of the current compilation unit, and the elements that enclose them, to
+     * whether they have an {@code @AnnotatedFor} annotation for this checker or an upstream
+     * checker.
+     */
+    private final Map<Element, Boolean> annotatedForCache = new HashMap<>();
+
+    /**
+     * Returns the parsed strings of the {@code @SuppressWarnings} annotation on the given element.
+     *
+     * @param elt an element
+     * @return the SuppressWarnings strings of {@code elt}, or the empty array if it has no
+     *     {@code @SuppressWarnings} annotation; clients must not side-effect it
+     */
+    private SuppressWarningsString[] getSuppressWarningsStrings(Element elt) {
+        SuppressWarningsString[] result = suppressWarningsStringsCache.get(elt);
+        if (result == null) {
+            SuppressWarnings suppressWarningsAnno = elt.getAnnotation(SuppressWarnings.class);
+            if (suppressWarningsAnno == null) {
+                result = new SuppressWarningsString[0];
+            } else {
+                result = parseSuppressWarningsStrings(suppressWarningsAnno.value());
+            }
+            suppressWarningsStringsCache.put(elt, result);
+        }
+        return result;
+    }
+
+    /**
+     * Parses the given SuppressWarnings strings.
+     *
+     * @param suppressWarningsStrings SuppressWarnings strings, in any case
+     * @return the parsed lower-case {@code suppressWarningsStrings}
+     */
+    private static SuppressWarningsString[] parseSuppressWarningsStrings(
+            String[] suppressWarningsStrings) {
+        SuppressWarningsString[] result =
+                new SuppressWarningsString[suppressWarningsStrings.length];
+        for (int i = 0; i < suppressWarningsStrings.length; i++) {
+            result[i] = new SuppressWarningsString(suppressWarningsStrings[i].toLowerCase());
+        }
+        return result;
+    }
+
+    /**
+     * A lower-case SuppressWarnings string, split into its prefix and its message key when it is
+     * read, so that they are not split again for each warning that it might suppress. See {@link
+     * #shouldSuppress(SuppressWarningsString[], String)} for the forms of SuppressWarnings strings.
+     */
+    private static final class SuppressWarningsString {
+        /** The lower-case SuppressWarnings string. */
+        final String string;
+
+        /** The part before the colon, or null if the string has no colon. */
+        final @Nullable String prefix;
+
+        /** The part after the colon, or the whole string if it has no colon. */
+        final String messageKey;
+
+        /** {@link #messageKey} followed by a period. */
+        final String messageKeyDot;
+
+        /** {@link #messageKey} preceded by a period. */
+        final String dotMessageKey;
+
+        /** {@link #messageKey} preceded and followed by a period. */
+        final String dotMessageKeyDot;
+
+        /**
+         * Parses the given SuppressWarnings string.
+         *
+         * @param string a lower-case SuppressWarnings string
+         */
+        SuppressWarningsString(String string) {
+            this.string = string;
+            int colonPos = string.indexOf(":");
+            if (colonPos == -1) {
+                this.prefix = null;
+                this.messageKey = string;
+            } else {
+                this.prefix = string.substring(0, colonPos);
+                this.messageKey = string.substring(colonPos + 1);
+            }
+            this.messageKeyDot = messageKey + ".";
+            this.dotMessageKey = "." + messageKey;
+            this.dotMessageKeyDot = dotMessageKey + ".";
+        }
+
+        /**
+         * Returns true if this SuppressWarnings string suppresses an error with the given message
+         * key.
+         *
+         * @param prefixes the SuppressWarnings prefixes used by the checker
+         * @param requirePrefix true if the -ArequirePrefixInWarningSuppressions command-line
+         *     argument was supplied
+         * @param errorKey the message key of the error the checker is emitting; a lowercase string,
+         *     without any "checkername:" prefix
+         * @return true if this SuppressWarnings string suppresses the error
+         */
+        boolean suppresses(Set<String> prefixes, boolean requirePrefix, String errorKey) {
+            if (prefix == null) {
+                // The SuppressWarnings string is not of the form prefix:partial-message-key
+                if (prefixes.contains(string)) {
+                    // The value in the @SuppressWarnings is exactly a prefix. Suppress the warning
+                    // no matter its message key.
+                    return true;
+                } else if (requirePrefix) {
+                    // A prefix is required, but this SuppressWarnings string does not have a
+                    // prefix.
+                    return false;
+                } else if (string.equals(SUPPRESS_ALL_MESSAGE_KEY)) {
+                    // Prefixes aren't required and the SuppressWarnings string is "all".  Suppress
+                    // the warning no matter its message key.
+                    return true;
+                }
+                // The SuppressWarnings string is not a prefix or a prefix:message-key, so it
+                // might be a message key.
+            } else if (!prefixes.contains(prefix)) {
+                // The prefix of this SuppressWarnings string is a not a prefix supported by the
+                // checker.
+                return false;
+            }
+            // Check if the message key in the warning suppression is part of the message key that
+            // the checker is emiting.
+            return errorKey.equals(messageKey)
+                    || errorKey.startsWith(messageKeyDot)
+                    || errorKey.endsWith(dotMessageKey)
+                    || errorKey.contains(dotMessageKeyDot);
+        }
+    }
+
     /**
      * Determines whether all the warnings pertaining to a given element should be suppressed.
      * Returns true if the element is within the scope of a @SuppressWarnings annotation, one of
@@ -2062,17 +2256,13 @@ public abstract class SourceChecker extends AbstractTypeProcessor
         }
 
         while (elt != null) {
-            SuppressWarnings suppressWarningsAnno = elt.getAnnotation(SuppressWarnings.class);
-            if (suppressWarningsAnno != null) {
-                String[] suppressWarningsStrings = suppressWarningsAnno.value();
-                Arrays.setAll(
-                        suppressWarningsStrings, i -> suppressWarningsStrings[i].toLowerCase());
-                if (shouldSuppress(suppressWarningsStrings, errKey)) {
-                    if (hasOption("warnUnneededSuppressions")) {
-                        elementsWithSuppressedWarnings.add(elt);
-                    }
-                    return true;
+            SuppressWarningsString[] suppressWarningsStrings = getSuppressWarningsStrings(elt);
+            if (suppressWarningsStrings.length != 0
+                    && shouldSuppress(suppressWarningsStrings, errKey)) {
+                if (hasOption("warnUnneededSuppressions")) {
+                    elementsWithSuppressedWarnings.add(elt);
                 }
+                return true;
             }
             if (isAnnotatedForThisCheckerOrUpstreamChecker(elt)) {
                 // Return false immediately. Do NOT check for AnnotatedFor in the
@@ -2115,70 +2305,19 @@ public abstract class SourceChecker extends AbstractTypeProcessor
      *     without any "checkername:" prefix
      * @return true if an element of {@code suppressWarningsStrings} suppresses the error
      */
-    private boolean shouldSuppress(String[] suppressWarningsStrings, String messageKey) {
-        Set<String> prefixes = this.getSuppressWarningsPrefixes();
-        return shouldSuppress(prefixes, suppressWarningsStrings, messageKey);
-    }
-
-    /**
-     * See {@link #shouldSuppress(String[], String)}
-     *
-     * @param prefixes the SuppressWarnings prefixes used by this checker
-     * @param suppressWarningsStrings the SuppressWarnings strings that are in effect. May be null,
-     *     in which case this method returns false.
-     * @param messageKey the message key of the error the checker is emitting; a lowercase string,
-     *     without any "checkername:" prefix
-     * @return true if one of the {@code suppressWarningsStrings} suppresses the error
-     */
     private boolean shouldSuppress(
-            Set<String> prefixes, String[] suppressWarningsStrings, String messageKey) {
+            SuppressWarningsString @Nullable [] suppressWarningsStrings, String messageKey) {
         if (suppressWarningsStrings == null) {
             return false;
         }
+        Set<String> prefixes = this.getSuppressWarningsPrefixes();
         // Is the name of the checker required to suppress a warning?
         boolean requirePrefix = hasOption("requirePrefixInWarningSuppressions");
-
-        for (String suppressWarningsString : suppressWarningsStrings) {
-            int colonPos = suppressWarningsString.indexOf(":");
-            String messageKeyInSuppressWarningsString;
-            if (colonPos == -1) {
-                // The SuppressWarnings string is not of the form prefix:partial-message-key
-                if (prefixes.contains(suppressWarningsString)) {
-                    // The value in the @SuppressWarnings is exactly a prefix. Suppress the warning
-                    // no matter its message key.
-                    return true;
-                } else if (requirePrefix) {
-                    // A prefix is required, but this SuppressWarnings string does not have a
-                    // prefix; check the next SuppressWarnings string.
-                    continue;
-                } else if (suppressWarningsString.equals(SUPPRESS_ALL_MESSAGE_KEY)) {
-                    // Prefixes aren't required and the SuppressWarnings string is "all".  Suppress
-                    // the warning no matter its message key.
-                    return true;
-                }
-                // The suppressWarningsString is not a prefix or a prefix:message-key, so it might
-                // be a message key.
-                messageKeyInSuppressWarningsString = suppressWarningsString;
-            } else {
-                // The SuppressWarnings string has a prefix.
-                String suppressWarningsPrefix = suppressWarningsString.substring(0, colonPos);
-                if (!prefixes.contains(suppressWarningsPrefix)) {
-                    // The prefix of this SuppressWarnings string is a not a prefix supported by
-                    // this checker. Proceed to the next SuppressWarnings string.
-                    continue;
-                }
-                messageKeyInSuppressWarningsString = suppressWarningsString.substring(colonPos + 1);
-            }
-            // Check if the message key in the warning suppression is part of the message key that
-            // the checker is emiting.
-            if (messageKey.equals(messageKeyInSuppressWarningsString)
-                    || messageKey.startsWith(messageKeyInSuppressWarningsString + ".")
-                    || messageKey.endsWith("." + messageKeyInSuppressWarningsString)
-                    || messageKey.contains("." + messageKeyInSuppressWarningsString + ".")) {
+        for (SuppressWarningsString suppressWarningsString : suppressWarningsStrings) {
+            if (suppressWarningsString.suppresses(prefixes, requirePrefix, messageKey)) {
                 return true;
             }
         }
-
         // None of the SuppressWarnings strings suppress this error.
         return false;
     }
@@ -2196,6 +2335,23 @@ public abstract class SourceChecker extends AbstractTypeProcessor
             return false;
         }
 
+        Boolean cached = annotatedForCache.get(elt);
+        if (cached == null) {
+            cached = computeIsAnnotatedForThisCheckerOrUpstreamChecker(elt);
+            annotatedForCache.put(elt, cached);
+        }
+        return cached;
+    }
+
+    /**
+     * Return true if the element has an {@code @AnnotatedFor} annotation, for this checker or an
+     * upstream checker that called this one. This is the uncached implementation of {@link
+     * #isAnnotatedForThisCheckerOrUpstreamChecker}.
+     *
+     * @param elt the source code element to check
+     * @return true if the element is annotated for this checker or an upstream checker
+     */
+    private boolean computeIsAnnotatedForThisCheckerOrUpstreamChecker(Element elt) {
         @Nullable AnnotatedFor anno = elt.getAnnotation(AnnotatedFor.class);
 
         String[] userAnnotatedFors = (anno == null ? null : anno.value());
@@ -2376,6 +2532,83 @@ public abstract class SourceChecker extends AbstractTypeProcessor
         return shouldSkipDefs(cls);
     }
 
+    /** The number of class definitions that {@link #shouldSkipSuppressedDefs} skipped. */
+    private int numSkippedSuppressedClasses = 0;
+
+    /** The number of method definitions that {@link #shouldSkipSuppressedDefs} skipped. */
+    private int numSkippedSuppressedMethods = 0;
+
+    /**
+     * Tests whether the definition of the given class or method should not be type-checked because
+     * every warning that this checker could issue within it is suppressed, either by the {@code
+     * -AsuppressWarnings} command-line option or by a {@code @SuppressWarnings} annotation on the
+     * definition or on a definition that encloses it. A {@code @SuppressWarnings} string suppresses
+     * every warning if it is one of the {@link #getSuppressWarningsPrefixes() prefixes} of this
+     * checker, or if it is {@code "all"} and prefixes are not required.
+     *
+     * <p>Returns false unless the {@code -AskipSuppressedDefs} command-line option is supplied.
+     * Also returns false if {@code -AwarnUnneededSuppressions} or {@code -Ainfer} is supplied,
+     * because both need the suppressed definitions to be type-checked.
+     *
+     * <p>A skipped definition is not visited. Only a skipped top-level class is also not analyzed
+     * by dataflow: nested classes and methods are analyzed together with their top-level class.
+     *
+     * @param elt the element of a class or method definition
+     * @return true if checker should not type-check the definition of {@code elt}
+     */
+    public boolean shouldSkipSuppressedDefs(Element elt) {
+        if (!hasOption("skipSuppressedDefs")
+                || hasOption("warnUnneededSuppressions")
+                || hasOption("infer")) {
+            return false;
+        }
+        boolean suppressed = suppressesAllWarnings(getSuppressWarningsStringsFromOption());
+        for (Element enclosing = elt;
+                !suppressed && enclosing != null;
+                enclosing = enclosing.getEnclosingElement()) {
+            if (suppressesAllWarnings(getSuppressWarningsStrings(enclosing))) {
+                suppressed = true;
+            } else if (isAnnotatedForThisCheckerOrUpstreamChecker(enclosing)) {
+                // As in shouldSuppressWarnings, do not look at the enclosing elements.
+                break;
+            }
+        }
+        if (!suppressed) {
+            return false;
+        }
+        if (elt.getKind().isClass() || elt.getKind().isInterface()) {
+            numSkippedSuppressedClasses++;
+        } else {
+            numSkippedSuppressedMethods++;
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if one of the given SuppressWarnings strings suppresses every warning of this
+     * checker, no matter its message key.
+     *
+     * @param suppressWarningsStrings the lower-case SuppressWarnings strings that are in effect, or
+     *     null
+     * @return true if one of {@code suppressWarningsStrings} suppresses every warning
+     */
+    private boolean suppressesAllWarnings(
+            SuppressWarningsString @Nullable [] suppressWarningsStrings) {
+        if (suppressWarningsStrings == null || suppressWarningsStrings.length == 0) {
+            return false;
+        }
+        Set<String> prefixes = getSuppressWarningsPrefixes();
+        boolean requirePrefix = hasOption("requirePrefixInWarningSuppressions");
+        for (SuppressWarningsString suppressWarningsString : suppressWarningsStrings) {
+            if (prefixes.contains(suppressWarningsString.string)
+                    || (!requirePrefix
+                            && suppressWarningsString.string.equals(SUPPRESS_ALL_MESSAGE_KEY))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     ///////////////////////////////////////////////////////////////////////////
     /// Errors other than type-checking errors
     ///
@@ -45,8 +45,10 @@ import com.github.javaparser.ast.type.ReferenceType;
 import com.github.javaparser.ast.type.Type;
 import com.github.javaparser.ast.type.TypeParameter;
 import com.github.javaparser.ast.type.WildcardType;
+import java.io.IOException;
 import java.io.InputStream;
 import java.lang.annotation.Target;
+import java.lang.ref.SoftReference;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -56,6 +58,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringJoiner;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
@@ -101,7 +106,12 @@ import org.checkerframework.javacutil.Pair;
  * steps. First, it calls the Stub Parser to parse a stub file. Then, it walks the Stub Parser's AST
  * to create/collect types and declaration annotations.
  *
- * <p>The other entry point is {@link #parseJdkFileAsStub}.
+ * <p>{@link StubParser#parse(List, AnnotatedTypeFactory, ProcessingEnvironment, Map, Map)} parses
+ * several stub files at once.
+ *
+ * <p>The other entry point is {@link #parseJdkFileAsStub}. The ASTs of annotated JDK files are
+ * cached for the lifetime of the JVM, because the same JDK files are parsed by every checker and
+ * subchecker; see {@link #processCachedJdkFile}.
  */
 public class StubParser {
 
@@ -196,6 +206,22 @@ public class StubParser {
     /** Whether or not the stub file is a part of the JDK. */
     private final boolean isJdkAsStub;
 
+    /**
+     * The ASTs of annotated JDK files that have been parsed, keyed by the path or jar entry name of
+     * the file together with the last-modified time and size of the file or jar, so that a
+     * rewritten file is parsed again. Parsing is independent of the checker, so the ASTs are shared
+     * by every checker, subchecker, and compilation in this JVM. Soft references let the garbage
+     * collector reclaim them under memory pressure.
+     *
+     * <p>The cache lives only as long as the JVM. It helps when the same JVM parses a file more
+     * than once: several checkers or subcheckers, or repeated compilations in the checker daemon or
+     * a build daemon. It does not help a fresh javac process, which parses each annotated-JDK file
+     * that it loads exactly once; that cost is bounded instead by StubTypes, which parses only the
+     * files of the classes that the compilation uses.
+     */
+    private static final Map<String, SoftReference<StubUnit>> jdkStubUnitCache =
+            new ConcurrentHashMap<>();
+
     /**
      * Create a new StubParser object, which will parse and extract annotations from the given stub
      * file.
@@ -450,6 +476,119 @@ public class StubParser {
         parse(filename, inputStream, atypeFactory, processingEnv, atypes, declAnnos, false);
     }
 
+    /**
+     * Parse several stub files and side-effect the last two arguments. The Stub Parser builds the
+     * ASTs of the files in parallel, because that does not depend on the type factory. The ASTs are
+     * then processed one after another, in the order of {@code stubFiles}, so if a type is
+     * annotated in more than one stub file, the annotation in the last stub file is applied, just
+     * as if {@link #parse(String, InputStream, AnnotatedTypeFactory, ProcessingEnvironment, Map,
+     * Map)} were called on each file in turn.
+     *
+     * <p>Each stub file is opened and closed by the task that parses it, so at most one stream per
+     * thread is open at a time.
+     *
+     * @param stubFiles the stub files to parse
+     * @param atypeFactory AnnotatedTypeFactory to use
+     * @param processingEnv ProcessingEnvironment to use
+     * @param atypes annotated types from the stub files are added to this map
+     * @param declAnnos map from a name (actually declaration element string) to the set of
+     *     declaration annotations on it. Declaration annotations from the stub files are added to
+     *     this map.
+     */
+    public static void parse(
+            List<StubResource> stubFiles,
+            AnnotatedTypeFactory atypeFactory,
+            ProcessingEnvironment processingEnv,
+            Map<Element, AnnotatedTypeMirror> atypes,
+            Map<String, Set<AnnotationMirror>> declAnnos) {
+        // The order of the results is the order of stubFiles, even though they are computed in
+        // parallel.
+        List<ParseResult> parseResults =
+                stubFiles.parallelStream().map(ParseResult::parse).collect(Collectors.toList());
+        for (int i = 0; i < stubFiles.size(); i++) {
+            StubResource stubFile = stubFiles.get(i);
+            ParseResult parseResult = parseResults.get(i);
+            if (parseResult.ioException != null) {
+                atypeFactory
+                        .getContext()
+                        .getChecker()
+                        .message(
+                                javax.tools.Diagnostic.Kind.NOTE,
+                                "Could not read stub resource: " + stubFile.getDescription());
+                continue;
+            }
+            StubParser sp =
+                    new StubParser(
+                            stubFile.getDescription(),
+                            atypeFactory,
+                            processingEnv,
+                            atypes,
+                            declAnnos,
+                            false);
+            if (sp.debugStubParser) {
+                sp.stubDebug(String.format("parsed stub file %s", sp.filename));
+            }
+            if (parseResult.problem != null) {
+                sp.warnParseProblems(parseResult.problem);
+                continue;
+            }
+            try {
+                sp.setStubUnit(parseResult.stubUnit);
+                sp.process();
+            } catch (ParseProblemException e) {
+                sp.warnParseProblems(e);
+            }
+        }
+    }
+
+    /**
+     * The result of running the Stub Parser on a stub file: an AST, a parse problem, or a failure
+     * to read the file.
+     */
+    private static class ParseResult {
+        /** The AST of the stub file, or null if it could not be read or parsed. */
+        final @Nullable StubUnit stubUnit;
+
+        /** The problems encountered while parsing the stub file, or null if there were none. */
+        final @Nullable ParseProblemException problem;
+
+        /** The exception thrown while reading the stub file, or null if it was read. */
+        final @Nullable IOException ioException;
+
+        /**
+         * Creates a new ParseResult.
+         *
+         * @param stubUnit the AST of the stub file, or null if it could not be read or parsed
+         * @param problem the problems encountered while parsing, or null if there were none
+         * @param ioException the exception thrown while reading, or null if the file was read
+         */
+        private ParseResult(
+                @Nullable StubUnit stubUnit,
+                @Nullable ParseProblemException problem,
+                @Nullable IOException ioException) {
+            this.stubUnit = stubUnit;
+            this.problem = problem;
+            this.ioException = ioException;
+        }
+
+        /**
+         * Opens the given stub file, runs the Stub Parser on it, and closes it. Does not depend on
+         * any type factory, so may be called concurrently.
+         *
+         * @param stubFile the stub file to parse
+         * @return the AST of the stub file, or the problem encountered while reading or parsing it
+         */
+        static ParseResult parse(StubResource stubFile) {
+            try (InputStream inputStream = stubFile.getInputStream()) {
+                return new ParseResult(StaticJavaParser.parseStubUnit(inputStream), null, null);
+            } catch (ParseProblemException e) {
+                return new ParseResult(null, e, null);
+            } catch (IOException e) {
+                return new ParseResult(null, null, e);
+            }
+        }
+    }
+
     /**
      * Parse a stub file that is a part of the annotated JDK and side-effects the last two
      * arguments.
@@ -470,7 +609,78 @@ public class StubParser {
             ProcessingEnvironment processingEnv,
             Map<Element, AnnotatedTypeMirror> atypes,
             Map<String, Set<AnnotationMirror>> declAnnos) {
-        parse(filename, inputStream, atypeFactory, processingEnv, atypes, declAnnos, true);
+        parseJdkFileAsStub(
+                filename, null, inputStream, atypeFactory, processingEnv, atypes, declAnnos);
+    }
+
+    /**
+     * Parse a stub file that is a part of the annotated JDK and side-effects the last two
+     * arguments. The AST of the file is cached under {@code cacheKey}, so that {@link
+     * #processCachedJdkFile} can reuse it.
+     *
+     * @param filename name of stub file, used only for diagnostic messages
+     * @param cacheKey the key under which to cache the AST, or null to not cache it
+     * @param inputStream of stub file to parse
+     * @param atypeFactory AnnotatedTypeFactory to use
+     * @param processingEnv ProcessingEnvironment to use
+     * @param atypes annotated types from this stub file are added to this map
+     * @param declAnnos map from a name (actually declaration element string) to the set of
+     *     declaration annotations on it. Declaration annotations from this stub file are added to
+     *     this map.
+     */
+    public static void parseJdkFileAsStub(
+            String filename,
+            @Nullable String cacheKey,
+            InputStream inputStream,
+            AnnotatedTypeFactory atypeFactory,
+            ProcessingEnvironment processingEnv,
+            Map<Element, AnnotatedTypeMirror> atypes,
+            Map<String, Set<AnnotationMirror>> declAnnos) {
+        StubParser sp =
+                new StubParser(filename, atypeFactory, processingEnv, atypes, declAnnos, true);
+        try {
+            sp.parseStubUnit(inputStream);
+            if (cacheKey != null) {
+                jdkStubUnitCache.put(cacheKey, new SoftReference<>(sp.stubUnit));
+            }
+            sp.process();
+        } catch (ParseProblemException e) {
+            sp.warnParseProblems(e);
+        }
+    }
+
+    /**
+     * If a file of the annotated JDK has already been parsed in this JVM, processes its cached AST
+     * and side-effects the last two arguments. Otherwise, does nothing.
+     *
+     * @param filename name of stub file, used only for diagnostic messages
+     * @param cacheKey the key under which the AST was cached by {@link #parseJdkFileAsStub(String,
+     *     String, InputStream, AnnotatedTypeFactory, ProcessingEnvironment, Map, Map)}
+     * @param atypeFactory AnnotatedTypeFactory to use
+     * @param processingEnv ProcessingEnvironment to use
+     * @param atypes annotated types from this stub file are added to this map
+     * @param declAnnos map from a name (actually declaration element string) to the set of
+     *     declaration annotations on it. Declaration annotations from this stub file are added to
+     *     this map.
+     * @return true if the AST was cached and has been processed, false if the file must be parsed
+     */
+    public static boolean processCachedJdkFile(
+            String filename,
+            String cacheKey,
+            AnnotatedTypeFactory atypeFactory,
+            ProcessingEnvironment processingEnv,
+            Map<Element, AnnotatedTypeMirror> atypes,
+            Map<String, Set<AnnotationMirror>> declAnnos) {
+        SoftReference<StubUnit> ref = jdkStubUnitCache.get(cacheKey);
+        StubUnit stubUnit = (ref == null) ? null : ref.get();
+        if (stubUnit == null) {
+            return false;
+        }
+        StubParser sp =
+                new StubParser(filename, atypeFactory, processingEnv, atypes, declAnnos, true);
+        sp.setStubUnit(stubUnit);
+        sp.process();
+        return true;
     }
 
     /**
@@ -501,17 +711,25 @@ public class StubParser {
             sp.parseStubUnit(inputStream);
             sp.process();
         } catch (ParseProblemException e) {
-            StringJoiner message = new StringJoiner(LINE_SEPARATOR);
-            message.add(
-                    e.getProblems().size() + " problems while parsing stub file " + filename + ":");
-            // Manually build up the message, to get verbose location information.
-            for (Problem p : e.getProblems()) {
-                message.add(p.getVerboseMessage());
-            }
-            sp.stubWarn(message.toString());
+            sp.warnParseProblems(e);
         }
     }
 
+    /**
+     * Issues a warning that lists the problems encountered while parsing the stub file.
+     *
+     * @param e the exception thrown by the Stub Parser
+     */
+    private void warnParseProblems(ParseProblemException e) {
+        StringJoiner message = new StringJoiner(LINE_SEPARATOR);
+        message.add(e.getProblems().size() + " problems while parsing stub file " + filename + ":");
+        // Manually build up the message, to get verbose location information.
+        for (Problem p : e.getProblems()) {
+            message.add(p.getVerboseMessage());
+        }
+        stubWarn(message.toString());
+    }
+
     /**
      * Delegate to the Stub Parser to parse the stub file to an AST, and save it in {@link
      * #stubUnit}. Subsequently, all work uses the AST.
@@ -522,7 +740,16 @@ public class StubParser {
         if (debugStubParser) {
             stubDebug(String.format("parsing stub file %s", filename));
         }
-        stubUnit = StaticJavaParser.parseStubUnit(inputStream);
+        setStubUnit(StaticJavaParser.parseStubUnit(inputStream));
+    }
+
+    /**
+     * Sets {@link #stubUnit} to the given AST and collects the annotations that it imports.
+     *
+     * @param stubUnit the AST of the stub file
+     */
+    private void setStubUnit(StubUnit stubUnit) {
+        this.stubUnit = stubUnit;
 
         // getAllStubAnnotations() also modifies importedConstants and importedTypes. This should
         // be refactored to be nicer.
@@ -2157,15 +2384,30 @@ public class StubParser {
     /// Issue warnings
     ///
 
-    // The warnings that have been issued so far.
-    private static final Set<String> warnings = new HashSet<>();
+    /**
+     * The warnings that have been issued so far, for each compilation. Every StubParser of a
+     * compilation shares the same set, so a warning is issued at most once per compilation.
+     */
+    private static final Map<ProcessingEnvironment, Set<String>> warnings =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Records that the given warning is issued in the current compilation.
+     *
+     * @param warning a warning
+     * @return true if the warning has not been issued before in the current compilation
+     */
+    private boolean isNewWarning(String warning) {
+        return warnings.computeIfAbsent(processingEnv, env -> ConcurrentHashMap.newKeySet())
+                .add(warning);
+    }
 
     /**
      * Issues the given warning about missing elements, only if it has not been previously issued
      * and the -AstubWarnIfNotFound command-line argument was passed.
      */
     private void stubWarnNotFound(String warning) {
-        if (warnings.add(warning) && ((!isJdkAsStub && warnIfNotFound) || debugStubParser)) {
+        if (isNewWarning(warning) && ((!isJdkAsStub && warnIfNotFound) || debugStubParser)) {
             processingEnv
                     .getMessager()
                     .printMessage(javax.tools.Diagnostic.Kind.WARNING, "StubParser: " + warning);
@@ -2177,7 +2419,7 @@ public class StubParser {
      * issued and the -AstubWarnIfOverwritesBytecode command-line argument was passed.
      */
     private void stubWarnOverwritesBytecode(String warning) {
-        if (warnings.add(warning) && (warnIfStubOverwritesBytecode || debugStubParser)) {
+        if (isNewWarning(warning) && (warnIfStubOverwritesBytecode || debugStubParser)) {
             processingEnv
                     .getMessager()
                     .printMessage(javax.tools.Diagnostic.Kind.WARNING, "StubParser: " + warning);
@@ -2192,7 +2434,7 @@ public class StubParser {
      */
     private void stubWarn(String warning, Object... args) {
         warning = String.format(warning, args);
-        if (warnings.add(warning) && !isJdkAsStub) {
+        if (isNewWarning(warning) && !isJdkAsStub) {
             processingEnv
                     .getMessager()
                     .printMessage(javax.tools.Diagnostic.Kind.WARNING, "StubParser: " + warning);
@@ -2200,7 +2442,7 @@ public class StubParser {
     }
 
     private void stubDebug(String warning) {
-        if (warnings.add(warning) && debugStubParser) {
+        if (isNewWarning(warning) && debugStubParser) {
             processingEnv
                     .getMessager()
                     .printMessage(javax.tools.Diagnostic.Kind.NOTE, "StubParser: " + warning);
@@ -1,12 +1,15 @@
 package org.checkerframework.framework.stub;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.JarURLConnection;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -24,8 +27,10 @@ import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.PackageElement;
 import javax.lang.model.element.TypeElement;
 import javax.tools.Diagnostic.Kind;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.checker.signature.qual.CanonicalNameOrEmpty;
 import org.checkerframework.framework.qual.StubFiles;
 import org.checkerframework.framework.source.SourceChecker;
@@ -67,6 +72,16 @@ public class StubTypes {
      */
     private final Map<String, String> jdkStubFilesJar = new HashMap<>();
 
+    /**
+     * The resource, within the checker.jar, that lists the names of the jar entries for the
+     * annotated JDK. It is written by the framework's {@code copyAndMinimizeAnnotatedJdkFiles}
+     * task, and saves scanning every entry of the jar at startup.
+     */
+    private static final String JDK_INDEX_RESOURCE = "/annotated-jdk/jdk-index.txt";
+
+    /** The suffix of the keys for package-info.java files in {@link #jdkStubFiles}. */
+    private static final String PACKAGE_INFO_SUFFIX = ".package-info";
+
     /** Which version number of the annotated JDK should be used? */
     private final String annotatedJdkVersion;
 
@@ -109,7 +124,6 @@ public class StubTypes {
      * <ol>
      *   <li>jdk.astub in the same directory as the checker, if it exists and ignorejdkastub option
      *       is not supplied <br>
-     *   <li>If parsing a JDK as stub files, all package-info.java in the jdk directory <br>
      *   <li>Stub files listed in @StubFiles annotation on the checker; must be in same directory as
      *       the checker <br>
      *   <li>Stub files provide via stubs system property <br>
@@ -118,10 +132,13 @@ public class StubTypes {
      * </ol>
      *
      * <p>If a type is annotated with a qualifier from the same hierarchy in more than one stub
-     * file, the qualifier in the last stub file is applied.
+     * file, the qualifier in the last stub file is applied. The jdk.astub files, and then the
+     * remaining stub files, are parsed in parallel, but processed in the order above.
      *
-     * <p>If using JDK 11, then the JDK stub files are only parsed if a type or declaration
-     * annotation is requested from a class in that file.
+     * <p>Unless the parseAllJdk option is supplied, a JDK stub file is only parsed if a type or
+     * declaration annotation is requested from a class in that file. Likewise, a package-info.java
+     * file in the JDK is only parsed if an annotation is requested from that package or from a
+     * class in it.
      */
     public void parseStubFiles() {
         parsing = true;
@@ -131,30 +148,21 @@ public class StubTypes {
         // 1. jdk.astub
         // Only look in .jar files, and parse it right away.
         if (!checker.hasOption("ignorejdkastub")) {
-            InputStream jdkStubIn = checker.getClass().getResourceAsStream("jdk.astub");
-            if (jdkStubIn != null) {
-                StubParser.parse(
-                        checker.getClass().getResource("jdk.astub").toString(),
-                        jdkStubIn,
-                        factory,
-                        processingEnv,
-                        typesFromStubFiles,
-                        declAnnosFromStubFiles);
+            List<StubResource> jdkStubs = new ArrayList<>();
+            URL jdkStubURL = checker.getClass().getResource("jdk.astub");
+            if (jdkStubURL != null) {
+                jdkStubs.add(new URLStubResource(jdkStubURL.toString(), jdkStubURL));
             }
             String jdkVersionStub = "jdk" + annotatedJdkVersion + ".astub";
-            InputStream jdkVersionStubIn = checker.getClass().getResourceAsStream(jdkVersionStub);
-            if (jdkVersionStubIn != null) {
-                StubParser.parse(
-                        checker.getClass().getResource(jdkVersionStub).toString(),
-                        jdkVersionStubIn,
-                        factory,
-                        processingEnv,
-                        typesFromStubFiles,
-                        declAnnosFromStubFiles);
+            URL jdkVersionStubURL = checker.getClass().getResource(jdkVersionStub);
+            if (jdkVersionStubURL != null) {
+                jdkStubs.add(new URLStubResource(jdkVersionStubURL.toString(), jdkVersionStubURL));
             }
+            StubParser.parse(
+                    jdkStubs, factory, processingEnv, typesFromStubFiles, declAnnosFromStubFiles);
             prepJdkStubs();
-            // prepping the Jdk will parse all package-info.java files.  This sets parsing to false,
-            // so re-set it to true.
+            // prepping the Jdk may parse JDK files (if the parseAllJdk option is supplied).  This
+            // sets parsing to false, so re-set it to true.
             parsing = true;
         }
 
@@ -186,7 +194,8 @@ public class StubTypes {
             Collections.addAll(allStubFiles, stubsOption.split(File.pathSeparator));
         }
 
-        // Parse stub files.
+        // Find the stub files, then parse them.
+        List<StubResource> stubsToParse = new ArrayList<>();
         for (String stubPath : allStubFiles) {
             // Special case when running in jtreg.
             String base = System.getProperty("test.src");
@@ -201,9 +210,9 @@ public class StubTypes {
                 if (stubPath.startsWith("checker.jar/")) {
                     stubPath = stubPath.substring("checker.jar/".length());
                 }
-                InputStream in = checker.getClass().getResourceAsStream(stubPath);
+                URL stubURL = checker.getClass().getResource(stubPath);
                 // Didn't find the stub file.
-                if (in == null) {
+                if (stubURL == null) {
                     // When using a compound checker, the target stub file may be found by the
                     // current checker's parent checkers. Also check this to avoid a false
                     // warning. Currently, only the original checker will try to parse the target
@@ -249,34 +258,13 @@ public class StubTypes {
                                                 : (" or at " + stubPathFull)));
                     }
                 } else {
-                    StubParser.parse(
-                            stubPath,
-                            in,
-                            factory,
-                            processingEnv,
-                            typesFromStubFiles,
-                            declAnnosFromStubFiles);
+                    stubsToParse.add(new URLStubResource(stubPath, stubURL));
                 }
             }
-            for (StubResource resource : stubs) {
-                InputStream stubStream;
-                try {
-                    stubStream = resource.getInputStream();
-                } catch (IOException e) {
-                    checker.message(
-                            Kind.NOTE,
-                            "Could not read stub resource: " + resource.getDescription());
-                    continue;
-                }
-                StubParser.parse(
-                        resource.getDescription(),
-                        stubStream,
-                        factory,
-                        processingEnv,
-                        typesFromStubFiles,
-                        declAnnosFromStubFiles);
-            }
+            stubsToParse.addAll(stubs);
         }
+        StubParser.parse(
+                stubsToParse, factory, processingEnv, typesFromStubFiles, declAnnosFromStubFiles);
         parsing = false;
     }
 
@@ -331,16 +319,37 @@ public class StubTypes {
         if (!shouldParseJdk) {
             return;
         }
+        if (e.getKind() == ElementKind.PACKAGE) {
+            parseJdkStubFile(((PackageElement) e).getQualifiedName() + PACKAGE_INFO_SUFFIX);
+            return;
+        }
         String className = getOutermostEnclosingClass(e);
         if (className == null || className.isEmpty()) {
             return;
         }
-        if (jdkStubFiles.containsKey(className)) {
-            parseStubFile(jdkStubFiles.get(className));
-            jdkStubFiles.remove(className);
-        } else if (jdkStubFilesJar.containsKey(className)) {
-            parseJarEntry(jdkStubFilesJar.get(className));
-            jdkStubFilesJar.remove(className);
+        int lastDot = className.lastIndexOf('.');
+        if (lastDot != -1) {
+            parseJdkStubFile(className.substring(0, lastDot) + PACKAGE_INFO_SUFFIX);
+        }
+        parseJdkStubFile(className);
+    }
+
+    /**
+     * Parses the JDK stub file for {@code name} if there exists one and it has not already been
+     * parsed.
+     *
+     * @param name the fully-qualified name of a class, or of a package followed by {@link
+     *     #PACKAGE_INFO_SUFFIX}
+     */
+    private void parseJdkStubFile(String name) {
+        Path path = jdkStubFiles.remove(name);
+        if (path != null) {
+            parseStubFile(path);
+            return;
+        }
+        String jarEntryName = jdkStubFilesJar.remove(name);
+        if (jarEntryName != null) {
+            parseJarEntry(jarEntryName);
         }
     }
 
@@ -382,17 +391,30 @@ public class StubTypes {
      * @param path path to file to parse
      */
     private void parseStubFile(Path path) {
+        String cacheKey = jdkStubCacheKey(path.toAbsolutePath().toFile(), null);
         parsing = true;
-        try (FileInputStream jdkStub = new FileInputStream(path.toFile())) {
-            StubParser.parseJdkFileAsStub(
+        try {
+            if (StubParser.processCachedJdkFile(
                     path.toFile().getName(),
-                    jdkStub,
+                    cacheKey,
                     factory,
                     factory.getProcessingEnv(),
                     typesFromStubFiles,
-                    declAnnosFromStubFiles);
-        } catch (IOException e) {
-            throw new BugInCF("cannot open the jdk stub file " + path, e);
+                    declAnnosFromStubFiles)) {
+                return;
+            }
+            try (FileInputStream jdkStub = new FileInputStream(path.toFile())) {
+                StubParser.parseJdkFileAsStub(
+                        path.toFile().getName(),
+                        cacheKey,
+                        jdkStub,
+                        factory,
+                        factory.getProcessingEnv(),
+                        typesFromStubFiles,
+                        declAnnosFromStubFiles);
+            } catch (IOException e) {
+                throw new BugInCF("cannot open the jdk stub file " + path, e);
+            }
         } finally {
             parsing = false;
         }
@@ -404,24 +426,39 @@ public class StubTypes {
      * @param jarEntryName name of the jar entry to parse
      */
     private void parseJarEntry(String jarEntryName) {
-        JarURLConnection connection = getJarURLConnectionToJdk();
+        // Include the jar file in the key, in case several versions of the checker are loaded.
+        URL jarEntryURL = factory.getClass().getResource("/" + jarEntryName);
+        String cacheKey = jarEntryCacheKey(jarEntryName, jarEntryURL);
         parsing = true;
-        try (JarFile jarFile = connection.getJarFile()) {
-            InputStream jdkStub;
-            try {
-                jdkStub = jarFile.getInputStream(jarFile.getJarEntry(jarEntryName));
-            } catch (IOException e) {
-                throw new BugInCF("cannot open the jdk stub file " + jarEntryName, e);
-            }
-            StubParser.parseJdkFileAsStub(
+        try {
+            if (StubParser.processCachedJdkFile(
                     jarEntryName,
-                    jdkStub,
+                    cacheKey,
                     factory,
                     factory.getProcessingEnv(),
                     typesFromStubFiles,
-                    declAnnosFromStubFiles);
-        } catch (IOException e) {
-            throw new BugInCF("cannot open the Jar file " + connection.getEntryName(), e);
+                    declAnnosFromStubFiles)) {
+                return;
+            }
+            JarURLConnection connection = getJarURLConnectionToJdk();
+            try (JarFile jarFile = connection.getJarFile()) {
+                InputStream jdkStub;
+                try {
+                    jdkStub = jarFile.getInputStream(jarFile.getJarEntry(jarEntryName));
+                } catch (IOException e) {
+                    throw new BugInCF("cannot open the jdk stub file " + jarEntryName, e);
+                }
+                StubParser.parseJdkFileAsStub(
+                        jarEntryName,
+                        cacheKey,
+                        jdkStub,
+                        factory,
+                        factory.getProcessingEnv(),
+                        typesFromStubFiles,
+                        declAnnosFromStubFiles);
+            } catch (IOException e) {
+                throw new BugInCF("cannot open the Jar file " + connection.getEntryName(), e);
+            }
         } catch (BugInCF e) {
             throw new BugInCF("Exception while parsing " + jarEntryName + ": " + e.getMessage(), e);
         } finally {
@@ -429,6 +466,48 @@ public class StubTypes {
         }
     }
 
+    /**
+     * Returns the key under which the AST of an annotated JDK file is cached by {@link StubParser}.
+     * The key includes the last-modified time and the size of the file, so that a file that is
+     * rewritten while the JVM is running, for example by rebuilding the checker used by a
+     * long-lived daemon, is parsed again rather than read from a stale cache entry.
+     *
+     * @param file the annotated JDK file, or the jar file that contains it
+     * @param jarEntryName the name of the entry within {@code file}, or null if {@code file} is
+     *     itself the annotated JDK file
+     * @return the cache key for the given version of the file
+     */
+    private static String jdkStubCacheKey(File file, @Nullable String jarEntryName) {
+        String key = file.getPath() + ":" + file.lastModified() + ":" + file.length();
+        return jarEntryName == null ? key : key + "!/" + jarEntryName;
+    }
+
+    /**
+     * Returns the key under which the AST of the given jar entry is cached by {@link StubParser}.
+     * See {@link #jdkStubCacheKey}.
+     *
+     * @param jarEntryName name of the jar entry
+     * @param jarEntryURL the URL of the jar entry, or null if it was not found
+     * @return the cache key for the given version of the jar entry
+     */
+    private static String jarEntryCacheKey(String jarEntryName, @Nullable URL jarEntryURL) {
+        if (jarEntryURL == null) {
+            return jarEntryName;
+        }
+        if (jarEntryURL.getProtocol().equals("jar")) {
+            try {
+                // Does not open the jar file: the jar file URL is parsed from the entry URL.
+                URL jarFileURL = ((JarURLConnection) jarEntryURL.openConnection()).getJarFileURL();
+                if (jarFileURL.getProtocol().equals("file")) {
+                    return jdkStubCacheKey(new File(jarFileURL.toURI()), jarEntryName);
+                }
+            } catch (IOException | URISyntaxException | IllegalArgumentException e) {
+                // Fall through and use the URL, which still identifies the jar file by name.
+            }
+        }
+        return jarEntryURL.toString();
+    }
+
     /**
      * Returns a JarURLConnection to "/jdk*".
      *
@@ -454,7 +533,7 @@ public class StubTypes {
 
     /**
      * Walk through the jdk directory and create a mapping, {@link #jdkStubFiles}, from file name to
-     * the class contained with in it. Also, parses all package-info.java files.
+     * the class contained with in it.
      */
     private void prepJdkStubs() {
         if (!shouldParseJdk) {
@@ -484,7 +563,7 @@ public class StubTypes {
 
     /**
      * Walk through the jdk directory and create a mapping, {@link #jdkStubFiles}, from file name to
-     * the class contained with in it. Also, parses all package-info.java files.
+     * the class contained with in it.
      *
      * @param resourceURL the URL pointing to the JDK directory
      */
@@ -501,10 +580,6 @@ public class StubTypes {
                     walk.filter(p -> Files.isRegularFile(p) && p.toString().endsWith(".java"))
                             .collect(Collectors.toList());
             for (Path path : paths) {
-                if (path.getFileName().toString().equals("package-info.java")) {
-                    parseStubFile(path);
-                    continue;
-                }
                 if (path.getFileName().toString().equals("module-info.java")) {
                     // JavaParser can't parse module-info files, so skip them.
                     continue;
@@ -526,41 +601,66 @@ public class StubTypes {
     }
 
     /**
-     * Walk through the jdk directory and create a mapping, {@link #jdkStubFilesJar}, from file name
-     * to the class contained with in it. Also, parses all package-info.java files.
+     * Create a mapping, {@link #jdkStubFilesJar}, from file name to the class contained with in it.
+     * The jar entries are read from {@link #JDK_INDEX_RESOURCE} if it exists, and otherwise by
+     * walking through the jdk directory of the jar.
      *
      * @param resourceURL the URL pointing to the JDK directory
      */
     private void prepJdkFromJar(URL resourceURL) {
-        JarURLConnection connection = getJarURLConnectionToJdk();
-
-        try (JarFile jarFile = connection.getJarFile()) {
-            for (JarEntry jarEntry : jarFile.stream().collect(Collectors.toList())) {
-                // filter out directories and non-class files
-                if (!jarEntry.isDirectory()
-                        && jarEntry.getName().endsWith(".java")
-                        && jarEntry.getName().startsWith("annotated-jdk")
-                        // JavaParser can't parse module-info files, so skip them.
-                        && !jarEntry.getName().contains("module-info")) {
-                    String jarEntryName = jarEntry.getName();
-                    if (parseAllJdkFiles) {
-                        parseJarEntry(jarEntryName);
-                        continue;
-                    }
-                    int index = jarEntry.getName().indexOf("/share/classes/");
-                    String shortName =
-                            jarEntryName
-                                    .substring(index + "/share/classes/".length())
-                                    .replace(".java", "")
-                                    .replace('/', '.');
-                    jdkStubFilesJar.put(shortName, jarEntryName);
-                    if (jarEntryName.endsWith("package-info.java")) {
-                        parseJarEntry(jarEntryName);
+        List<String> jarEntryNames = readJdkIndex();
+        if (jarEntryNames == null) {
+            jarEntryNames = new ArrayList<>();
+            JarURLConnection connection = getJarURLConnectionToJdk();
+            try (JarFile jarFile = connection.getJarFile()) {
+                for (JarEntry jarEntry : jarFile.stream().collect(Collectors.toList())) {
+                    // filter out directories and non-class files
+                    if (!jarEntry.isDirectory()
+                            && jarEntry.getName().endsWith(".java")
+                            && jarEntry.getName().startsWith("annotated-jdk")
+                            // JavaParser can't parse module-info files, so skip them.
+                            && !jarEntry.getName().contains("module-info")) {
+                        jarEntryNames.add(jarEntry.getName());
                     }
                 }
+            } catch (IOException e) {
+                throw new BugInCF("cannot open the Jar file " + resourceURL.getFile(), e);
+            }
+        }
+
+        for (String jarEntryName : jarEntryNames) {
+            if (parseAllJdkFiles) {
+                parseJarEntry(jarEntryName);
+                continue;
             }
+            int index = jarEntryName.indexOf("/share/classes/");
+            String shortName =
+                    jarEntryName
+                            .substring(index + "/share/classes/".length())
+                            .replace(".java", "")
+                            .replace('/', '.');
+            jdkStubFilesJar.put(shortName, jarEntryName);
+        }
+    }
+
+    /**
+     * Returns the names of the jar entries listed in {@link #JDK_INDEX_RESOURCE}, or null if there
+     * is no such resource.
+     *
+     * @return the names of the jar entries for the annotated JDK, or null if they are not indexed
+     */
+    private List<String> readJdkIndex() {
+        InputStream indexStream = factory.getClass().getResourceAsStream(JDK_INDEX_RESOURCE);
+        if (indexStream == null) {
+            return null;
+        }
+        try (BufferedReader reader =
+                new BufferedReader(new InputStreamReader(indexStream, StandardCharsets.UTF_8))) {
+            return reader.lines()
+                    .filter(line -> !line.isEmpty() && !line.contains("module-info"))
+                    .collect(Collectors.toList());
         } catch (IOException e) {
-            throw new BugInCF("cannot open the Jar file " + resourceURL.getFile(), e);
+            throw new BugInCF("cannot read " + JDK_INDEX_RESOURCE, e);
         }
     }
 }
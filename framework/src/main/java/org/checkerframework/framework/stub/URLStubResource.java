@@ -0,0 +1,32 @@
+package org.checkerframework.framework.stub;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+
+/** {@link URL}-based implementation of {@link StubResource}, used for stub files in a jar. */
+public class URLStubResource implements StubResource {
+    private final String description;
+    private final URL url;
+
+    /**
+     * Constructs a {@code StubResource} for the stub file at the specified URL.
+     *
+     * @param description the description of the stub file, used only for diagnostic messages
+     * @param url the URL of the stub file, typically obtained from {@link Class#getResource}
+     */
+    public URLStubResource(String description, URL url) {
+        this.description = description;
+        this.url = url;
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return url.openStream();
+    }
+}
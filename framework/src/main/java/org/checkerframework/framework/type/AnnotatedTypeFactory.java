@@ -40,6 +40,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.annotation.processing.ProcessingEnvironment;
@@ -71,8 +72,10 @@ import org.checkerframework.common.reflection.DefaultReflectionResolver;
 import org.checkerframework.common.reflection.MethodValAnnotatedTypeFactory;
 import org.checkerframework.common.reflection.MethodValChecker;
 import org.checkerframework.common.reflection.ReflectionResolver;
+import org.checkerframework.common.wholeprograminference.SceneMerger;
 import org.checkerframework.common.wholeprograminference.WholeProgramInference;
 import org.checkerframework.common.wholeprograminference.WholeProgramInferenceScenes;
+import org.checkerframework.common.wholeprograminference.WholeProgramInferenceSession;
 import org.checkerframework.dataflow.qual.SideEffectFree;
 import org.checkerframework.framework.qual.FieldInvariant;
 import org.checkerframework.framework.qual.FromStubFile;
@@ -206,6 +209,12 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
      */
     protected TypeVariableSubstitutor typeVarSubstitutor;
 
+    /**
+     * Implements {@link AnnotatedTypes#asSuper} for this factory. Null until it is first used. See
+     * {@link #getAsSuperVisitor}.
+     */
+    private @Nullable AsSuperVisitor asSuperVisitor;
+
     /** Provides utility method to infer type arguments. */
     protected TypeArgumentInference typeArgumentInference;
 
@@ -316,7 +325,7 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
             declAliases = new HashMap<>();
 
     /** Unique ID counter; for debugging purposes. */
-    private static int uidCounter = 0;
+    private static final AtomicInteger uidCounter = new AtomicInteger();
 
     /** Unique ID of the current object; for debugging purposes. */
     public final int uid;
@@ -411,7 +420,7 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
      * @throws IllegalArgumentException if either argument is {@code null}
      */
     public AnnotatedTypeFactory(BaseTypeChecker checker) {
-        uid = ++uidCounter;
+        uid = uidCounter.incrementAndGet();
         this.processingEnv = checker.getProcessingEnvironment();
         // this.root = root;
         this.checker = checker;
@@ -469,16 +478,22 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
                 case "jaifs":
                     wpiOutputFormat = WholeProgramInference.OutputFormat.JAIF;
                     break;
+                case "binary":
+                    wpiOutputFormat = WholeProgramInference.OutputFormat.BINARY;
+                    break;
                 default:
                     throw new UserError(
                             "Unexpected option to -Ainfer: "
                                     + inferArg
                                     + System.lineSeparator()
-                                    + "Available options: -Ainfer=jaifs, -Ainfer=stubs");
+                                    + "Available options: -Ainfer=jaifs, -Ainfer=stubs,"
+                                    + " -Ainfer=binary");
             }
             boolean isNullnessChecker =
                     "NullnessAnnotatedTypeFactory".equals(this.getClass().getSimpleName());
-            wholeProgramInference = new WholeProgramInferenceScenes(!isNullnessChecker);
+            wholeProgramInference =
+                    new WholeProgramInferenceScenes(
+                            !isNullnessChecker, WholeProgramInferenceSession.get(processingEnv));
         } else {
             wholeProgramInference = null;
         }
@@ -631,6 +646,15 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
         }
     }
 
+    /**
+     * Returns the CompilationUnitTree that is currently being operated on.
+     *
+     * @return the current compilation unit, or null if none has been set
+     */
+    public @Nullable CompilationUnitTree getRoot() {
+        return root;
+    }
+
     /**
      * Set the CompilationUnitTree that should be used.
      *
@@ -744,6 +768,20 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
         return typeVarSubstitutor;
     }
 
+    /**
+     * Returns the visitor that implements {@link AnnotatedTypes#asSuper} for this factory. Each
+     * factory has its own visitor, so that factories of different compilations can be used
+     * concurrently.
+     *
+     * @return the visitor that implements {@link AnnotatedTypes#asSuper} for this factory
+     */
+    public AsSuperVisitor getAsSuperVisitor() {
+        if (asSuperVisitor == null) {
+            asSuperVisitor = new AsSuperVisitor(this);
+        }
+        return asSuperVisitor;
+    }
+
     /**
      * TypeArgumentInference infers the method type arguments when they are not explicitly written.
      */
@@ -1069,6 +1107,24 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
         }
     }
 
+    /**
+     * Called by {@link BaseTypeChecker#typeProcessingOver()} after all classes have been type
+     * checked.
+     *
+     * <p>The default implementation writes the results of whole-program inference that are stored
+     * in a single file for the whole program, and takes part in merging the results of several
+     * runs of whole-program inference if the compilation was started by {@link SceneMerger}.
+     */
+    public void postProcessCompilation() {
+        if (wholeProgramInference != null) {
+            wholeProgramInference.writeFinalResults(wpiOutputFormat, this.checker);
+        }
+        SceneMerger sceneMerger = SceneMerger.get(processingEnv);
+        if (sceneMerger != null) {
+            sceneMerger.mergeQualifiersOf(this);
+        }
+    }
+
     /**
      * Determines the annotated type from a type in tree form.
      *
@@ -1,7 +1,10 @@
 package org.checkerframework.framework.type;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.lang.annotation.Annotation;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Target;
@@ -9,6 +12,7 @@ import java.net.JarURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -17,7 +21,9 @@ import java.util.Enumeration;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.regex.Pattern;
@@ -42,6 +48,10 @@ import org.plumelib.reflection.Signatures;
  * directories that are passed as arguments to checkers that have extension capabilities such as the
  * Subtyping Checker, Fenum Checker, and Units Checker.
  *
+ * <p>If a checker's qual directory contains a {@link #QUALIFIER_INDEX}, the annotation class names
+ * are read from it rather than found by scanning. The annotation classes of a checker are loaded
+ * only once per JVM, even if the checker is instantiated many times, for example as a subchecker.
+ *
  * <p>To load annotations using this class, their directory structure and package structure must be
  * identical.
  *
@@ -76,6 +86,14 @@ public class AnnotationClassLoader {
     /** The suffix for a .class file. */
     private static final String CLASS_SUFFIX = ".class";
 
+    // For loading from a qualifier index
+    /**
+     * The name of the file, in a checker's qual package, that lists the binary names of the
+     * classes in the package and its subpackages, one per line. The build writes it to every qual
+     * package, so that the classes need not be found by scanning a jar file or directory.
+     */
+    public static final String QUALIFIER_INDEX = "qualifier-index.txt";
+
     // Constants
     /** The package separator. */
     private static final char DOT = '.';
@@ -88,9 +106,6 @@ public class AnnotationClassLoader {
      */
     protected final ProcessingEnvironment processingEnv;
 
-    /** The resource URL of the qual directory of a checker class. */
-    private final URL resourceURL;
-
     /** The class loader used to load annotation classes. */
     protected final URLClassLoader classLoader;
 
@@ -102,6 +117,22 @@ public class AnnotationClassLoader {
      */
     private final Set<Class<? extends Annotation>> supportedBundledAnnotationClasses;
 
+    /**
+     * The supported bundled annotation classes of each checker class, computed once per JVM.
+     * Because subclasses of AnnotationClassLoader may filter the classes differently, the sets are
+     * further keyed by the class of the AnnotationClassLoader that computed them. A {@link
+     * ClassValue} does not prevent checker classes from being unloaded.
+     */
+    private static final ClassValue<Map<Class<?>, Set<Class<? extends Annotation>>>>
+            bundledAnnotationClassesCache =
+                    new ClassValue<Map<Class<?>, Set<Class<? extends Annotation>>>>() {
+                        @Override
+                        protected Map<Class<?>, Set<Class<? extends Annotation>>> computeValue(
+                                Class<?> checkerClass) {
+                            return new ConcurrentHashMap<>();
+                        }
+                    };
+
     /**
      * Constructor for loading annotations defined for a checker.
      *
@@ -138,6 +169,18 @@ public class AnnotationClassLoader {
 
         classLoader = getClassLoader();
 
+        supportedBundledAnnotationClasses = new LinkedHashSet<>();
+
+        loadBundledAnnotationClasses();
+    }
+
+    /**
+     * Returns the resource URL of the qual directory of the checker class: either a jar URL, or a
+     * file URL to the qual directory.
+     *
+     * @return the resource URL of the qual directory, or null if it cannot be found
+     */
+    private @Nullable URL getResourceURL() {
         URL localResourceURL;
         if (classLoader != null) {
             // if the application classloader is accessible, then directly
@@ -162,11 +205,7 @@ public class AnnotationClassLoader {
             // qual directory
             localResourceURL = getURLFromClasspaths();
         }
-        resourceURL = localResourceURL;
-
-        supportedBundledAnnotationClasses = new LinkedHashSet<>();
-
-        loadBundledAnnotationClasses();
+        return localResourceURL;
     }
 
     /**
@@ -487,12 +526,37 @@ public class AnnotationClassLoader {
 
     /**
      * Loads the set of annotation classes in the qual directory of a checker shipped with the
-     * Checker Framework.
+     * Checker Framework. The classes are loaded only once per JVM for each checker class.
      */
     private void loadBundledAnnotationClasses() {
+        Map<Class<?>, Set<Class<? extends Annotation>>> cache =
+                bundledAnnotationClassesCache.get(checker.getClass());
+        Set<Class<? extends Annotation>> annotationClasses = cache.get(getClass());
+        if (annotationClasses == null) {
+            annotationClasses =
+                    Collections.unmodifiableSet(loadAnnotationClasses(getBundledAnnotationNames()));
+            cache.put(getClass(), annotationClasses);
+        }
+        supportedBundledAnnotationClasses.addAll(annotationClasses);
+    }
+
+    /**
+     * Returns the binary names of the classes in the qual directory of a checker shipped with the
+     * Checker Framework. They are read from the {@link #QUALIFIER_INDEX} if there is one, and
+     * otherwise found by scanning the jar file or directory that contains the qual directory.
+     *
+     * @return the binary names of the classes in the qual directory
+     */
+    private Set<@BinaryName String> getBundledAnnotationNames() {
+        Set<@BinaryName String> indexedNames = readQualifierIndex();
+        if (indexedNames != null) {
+            return indexedNames;
+        }
+
+        URL resourceURL = getResourceURL();
         // if there's no resourceURL, then there's nothing we can load
         if (resourceURL == null) {
-            return;
+            return Collections.emptySet();
         }
 
         // retrieve the fully qualified class names of the annotations
@@ -545,7 +609,37 @@ public class AnnotationClassLoader {
             annotationNames = Collections.emptySet();
         }
 
-        supportedBundledAnnotationClasses.addAll(loadAnnotationClasses(annotationNames));
+        return annotationNames;
+    }
+
+    /**
+     * Reads the {@link #QUALIFIER_INDEX} of the checker's qual package.
+     *
+     * @return the binary names listed in the index, or null if there is no index or it cannot be
+     *     read
+     */
+    @SuppressWarnings("signature") // the index contains binary names
+    private @Nullable Set<@BinaryName String> readQualifierIndex() {
+        InputStream in =
+                InternalUtils.getClassLoaderForClass(checker.getClass())
+                        .getResourceAsStream(packageNameWithSlashes + SLASH + QUALIFIER_INDEX);
+        if (in == null) {
+            return null;
+        }
+        Set<@BinaryName String> annotationNames = new LinkedHashSet<>();
+        try (BufferedReader reader =
+                new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    annotationNames.add(line);
+                }
+            }
+        } catch (IOException e) {
+            // Fall back to scanning the qual directory.
+            return null;
+        }
+        return annotationNames;
     }
 
     /**
@@ -89,6 +89,7 @@ import org.checkerframework.framework.type.typeannotator.ListTypeAnnotator;
 import org.checkerframework.framework.type.typeannotator.PropagationTypeAnnotator;
 import org.checkerframework.framework.type.typeannotator.TypeAnnotator;
 import org.checkerframework.framework.util.AnnotatedTypes;
+import org.checkerframework.framework.util.ContractsUtils;
 import org.checkerframework.framework.util.FlowExpressionParseUtil;
 import org.checkerframework.framework.util.FlowExpressionParseUtil.FlowExpressionParseException;
 import org.checkerframework.framework.util.defaults.QualifierDefaults;
@@ -147,6 +148,9 @@ public abstract class GenericAnnotatedTypeFactory<
     /** to handle dependent type annotations */
     protected DependentTypesHelper dependentTypesHelper;
 
+    /** The contracts of methods. Null until it is first used. See {@link #getContractsUtils}. */
+    private @Nullable ContractsUtils contractsUtils;
+
     /**
      * The Java types on which users may write this type system's type annotations. null means no
      * restrictions. Arrays are handled by separate field {@link #arraysAreRelevant}.
@@ -566,6 +570,19 @@ public abstract class GenericAnnotatedTypeFactory<
         return dependentTypesHelper;
     }
 
+    /**
+     * Returns the {@link ContractsUtils} of this factory, which is created when it is first
+     * requested and shared by the visitor and the transfer function.
+     *
+     * @return the {@link ContractsUtils} of this factory
+     */
+    public ContractsUtils getContractsUtils() {
+        if (contractsUtils == null) {
+            contractsUtils = new ContractsUtils(this);
+        }
+        return contractsUtils;
+    }
+
     @Override
     public AnnotatedDeclaredType fromNewClass(NewClassTree newClassTree) {
         AnnotatedDeclaredType superResult = super.fromNewClass(newClassTree);
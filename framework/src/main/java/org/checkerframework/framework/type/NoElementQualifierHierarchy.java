@@ -3,10 +3,13 @@ package org.checkerframework.framework.type;
 import java.lang.annotation.Annotation;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
 import javax.lang.model.util.Elements;
 import org.checkerframework.checker.initialization.qual.UnderInitialization;
 import org.checkerframework.checker.nullness.qual.NonNull;
@@ -29,6 +32,10 @@ import org.checkerframework.javacutil.TypeSystemError;
  * <p>It uses a {@link QualifierKindHierarchy} to model the relationships between qualifiers.
  * Subclasses can override {@link #createQualifierKindHierarchy(Collection)} to return a subclass of
  * QualifierKindHierarchy.
+ *
+ * <p>Because qualifiers have no elements, the relationships between them are precomputed when the
+ * hierarchy is created: each qualifier kind is numbered, subtyping is a test of a bit in a mask of
+ * supertypes, and least upper bounds and greatest lower bounds are read from tables.
  */
 @AnnotatedFor("nullness")
 public class NoElementQualifierHierarchy implements QualifierHierarchy {
@@ -48,6 +55,40 @@ public class NoElementQualifierHierarchy implements QualifierHierarchy {
     /** Set of all annotations in all the hierarchies. */
     protected final Set<? extends AnnotationMirror> qualifiers;
 
+    /** The qualifier kinds of this hierarchy, in the order of their indexes. */
+    private final QualifierKind[] kinds;
+
+    /**
+     * Maps the element of each annotation type that has been looked up to the index of its
+     * qualifier kind. Elements are unique within a compilation, so unlike a lookup by name, this
+     * does not create a string.
+     */
+    private final Map<Element, Integer> elementToIndex = new HashMap<>();
+
+    /** The number of {@code long}s in the mask of supertypes of one qualifier kind. */
+    private final int maskLength;
+
+    /**
+     * The supertypes (reflexive) of each qualifier kind. Bit {@code j} of the mask that starts at
+     * index {@code i * maskLength} is set if kind {@code i} is a subtype of kind {@code j}.
+     */
+    private final long[] superMasks;
+
+    /** The index of the top of the hierarchy of each qualifier kind. */
+    private final int[] topIndexes;
+
+    /**
+     * The least upper bound of kinds {@code i} and {@code j} is at index {@code i * kinds.length +
+     * j}. It is null if they are in different hierarchies.
+     */
+    private final @Nullable AnnotationMirror[] lubs;
+
+    /**
+     * The greatest lower bound of kinds {@code i} and {@code j} is at index {@code i * kinds.length
+     * + j}. It is null if they are in different hierarchies.
+     */
+    private final @Nullable AnnotationMirror[] glbs;
+
     /**
      * Creates a NoElementQualifierHierarchy from the given classes.
      *
@@ -64,6 +105,31 @@ public class NoElementQualifierHierarchy implements QualifierHierarchy {
 
         this.tops = createTops();
         this.bottoms = createBottoms();
+
+        List<? extends QualifierKind> allKinds = qualifierKindHierarchy.allQualifierKinds();
+        int numKinds = allKinds.size();
+        this.kinds = allKinds.toArray(new QualifierKind[numKinds]);
+        this.maskLength = (numKinds + 63) / 64;
+        this.superMasks = new long[numKinds * maskLength];
+        this.topIndexes = new int[numKinds];
+        this.lubs = new AnnotationMirror[numKinds * numKinds];
+        this.glbs = new AnnotationMirror[numKinds * numKinds];
+        for (int i = 0; i < numKinds; i++) {
+            QualifierKind kind = kinds[i];
+            for (int j = 0; j < numKinds; j++) {
+                QualifierKind other = kinds[j];
+                if (kind.isSubtypeOf(other)) {
+                    superMasks[i * maskLength + (j >>> 6)] |= 1L << j;
+                }
+                if (other == kind.getTop()) {
+                    topIndexes[i] = j;
+                }
+                QualifierKind lub = qualifierKindHierarchy.leastUpperBound(kind, other);
+                lubs[i * numKinds + j] = lub == null ? null : kindToAnnotationMirror.get(lub);
+                QualifierKind glb = qualifierKindHierarchy.greatestLowerBound(kind, other);
+                glbs[i * numKinds + j] = glb == null ? null : kindToAnnotationMirror.get(glb);
+            }
+        }
     }
 
     /**
@@ -154,13 +220,37 @@ public class NoElementQualifierHierarchy implements QualifierHierarchy {
         return kind;
     }
 
+    /**
+     * Returns the index of the {@link QualifierKind} of the given annotation.
+     *
+     * @param anno an annotation that is a qualifier in this
+     * @return the index of the {@code QualifierKind} for the given annotation
+     */
+    private int getIndex(AnnotationMirror anno) {
+        Element element = anno.getAnnotationType().asElement();
+        Integer index = elementToIndex.get(element);
+        if (index == null) {
+            QualifierKind kind = getQualifierKind(anno);
+            for (int i = 0; i < kinds.length; i++) {
+                if (kinds[i] == kind) {
+                    index = i;
+                    break;
+                }
+            }
+            if (index == null) {
+                throw new BugInCF("Annotation not in hierarchy: %s", anno);
+            }
+            elementToIndex.put(element, index);
+        }
+        return index;
+    }
+
     @Override
     public @Nullable AnnotationMirror findAnnotationInSameHierarchy(
             Collection<? extends AnnotationMirror> annos, AnnotationMirror annotationMirror) {
-        QualifierKind kind = getQualifierKind(annotationMirror);
+        int top = topIndexes[getIndex(annotationMirror)];
         for (AnnotationMirror candidate : annos) {
-            QualifierKind candidateKind = getQualifierKind(candidate);
-            if (candidateKind.isInSameHierarchyAs(kind)) {
+            if (topIndexes[getIndex(candidate)] == top) {
                 return candidate;
             }
         }
@@ -219,31 +309,29 @@ public class NoElementQualifierHierarchy implements QualifierHierarchy {
 
     @Override
     public boolean isSubtype(AnnotationMirror subAnno, AnnotationMirror superAnno) {
-        QualifierKind subKind = getQualifierKind(subAnno);
-        QualifierKind superKind = getQualifierKind(superAnno);
-        return subKind.isSubtypeOf(superKind);
+        int subIndex = getIndex(subAnno);
+        int superIndex = getIndex(superAnno);
+        return (superMasks[subIndex * maskLength + (superIndex >>> 6)] & (1L << superIndex)) != 0;
     }
 
     @Override
-    public @Nullable AnnotationMirror leastUpperBound(AnnotationMirror a1, AnnotationMirror a2) {
-        QualifierKind qual1 = getQualifierKind(a1);
-        QualifierKind qual2 = getQualifierKind(a2);
-
-        QualifierKind lub = qualifierKindHierarchy.leastUpperBound(qual1, qual2);
-        if (lub == null) {
-            return null;
+    public boolean isSubtype(
+            Collection<? extends AnnotationMirror> subQualifiers,
+            Collection<? extends AnnotationMirror> superQualifiers) {
+        if (tops.size() == 1 && subQualifiers.size() == 1 && superQualifiers.size() == 1) {
+            // In a single hierarchy, there is no need to match the qualifiers by hierarchy.
+            return isSubtype(subQualifiers.iterator().next(), superQualifiers.iterator().next());
         }
-        return kindToAnnotationMirror.get(lub);
+        return QualifierHierarchy.super.isSubtype(subQualifiers, superQualifiers);
+    }
+
+    @Override
+    public @Nullable AnnotationMirror leastUpperBound(AnnotationMirror a1, AnnotationMirror a2) {
+        return lubs[getIndex(a1) * kinds.length + getIndex(a2)];
     }
 
     @Override
     public @Nullable AnnotationMirror greatestLowerBound(AnnotationMirror a1, AnnotationMirror a2) {
-        QualifierKind qual1 = getQualifierKind(a1);
-        QualifierKind qual2 = getQualifierKind(a2);
-        QualifierKind glb = qualifierKindHierarchy.greatestLowerBound(qual1, qual2);
-        if (glb == null) {
-            return null;
-        }
-        return kindToAnnotationMirror.get(glb);
+        return glbs[getIndex(a1) * kinds.length + getIndex(a2)];
     }
 }
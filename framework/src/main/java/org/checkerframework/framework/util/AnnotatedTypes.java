@@ -44,7 +44,6 @@ import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedExecutab
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedIntersectionType;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedTypeVariable;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedWildcardType;
-import org.checkerframework.framework.type.AsSuperVisitor;
 import org.checkerframework.framework.type.QualifierHierarchy;
 import org.checkerframework.framework.type.SyntheticArrays;
 import org.checkerframework.javacutil.AnnotationUtils;
@@ -64,8 +63,6 @@ public class AnnotatedTypes {
         throw new AssertionError("Class AnnotatedTypes cannot be instantiated.");
     }
 
-    private static AsSuperVisitor asSuperVisitor;
-
     /**
      * Copies annotations from {@code type} to a copy of {@code superType} where the type variables
      * of {@code superType} have been substituted. How the annotations are copied depends on the
@@ -106,10 +103,7 @@ public class AnnotatedTypes {
      */
     public static <T extends AnnotatedTypeMirror> T asSuper(
             AnnotatedTypeFactory atypeFactory, AnnotatedTypeMirror type, T superType) {
-        if (asSuperVisitor == null || !asSuperVisitor.sameAnnotatedTypeFactory(atypeFactory)) {
-            asSuperVisitor = new AsSuperVisitor(atypeFactory);
-        }
-        return asSuperVisitor.asSuper(type, superType);
+        return atypeFactory.getAsSuperVisitor().asSuper(type, superType);
     }
 
     /**
@@ -673,15 +667,33 @@ public class AnnotatedTypes {
     /**
      * Given a method, return the methods that it overrides.
      *
+     * <p>The overridden methods are looked up in the {@link OverriddenMethodsCache} of the
+     * compilation, which is shared by all checkers. The annotated supertypes of the enclosing class
+     * are only computed if {@code method} overrides some method.
+     *
      * @param method the overriding method
      * @return a map from types to methods that {@code method} overrides
      */
     public static Map<AnnotatedDeclaredType, ExecutableElement> overriddenMethods(
             Elements elements, AnnotatedTypeFactory atypeFactory, ExecutableElement method) {
+        final Map<TypeElement, ExecutableElement> overriddenElements =
+                OverriddenMethodsCache.instance(atypeFactory.getProcessingEnv())
+                        .getOverriddenMethods(method);
+        if (overriddenElements.isEmpty()) {
+            return Collections.emptyMap();
+        }
         final TypeElement elem = (TypeElement) method.getEnclosingElement();
         final AnnotatedDeclaredType type = atypeFactory.getAnnotatedType(elem);
-        final Collection<AnnotatedDeclaredType> supertypes = getSuperTypes(type);
-        return overriddenMethods(elements, method, supertypes);
+
+        Map<AnnotatedDeclaredType, ExecutableElement> overrides = new LinkedHashMap<>();
+        for (AnnotatedDeclaredType supertype : getSuperTypes(type)) {
+            ExecutableElement supermethod =
+                    overriddenElements.get(supertype.getUnderlyingType().asElement());
+            if (supermethod != null) {
+                overrides.put(supertype, supermethod);
+            }
+        }
+        return Collections.unmodifiableMap(overrides);
     }
 
     /**
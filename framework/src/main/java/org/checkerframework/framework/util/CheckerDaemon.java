@@ -0,0 +1,750 @@
+package org.checkerframework.framework.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.MalformedURLException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.annotation.processing.Processor;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.javacutil.SystemUtil;
+import org.checkerframework.javacutil.UserError;
+
+/**
+ * Runs the Checker Framework on successive compilations within one long-lived JVM.
+ *
+ * <p>Each run of {@link CheckerMain} starts a new JVM, which must load and JIT-compile javac and
+ * the checker, load the qualifier classes, read the message files, and parse the annotated JDK. A
+ * daemon pays these costs once. It runs javac in its own JVM through the Java Compiler API, and it
+ * creates the annotation processors itself, from a class loader that later requests with the same
+ * processor path and class path reuse. Caches that are held in static fields therefore stay warm
+ * from one compilation to the next: for example, the parsed annotated JDK and the contents of
+ * {@code messages.properties}. When a jar file on the processor path or class path changes, the
+ * class loader is discarded, and the processors and their caches are loaded anew. Changes to the
+ * class files in a directory on either path are not detected.
+ *
+ * <p>State that refers to javac symbols, such as qualifier hierarchies and the caches of type
+ * factories, belongs to a single compilation and is never reused.
+ *
+ * <p>Usage:
+ *
+ * <pre>{@code
+ * java -cp checker.jar org.checkerframework.framework.util.CheckerDaemon \
+ *     [-port N [-tokenFile F]] [-threads N]
+ * }</pre>
+ *
+ * With {@code -port}, the daemon accepts connections on the given port of the loopback interface;
+ * otherwise, it reads requests from standard input and writes responses to standard output. Any
+ * local user can connect to the port, so the daemon only serves clients that know a secret token.
+ * When it starts, the daemon writes the port on which it listens and a new random token, each on
+ * its own line, to the token file, which only the owner can read. The default token file is {@link
+ * #defaultTokenFile}. The first line that a client sends on each connection must be the token;
+ * the daemon closes any connection that starts with another line, without responding. A port of 0
+ * lets the daemon choose a free port, which clients read from the token file.
+ *
+ * <p>A request consists of the command-line arguments of one compilation, as they would be passed
+ * to {@link CheckerMain}, one argument per line, followed by an empty line. The response is the
+ * output of the compiler, followed by a line that starts with {@link #EXIT_STATUS_PREFIX} and ends
+ * with the exit status of javac. A request whose only argument is {@code -shutdown} stops the
+ * daemon. Relative file names are resolved against the working directory of the daemon, and {@code
+ * -J} arguments are ignored.
+ *
+ * <p>With {@code -threads}, the daemon compiles up to the given number of requests from different
+ * connections concurrently. The default is 1.
+ *
+ * <p>The daemon requires JDK 9 or later. On JDK 8, the Checker Framework must run javac with {@code
+ * javac.jar} on the bootclasspath, which only {@link CheckerMain} can arrange, by starting a new
+ * JVM.
+ */
+public class CheckerDaemon {
+
+    /** The prefix of the last line of each response, which is followed by the exit status. */
+    public static final String EXIT_STATUS_PREFIX = "CheckerDaemon exit status: ";
+
+    /** The argument that stops the daemon. */
+    public static final String SHUTDOWN = "-shutdown";
+
+    /** The exit status of javac for a successful compilation. */
+    private static final int EXIT_OK = 0;
+
+    /** The exit status of javac for a compilation with errors. */
+    private static final int EXIT_ERROR = 1;
+
+    /** The exit status of javac for invalid command-line arguments. */
+    private static final int EXIT_CMDERR = 2;
+
+    /** The exit status of javac for an abnormal termination, such as a crash of a checker. */
+    private static final int EXIT_ABNORMAL = 4;
+
+    /** The maximum number of processor class loaders that are kept. */
+    private static final int MAX_PROCESSOR_LOADERS = 8;
+
+    /** The path to checker.jar, for {@link CheckerMain}. */
+    private final File checkerJar;
+
+    /** The compiler that compiles all requests. */
+    private final JavaCompiler compiler;
+
+    /**
+     * The class loaders of annotation processors, keyed by processor path and class path, with the
+     * least recently used loader first. A loader that is evicted or replaced is closed once no
+     * concurrent compilation uses it any longer. All accesses to the loaders and their state
+     * synchronize on this map.
+     */
+    private final Map<String, ProcessorLoader> processorLoaders =
+            new LinkedHashMap<String, ProcessorLoader>(MAX_PROCESSOR_LOADERS, .75F, true) {
+
+                private static final long serialVersionUID = 2178353928163826391L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ProcessorLoader> entry) {
+                    if (size() > MAX_PROCESSOR_LOADERS) {
+                        entry.getValue().retire();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+
+    /** True once a {@link #SHUTDOWN} request has been received. */
+    private volatile boolean shutdown = false;
+
+    /** The open client connections, which are closed when the daemon stops. */
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates a daemon.
+     *
+     * @param checkerJar the path to checker.jar
+     * @throws UserError if the JVM is older than JDK 9
+     */
+    public CheckerDaemon(File checkerJar) {
+        if (SystemUtil.getJreVersion() < 9) {
+            throw new UserError(
+                    "The checker daemon requires JDK 9 or later; on JDK 8, run the Checker"
+                            + " Framework with CheckerMain or the javac script instead");
+        }
+        this.checkerJar = checkerJar;
+        this.compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new UserError("No system Java compiler is available; run with a JDK, not a JRE");
+        }
+    }
+
+    /**
+     * Starts a daemon. See the class documentation for the arguments.
+     *
+     * @param args the command-line arguments
+     * @throws IOException if the daemon cannot read requests or write responses
+     */
+    public static void main(String[] args) throws IOException {
+        int port = -1;
+        int threads = 1;
+        File tokenFile = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-tokenFile") && i + 1 < args.length) {
+                tokenFile = new File(args[++i]);
+            } else if ((args[i].equals("-port") || args[i].equals("-threads"))
+                    && i + 1 < args.length) {
+                int value;
+                try {
+                    value = Integer.parseInt(args[i + 1]);
+                } catch (NumberFormatException e) {
+                    throw new UserError("%s must be an integer, not \"%s\"", args[i], args[i + 1]);
+                }
+                if (args[i].equals("-port")) {
+                    port = value;
+                } else {
+                    threads = value;
+                }
+                i++;
+            } else {
+                throw new UserError("Usage: CheckerDaemon [-port N [-tokenFile F]] [-threads N]");
+            }
+        }
+        if (port == -1 && tokenFile != null) {
+            throw new UserError("-tokenFile requires -port");
+        }
+        CheckerDaemon daemon =
+                new CheckerDaemon(new File(CheckerMain.findPathTo(CheckerMain.class, false)));
+        if (port == -1) {
+            daemon.serveStandardStreams();
+        } else {
+            daemon.serve(port, threads, tokenFile != null ? tokenFile : defaultTokenFile(port));
+        }
+    }
+
+    /**
+     * Returns the token file that the daemon uses if no {@code -tokenFile} argument is given: the
+     * file {@code .checker-daemon-}<i>port</i>{@code .token} in the user's home directory.
+     *
+     * @param port the port given by the {@code -port} argument
+     * @return the default token file for {@code port}
+     */
+    public static File defaultTokenFile(int port) {
+        return new File(System.getProperty("user.home"), ".checker-daemon-" + port + ".token");
+    }
+
+    /**
+     * Reads requests from standard input and writes the responses to standard output, until
+     * standard input ends or a {@link #SHUTDOWN} request is received. While this method runs,
+     * anything else that is printed to standard output, for example by a checker, is sent to
+     * standard error instead, so that it cannot corrupt the responses. {@link System#out} is
+     * restored when this method returns.
+     *
+     * @throws IOException if a request cannot be read
+     */
+    public void serveStandardStreams() throws IOException {
+        PrintStream stdout = System.out;
+        System.setOut(System.err);
+        try {
+            BufferedReader in =
+                    new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+            PrintWriter out =
+                    new PrintWriter(new OutputStreamWriter(stdout, StandardCharsets.UTF_8), true);
+            handleRequests(in, out);
+        } finally {
+            System.setOut(stdout);
+        }
+    }
+
+    /**
+     * Accepts connections on the given port of the loopback interface and handles the requests of
+     * each connection that starts with the daemon's token, until a {@link #SHUTDOWN} request is
+     * received. The port and the token are written to {@code tokenFile}, which is deleted when the
+     * daemon stops. The connections that are still open when the daemon stops are closed.
+     *
+     * @param port the port on which to accept connections, or 0 for any free port
+     * @param threads the maximum number of connections that are handled concurrently
+     * @param tokenFile the file to which to write the port and the token
+     * @throws IOException if the port cannot be opened or the token file cannot be written
+     */
+    public void serve(int port, int threads, File tokenFile) throws IOException {
+        if (threads < 1) {
+            throw new UserError("The number of threads must be positive, not %d", threads);
+        }
+        byte[] token = newToken();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            writeTokenFile(tokenFile, server.getLocalPort(), token);
+            while (!shutdown) {
+                Socket socket = server.accept();
+                connections.add(socket);
+                executor.execute(
+                        () -> {
+                            try (Socket s = socket) {
+                                BufferedReader in =
+                                        new BufferedReader(
+                                                new InputStreamReader(
+                                                        s.getInputStream(),
+                                                        StandardCharsets.UTF_8));
+                                PrintWriter out =
+                                        new PrintWriter(
+                                                new OutputStreamWriter(
+                                                        s.getOutputStream(),
+                                                        StandardCharsets.UTF_8),
+                                                true);
+                                if (isToken(in.readLine(), token)) {
+                                    handleRequests(in, out);
+                                } else {
+                                    System.err.println(
+                                            "CheckerDaemon: rejected a connection without the"
+                                                    + " token");
+                                }
+                            } catch (IOException e) {
+                                if (!shutdown) {
+                                    System.err.printf("CheckerDaemon: %s%n", e.getMessage());
+                                }
+                            } finally {
+                                connections.remove(socket);
+                            }
+                            if (shutdown) {
+                                try {
+                                    // Wake up the accepting thread, so that it sees the shutdown.
+                                    server.close();
+                                } catch (IOException e) {
+                                    // The daemon is stopping anyway.
+                                }
+                            }
+                        });
+            }
+        } catch (IOException e) {
+            if (!shutdown) {
+                throw e;
+            }
+        } finally {
+            // Wake up the threads that wait for the next request of a connection.
+            for (Socket socket : connections) {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    // The daemon is stopping anyway.
+                }
+            }
+            executor.shutdown();
+            Files.deleteIfExists(tokenFile.toPath());
+            synchronized (processorLoaders) {
+                for (ProcessorLoader loader : processorLoaders.values()) {
+                    loader.retire();
+                }
+                processorLoaders.clear();
+            }
+        }
+    }
+
+    /**
+     * Returns a new random token, which clients must send to be served.
+     *
+     * @return a new random token, as the bytes of a string of hexadecimal digits
+     */
+    private static byte[] newToken() {
+        byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        StringBuilder result = new StringBuilder();
+        for (byte b : random) {
+            result.append(String.format("%02x", b));
+        }
+        return result.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns true if the given line is the token. The comparison takes the same time for every
+     * line of the same length, so that it does not reveal a prefix of the token.
+     *
+     * @param line the first line sent by a client, or null if it sent none
+     * @param token the token of the daemon
+     * @return true if {@code line} is the token
+     */
+    private static boolean isToken(@Nullable String line, byte[] token) {
+        return line != null && MessageDigest.isEqual(line.getBytes(StandardCharsets.UTF_8), token);
+    }
+
+    /**
+     * Writes the port and the token to the token file, which only the owner can read. The file is
+     * first written under another name and then renamed, so that clients never see a partial file.
+     *
+     * @param tokenFile the file to write
+     * @param port the port on which the daemon listens
+     * @param token the token of the daemon
+     * @throws IOException if the file cannot be written
+     */
+    private static void writeTokenFile(File tokenFile, int port, byte[] token) throws IOException {
+        Path target = tokenFile.getAbsoluteFile().toPath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.deleteIfExists(temp);
+        try {
+            Files.createFile(
+                    temp,
+                    PosixFilePermissions.asFileAttribute(
+                            EnumSet.of(
+                                    PosixFilePermission.OWNER_READ,
+                                    PosixFilePermission.OWNER_WRITE)));
+        } catch (UnsupportedOperationException e) {
+            // The file system does not support POSIX permissions, for example on Windows.
+            Files.createFile(temp);
+            File file = temp.toFile();
+            if (!(file.setReadable(false, false)
+                    && file.setReadable(true, true)
+                    && file.setWritable(false, false)
+                    && file.setWritable(true, true))) {
+                Files.delete(temp);
+                throw new IOException("Cannot restrict the permissions of " + temp);
+            }
+        }
+        String contents = port + System.lineSeparator() + new String(token, StandardCharsets.UTF_8);
+        Files.write(temp, Collections.singletonList(contents), StandardCharsets.UTF_8);
+        Files.move(
+                temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Handles requests until the input ends or a {@link #SHUTDOWN} request is received.
+     *
+     * @param in the stream from which to read requests
+     * @param out the stream to which to write responses
+     * @throws IOException if a request cannot be read
+     */
+    private void handleRequests(BufferedReader in, PrintWriter out) throws IOException {
+        List<String> request = new ArrayList<>();
+        String line;
+        while (!shutdown && (line = in.readLine()) != null) {
+            if (!line.isEmpty()) {
+                request.add(line);
+                continue;
+            }
+            if (request.equals(Collections.singletonList(SHUTDOWN))) {
+                shutdown = true;
+                out.println(EXIT_STATUS_PREFIX + EXIT_OK);
+                return;
+            }
+            StringWriter output = new StringWriter();
+            int status = compile(request, new PrintWriter(output));
+            out.print(output);
+            out.println(EXIT_STATUS_PREFIX + status);
+            request = new ArrayList<>();
+        }
+    }
+
+    /**
+     * Compiles the program given by the command-line arguments of one request.
+     *
+     * @param requestArgs the command-line arguments, as they would be passed to {@link CheckerMain}
+     * @param output where to write the output of the compiler
+     * @return the exit status of javac
+     */
+    public int compile(List<String> requestArgs, PrintWriter output) {
+        ProcessorLoader loader = null;
+        try {
+            List<String> options = new ArrayList<>();
+            List<File> sourceFiles = new ArrayList<>();
+            String processorPath = null;
+            String processorNames = null;
+            String classPath = null;
+            List<String> args =
+                    new CheckerMain(checkerJar, expandArgFiles(requestArgs)).getCompilerArguments();
+            for (int i = 0; i < args.size(); i++) {
+                String arg = args.get(i);
+                if (arg.equals("-processorpath") && i + 1 < args.size()) {
+                    processorPath = args.get(++i);
+                } else if (arg.equals("-processor") && i + 1 < args.size()) {
+                    processorNames = args.get(++i);
+                } else if (arg.startsWith("-AoutputArgsToFile=")) {
+                    // Only meaningful when CheckerMain starts a new JVM.
+                } else if (arg.endsWith(".java")) {
+                    sourceFiles.add(new File(arg));
+                } else if ((arg.equals("-classpath") || arg.equals("-cp")) && i + 1 < args.size()) {
+                    classPath = args.get(++i);
+                    options.add(arg);
+                    options.add(classPath);
+                } else {
+                    options.add(arg);
+                }
+            }
+
+            try (StandardJavaFileManager fileManager =
+                    compiler.getStandardFileManager(null, null, null)) {
+                JavaCompiler.CompilationTask task =
+                        compiler.getTask(
+                                output,
+                                fileManager,
+                                null,
+                                options,
+                                null,
+                                fileManager.getJavaFileObjectsFromFiles(sourceFiles));
+                if (!options.contains("-proc:none")) {
+                    loader =
+                            acquireProcessorLoader(
+                                    processorPath == null ? "" : processorPath,
+                                    classPath == null ? "" : classPath);
+                    task.setProcessors(createProcessors(loader.loader, processorNames));
+                }
+                return task.call() ? EXIT_OK : EXIT_ERROR;
+            }
+        } catch (IllegalArgumentException | UserError e) {
+            output.println(e.getMessage());
+            return EXIT_CMDERR;
+        } catch (Throwable t) {
+            t.printStackTrace(output);
+            return EXIT_ABNORMAL;
+        } finally {
+            if (loader != null) {
+                releaseProcessorLoader(loader);
+            }
+            output.flush();
+        }
+    }
+
+    /**
+     * Replaces every {@code @file} argument by the arguments in the file. Each line of the file
+     * contains arguments that are separated by white space.
+     *
+     * @param args command-line arguments
+     * @return {@code args}, with the contents of argument files instead of their names
+     */
+    private static List<String> expandArgFiles(List<String> args) {
+        List<String> result = new ArrayList<>(args.size());
+        for (String arg : args) {
+            if (!arg.startsWith("@")) {
+                result.add(arg);
+                continue;
+            }
+            for (String line :
+                    CheckerMain.expandArgFiles(
+                            Collections.singletonList(new File(arg.substring(1))))) {
+                for (String fileArg : line.trim().split("\\s+")) {
+                    if (!fileArg.isEmpty()) {
+                        result.add(fileArg);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates the annotation processors for a compilation.
+     *
+     * @param loader the class loader from which to load the processors
+     * @param processorNames the comma-separated names of the processors to run, or null to run the
+     *     processors that are found on the processor path, as javac does
+     * @return new instances of the processors
+     */
+    private static List<Processor> createProcessors(
+            ClassLoader loader, @Nullable String processorNames) {
+        List<Processor> processors = new ArrayList<>();
+        if (processorNames == null) {
+            for (Processor processor : ServiceLoader.load(Processor.class, loader)) {
+                processors.add(processor);
+            }
+            return processors;
+        }
+        for (String name : processorNames.split(",")) {
+            try {
+                processors.add(
+                        Class.forName(name, true, loader)
+                                .asSubclass(Processor.class)
+                                .getDeclaredConstructor()
+                                .newInstance());
+            } catch (ClassNotFoundException e) {
+                throw new UserError("Annotation processor '%s' not found", name);
+            } catch (ReflectiveOperationException | ClassCastException e) {
+                throw new UserError(
+                        "Cannot instantiate annotation processor '%s': %s", name, e.toString());
+            }
+        }
+        return processors;
+    }
+
+    /**
+     * Returns the class loader for the given processor path and class path, and marks it as used
+     * until {@link #releaseProcessorLoader} is called. The loader is reused as long as no jar file
+     * on either path changes.
+     *
+     * @param processorPath the processor path of a compilation
+     * @param classPath the class path of the compilation
+     * @return the class loader for {@code processorPath} and {@code classPath}
+     */
+    private ProcessorLoader acquireProcessorLoader(String processorPath, String classPath) {
+        // Neither path can contain a line separator, because each argument of a request is a line.
+        String key = processorPath + "\n" + classPath;
+        String fingerprint = fingerprint(processorPath, classPath);
+        synchronized (processorLoaders) {
+            ProcessorLoader loader = processorLoaders.get(key);
+            if (loader == null || !loader.fingerprint.equals(fingerprint)) {
+                if (loader != null) {
+                    loader.retire();
+                }
+                loader = new ProcessorLoader(processorPath, fingerprint);
+                processorLoaders.put(key, loader);
+            }
+            loader.users++;
+            return loader;
+        }
+    }
+
+    /**
+     * Marks the given loader as no longer used by a compilation. A loader that has been replaced
+     * or evicted is closed once no compilation uses it.
+     *
+     * @param loader a loader returned by {@link #acquireProcessorLoader}
+     */
+    private void releaseProcessorLoader(ProcessorLoader loader) {
+        synchronized (processorLoaders) {
+            loader.users--;
+            if (loader.retired && loader.users == 0) {
+                loader.close();
+            }
+        }
+    }
+
+    /**
+     * Returns a string that changes whenever a jar file on one of the given paths is added,
+     * removed, or modified: the name, modification time, and size of every jar file on the paths.
+     * A directory on a path contributes only its name. Walking every directory for each request
+     * would cost as much as the class loading that the daemon saves, so a change to the class
+     * files in a directory is not detected.
+     *
+     * @param paths class paths
+     * @return a fingerprint of the jar files on {@code paths}
+     */
+    private static String fingerprint(String... paths) {
+        StringBuilder result = new StringBuilder();
+        for (String path : paths) {
+            for (String element : path.split(File.pathSeparator)) {
+                if (element.isEmpty()) {
+                    continue;
+                }
+                File file = new File(element);
+                result.append(file.getPath());
+                if (file.isFile()) {
+                    result.append(':')
+                            .append(file.lastModified())
+                            .append(':')
+                            .append(file.length());
+                }
+                result.append(File.pathSeparatorChar);
+            }
+            result.append('\n');
+        }
+        return result.toString();
+    }
+
+    /** A class loader for annotation processors, together with the state of its files. */
+    private static class ProcessorLoader {
+        /** The fingerprint of the processor path and class path when the loader was created. */
+        final String fingerprint;
+
+        /** The class loader. */
+        final URLClassLoader loader;
+
+        /** The number of compilations that use the loader. Guarded by the daemon's cache. */
+        int users = 0;
+
+        /**
+         * True once the loader has been replaced or evicted from the daemon's cache, so that it is
+         * closed when no compilation uses it any longer. Guarded by the daemon's cache.
+         */
+        boolean retired = false;
+
+        /**
+         * Creates a class loader for the given processor path.
+         *
+         * @param processorPath a processor path
+         * @param fingerprint the fingerprint of {@code processorPath} and the class path
+         */
+        ProcessorLoader(String processorPath, String fingerprint) {
+            this.fingerprint = fingerprint;
+            List<URL> urls = new ArrayList<>();
+            for (String element : processorPath.split(File.pathSeparator)) {
+                if (element.isEmpty()) {
+                    continue;
+                }
+                try {
+                    urls.add(new File(element).toURI().toURL());
+                } catch (MalformedURLException e) {
+                    throw new UserError("Invalid processor path element %s", element);
+                }
+            }
+            this.loader =
+                    new ChildFirstClassLoader(
+                            urls.toArray(new URL[0]), CheckerDaemon.class.getClassLoader());
+        }
+
+        /**
+         * Marks the loader as replaced or evicted, and closes it if no compilation uses it. Must
+         * be called while holding the lock of the daemon's cache.
+         */
+        void retire() {
+            retired = true;
+            if (users == 0) {
+                close();
+            }
+        }
+
+        /** Closes the class loader, after which its classes can no longer load resources. */
+        void close() {
+            try {
+                loader.close();
+            } catch (IOException e) {
+                // The loader is no longer used, so there is nothing else to do.
+            }
+        }
+    }
+
+    /**
+     * A class loader that loads classes and resources from its own path before asking its parent.
+     * A processor path that contains a different version of the Checker Framework than the daemon
+     * therefore runs that version, with its own {@code messages.properties} and stub files. The
+     * classes of the JDK, including javac and the annotation processing API, are always loaded by
+     * the parent, so that the processors and the compiler agree on them.
+     */
+    private static class ChildFirstClassLoader extends URLClassLoader {
+
+        /** The prefixes of the names of classes that are always loaded by the parent first. */
+        private static final String[] PARENT_FIRST_PREFIXES = {
+            "java.", "javax.", "jdk.", "sun.", "com.sun."
+        };
+
+        /** The parent class loader. */
+        private final ClassLoader parent;
+
+        /**
+         * Creates a child-first class loader.
+         *
+         * @param urls the path from which to load classes and resources first
+         * @param parent the class loader to use for what is not on {@code urls}
+         */
+        ChildFirstClassLoader(URL[] urls, ClassLoader parent) {
+            super(urls, parent);
+            this.parent = parent;
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            for (String prefix : PARENT_FIRST_PREFIXES) {
+                if (name.startsWith(prefix)) {
+                    return super.loadClass(name, resolve);
+                }
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> result = findLoadedClass(name);
+                if (result == null) {
+                    try {
+                        result = findClass(name);
+                    } catch (ClassNotFoundException e) {
+                        result = parent.loadClass(name);
+                    }
+                }
+                if (resolve) {
+                    resolveClass(result);
+                }
+                return result;
+            }
+        }
+
+        @Override
+        public @Nullable URL getResource(String name) {
+            URL result = findResource(name);
+            return result != null ? result : super.getResource(name);
+        }
+
+        @Override
+        public Enumeration<URL> getResources(String name) throws IOException {
+            List<URL> result = Collections.list(findResources(name));
+            result.addAll(Collections.list(parent.getResources(name)));
+            return Collections.enumeration(result);
+        }
+    }
+}
@@ -421,13 +421,40 @@ public class CheckerMain {
 
         addMainToArgs(args);
 
+        addCompilerArguments(args, true);
+        return args;
+    }
+
+    /**
+     * Returns the arguments to pass to javac when it runs in the current JVM, for example through
+     * the Java Compiler API. They are the arguments that follow the main class in {@link
+     * #getExecArguments}. Paths are not quoted, because no shell interprets them.
+     *
+     * @return the arguments to pass to javac
+     */
+    public List<String> getCompilerArguments() {
+        List<String> args = new ArrayList<>(toolOpts.size() + 9);
+        addCompilerArguments(args, false);
+        return args;
+    }
+
+    /**
+     * Adds the arguments to pass to javac to {@code args}.
+     *
+     * @param args the list to which to add the arguments; is side-effected by this method
+     * @param quotePaths whether to quote the classpath and processorpath, because they are passed
+     *     through a shell
+     */
+    private void addCompilerArguments(List<String> args, boolean quotePaths) {
         if (!argsListHasClassPath(argListFiles)) {
+            String classpath = concatenatePaths(cpOpts);
             args.add("-classpath");
-            args.add(quote(concatenatePaths(cpOpts)));
+            args.add(quotePaths ? quote(classpath) : classpath);
         }
         if (!argsListHasProcessorPath(argListFiles)) {
+            String processorpath = concatenatePaths(ppOpts);
             args.add("-processorpath");
-            args.add(quote(concatenatePaths(ppOpts)));
+            args.add(quotePaths ? quote(processorpath) : processorpath);
         }
 
         if (SystemUtil.getJreVersion() == 8) {
@@ -449,7 +476,6 @@ public class CheckerMain {
         }
 
         args.addAll(toolOpts);
-        return args;
     }
 
     /** Given a list of paths, concatenate them to form a single path. Also expand wildcards. */
@@ -0,0 +1,125 @@
+package org.checkerframework.framework.util;
+
+import com.sun.tools.javac.processing.JavacProcessingEnvironment;
+import com.sun.tools.javac.util.Context;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import org.checkerframework.javacutil.ElementUtils;
+
+/**
+ * Caches, for one compilation, the supertypes of each class and the methods that each method
+ * overrides.
+ *
+ * <p>Both only depend on elements, not on annotated types, so a single cache is registered in the
+ * javac {@link Context} of the compilation and shared by every checker that runs in it, including
+ * the subcheckers of a compound checker. {@link AnnotatedTypes#overriddenMethods(Elements,
+ * org.checkerframework.framework.type.AnnotatedTypeFactory, ExecutableElement)} uses it to avoid
+ * walking the supertypes of a class once for each of its methods, and to skip computing annotated
+ * supertypes for methods that override nothing.
+ */
+public class OverriddenMethodsCache {
+
+    /** The element utilities of the compilation. */
+    private final Elements elements;
+
+    /** Maps a class to all its supertypes (direct or indirect). */
+    private final Map<TypeElement, List<TypeElement>> superTypes = new HashMap<>();
+
+    /** Maps a method to the methods it overrides, keyed by the class that declares each of them. */
+    private final Map<ExecutableElement, Map<TypeElement, ExecutableElement>> overriddenMethods =
+            new HashMap<>();
+
+    /**
+     * Creates a new, empty cache.
+     *
+     * @param elements the element utilities of the compilation
+     */
+    private OverriddenMethodsCache(Elements elements) {
+        this.elements = elements;
+    }
+
+    /**
+     * Returns the cache of the compilation that owns the given processing environment, creating it
+     * if necessary.
+     *
+     * @param processingEnv the processing environment of the current compilation
+     * @return the cache of the current compilation
+     */
+    public static OverriddenMethodsCache instance(ProcessingEnvironment processingEnv) {
+        if (!(processingEnv instanceof JavacProcessingEnvironment)) {
+            // There is no javac context in which to share the cache.
+            return new OverriddenMethodsCache(processingEnv.getElementUtils());
+        }
+        Context context = ((JavacProcessingEnvironment) processingEnv).getContext();
+        OverriddenMethodsCache cache = context.get(OverriddenMethodsCache.class);
+        if (cache == null) {
+            cache = new OverriddenMethodsCache(processingEnv.getElementUtils());
+            context.put(OverriddenMethodsCache.class, cache);
+        }
+        return cache;
+    }
+
+    /**
+     * Returns all the supertypes (direct or indirect) of the given class, as computed by {@link
+     * ElementUtils#getSuperTypes(TypeElement, Elements)}.
+     *
+     * @param type a class or interface
+     * @return all the supertypes of {@code type}
+     */
+    public List<TypeElement> getSuperTypes(TypeElement type) {
+        List<TypeElement> result = superTypes.get(type);
+        if (result == null) {
+            result = ElementUtils.getSuperTypes(type, elements);
+            superTypes.put(type, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the methods that the given method overrides, keyed by the supertype that declares
+     * each of them. For each supertype, at most one method is returned.
+     *
+     * @param method a method
+     * @return a map from supertypes of the class that declares {@code method} to the methods in
+     *     them that {@code method} overrides
+     */
+    public Map<TypeElement, ExecutableElement> getOverriddenMethods(ExecutableElement method) {
+        Map<TypeElement, ExecutableElement> result = overriddenMethods.get(method);
+        if (result == null) {
+            result = computeOverriddenMethods(method);
+            overriddenMethods.put(method, result);
+        }
+        return result;
+    }
+
+    /**
+     * Computes the methods that the given method overrides.
+     *
+     * @param method a method
+     * @return a map from supertypes of the class that declares {@code method} to the methods in
+     *     them that {@code method} overrides
+     */
+    private Map<TypeElement, ExecutableElement> computeOverriddenMethods(
+            ExecutableElement method) {
+        Map<TypeElement, ExecutableElement> overrides = new LinkedHashMap<>();
+        TypeElement enclosing = (TypeElement) method.getEnclosingElement();
+        for (TypeElement superElement : getSuperTypes(enclosing)) {
+            for (ExecutableElement supermethod :
+                    ElementFilter.methodsIn(superElement.getEnclosedElements())) {
+                if (elements.overrides(method, supermethod, superElement)) {
+                    overrides.put(superElement, supermethod);
+                    break;
+                }
+            }
+        }
+        return overrides.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(overrides);
+    }
+}
@@ -0,0 +1,381 @@
+package org.checkerframework.framework.test.junit;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.checkerframework.framework.util.CheckerDaemon;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link CheckerDaemon}: the protocol of its port, and the replacement of the class loader of
+ * the annotation processors when a jar file on the processor path changes. The processor that the
+ * tests run is compiled by the tests, and prints a note that identifies the version of its jar
+ * file.
+ */
+public class CheckerDaemonTest {
+
+    /** The name of the annotation processor that the tests run. */
+    private static final String PROCESSOR_NAME = "daemontest.VersionProcessor";
+
+    /** The temporary directory that holds the files of a test. */
+    private File dir;
+
+    /** The stand-in for checker.jar, which CheckerMain requires to exist. */
+    private File checkerJar;
+
+    /** The jar file that contains the annotation processor. */
+    private File processorJar;
+
+    /** The source file that the tests compile. */
+    private File sourceFile;
+
+    /**
+     * Creates the files of a test.
+     *
+     * @throws IOException if a file cannot be written
+     */
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("checker-daemon-test").toFile();
+        checkerJar = new File(dir, "checker.jar");
+        writeJar(checkerJar, null);
+        writeJar(new File(dir, "checker-qual.jar"), null);
+        processorJar = new File(dir, "processor.jar");
+        writeProcessorJar("VersionProcessor 1");
+        sourceFile = new File(dir, "Empty.java");
+        Files.write(
+                sourceFile.toPath(),
+                Collections.singletonList("class Empty {}"),
+                StandardCharsets.UTF_8);
+    }
+
+    /** Deletes the files of a test. */
+    @After
+    public void tearDown() {
+        deleteRecursively(dir);
+    }
+
+    /**
+     * Checks that a compilation uses the new version of a processor once its jar file changes, and
+     * that the old version is used until then.
+     */
+    @Test
+    public void testLoaderReplacement() throws IOException {
+        CheckerDaemon daemon = new CheckerDaemon(checkerJar);
+        assertNote(compile(daemon), "VersionProcessor 1");
+        assertNote(compile(daemon), "VersionProcessor 1");
+        writeProcessorJar("VersionProcessor 2, rebuilt");
+        assertNote(compile(daemon), "VersionProcessor 2, rebuilt");
+    }
+
+    /**
+     * Checks that the daemon answers a request on its port, that it closes a connection that does
+     * not start with its token, and that a shutdown request stops it, closes the other
+     * connections, and deletes the token file.
+     */
+    @Test
+    public void testRequestResponse() throws Exception {
+        CheckerDaemon daemon = new CheckerDaemon(checkerJar);
+        File tokenFile = new File(dir, "daemon.token");
+        Thread serverThread =
+                new Thread(
+                        () -> {
+                            try {
+                                daemon.serve(0, 2, tokenFile);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        });
+        serverThread.start();
+        List<String> tokenLines = readTokenFile(tokenFile);
+        int port = Integer.parseInt(tokenLines.get(0));
+        String token = tokenLines.get(1);
+
+        try (Connection wrongToken = new Connection(port)) {
+            wrongToken.send("not the token");
+            Assert.assertNull(wrongToken.in.readLine());
+        }
+
+        try (Connection idle = new Connection(port);
+                Connection client = new Connection(port)) {
+            idle.send(token);
+            client.send(token);
+            client.send(compilerArguments());
+            client.send("");
+            List<String> response = client.readResponse();
+            Assert.assertEquals(CheckerDaemon.EXIT_STATUS_PREFIX + 0, lastLine(response));
+            assertNote(String.join(System.lineSeparator(), response), "VersionProcessor 1");
+
+            client.send(CheckerDaemon.SHUTDOWN);
+            client.send("");
+            Assert.assertEquals(
+                    Collections.singletonList(CheckerDaemon.EXIT_STATUS_PREFIX + 0),
+                    client.readResponse());
+            serverThread.join(60_000);
+            Assert.assertFalse("the daemon did not stop", serverThread.isAlive());
+            Assert.assertNull(idle.in.readLine());
+        }
+        Assert.assertFalse(tokenFile.exists());
+    }
+
+    /** A connection to the port of a daemon. */
+    private static class Connection implements AutoCloseable {
+        /** The socket of the connection. */
+        final Socket socket;
+
+        /** The responses of the daemon. */
+        final BufferedReader in;
+
+        /** The requests to the daemon. */
+        final PrintWriter out;
+
+        /**
+         * Connects to the given port of the loopback interface.
+         *
+         * @param port the port of the daemon
+         * @throws IOException if the connection fails
+         */
+        Connection(int port) throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            socket.setSoTimeout(60_000);
+            in =
+                    new BufferedReader(
+                            new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            out =
+                    new PrintWriter(
+                            new OutputStreamWriter(
+                                    socket.getOutputStream(), StandardCharsets.UTF_8),
+                            true);
+        }
+
+        /**
+         * Sends the given lines.
+         *
+         * @param lines the lines to send
+         */
+        void send(String... lines) {
+            send(Arrays.asList(lines));
+        }
+
+        /**
+         * Sends the given lines.
+         *
+         * @param lines the lines to send
+         */
+        void send(List<String> lines) {
+            for (String line : lines) {
+                out.println(line);
+            }
+        }
+
+        /**
+         * Reads one response, up to and including the line with the exit status.
+         *
+         * @return the lines of the response
+         * @throws IOException if the response cannot be read
+         */
+        List<String> readResponse() throws IOException {
+            List<String> result = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                result.add(line);
+                if (line.startsWith(CheckerDaemon.EXIT_STATUS_PREFIX)) {
+                    return result;
+                }
+            }
+            throw new AssertionError("incomplete response: " + result);
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    /**
+     * Returns the arguments of a compilation that runs the processor on the source file.
+     *
+     * @return the arguments of a compilation that runs the processor
+     */
+    private List<String> compilerArguments() {
+        return Arrays.asList(
+                "-processor",
+                PROCESSOR_NAME,
+                "-processorpath",
+                processorJar.getPath(),
+                "-proc:only",
+                sourceFile.getPath());
+    }
+
+    /**
+     * Runs one compilation in the given daemon, without going through its port.
+     *
+     * @param daemon the daemon
+     * @return the output of the compiler
+     */
+    private String compile(CheckerDaemon daemon) {
+        StringWriter output = new StringWriter();
+        int status = daemon.compile(compilerArguments(), new PrintWriter(output));
+        Assert.assertEquals(output.toString(), 0, status);
+        return output.toString();
+    }
+
+    /**
+     * Compiles the processor, which prints the given note, and writes it to the processor jar.
+     *
+     * @param note the note that the processor prints when processing is over
+     * @throws IOException if a file cannot be written
+     */
+    private void writeProcessorJar(String note) throws IOException {
+        File srcDir = new File(dir, "processor-src");
+        File classesDir = new File(dir, "processor-classes");
+        deleteRecursively(classesDir);
+        new File(srcDir, "daemontest").mkdirs();
+        classesDir.mkdirs();
+        File source = new File(srcDir, "daemontest/VersionProcessor.java");
+        Files.write(
+                source.toPath(),
+                Arrays.asList(
+                        "package daemontest;",
+                        "import java.util.Set;",
+                        "import javax.annotation.processing.*;",
+                        "import javax.lang.model.SourceVersion;",
+                        "import javax.lang.model.element.TypeElement;",
+                        "import javax.tools.Diagnostic;",
+                        "@SupportedAnnotationTypes(\"*\")",
+                        "public class VersionProcessor extends AbstractProcessor {",
+                        "  @Override",
+                        "  public SourceVersion getSupportedSourceVersion() {",
+                        "    return SourceVersion.latestSupported();",
+                        "  }",
+                        "  @Override",
+                        "  public boolean process(",
+                        "      Set<? extends TypeElement> annotations, RoundEnvironment env) {",
+                        "    if (env.processingOver()) {",
+                        "      processingEnv.getMessager()",
+                        "          .printMessage(Diagnostic.Kind.NOTE, \"" + note + "\");",
+                        "    }",
+                        "    return false;",
+                        "  }",
+                        "}"),
+                StandardCharsets.UTF_8);
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager fileManager =
+                compiler.getStandardFileManager(null, null, null)) {
+            boolean success =
+                    compiler.getTask(
+                                    null,
+                                    fileManager,
+                                    null,
+                                    Arrays.asList("-proc:none", "-d", classesDir.getPath()),
+                                    null,
+                                    fileManager.getJavaFileObjects(source))
+                            .call();
+            Assert.assertTrue("cannot compile " + source, success);
+        }
+        writeJar(processorJar, classesDir);
+    }
+
+    /**
+     * Writes a jar file with the files in the given directory.
+     *
+     * @param jar the jar file to write
+     * @param contents the directory whose files to write, or null for an empty jar file
+     * @throws IOException if the jar file cannot be written
+     */
+    private static void writeJar(File jar, File contents) throws IOException {
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+            if (contents == null) {
+                return;
+            }
+            try (Stream<Path> paths = Files.walk(contents.toPath())) {
+                for (Path path : (Iterable<Path>) paths.filter(Files::isRegularFile)::iterator) {
+                    String name = contents.toPath().relativize(path).toString();
+                    out.putNextEntry(new JarEntry(name.replace(File.separatorChar, '/')));
+                    out.write(Files.readAllBytes(path));
+                    out.closeEntry();
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits until the daemon has written its token file, and returns its lines.
+     *
+     * @param tokenFile the token file of the daemon
+     * @return the port and the token
+     * @throws Exception if the file cannot be read or the waiting is interrupted
+     */
+    private static List<String> readTokenFile(File tokenFile) throws Exception {
+        for (int i = 0; i < 600 && !tokenFile.exists(); i++) {
+            Thread.sleep(100);
+        }
+        Assert.assertTrue("the daemon did not write " + tokenFile, tokenFile.exists());
+        List<String> lines = Files.readAllLines(tokenFile.toPath(), StandardCharsets.UTF_8);
+        Assert.assertEquals(lines.toString(), 2, lines.size());
+        return lines;
+    }
+
+    /**
+     * Returns the last line of a response.
+     *
+     * @param response the lines of a response
+     * @return the last line of {@code response}
+     */
+    private static String lastLine(List<String> response) {
+        return response.get(response.size() - 1);
+    }
+
+    /**
+     * Fails unless the given compiler output contains the given note.
+     *
+     * @param output the output of the compiler
+     * @param note the text of the expected note
+     */
+    private static void assertNote(String output, String note) {
+        Assert.assertTrue(output, output.contains("Note: " + note));
+    }
+
+    /**
+     * Deletes a file or directory, including the contents of the directory.
+     *
+     * @param file the file or directory to delete; need not exist
+     */
+    private static void deleteRecursively(File file) {
+        if (!file.exists()) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(file.toPath())) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        } catch (IOException e) {
+            throw new AssertionError("cannot delete " + file, e);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package org.checkerframework.framework.test.junit;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.checkerframework.framework.test.TestConfigurationBuilder;
+import org.checkerframework.framework.testchecker.util.FlowTestChecker;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Tests the {@code -ApuritySummaryOutput} and {@code -ApuritySummaries} command-line arguments.
+ * Each test first checks the library in tests/purity-summaries/lib, writing a summary file, and
+ * then checks the clients in tests/purity-summaries/client with that file.
+ */
+public class PuritySummariesTest extends CheckerFrameworkPerDirectoryTest {
+
+    /** The directory that contains the library and its clients. */
+    private static final File TEST_DIR = new File("tests", "purity-summaries");
+
+    /** The directory that contains the library. */
+    private static final File LIB_DIR = new File(TEST_DIR, "lib");
+
+    /** The directory to which the classes of the library are written. */
+    private static final File LIB_OUTPUT_DIR =
+            new File(TestConfigurationBuilder.getOutputDirFromProperty(), "purity-summaries-lib");
+
+    /** The summary file that is written for the library. */
+    private static final File SUMMARY_FILE = new File(LIB_OUTPUT_DIR, "purity-summaries.txt");
+
+    /** @param testFiles the files containing test code, which will be type-checked */
+    public PuritySummariesTest(List<File> testFiles) {
+        super(
+                testFiles,
+                FlowTestChecker.class,
+                "purity-summaries",
+                Collections.singletonList(LIB_OUTPUT_DIR.getPath()),
+                "-Anomsgtext",
+                "-AcheckPurityAnnotations",
+                "-ApuritySummaries=" + SUMMARY_FILE.getPath());
+    }
+
+    @Parameters
+    public static String[] getTestDirs() {
+        return new String[] {"purity-summaries/client"};
+    }
+
+    /**
+     * Writes the summaries of the library, and checks the clients with them. Only the methods of
+     * the library that cannot be overridden have a summary.
+     */
+    @Override
+    @Test
+    public void run() {
+        assertNoErrors(compileLibrary("-ApuritySummaryOutput=" + SUMMARY_FILE.getPath()));
+        List<String> summaries = readSummaries(SUMMARY_FILE);
+        for (String expected :
+                Arrays.asList(
+                        "pure PuritySummaryLib#increment(int)",
+                        "none PuritySummaryLib#bump()",
+                        "pure PuritySummaryLib#getField()",
+                        "pure PuritySummaryLib#secret()")) {
+            Assert.assertTrue(summaries.toString(), summaries.contains(expected));
+        }
+        for (String summary : summaries) {
+            Assert.assertFalse(summary, summary.contains("#overridable("));
+        }
+        super.run();
+    }
+
+    /** Checks that no summary is written under {@code -AassumePure}. */
+    @Test
+    public void testAssumePure() {
+        File summaryFile = new File(LIB_OUTPUT_DIR, "assume-pure-summaries.txt");
+        assertNoErrors(
+                compileLibrary("-AassumePure", "-ApuritySummaryOutput=" + summaryFile.getPath()));
+        Assert.assertEquals(Collections.emptyList(), readSummaries(summaryFile));
+    }
+
+    /** Checks that a malformed line in a summary file is reported to the user. */
+    @Test
+    public void testMalformedSummaryFile() throws IOException {
+        assertNoErrors(compileLibrary());
+        File summaryFile = new File(LIB_OUTPUT_DIR, "malformed-summaries.txt");
+        Files.write(
+                summaryFile.toPath(),
+                Arrays.asList("# A kind without a method", "pure"),
+                StandardCharsets.UTF_8);
+        List<String> options = javacOptions(LIB_OUTPUT_DIR.getPath());
+        options.add("-ApuritySummaries=" + summaryFile.getPath());
+        List<Diagnostic<? extends JavaFileObject>> diagnostics =
+                compile(options, new File(TEST_DIR, "client"));
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR
+                    && diagnostic
+                            .getMessage(null)
+                            .contains("Malformed line in purity summary file")) {
+                return;
+            }
+        }
+        Assert.fail("The malformed line was not reported: " + diagnostics);
+    }
+
+    /**
+     * Checks the library.
+     *
+     * @param extraOptions options in addition to those that run the checker
+     * @return the diagnostics of the compilation
+     */
+    private static List<Diagnostic<? extends JavaFileObject>> compileLibrary(
+            String... extraOptions) {
+        List<String> options = javacOptions("");
+        options.addAll(Arrays.asList(extraOptions));
+        return compile(options, LIB_DIR);
+    }
+
+    /**
+     * Returns the javac options that run the checker and write classes to {@link #LIB_OUTPUT_DIR}.
+     *
+     * @param classpathExtra an extra classpath entry, or the empty string
+     * @return the javac options that run the checker
+     */
+    private static List<String> javacOptions(String classpathExtra) {
+        LIB_OUTPUT_DIR.mkdirs();
+        String classpath = TestConfigurationBuilder.getDefaultClassPath();
+        if (!classpathExtra.isEmpty()) {
+            classpath += File.pathSeparator + classpathExtra;
+        }
+        return new ArrayList<>(
+                Arrays.asList(
+                        "-processor",
+                        FlowTestChecker.class.getName(),
+                        "-classpath",
+                        classpath,
+                        "-d",
+                        LIB_OUTPUT_DIR.getPath(),
+                        "-Anomsgtext",
+                        "-AcheckPurityAnnotations"));
+    }
+
+    /**
+     * Compiles the .java files in a directory.
+     *
+     * @param options the javac options
+     * @param dir the directory that contains the files to compile
+     * @return the diagnostics of the compilation
+     */
+    private static List<Diagnostic<? extends JavaFileObject>> compile(
+            List<String> options, File dir) {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(".java"));
+        Assert.assertNotNull("cannot read " + dir, files);
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager =
+                compiler.getStandardFileManager(null, null, null)) {
+            compiler.getTask(
+                            null,
+                            fileManager,
+                            diagnostics,
+                            options,
+                            null,
+                            fileManager.getJavaFileObjectsFromFiles(Arrays.asList(files)))
+                    .call();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return diagnostics.getDiagnostics();
+    }
+
+    /**
+     * Fails if there is an error among the given diagnostics.
+     *
+     * @param diagnostics the diagnostics of a compilation
+     */
+    private static void assertNoErrors(List<Diagnostic<? extends JavaFileObject>> diagnostics) {
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics) {
+            Assert.assertNotEquals(
+                    diagnostic.toString(), Diagnostic.Kind.ERROR, diagnostic.getKind());
+        }
+    }
+
+    /**
+     * Returns the lines of a summary file, without comments.
+     *
+     * @param file a summary file
+     * @return the lines of {@code file} that are not comments
+     */
+    private static List<String> readSummaries(File file) {
+        List<String> result = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+                if (!line.startsWith("#")) {
+                    result.add(line);
+                }
+            }
+        } catch (IOException e) {
+            throw new AssertionError("cannot read " + file, e);
+        }
+        return result;
+    }
+}
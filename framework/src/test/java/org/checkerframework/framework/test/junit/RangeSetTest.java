@@ -0,0 +1,107 @@
+package org.checkerframework.framework.test.junit;
+
+import java.util.Arrays;
+import org.checkerframework.common.value.util.Range;
+import org.checkerframework.common.value.util.RangeSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** This class tests the RangeSet class, independent of the Value Checker. */
+public class RangeSetTest {
+
+    /** The set containing 0 to 12, 100 to 109, and 200. */
+    RangeSet clusters =
+            RangeSet.createFromRanges(
+                    Arrays.asList(
+                            Range.create(100, 109),
+                            Range.create(0, 9),
+                            Range.NOTHING,
+                            Range.create(200, 200),
+                            Range.create(10, 12)));
+
+    /** The set containing the smallest and the largest long values, and 0. */
+    RangeSet extremes =
+            RangeSet.create(Arrays.asList(Long.MIN_VALUE, 0L, Long.MAX_VALUE, Long.MAX_VALUE));
+
+    @Test
+    public void testCreate() {
+        Assert.assertEquals(
+                Arrays.asList(Range.create(0, 12), Range.create(100, 109), Range.create(200, 200)),
+                clusters.getRanges());
+        Assert.assertEquals(3, extremes.size());
+        Assert.assertTrue(RangeSet.create(Range.NOTHING).isNothing());
+        Assert.assertEquals(
+                RangeSet.EVERYTHING,
+                RangeSet.createFromRanges(
+                        Arrays.asList(
+                                Range.create(6, Long.MAX_VALUE),
+                                Range.create(Long.MIN_VALUE, 5))));
+        Assert.assertEquals(Range.create(0, 200), clusters.hull());
+    }
+
+    @Test
+    public void testContains() {
+        Assert.assertTrue(clusters.contains(105));
+        Assert.assertTrue(clusters.contains(200));
+        Assert.assertFalse(clusters.contains(150));
+        Assert.assertTrue(clusters.contains(RangeSet.create(Arrays.asList(5L, 105L))));
+        Assert.assertFalse(clusters.contains(RangeSet.create(Arrays.asList(5L, 300L))));
+        Assert.assertTrue(clusters.contains(RangeSet.NOTHING));
+        Assert.assertTrue(RangeSet.EVERYTHING.contains(extremes));
+    }
+
+    @Test
+    public void testUnionAndIntersect() {
+        RangeSet values = RangeSet.create(Arrays.asList(5L, 105L, 106L, 300L));
+        Assert.assertEquals(
+                RangeSet.create(Arrays.asList(5L, 105L, 106L)), clusters.intersect(values));
+        Assert.assertEquals(
+                RangeSet.createFromRanges(
+                        Arrays.asList(
+                                Range.create(0, 12),
+                                Range.create(100, 109),
+                                Range.create(200, 200),
+                                Range.create(300, 300))),
+                clusters.union(values));
+        Assert.assertTrue(clusters.intersect(RangeSet.NOTHING).isNothing());
+        Assert.assertEquals(clusters, clusters.union(RangeSet.NOTHING));
+    }
+
+    @Test
+    public void testIsWiderThan() {
+        Assert.assertTrue(clusters.isWiderThan(23));
+        Assert.assertFalse(clusters.isWiderThan(24));
+        Assert.assertTrue(extremes.isWiderThan(2));
+        Assert.assertFalse(extremes.isWiderThan(3));
+        Assert.assertTrue(RangeSet.EVERYTHING.isWiderThan(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testCoarsen() {
+        Assert.assertSame(clusters, clusters.coarsen(3));
+        Assert.assertEquals(
+                RangeSet.createFromRanges(
+                        Arrays.asList(Range.create(0, 109), Range.create(200, 200))),
+                clusters.coarsen(2));
+        Assert.assertEquals(RangeSet.create(clusters.hull()), clusters.coarsen(1));
+        // The gap above 0 is smaller than the gap below it, when compared as unsigned values.
+        Assert.assertEquals(
+                RangeSet.createFromRanges(
+                        Arrays.asList(
+                                Range.create(Long.MIN_VALUE, Long.MIN_VALUE),
+                                Range.create(0, Long.MAX_VALUE))),
+                extremes.coarsen(2));
+    }
+
+    @Test
+    public void testCombine() {
+        RangeSet sum = clusters.combine(RangeSet.create(Range.create(0, 100)), Range::plus);
+        Assert.assertEquals(RangeSet.create(Range.create(0, 300)), sum);
+        Assert.assertEquals(
+                RangeSet.create(Arrays.asList(-1L, -2L, -3L, -5L)),
+                RangeSet.create(Arrays.asList(1L, 2L, 3L, 5L)).map(Range::unaryMinus));
+        Assert.assertEquals(
+                Arrays.asList(1L, 2L, 3L, 5L),
+                RangeSet.create(Arrays.asList(5L, 3L, 2L, 1L)).getValues());
+    }
+}
@@ -199,7 +199,6 @@ public class RangeTest {
 
         public ValuesInRangeIterator(Range range) {
             this.range = range;
-            Range.ignoreOverflow = false;
         }
 
         @Override
@@ -283,7 +282,6 @@ public class RangeTest {
 
     @Test
     public void testCharRange() {
-        Range.ignoreOverflow = false;
         for (Range range : ranges) {
             Range result = range.charRange();
             for (long value : values) {
@@ -330,17 +328,13 @@ public class RangeTest {
         Range r2 = Range.create(1024 + 17, 1024 + 22);
         Range r3 = Range.create(5, Byte.MAX_VALUE + 2);
 
-        Range.ignoreOverflow = true;
+        assert r1.byteRange(true).equals(Range.create(5, Byte.MAX_VALUE));
+        assert r2.byteRange(true).equals(Range.create(Byte.MAX_VALUE, Byte.MAX_VALUE));
+        assert r3.byteRange(true).equals(Range.create(5, Byte.MAX_VALUE));
 
-        assert r1.byteRange().equals(Range.create(5, Byte.MAX_VALUE));
-        assert r2.byteRange().equals(Range.create(Byte.MAX_VALUE, Byte.MAX_VALUE));
-        assert r3.byteRange().equals(Range.create(5, Byte.MAX_VALUE));
-
-        Range.ignoreOverflow = false;
-
-        assert r1.byteRange().equals(Range.BYTE_EVERYTHING);
-        assert r2.byteRange().equals(Range.create(17, 22));
-        assert r3.byteRange().equals(Range.BYTE_EVERYTHING);
+        assert r1.byteRange(false).equals(Range.BYTE_EVERYTHING);
+        assert r2.byteRange(false).equals(Range.create(17, 22));
+        assert r3.byteRange(false).equals(Range.BYTE_EVERYTHING);
     }
 
     @Test
@@ -0,0 +1,180 @@
+package org.checkerframework.framework.test.junit;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.checkerframework.common.subtyping.SubtypingChecker;
+import org.checkerframework.common.wholeprograminference.WholeProgramInferenceScenesStorage;
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.checkerframework.framework.test.RunSequentially;
+import org.checkerframework.framework.test.TestConfigurationBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Tests the {@code -AskipSuppressedDefs} command-line argument, using the test inputs in
+ * tests/skip-suppressed-defs/. The definitions whose warnings are suppressed are skipped, and
+ * their unsuppressed siblings are still type-checked.
+ */
+@RunSequentially
+public class SkipSuppressedDefsTest extends CheckerFrameworkPerDirectoryTest {
+
+    /** The directory that contains the test inputs. */
+    private static final File TEST_DIR = new File("tests", "skip-suppressed-defs");
+
+    /** The option that selects the qualifiers of the Subtyping Checker. */
+    private static final String QUALS =
+            "-Aquals=org.checkerframework.framework.testchecker.util.Encrypted,org.checkerframework.framework.testchecker.util.PolyEncrypted,org.checkerframework.common.subtyping.qual.Unqualified";
+
+    /** @param testFiles the files containing test code, which will be type-checked */
+    public SkipSuppressedDefsTest(List<File> testFiles) {
+        super(
+                testFiles,
+                SubtypingChecker.class,
+                "skip-suppressed-defs",
+                "-Anomsgtext",
+                QUALS,
+                "-AskipSuppressedDefs");
+    }
+
+    @Parameters
+    public static String[] getTestDirs() {
+        return new String[] {"skip-suppressed-defs"};
+    }
+
+    /**
+     * Checks that "-AskipSuppressedDefs=stats" reports the skipped definitions: the method {@code
+     * suppressed}, the nested class {@code SuppressedNested}, and the top-level class {@code
+     * SuppressedTopLevel}.
+     */
+    @Test
+    public void testStats() {
+        List<Diagnostic<? extends JavaFileObject>> diagnostics =
+                compile("-AskipSuppressedDefs=stats");
+        assertNote(diagnostics, "skipped 2 class and 1 method definitions");
+        Assert.assertEquals(diagnostics.toString(), 3, countErrors(diagnostics));
+    }
+
+    /**
+     * Checks that nothing is skipped under {@code -AwarnUnneededSuppressions}. Every suppression
+     * in the test inputs is needed, so none is reported as unneeded.
+     */
+    @Test
+    public void testWarnUnneededSuppressions() {
+        List<Diagnostic<? extends JavaFileObject>> diagnostics =
+                compile("-AskipSuppressedDefs=stats", "-AwarnUnneededSuppressions");
+        assertNote(diagnostics, "skipped 0 class and 0 method definitions");
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics) {
+            Assert.assertFalse(
+                    diagnostic.toString(),
+                    diagnostic.getMessage(null).contains("unneeded.suppression"));
+        }
+        Assert.assertEquals(diagnostics.toString(), 3, countErrors(diagnostics));
+    }
+
+    /** Checks that nothing is skipped under {@code -Ainfer}. */
+    @Test
+    public void testInfer() {
+        try {
+            List<Diagnostic<? extends JavaFileObject>> diagnostics =
+                    compile("-AskipSuppressedDefs=stats", "-Ainfer=jaifs");
+            assertNote(diagnostics, "skipped 0 class and 0 method definitions");
+        } finally {
+            File[] written =
+                    new File(WholeProgramInferenceScenesStorage.JAIF_FILES_PATH)
+                            .listFiles(
+                                    (dir, name) ->
+                                            name.startsWith("SkipSuppressedDefs")
+                                                    || name.startsWith("SuppressedTopLevel")
+                                                    || name.startsWith("UnsuppressedTopLevel"));
+            if (written != null) {
+                for (File file : written) {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks the test inputs.
+     *
+     * @param extraOptions options in addition to those that run the checker
+     * @return the diagnostics of the compilation
+     */
+    private static List<Diagnostic<? extends JavaFileObject>> compile(String... extraOptions) {
+        File outputDir = TestConfigurationBuilder.getOutputDirFromProperty();
+        outputDir.mkdirs();
+        List<String> options =
+                new ArrayList<>(
+                        Arrays.asList(
+                                "-processor",
+                                SubtypingChecker.class.getName(),
+                                "-classpath",
+                                TestConfigurationBuilder.getDefaultClassPath(),
+                                "-d",
+                                outputDir.getPath(),
+                                "-Anomsgtext",
+                                QUALS));
+        options.addAll(Arrays.asList(extraOptions));
+        File[] files = TEST_DIR.listFiles((dir, name) -> name.endsWith(".java"));
+        Assert.assertNotNull("cannot read " + TEST_DIR, files);
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager =
+                compiler.getStandardFileManager(null, null, null)) {
+            compiler.getTask(
+                            null,
+                            fileManager,
+                            diagnostics,
+                            options,
+                            null,
+                            fileManager.getJavaFileObjectsFromFiles(Arrays.asList(files)))
+                    .call();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return diagnostics.getDiagnostics();
+    }
+
+    /**
+     * Fails unless there is a note that contains the given text among the given diagnostics.
+     *
+     * @param diagnostics the diagnostics of a compilation
+     * @param text the text of the expected note
+     */
+    private static void assertNote(
+            List<Diagnostic<? extends JavaFileObject>> diagnostics, String text) {
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics) {
+            if (diagnostic.getKind() == Diagnostic.Kind.NOTE
+                    && diagnostic.getMessage(null).contains(text)) {
+                return;
+            }
+        }
+        Assert.fail("No note \"" + text + "\" in " + diagnostics);
+    }
+
+    /**
+     * Returns the number of errors among the given diagnostics.
+     *
+     * @param diagnostics the diagnostics of a compilation
+     * @return the number of errors in {@code diagnostics}
+     */
+    private static int countErrors(List<Diagnostic<? extends JavaFileObject>> diagnostics) {
+        int result = 0;
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                result++;
+            }
+        }
+        return result;
+    }
+}
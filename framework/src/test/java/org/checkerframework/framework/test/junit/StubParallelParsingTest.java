@@ -0,0 +1,147 @@
+package org.checkerframework.framework.test.junit;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.checkerframework.common.subtyping.SubtypingChecker;
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.checkerframework.framework.test.TestConfigurationBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Tests that the Stub Parser gives the same result when it parses several stub files in parallel as
+ * when it parses them one after another, using the test inputs in tests/stub-parallel/. The stub
+ * files annotate the same methods differently, so the result depends on the order in which they
+ * are processed.
+ */
+public class StubParallelParsingTest extends CheckerFrameworkPerDirectoryTest {
+
+    /** The directory that contains the test inputs. */
+    private static final File TEST_DIR = new File("tests", "stub-parallel");
+
+    /** The stub files, in the order in which they are passed to the checker. */
+    private static final List<String> STUB_FILES =
+            Arrays.asList("first.astub", "second.astub", "third.astub", "fourth.astub");
+
+    /** The option that selects the qualifiers of the Subtyping Checker. */
+    private static final String QUALS =
+            "-Aquals=org.checkerframework.framework.testchecker.util.Encrypted,org.checkerframework.framework.testchecker.util.PolyEncrypted,org.checkerframework.common.subtyping.qual.Unqualified";
+
+    /** @param testFiles the files containing test code, which will be type-checked */
+    public StubParallelParsingTest(List<File> testFiles) {
+        super(
+                testFiles,
+                SubtypingChecker.class,
+                "stub-parallel",
+                "-Anomsgtext",
+                QUALS,
+                "-Astubs=" + stubsOption());
+    }
+
+    @Parameters
+    public static String[] getTestDirs() {
+        return new String[] {"stub-parallel"};
+    }
+
+    /**
+     * Checks that passing the stub files separately, so that they are parsed in parallel, gives
+     * the same diagnostics as passing their concatenation, which is a single stub file that is
+     * parsed and processed in order.
+     */
+    @Test
+    public void testSameAsSequential() throws IOException {
+        StringBuilder concatenation = new StringBuilder();
+        for (String stubFile : STUB_FILES) {
+            concatenation.append(
+                    new String(
+                            Files.readAllBytes(new File(TEST_DIR, stubFile).toPath()),
+                            StandardCharsets.UTF_8));
+        }
+        File outputDir = TestConfigurationBuilder.getOutputDirFromProperty();
+        outputDir.mkdirs();
+        File sequentialStub = new File(outputDir, "stub-parallel-sequential.astub");
+        Files.write(
+                sequentialStub.toPath(), concatenation.toString().getBytes(StandardCharsets.UTF_8));
+        try {
+            List<String> parallel = compile("-Astubs=" + stubsOption());
+            List<String> sequential = compile("-Astubs=" + sequentialStub.getPath());
+            Assert.assertEquals(1, parallel.size());
+            Assert.assertEquals(sequential, parallel);
+        } finally {
+            sequentialStub.delete();
+        }
+    }
+
+    /**
+     * Returns the value of the {@code -Astubs} option that passes each stub file separately.
+     *
+     * @return the paths of the stub files, separated by the path separator
+     */
+    private static String stubsOption() {
+        List<String> paths = new ArrayList<>();
+        for (String stubFile : STUB_FILES) {
+            paths.add(new File(TEST_DIR, stubFile).getPath());
+        }
+        return String.join(File.pathSeparator, paths);
+    }
+
+    /**
+     * Checks the test inputs.
+     *
+     * @param stubsOption the {@code -Astubs} option
+     * @return the kind, line, and message of each diagnostic of the compilation
+     */
+    private static List<String> compile(String stubsOption) {
+        File outputDir = TestConfigurationBuilder.getOutputDirFromProperty();
+        List<String> options =
+                Arrays.asList(
+                        "-processor",
+                        SubtypingChecker.class.getName(),
+                        "-classpath",
+                        TestConfigurationBuilder.getDefaultClassPath(),
+                        "-d",
+                        outputDir.getPath(),
+                        "-Anomsgtext",
+                        QUALS,
+                        stubsOption);
+        File[] files = TEST_DIR.listFiles((dir, name) -> name.endsWith(".java"));
+        Assert.assertNotNull("cannot read " + TEST_DIR, files);
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager =
+                compiler.getStandardFileManager(null, null, null)) {
+            compiler.getTask(
+                            null,
+                            fileManager,
+                            diagnostics,
+                            options,
+                            null,
+                            fileManager.getJavaFileObjectsFromFiles(Arrays.asList(files)))
+                    .call();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        List<String> result = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            result.add(
+                    diagnostic.getKind()
+                            + " "
+                            + diagnostic.getLineNumber()
+                            + " "
+                            + diagnostic.getMessage(null));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,26 @@
+package org.checkerframework.framework.test.junit;
+
+import java.io.File;
+import java.util.List;
+import org.checkerframework.common.value.ValueChecker;
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.junit.runners.Parameterized.Parameters;
+
+/** Tests the constant value propagation type system with unions of integer ranges. */
+public class ValueIntRangeSetTest extends CheckerFrameworkPerDirectoryTest {
+
+    /** @param testFiles the files containing test code, which will be type-checked */
+    public ValueIntRangeSetTest(List<File> testFiles) {
+        super(
+                testFiles,
+                org.checkerframework.common.value.ValueChecker.class,
+                "value",
+                "-Anomsgtext",
+                "-A" + ValueChecker.MAX_INT_RANGES_OPTION + "=4");
+    }
+
+    @Parameters
+    public static String[] getTestDirs() {
+        return new String[] {"value-int-range-sets"};
+    }
+}
@@ -0,0 +1,302 @@
+package org.checkerframework.framework.test.junit.wpirunners;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.checkerframework.common.wholeprograminference.SceneArchive;
+import org.checkerframework.common.wholeprograminference.SceneMerger;
+import org.checkerframework.common.wholeprograminference.WholeProgramInferenceDriver;
+import org.checkerframework.common.wholeprograminference.WholeProgramInferenceScenesStorage;
+import org.checkerframework.framework.test.TestConfigurationBuilder;
+import org.checkerframework.framework.testchecker.wholeprograminference.WholeProgramInferenceTestChecker;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Tests whole-program inference that runs the checker several times within one JVM, the binary
+ * archive that stores its results, and the merging of results, using the test inputs in
+ * tests/whole-program-inference-driver/.
+ *
+ * <p>These tests write to {@link WholeProgramInferenceScenesStorage#JAIF_FILES_PATH}, like the
+ * other whole-program inference tests, so they are run by their own Gradle task.
+ */
+@Category(WholeProgramInferenceDriverTest.class)
+public class WholeProgramInferenceDriverTest {
+
+    /** The directory that contains the test inputs. */
+    private static final File TEST_DIR = new File("tests", "whole-program-inference-driver");
+
+    /** The directory to which whole-program inference writes its results. */
+    private static final File WPI_DIR =
+            new File(WholeProgramInferenceScenesStorage.JAIF_FILES_PATH);
+
+    /** Removes the results of earlier whole-program inference runs. */
+    @Before
+    @After
+    public void deleteResults() {
+        deleteRecursively(WPI_DIR);
+    }
+
+    /**
+     * Runs inference to a fixpoint. Reaching the fixpoint takes several rounds, and each round
+     * after the first analyzes an enum again with the symbols of a new compilation.
+     */
+    @Test
+    public void testMultiRoundFixpoint() {
+        RecordingDriver driver = new RecordingDriver(javacOptions(), topLevelSourceFiles());
+        Assert.assertTrue("no fixpoint was reached", driver.run());
+        // Each of the first rounds propagates @Sibling1 one step along the chain ChainC.c(),
+        // ChainB.Kind.code(), ChainB.b(), ChainA.a().
+        Assert.assertTrue(
+                "expected at least 3 rounds that change a Scene, got " + driver.changingRounds,
+                driver.changingRounds >= 3);
+        Assert.assertTrue(readStub("ChainA").contains("Sibling1"));
+        Assert.assertTrue(readStub("ChainB$Kind").contains("Sibling1"));
+    }
+
+    /**
+     * Runs inference to a fixpoint, and checks that the rounds after the first one only analyze
+     * the source files that depend on a Scene that changed.
+     */
+    @Test
+    public void testPartialRounds() {
+        List<File> sourceFiles = topLevelSourceFiles();
+        RecordingDriver driver = new RecordingDriver(javacOptions(), sourceFiles);
+        Assert.assertTrue("no fixpoint was reached", driver.run());
+        boolean partialRound = false;
+        for (Collection<File> filesToRecheck : driver.filesRechecked) {
+            Assert.assertTrue(sourceFiles.containsAll(filesToRecheck));
+            if (!filesToRecheck.isEmpty() && filesToRecheck.size() < sourceFiles.size()) {
+                partialRound = true;
+            }
+        }
+        Assert.assertTrue(
+                "no round analyzed part of the program: " + driver.filesRechecked, partialRound);
+        // The Scene of ChainC is complete after the first round, and ChainC.java uses no other
+        // Scene, so it is not analyzed again once the inferred types reach ChainA.
+        Collection<File> lastRecheck = driver.filesRechecked.get(driver.filesRechecked.size() - 1);
+        Assert.assertFalse(lastRecheck.contains(new File(TEST_DIR, "ChainC.java")));
+    }
+
+    /**
+     * Writes the Scenes of a program to an archive with {@code -Ainfer=binary}, reads them back in
+     * a second run, and converts the archive to .jaif files.
+     */
+    @Test
+    public void testBinaryArchiveRoundTrip() {
+        List<String> options = javacOptions();
+        options.add("-Ainfer=binary");
+        options.add("-Awarns");
+        List<File> sourceFiles = topLevelSourceFiles();
+        Assert.assertTrue(compile(options, sourceFiles));
+
+        File archiveFile = new File(WholeProgramInferenceScenesStorage.ARCHIVE_FILE_PATH);
+        SceneArchive archive = SceneArchive.open(archiveFile);
+        Assert.assertNotNull("no archive was written", archive);
+        String chainCPath = WholeProgramInferenceScenesStorage.JAIF_FILES_PATH + "ChainC.jaif";
+        String chainCJaif = archive.getJaif(chainCPath);
+        Assert.assertNotNull("no Scene for ChainC in " + archive.getJaifPaths(), chainCJaif);
+        Assert.assertTrue(chainCJaif.contains("Sibling1"));
+
+        // The second run initializes its Scenes from the archive, and then rewrites the archive.
+        Assert.assertTrue(compile(options, sourceFiles));
+        SceneArchive rewritten = SceneArchive.open(archiveFile);
+        Assert.assertNotNull(rewritten);
+        Assert.assertEquals(archive.getJaifPaths(), rewritten.getJaifPaths());
+        Assert.assertTrue(rewritten.getJaif(chainCPath).contains("Sibling1"));
+
+        File jaifDir = new File(WPI_DIR, "converted");
+        SceneArchive.main(new String[] {archiveFile.getPath(), jaifDir.getPath()});
+        Assert.assertEquals(
+                rewritten.getJaif(chainCPath), readFile(new File(jaifDir, "ChainC.jaif")));
+    }
+
+    /**
+     * Infers the field types of two versions of a class, and merges them with {@link SceneMerger}.
+     * The merged type is the least upper bound of the inferred types.
+     */
+    @Test
+    public void testSceneMerger() {
+        List<String> inputs = new ArrayList<>();
+        for (String version : Arrays.asList("merge1", "merge2")) {
+            List<String> options = javacOptions();
+            options.add("-Ainfer=jaifs");
+            options.add("-Awarns");
+            File source = new File(new File(TEST_DIR, version), "Merged.java");
+            Assert.assertTrue(compile(options, Collections.singletonList(source)));
+            File inputDir = new File(WPI_DIR, version);
+            inputDir.mkdirs();
+            try {
+                Files.move(
+                        new File(WPI_DIR, "Merged.jaif").toPath(),
+                        new File(inputDir, "Merged.jaif").toPath());
+            } catch (IOException e) {
+                throw new AssertionError("no .jaif file was written for " + source, e);
+            }
+            inputs.add(inputDir.getPath());
+        }
+        Assert.assertTrue(readFile(new File(inputs.get(0), "Merged.jaif")).contains("Sibling1"));
+        Assert.assertTrue(readFile(new File(inputs.get(1), "Merged.jaif")).contains("Sibling2"));
+
+        File outputDir = new File(WPI_DIR, "merged");
+        List<String> args = new ArrayList<>();
+        args.add("-processor");
+        args.add(WholeProgramInferenceTestChecker.class.getName());
+        args.add("-classpath");
+        args.add(TestConfigurationBuilder.getDefaultClassPath());
+        args.add("-o");
+        args.add(outputDir.getPath());
+        args.addAll(inputs);
+        SceneMerger.main(args.toArray(new String[0]));
+        // @Parent is the least upper bound of @Sibling1 and @Sibling2.
+        Assert.assertTrue(readFile(new File(outputDir, "Merged.jaif")).contains("Parent"));
+    }
+
+    /** A driver that records the rounds of inference in which a Scene changed. */
+    private static class RecordingDriver extends WholeProgramInferenceDriver {
+
+        /** The number of rounds of inference that changed a Scene. */
+        int changingRounds = 0;
+
+        /** The files to check in each round after one that changed a Scene, in order. */
+        final List<Collection<File>> filesRechecked = new ArrayList<>();
+
+        /**
+         * Creates a driver for the given program.
+         *
+         * @param javacOptions the javac options, without source files
+         * @param sourceFiles all source files of the program
+         */
+        RecordingDriver(List<String> javacOptions, List<File> sourceFiles) {
+            super(javacOptions, sourceFiles, DEFAULT_MAX_ROUNDS);
+        }
+
+        @Override
+        protected Collection<File> filesToRecheck(Set<String> changedScenes) {
+            changingRounds++;
+            Collection<File> result = super.filesToRecheck(changedScenes);
+            filesRechecked.add(result);
+            return result;
+        }
+    }
+
+    /**
+     * Returns the javac options that run the test checker.
+     *
+     * @return the javac options that run the test checker
+     */
+    private static List<String> javacOptions() {
+        File outputDir = TestConfigurationBuilder.getOutputDirFromProperty();
+        outputDir.mkdirs();
+        return new ArrayList<>(
+                Arrays.asList(
+                        "-processor",
+                        WholeProgramInferenceTestChecker.class.getName(),
+                        "-classpath",
+                        TestConfigurationBuilder.getDefaultClassPath(),
+                        "-d",
+                        outputDir.getPath(),
+                        "-Anomsgtext"));
+    }
+
+    /**
+     * Compiles the given files once, in this JVM.
+     *
+     * @param options the javac options
+     * @param sourceFiles the files to compile
+     * @return true if the compilation succeeded
+     */
+    private static boolean compile(List<String> options, List<File> sourceFiles) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager fileManager =
+                compiler.getStandardFileManager(null, null, null)) {
+            return compiler.getTask(
+                            null,
+                            fileManager,
+                            null,
+                            options,
+                            null,
+                            fileManager.getJavaFileObjectsFromFiles(sourceFiles))
+                    .call();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Returns the .java files directly in {@link #TEST_DIR}.
+     *
+     * @return the .java files directly in {@link #TEST_DIR}, in alphabetical order
+     */
+    private static List<File> topLevelSourceFiles() {
+        File[] files = TEST_DIR.listFiles((dir, name) -> name.endsWith(".java"));
+        Assert.assertNotNull("cannot read " + TEST_DIR, files);
+        Arrays.sort(files);
+        return Arrays.asList(files);
+    }
+
+    /**
+     * Returns the contents of the stub file that inference wrote for the given class.
+     *
+     * @param className the binary name of a class
+     * @return the contents of the stub file for {@code className}
+     */
+    private static String readStub(String className) {
+        File stub =
+                new File(
+                        WPI_DIR,
+                        className
+                                + "-"
+                                + WholeProgramInferenceTestChecker.class.getCanonicalName()
+                                + ".astub");
+        return readFile(stub);
+    }
+
+    /**
+     * Returns the contents of a file.
+     *
+     * @param file a file
+     * @return the contents of {@code file}
+     */
+    private static String readFile(File file) {
+        try {
+            return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new AssertionError("cannot read " + file, e);
+        }
+    }
+
+    /**
+     * Deletes a file or directory, including the contents of the directory.
+     *
+     * @param file the file or directory to delete; need not exist
+     */
+    private static void deleteRecursively(File file) {
+        if (!file.exists()) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(file.toPath())) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        } catch (IOException e) {
+            throw new AssertionError("cannot delete " + file, e);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package org.checkerframework.framework.test.junit.wpirunners;
 import java.io.File;
 import java.util.List;
 import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.checkerframework.framework.test.RunSequentially;
 import org.checkerframework.framework.testchecker.wholeprograminference.WholeProgramInferenceTestChecker;
 import org.junit.experimental.categories.Category;
 import org.junit.runners.Parameterized.Parameters;
@@ -12,6 +13,7 @@ import org.junit.runners.Parameterized.Parameters;
  * which ensures that with the annotations inserted, the errors are no longer issued.
  */
 @Category(WholeProgramInferenceJaifsTest.class)
+@RunSequentially
 public class WholeProgramInferenceJaifsValidationTest extends CheckerFrameworkPerDirectoryTest {
     /** @param testFiles the files containing test code, which will be type-checked */
     public WholeProgramInferenceJaifsValidationTest(List<File> testFiles) {
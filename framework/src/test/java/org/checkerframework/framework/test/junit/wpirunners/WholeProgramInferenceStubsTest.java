@@ -3,6 +3,7 @@ package org.checkerframework.framework.test.junit.wpirunners;
 import java.io.File;
 import java.util.List;
 import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.checkerframework.framework.test.RunSequentially;
 import org.checkerframework.framework.testchecker.wholeprograminference.WholeProgramInferenceTestChecker;
 import org.junit.experimental.categories.Category;
 import org.junit.runners.Parameterized.Parameters;
@@ -16,6 +17,7 @@ import org.junit.runners.Parameterized.Parameters;
  * the expected ones. The errors on .java files must be ignored.
  */
 @Category(WholeProgramInferenceStubsTest.class)
+@RunSequentially
 public class WholeProgramInferenceStubsTest extends CheckerFrameworkPerDirectoryTest {
 
     /** @param testFiles the files containing test code, which will be type-checked */
@@ -0,0 +1,31 @@
+import org.checkerframework.dataflow.qual.Pure;
+import org.checkerframework.dataflow.qual.SideEffectFree;
+
+// Calls the unannotated methods of PuritySummaryLib, whose purity is read from the summary file
+// that PuritySummariesTest writes when it checks the library.
+
+public class PuritySummaryClient {
+
+    @Pure
+    int callsStatic(int x) {
+        return PuritySummaryLib.increment(x);
+    }
+
+    @Pure
+    int callsFinal(PuritySummaryLib lib) {
+        return lib.getField();
+    }
+
+    @SideEffectFree
+    void callsImpure() {
+        // The summary of bump() is "none".
+        // :: error: (purity.not.sideeffectfree.call.method)
+        PuritySummaryLib.bump();
+    }
+
+    @Pure
+    int callsOverridable(PuritySummaryLib lib) {
+        // :: error: (purity.not.deterministic.not.sideeffectfree.call.method)
+        return lib.overridable();
+    }
+}
@@ -0,0 +1,30 @@
+// A library without purity annotations. PuritySummariesTest checks it with
+// -ApuritySummaryOutput, and then checks the client in ../client with the written summaries.
+
+public class PuritySummaryLib {
+
+    static int counter;
+
+    int field;
+
+    static int increment(int x) {
+        return x + 1;
+    }
+
+    static void bump() {
+        counter++;
+    }
+
+    final int getField() {
+        return field;
+    }
+
+    private int secret() {
+        return 1;
+    }
+
+    // Has no summary, because a subclass may override it with an impure method.
+    int overridable() {
+        return 1;
+    }
+}
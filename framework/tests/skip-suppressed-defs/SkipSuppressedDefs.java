@@ -0,0 +1,50 @@
+import org.checkerframework.framework.testchecker.util.Encrypted;
+
+// Every assignment of a String to an @Encrypted String is an error.  Only the errors in the
+// definitions whose warnings are not suppressed are expected.
+
+class SkipSuppressedDefs {
+    @Encrypted String encrypted;
+
+    @SuppressWarnings("subtyping")
+    void suppressed(String s) {
+        encrypted = s;
+    }
+
+    void unsuppressed(String s) {
+        // :: error: (assignment.type.incompatible)
+        encrypted = s;
+    }
+
+    @SuppressWarnings("subtyping")
+    class SuppressedNested {
+        void m(String s) {
+            encrypted = s;
+        }
+    }
+
+    class UnsuppressedNested {
+        void m(String s) {
+            // :: error: (assignment.type.incompatible)
+            encrypted = s;
+        }
+    }
+}
+
+@SuppressWarnings("subtyping")
+class SuppressedTopLevel {
+    @Encrypted String encrypted;
+
+    void m(String s) {
+        encrypted = s;
+    }
+}
+
+class UnsuppressedTopLevel {
+    @Encrypted String encrypted;
+
+    void m(String s) {
+        // :: error: (assignment.type.incompatible)
+        encrypted = s;
+    }
+}
@@ -0,0 +1,21 @@
+import org.checkerframework.framework.testchecker.util.Encrypted;
+
+// The stub files first.astub, second.astub, third.astub, and fourth.astub annotate the same
+// methods, and are parsed in parallel.  The annotation in the last stub file is applied.
+
+class StubParallel {
+    void trim(String s) {
+        // The @Encrypted in first.astub is replaced by the @Unqualified in second.astub.
+        // :: error: (assignment.type.incompatible)
+        @Encrypted String encrypted = s.trim();
+    }
+
+    void toLowerCase(String s) {
+        @Encrypted String encrypted = s.toLowerCase();
+    }
+
+    void toUpperCase(String s) {
+        // The @Unqualified in third.astub is replaced by the @Encrypted in fourth.astub.
+        @Encrypted String encrypted = s.toUpperCase();
+    }
+}
@@ -0,0 +1,46 @@
+import org.checkerframework.common.value.qual.*;
+
+public class IntRangeSets {
+
+    void lub(boolean b, @IntRange(from = 0, to = 9) int x, @IntRange(from = 100, to = 109) int y) {
+        int z;
+        if (b) {
+            z = x;
+        } else {
+            z = y;
+        }
+        // With -AmaxIntRanges=4, the values between 10 and 99 are not included.
+        @IntRangeSet(from = {0, 100}, to = {9, 109}) int precise = z;
+        @IntRange(from = 0, to = 109) int hull = z;
+        // :: error: (assignment.type.incompatible)
+        @IntRangeSet(from = {0, 101}, to = {9, 109}) int tooSmall = z;
+
+        @IntRangeSet(from = {1, 101}, to = {10, 110}) int plusOne = z + 1;
+        @IntRangeSet(from = {-109, -9}, to = {-100, 0}) int negated = -z;
+        // :: error: (assignment.type.incompatible)
+        @IntRange(from = 0, to = 9) int notSmall = z;
+    }
+
+    void refinement(@IntRangeSet(from = {0, 100}, to = {9, 109}) int z) {
+        if (z < 50) {
+            @IntRange(from = 0, to = 9) int small = z;
+        }
+    }
+
+    void values(@IntRangeSet(from = {0, 100}, to = {1, 101}) int z) {
+        // A set with few values is represented as an @IntVal.
+        @IntVal({0, 1, 100, 101}) int v = z;
+    }
+
+    void malformed() {
+        // :: error: (intrangeset.malformed)
+        @IntRangeSet(from = {0, 5}, to = {9})
+        // :: error: (assignment.type.incompatible)
+        int a = 1;
+
+        // :: error: (from.greater.than.to)
+        @IntRangeSet(from = {0, 50}, to = {9, 40})
+        // :: error: (assignment.type.incompatible)
+        int b = 1;
+    }
+}
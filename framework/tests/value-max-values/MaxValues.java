@@ -0,0 +1,21 @@
+import org.checkerframework.common.value.qual.*;
+
+public class MaxValues {
+
+    void intVals(boolean b) {
+        int x = b ? 1 : 2;
+        int y = b ? 10 : 20;
+        int z = b ? 100 : 200;
+        int w = b ? 1000 : 2000;
+        int v = b ? 10000 : 20000;
+        // With -AmaxValues=32, the 32 possible sums are not widened to an @IntRange.
+        @IntVal({
+            11111, 11112, 11121, 11122, 11211, 11212, 11221, 11222, 12111, 12112, 12121, 12122,
+            12211, 12212, 12221, 12222, 21111, 21112, 21121, 21122, 21211, 21212, 21221, 21222,
+            22111, 22112, 22121, 22122, 22211, 22212, 22221, 22222
+        })
+        int sum = x + y + z + w + v;
+        // :: error: (assignment.type.incompatible)
+        @IntVal(11111) int notOne = sum;
+    }
+}
@@ -0,0 +1,5 @@
+public class ChainA {
+    static int a() {
+        return ChainB.b();
+    }
+}
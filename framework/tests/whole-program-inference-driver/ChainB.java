@@ -0,0 +1,14 @@
+public class ChainB {
+    enum Kind {
+        FIRST,
+        SECOND;
+
+        int code() {
+            return ChainC.c();
+        }
+    }
+
+    static int b() {
+        return Kind.FIRST.code();
+    }
+}
@@ -0,0 +1,7 @@
+import org.checkerframework.framework.testchecker.wholeprograminference.qual.Sibling1;
+
+public class ChainC {
+    static int c() {
+        return (@Sibling1 int) 0;
+    }
+}
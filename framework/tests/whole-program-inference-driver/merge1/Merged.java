@@ -0,0 +1,9 @@
+import org.checkerframework.framework.testchecker.wholeprograminference.qual.Sibling1;
+
+public class Merged {
+    int field;
+
+    void set() {
+        field = (@Sibling1 int) 0;
+    }
+}
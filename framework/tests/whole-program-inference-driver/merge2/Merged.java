@@ -0,0 +1,9 @@
+import org.checkerframework.framework.testchecker.wholeprograminference.qual.Sibling2;
+
+public class Merged {
+    int field;
+
+    void set() {
+        field = (@Sibling2 int) 0;
+    }
+}